@@ -0,0 +1,78 @@
+package com.picobase.benchmark;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.persistence.repository.ModifyRequest;
+import com.picobase.spring.repository.MysqlDatabaseOperateImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PbDatabaseOperate.update 基准测试（H2 MySQL 模式）：一个事务中写入 1k 行，对比逐条执行（dbBatchSize=1）与 JDBC batch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+    private static final String INSERT_SQL = "insert into pb_batch(id,name,created) values(?,?,?)";
+
+    @Param({"1000"})
+    private int rows;
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private MysqlDatabaseOperateImpl operate;
+    private List<ModifyRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PbManager.setConfig(new PbConfig().setIsPrint(false).setDbBatchSize(batchSize));
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:pb_batch_bench;MODE=MySQL", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        operate = new MysqlDatabaseOperateImpl(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        jdbcTemplate.execute("create table pb_batch(id varchar(32) primary key, name varchar(64), created bigint)");
+
+        requests = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            requests.add(new ModifyRequest(INSERT_SQL).setArgs(new Object[]{"r" + i, "name" + i, (long) i}));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void truncate() {
+        jdbcTemplate.execute("truncate table pb_batch");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public Boolean insert() {
+        return operate.update(requests);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.picobase.benchmark;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.jwt.JWT;
+import cn.hutool.jwt.signers.JWTSignerUtil;
+import com.picobase.jwt.PbJwtTemplate;
+import com.picobase.jwt.exception.PbJwtException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PbJwtTemplate 解析 + 验签基准测试：对比每次新建签名器并完整解析（原实现）、复用签名器、命中已验证 token 缓存
+ * <p>
+ * tokens 个不同的 token 轮流解析，模拟多个在线用户；4 个线程并发执行。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private static final String KEYT = "benchmark-secret-key-0123456789";
+    private static final String LOGIN_TYPE = "login";
+
+    @Param({"1000"})
+    private int tokens;
+
+    private String[] tokenValues;
+    private PbJwtTemplate signerOnly;
+    private PbJwtTemplate cached;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        signerOnly = new PbJwtTemplate().setVerifiedCacheSize(0);
+        cached = new PbJwtTemplate().setVerifiedCacheSize(tokens * 2);
+        tokenValues = new String[tokens];
+        for (int i = 0; i < tokens; i++) {
+            tokenValues[i] = cached.createToken(LOGIN_TYPE, "user" + i, "pc", 3600, Map.of("collectionId", "c1"), KEYT);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        String next(String[] values) {
+            next = (next + 1) % values.length;
+            return values[next];
+        }
+    }
+
+    /**
+     * 原实现：每次 JWT.of + 新建 HS256 签名器 + 验签
+     */
+    @Benchmark
+    public Object legacyParse(Cursor cursor) {
+        String token = cursor.next(tokenValues);
+        JWT jwt = JWT.of(token);
+        JSONObject payloads = jwt.getPayloads();
+        if (!jwt.setSigner(JWTSignerUtil.hs256(KEYT.getBytes())).verify()) {
+            throw new PbJwtException("jwt 签名无效：" + token);
+        }
+        if (!Objects.equals(LOGIN_TYPE, payloads.getStr(PbJwtTemplate.LOGIN_TYPE))) {
+            throw new PbJwtException("jwt loginType 无效：" + token);
+        }
+        Long effTime = payloads.getLong(PbJwtTemplate.EFF, 0L);
+        if (effTime != PbJwtTemplate.NEVER_EXPIRE && effTime < System.currentTimeMillis()) {
+            throw new PbJwtException("jwt 已过期：" + token);
+        }
+        return payloads.get(PbJwtTemplate.LOGIN_ID);
+    }
+
+    /**
+     * 复用签名器，不使用已验证 token 缓存
+     */
+    @Benchmark
+    public Object reusedSigner(Cursor cursor) {
+        return signerOnly.getLoginId(cursor.next(tokenValues), LOGIN_TYPE, KEYT);
+    }
+
+    /**
+     * 命中已验证 token 缓存
+     */
+    @Benchmark
+    public Object verifiedCache(Cursor cursor) {
+        return cached.getLoginId(cursor.next(tokenValues), LOGIN_TYPE, KEYT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtParseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,150 @@
+package com.picobase.benchmark;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.logic.mapper.RecordRowMapper;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.schema.Schema;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.JsonOptions;
+import com.picobase.model.schema.fieldoptions.SelectOptions;
+import com.picobase.persistence.repository.PbRowMapper;
+import com.picobase.util.PbConstants;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecordRowMapper 基准测试：对比按列名逐行映射（LegacyRecordRowMapper）与行计划映射（RecordRowMapper）
+ * <p>
+ * 数据由 H2 生成后缓存到内存中的 CachedRowSet，因此结果只包含映射本身的开销。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecordRowMapperBenchmark {
+
+    private static final String[] FIELD_TYPES = {
+            PbConstants.FieldType.Text, PbConstants.FieldType.Number, PbConstants.FieldType.Bool,
+            PbConstants.FieldType.Date, PbConstants.FieldType.Select, PbConstants.FieldType.Json,
+    };
+
+    @Param({"10000"})
+    private int rows;
+
+    @Param({"20"})
+    private int fields;
+
+    private CollectionModel collection;
+    private CachedRowSet rowSet;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+
+        List<SchemaField> schemaFields = new ArrayList<>();
+        StringBuilder columns = new StringBuilder("\"id\" varchar(32), \"created\" timestamp, \"updated\" timestamp");
+        for (int i = 0; i < fields; i++) {
+            String type = FIELD_TYPES[i % FIELD_TYPES.length];
+            SchemaField field = new SchemaField("f" + i, type).setId("field" + i);
+            if (type.equals(PbConstants.FieldType.Select)) {
+                field.setOptions(new SelectOptions().setMaxSelect(1).setValues(List.of("a", "b", "c")));
+            } else if (type.equals(PbConstants.FieldType.Json)) {
+                field.setOptions(new JsonOptions());
+            }
+            schemaFields.add(field);
+            columns.append(", \"f").append(i).append("\" ").append(columnType(type));
+        }
+        collection = new CollectionModel();
+        collection.setName("bench");
+        collection.setType(PbConstants.CollectionType.Base);
+        collection.setSchema(Schema.newSchema(schemaFields));
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:pb_bench;MODE=MySQL")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table \"bench\"(" + columns + ")");
+            }
+            insertRows(connection);
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("select * from \"bench\"")) {
+                rowSet = RowSetProvider.newFactory().createCachedRowSet();
+                rowSet.populate(rs);
+            }
+        }
+    }
+
+    private void insertRows(Connection connection) throws SQLException {
+        StringBuilder sql = new StringBuilder("insert into \"bench\" values(?, ?, ?");
+        sql.append(", ?".repeat(fields)).append(")");
+        LocalDateTime now = LocalDateTime.now();
+        try (PreparedStatement ps = connection.prepareStatement(sql.toString())) {
+            for (int r = 0; r < rows; r++) {
+                ps.setString(1, "r" + r);
+                ps.setObject(2, now);
+                ps.setObject(3, now);
+                for (int i = 0; i < fields; i++) {
+                    ps.setObject(i + 4, columnValue(FIELD_TYPES[i % FIELD_TYPES.length], r, now));
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static String columnType(String type) {
+        return switch (type) {
+            case PbConstants.FieldType.Number -> "double";
+            case PbConstants.FieldType.Bool -> "boolean";
+            case PbConstants.FieldType.Date -> "timestamp";
+            default -> "varchar(255)";
+        };
+    }
+
+    private static Object columnValue(String type, int row, LocalDateTime now) {
+        return switch (type) {
+            case PbConstants.FieldType.Number -> (double) row;
+            case PbConstants.FieldType.Bool -> row % 2 == 0;
+            case PbConstants.FieldType.Date -> now;
+            case PbConstants.FieldType.Select -> "b";
+            case PbConstants.FieldType.Json -> "{\"row\":" + row + "}";
+            default -> "text value " + row;
+        };
+    }
+
+    private void map(PbRowMapper<RecordModel> mapper, Blackhole bh) throws SQLException {
+        rowSet.beforeFirst();
+        int rowNum = 0;
+        while (rowSet.next()) {
+            bh.consume(mapper.mapRow(rowSet, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public void legacyMapper(Blackhole bh) throws SQLException {
+        map(new LegacyRecordRowMapper(collection), bh);
+    }
+
+    @Benchmark
+    public void rowPlanMapper(Blackhole bh) throws SQLException {
+        map(new RecordRowMapper(collection), bh);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecordRowMapperBenchmark.class.getSimpleName()).build()).run();
+    }
+}
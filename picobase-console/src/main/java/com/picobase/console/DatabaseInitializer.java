@@ -2,6 +2,7 @@ package com.picobase.console;
 
 import com.picobase.PbManager;
 import com.picobase.PbUtil;
+import com.picobase.logic.mapper.CollectionMapper;
 import com.picobase.model.CollectionModel;
 import com.picobase.persistence.repository.StorageContextHolder;
 import org.springframework.boot.CommandLineRunner;
@@ -19,6 +20,8 @@ public class DatabaseInitializer implements CommandLineRunner {
         PbManager.getLog().info("Initializing PB System Tables ...");
         createPbTables();
         initialTableData();
+        CollectionMapper collectionMapper = PbUtil.findMapper(CollectionModel.class);
+        collectionMapper.warmUpCatalog(); // 一次加载全部 Collection
     }
 
 
@@ -82,7 +85,7 @@ public class DatabaseInitializer implements CommandLineRunner {
                     level   decimal      default 0                 null,
                     rowid   decimal(13)  default 0                 null
                 )
-                    engine = MyISAM;
+                    engine = InnoDB;
                 """;
 
         String userTable = """
@@ -122,13 +125,66 @@ public class DatabaseInitializer implements CommandLineRunner {
                                 
                 """;
 
+        String relationsTable = """
+                        create table if not exists pb_relations
+                        (
+                            collectionId varchar(255) not null,
+                            fieldId      varchar(255) not null,
+                            recordId     varchar(255) not null,
+                            relId        varchar(255) not null,
+                            primary key (collectionId, fieldId, recordId, relId),
+                            index idx_pb_relations_rel (collectionId, fieldId, relId)
+                        );
+                                
+                                
+                """;
+
+        String catalogTable = """
+                        create table if not exists pb_catalog
+                        (
+                            name    varchar(100) not null
+                                primary key,
+                            version bigint default 0 not null
+                        );
+                                
+                                
+                """;
+
+        String logStatsTable = """
+                        create table if not exists pb_log_stats
+                        (
+                            date  datetime not null
+                                primary key,
+                            total int default 0 not null
+                        );
+                                
+                                
+                """;
+
         StorageContextHolder.addSqlContext(adminTable);
         StorageContextHolder.addSqlContext(collectionTable);
         StorageContextHolder.addSqlContext(logTable);
         StorageContextHolder.addSqlContext(userTable);
         StorageContextHolder.addSqlContext(externalAuthsTable);
+        StorageContextHolder.addSqlContext(relationsTable);
+        StorageContextHolder.addSqlContext(catalogTable);
+        StorageContextHolder.addSqlContext(logStatsTable);
 
         PbManager.getPbDatabaseOperate().blockUpdate(); //先创建表
+        convertLogTableToInnoDB();
+    }
+
+    /**
+     * 旧版本以 MyISAM 创建 pb_log，日志与小时统计无法在同一事务中提交，启动时转换为 InnoDB
+     */
+    private static void convertLogTableToInnoDB() {
+        String engine = PbManager.getPbDatabaseOperate().queryOne(
+                "select engine from information_schema.tables where table_schema = database() and table_name = 'pb_log'", String.class);
+        if ("MyISAM".equalsIgnoreCase(engine)) {
+            PbManager.getLog().info("Converting pb_log to InnoDB ...");
+            StorageContextHolder.addSqlContext("alter table pb_log engine = InnoDB");
+            PbManager.getPbDatabaseOperate().blockUpdate();
+        }
     }
 
     /**
@@ -150,6 +206,13 @@ public class DatabaseInitializer implements CommandLineRunner {
             StorageContextHolder.addSqlContext(insertLogCollection);
         }
 
+        // 小时统计表为空时（首次升级）根据已有日志回填
+        String backfillLogStats = """
+                INSERT INTO pb_log_stats (date, total) SELECT DATE_FORMAT(created, '%Y-%m-%d %H:00:00'), count(id) FROM pb_log
+                WHERE NOT EXISTS (SELECT 1 FROM pb_log_stats) GROUP BY DATE_FORMAT(created, '%Y-%m-%d %H:00:00');
+                """;
+        StorageContextHolder.addSqlContext(backfillLogStats);
+
         PbManager.getPbDatabaseOperate().blockUpdate();
     }
 }
@@ -8,8 +8,10 @@ import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.picobase.PbManager;
 import com.picobase.PbUtil;
 import com.picobase.console.config.PbConsoleConfig;
-import com.picobase.console.eventhandler.CollectionEventHandler;
+import com.picobase.console.eventhandler.AdminEventHandler;
 import com.picobase.console.eventhandler.LogHandler;
+import com.picobase.console.eventhandler.RealtimeEventHandler;
+import com.picobase.console.realtime.RealtimeBroker;
 import com.picobase.console.json.LocalDateTimeDeserializer;
 import com.picobase.console.json.LocalDateTimeSerializer;
 import com.picobase.console.json.RecordSerializer;
@@ -52,7 +54,10 @@ import static com.picobase.util.PbConstants.LOGIN_TYPE_ADMIN;
         LogController.class,
         FileController.class,
         LogHandler.class,
-        CollectionEventHandler.class
+        AdminEventHandler.class,
+        RealtimeBroker.class,
+        RealtimeController.class,
+        RealtimeEventHandler.class
 
 })
 public class PbConsoleInject {
@@ -15,6 +15,7 @@ import com.picobase.persistence.repository.PbDatabaseOperate;
 import com.picobase.router.PbHttpMethod;
 import com.picobase.router.PbRouter;
 import com.picobase.util.PbConstants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -65,6 +66,8 @@ public class PbConsoleRegister {
                 //Admin 登录接口
                 .addExclude("/api/admins/auth-with-password")
                 .addExclude("/api/collections/*/auth-with-password")
+                // realtime 连接（EventSource 无法携带认证头，认证信息在设置订阅时获取）
+                .addExclude("/api/realtime")
                 // 前置函数：在每次认证函数之前执行
                 .setBeforeAuth(obj -> {
                     PbHolder.getResponse()
@@ -111,12 +114,12 @@ public class PbConsoleRegister {
 
 
     /**
-     * 用于记录日志的过滤器
+     * 用于记录日志的过滤器（开发环境或开启 logEnabled 时生效）
      *
      * @return LogFilter
      */
     @Bean
-    @ConditionalOnProperty(CONFIG_PREFIX + ".isDev")
+    @ConditionalOnExpression("${" + CONFIG_PREFIX + ".isDev:false} or ${" + CONFIG_PREFIX + ".logEnabled:false}")
     LogFilter getLogFilter() {
         return new LogFilter();
     }
@@ -1,8 +1,14 @@
 package com.picobase.console;
 
 import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.filter.TokenFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.picobase.console.json.FieldsFilterGenerator;
+import com.picobase.console.json.FieldsTokenFilter;
 import com.picobase.console.json.LocalDateTimeDeserializer;
 import com.picobase.console.json.LocalDateTimeSerializer;
 import com.picobase.console.json.RecordSerializer;
@@ -12,6 +18,7 @@ import com.picobase.console.web.interceptor.LoadCollectionInterceptor;
 import com.picobase.context.PbHolder;
 import com.picobase.context.model.PbRequest;
 import com.picobase.logic.FieldsFilterProcessor;
+import com.picobase.logic.FieldsFilterProcessor.FieldsNode;
 import com.picobase.model.AdminModel;
 import com.picobase.model.RecordModel;
 import com.picobase.model.schema.Schema;
@@ -21,16 +28,19 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.StringHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 
 import static com.picobase.util.PbConstants.QueryParam.FIELDS;
 
@@ -58,7 +68,22 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
         MappingJackson2HttpMessageConverter converter = new FieldsFilterHttpMessageConverter();
+        converter.setObjectMapper(newObjectMapper());
+        /**
+         * converters 会for循环查找应该由哪一个convert进行处理， 然后调用直接返回， 自定义的converter如果放在最后会得不到执行
+         *
+         * AbstractMessageConverterMethodProcessor.writeWithMessageConverters
+         */
+        converters.add(0, converter);
 
+        // SseEmitter 以 text/plain 写出 SSE 事件帧（realtime）
+        converters.add(new StringHttpMessageConverter(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 创建与 HTTP 响应一致的 ObjectMapper（mixin、LocalDateTime 与 RecordModel 序列化）
+     */
+    public static ObjectMapper newObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
 
         //配置jackson mixin 不污染影响 pb core中的实体
@@ -70,13 +95,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
         simpleModule.addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer());
         simpleModule.addSerializer(RecordModel.class, new RecordSerializer());
         objectMapper.registerModule(simpleModule);
-        converter.setObjectMapper(objectMapper);
-        /**
-         * converters 会for循环查找应该由哪一个convert进行处理， 然后调用直接返回， 自定义的converter如果放在最后会得不到执行
-         *
-         * AbstractMessageConverterMethodProcessor.writeWithMessageConverters
-         */
-        converters.add(0, converter);
+        return objectMapper;
     }
 
     /**
@@ -97,6 +116,9 @@ public class WebMvcConfig implements WebMvcConfigurer {
 
 }
 
+/**
+ * 存在 fields 查询参数时，按解析后的字段树（按 fields 字符串缓存）在序列化时直接过滤输出，只需序列化一次
+ */
 class FieldsFilterHttpMessageConverter extends MappingJackson2HttpMessageConverter {
 
     /**
@@ -114,26 +136,24 @@ class FieldsFilterHttpMessageConverter extends MappingJackson2HttpMessageConvert
 
         PbRequest request = PbHolder.getRequest();
         String fields = request.getParameter(FIELDS);
-        if (StrUtil.isEmpty(fields)) { //无需 fields 过滤 ,直接 response
+        FieldsNode parsedFields = StrUtil.isEmpty(fields) ? null : FieldsFilterProcessor.compileFields(fields);
+        if (parsedFields == null || parsedFields.isEmpty()) { //无需 fields 过滤 ,直接 response
             super.writeInternal(object, null, outputMessage); //super 的调用 必须是 三个参数的 writeInternal ， 否则会递归死循环
             return;
         }
 
-        // 存在 fields 过滤
-        ObjectMapper mapper = super.getObjectMapper();
-        String encoded = mapper.writeValueAsString(object);
-        Map decoded = mapper.readValue(encoded, Map.class);
-
-        if (object instanceof Page) {
-            Object list = decoded.get("items");
-            FieldsFilterProcessor.pickFields(list, fields);
-        } else {
-            FieldsFilterProcessor.pickFields(decoded, fields);
+        // 存在 fields 过滤，分页结果只过滤 items
+        TokenFilter filter = object instanceof Page ? FieldsTokenFilter.forPage(parsedFields) : new FieldsTokenFilter(parsedFields);
 
+        ObjectMapper mapper = super.getObjectMapper();
+        JsonEncoding encoding = getJsonEncoding(outputMessage.getHeaders().getContentType());
+        OutputStream outputStream = StreamUtils.nonClosing(outputMessage.getBody());
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream, encoding)) {
+            mapper.writeValue(new FieldsFilterGenerator(generator, filter), object);
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotWritableException("Could not write JSON: " + ex.getOriginalMessage(), ex);
         }
-        super.writeInternal(decoded, null, outputMessage); //super 的调用 必须是 三个参数的 writeInternal ， 否则会递归死循环
-
     }
 
 
-}
\ No newline at end of file
+}
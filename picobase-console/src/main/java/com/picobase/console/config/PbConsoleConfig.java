@@ -40,6 +40,61 @@ public class PbConsoleConfig {
     private boolean isDev = false;
 
 
+    /**
+     * realtime 每个连接待发送消息缓冲区的大小，缓冲区满时（客户端消费过慢）断开该连接
+     */
+    private int realtimeBufferSize = 256;
+
+    /**
+     * realtime 发送线程数，所有连接共享
+     */
+    private int realtimeSenderThreads = 4;
+
+    /**
+     * realtime 连接的空闲超时时间（单位: 毫秒），超时后断开，由客户端重新连接
+     */
+    private long realtimeIdleTimeout = 5 * 60 * 1000;
+
+    /**
+     * realtime 单条消息写出的超时时间（单位: 毫秒），超时的连接视为已停滞并断开，小于等于 0 时不检查
+     */
+    private long realtimeSendTimeout = 10 * 1000;
+
+    /**
+     * 是否在生产环境记录请求日志（开发环境 isDev=true 时始终记录）
+     */
+    private boolean logEnabled = false;
+
+    /**
+     * 请求日志缓冲区大小（向上取整为 2 的幂），缓冲区满时丢弃新的日志并计数
+     */
+    private int logBufferSize = 16384;
+
+    /**
+     * 请求日志每批写入的条数，缓冲区中的日志达到该数量时立即写入
+     */
+    private int logBatchSize = 500;
+
+    /**
+     * 请求日志最长写入间隔（单位: 毫秒），未达到批量大小时按该间隔写入
+     */
+    private long logFlushInterval = 1000;
+
+    /**
+     * 正常请求（level=0）日志的采样率，取值 0 ~ 1，错误日志始终记录
+     */
+    private double logSampleRate = 1.0;
+
+    /**
+     * 请求日志本地暂存目录，数据库写入失败的日志暂存到该目录，恢复后重新写入；为空时不暂存
+     */
+    private String logSpoolDir;
+
+    /**
+     * 本地文件系统缓存的文件属性（.attrs）条数
+     */
+    private int fileAttrsCacheSize = 10000;
+
     private S3Config s3Config;
     private String dataDirPath = Paths.get(System.getProperty("user.dir"), defaultDataDir, localStorageDirName).toString();
 
@@ -105,6 +160,105 @@ public class PbConsoleConfig {
     }
 
 
+    public int getRealtimeBufferSize() {
+        return realtimeBufferSize;
+    }
+
+    public PbConsoleConfig setRealtimeBufferSize(int realtimeBufferSize) {
+        this.realtimeBufferSize = realtimeBufferSize;
+        return this;
+    }
+
+    public int getRealtimeSenderThreads() {
+        return realtimeSenderThreads;
+    }
+
+    public PbConsoleConfig setRealtimeSenderThreads(int realtimeSenderThreads) {
+        this.realtimeSenderThreads = realtimeSenderThreads;
+        return this;
+    }
+
+    public long getRealtimeIdleTimeout() {
+        return realtimeIdleTimeout;
+    }
+
+    public PbConsoleConfig setRealtimeIdleTimeout(long realtimeIdleTimeout) {
+        this.realtimeIdleTimeout = realtimeIdleTimeout;
+        return this;
+    }
+
+    public long getRealtimeSendTimeout() {
+        return realtimeSendTimeout;
+    }
+
+    public PbConsoleConfig setRealtimeSendTimeout(long realtimeSendTimeout) {
+        this.realtimeSendTimeout = realtimeSendTimeout;
+        return this;
+    }
+
+    public boolean isLogEnabled() {
+        return logEnabled;
+    }
+
+    public PbConsoleConfig setLogEnabled(boolean logEnabled) {
+        this.logEnabled = logEnabled;
+        return this;
+    }
+
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    public PbConsoleConfig setLogBufferSize(int logBufferSize) {
+        this.logBufferSize = logBufferSize;
+        return this;
+    }
+
+    public int getLogBatchSize() {
+        return logBatchSize;
+    }
+
+    public PbConsoleConfig setLogBatchSize(int logBatchSize) {
+        this.logBatchSize = logBatchSize;
+        return this;
+    }
+
+    public long getLogFlushInterval() {
+        return logFlushInterval;
+    }
+
+    public PbConsoleConfig setLogFlushInterval(long logFlushInterval) {
+        this.logFlushInterval = logFlushInterval;
+        return this;
+    }
+
+    public double getLogSampleRate() {
+        return logSampleRate;
+    }
+
+    public PbConsoleConfig setLogSampleRate(double logSampleRate) {
+        this.logSampleRate = logSampleRate;
+        return this;
+    }
+
+    public String getLogSpoolDir() {
+        return logSpoolDir;
+    }
+
+    public PbConsoleConfig setLogSpoolDir(String logSpoolDir) {
+        this.logSpoolDir = logSpoolDir;
+        return this;
+    }
+
+    public int getFileAttrsCacheSize() {
+        return fileAttrsCacheSize;
+    }
+
+    public PbConsoleConfig setFileAttrsCacheSize(int fileAttrsCacheSize) {
+        this.fileAttrsCacheSize = fileAttrsCacheSize;
+        return this;
+    }
+
     public S3Config getS3Config() {
         return s3Config;
     }
@@ -123,6 +277,17 @@ public class PbConsoleConfig {
                 ", include='" + include + '\'' +
                 ", exclude='" + exclude + '\'' +
                 ", isDev=" + isDev +
+                ", realtimeBufferSize=" + realtimeBufferSize +
+                ", realtimeSenderThreads=" + realtimeSenderThreads +
+                ", realtimeIdleTimeout=" + realtimeIdleTimeout +
+                ", realtimeSendTimeout=" + realtimeSendTimeout +
+                ", logEnabled=" + logEnabled +
+                ", logBufferSize=" + logBufferSize +
+                ", logBatchSize=" + logBatchSize +
+                ", logFlushInterval=" + logFlushInterval +
+                ", logSampleRate=" + logSampleRate +
+                ", logSpoolDir='" + logSpoolDir + '\'' +
+                ", fileAttrsCacheSize=" + fileAttrsCacheSize +
                 ", s3Config=" + s3Config +
                 ", dataDirPath='" + dataDirPath + '\'' +
                 '}';
@@ -0,0 +1,30 @@
+package com.picobase.console.eventhandler;
+
+import com.picobase.PbManager;
+import com.picobase.annotation.PbEventReceiver;
+import com.picobase.model.event.AdminDeleteEvent;
+import com.picobase.model.event.AdminUpdateEvent;
+import com.picobase.model.event.TimePosition;
+import org.springframework.stereotype.Service;
+
+/**
+ * 管理员修改或删除后，使登录主体缓存中的管理员失效
+ */
+@Service
+public class AdminEventHandler {
+
+    @PbEventReceiver
+    public void onAdminUpdateEvent(AdminUpdateEvent event) {
+        if (event.timePosition == TimePosition.AFTER) {
+            PbManager.getPbAuthPrincipalCache().invalidateAdmin(event.admin.getId());
+        }
+    }
+
+    @PbEventReceiver
+    public void onAdminDeleteEvent(AdminDeleteEvent event) {
+        if (event.timePosition == TimePosition.AFTER) {
+            PbManager.getPbAuthPrincipalCache().invalidateAdmin(event.admin.getId());
+        }
+    }
+
+}
@@ -1,72 +1,227 @@
 package com.picobase.console.eventhandler;
 
 import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.StrUtil;
 import com.picobase.PbManager;
 import com.picobase.annotation.PbEventReceiver;
 import com.picobase.annotation.PbScheduler;
+import com.picobase.console.config.PbConsoleConfig;
+import com.picobase.console.log.LogSpool;
+import com.picobase.console.log.MpscRingBuffer;
 import com.picobase.console.mapper.LogMapper;
 import com.picobase.console.model.LogModel;
 import com.picobase.log.PbLog;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static com.picobase.console.PbConsoleRegister.CONFIG_PREFIX;
 
 /**
- * 日志处理组件,仅适用于开发环境调试，生产环境会存在分布式问题且会影响系统性能
+ * 请求日志处理组件，开发环境（isDev）或开启 logEnabled 时生效
+ * <p>
+ * 请求线程只把日志放入无锁环形缓冲区（满时丢弃并计数，不会阻塞请求），由单独的写入线程按批量大小或时间间隔批量写入数据库。
+ * 正常请求的日志可以按 logSampleRate 采样，错误日志始终记录；配置 logSpoolDir 后，数据库写入失败的日志暂存到本地文件，恢复后重新写入。
+ * </p>
  */
 @Service
-@ConditionalOnProperty(CONFIG_PREFIX + ".isDev")
+@ConditionalOnExpression("${" + CONFIG_PREFIX + ".isDev:false} or ${" + CONFIG_PREFIX + ".logEnabled:false}")
 public class LogHandler {
 
-    private static final int BATCH_SIZE = 1000;
-    private static final int CAPACITY = 10000;
+    /**
+     * 忽略 log 相关的请求
+     */
+    private static final Pattern IGNORED = Pattern.compile(".*/(api/logs|console/).*");
+
+    private final LogMapper logMapper;
+    private final PbLog log = PbManager.getLog();
 
-    private final Queue<LogModel> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final MpscRingBuffer<LogModel> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final double sampleRate;
+    private final LogSpool spool;
+    private final Thread writer;
+    private volatile boolean running = true;
 
-    private LogMapper logMapper;
-    private PbLog log = PbManager.getLog();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampledOut = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long reportedDropped;
 
 
-    LogHandler(LogMapper logMapper) {
+    LogHandler(LogMapper logMapper, PbConsoleConfig config) {
         this.logMapper = logMapper;
+        this.buffer = new MpscRingBuffer<>(config.getLogBufferSize());
+        this.batchSize = Math.max(1, config.getLogBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(10, config.getLogFlushInterval()));
+        this.sampleRate = config.getLogSampleRate();
+        this.spool = StrUtil.isBlank(config.getLogSpoolDir()) ? null : new LogSpool(Paths.get(config.getLogSpoolDir()));
+
+        this.writer = new Thread(this::runWriter, "pb-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
     }
 
-    @PbEventReceiver(isAsync = true)
+    @PbEventReceiver
     public void onLogModel(LogModel log) {
-        if (log.getMessage().matches(".*/(api/logs|console/).*")) { //忽略 log 相关的请求
+        if (IGNORED.matcher(log.getMessage()).matches()) {
+            return;
+        }
+        if (log.getLevel() == 0 && sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.incrementAndGet();
             return;
         }
 
         log.setRowid(DateUtil.date(log.getCreated()).getTime());
-        queue.offer(log);
+        if (!buffer.offer(log)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
     }
 
-    /**
-     * 每三十秒批量保存日志数据
-     */
-    @PbScheduler(cron = "0/30 * * * * ?")
-    public void cronBatchSaveLogs() {
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getSampledOut() {
+        return sampledOut.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getSpooled() {
+        return spooled.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getPending() {
+        return buffer.size();
+    }
+
+    // ------------------------ 写入线程
 
-        List<LogModel> list = new ArrayList<>();
+    private void runWriter() {
+        List<LogModel> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + flushIntervalNanos;
         while (true) {
-            LogModel log = queue.poll();
-            if (log == null || list.size() == BATCH_SIZE) {
-                break;
+            boolean stopping = !running;
+            buffer.drainTo(batch, batchSize - batch.size());
+            long now = System.nanoTime();
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (now - deadline >= 0 || stopping))) {
+                flush(batch);
+                batch.clear();
+                deadline = now + flushIntervalNanos;
+                continue;
+            }
+            if (stopping) {
+                return;
+            }
+            if (batch.isEmpty()) {
+                deadline = now + flushIntervalNanos;
+            }
+            LockSupport.parkNanos(this, Math.max(0, deadline - now));
+        }
+    }
+
+    private void flush(List<LogModel> batch) {
+        if (save(batch)) {
+            written.addAndGet(batch.size());
+            replaySpool();
+        } else if (spool != null) {
+            try {
+                spool.append(batch);
+                spooled.addAndGet(batch.size());
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                log.error("Failed to spool {} logs: {}", batch.size(), e.getMessage());
             }
-            list.add(log);
+        } else {
+            failed.addAndGet(batch.size());
+        }
+
+        long droppedTotal = dropped.get();
+        if (droppedTotal > reportedDropped) {
+            log.warn("Log buffer is full, {} logs dropped since the last report (total: {})", droppedTotal - reportedDropped, droppedTotal);
+            reportedDropped = droppedTotal;
         }
-        if (list.isEmpty()) {
+    }
+
+    private boolean save(List<LogModel> batch) {
+        try {
+            return logMapper.batchSave(batch);
+        } catch (Exception e) {
+            log.error("Failed to save {} logs: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void replaySpool() {
+        if (spool == null || spool.isEmpty()) {
             return;
         }
-        log.debug("cronBatchSaveLogs log size: {}", list.size());
-        logMapper.batchSave(list);
+        long deadLettered = spool.getDeadLettered();
+        try {
+            int replayed = spool.replay(batchSize, this::saveReplayed);
+            written.addAndGet(replayed);
+            spooled.addAndGet(-replayed);
+        } catch (Exception e) {
+            log.error("Failed to replay the log spool: {}", e.getMessage());
+        }
+        long dead = spool.getDeadLettered() - deadLettered;
+        if (dead > 0) {
+            spooled.addAndGet(-dead);
+            failed.addAndGet(dead);
+            log.warn("{} spooled logs could not be saved, moved them to {}", dead, LogSpool.DEAD_FILE_NAME);
+        }
+    }
+
+    /**
+     * 重放的日志可能在上次写入时已经保存（例如提交后连接超时），已存在的行视为写入成功
+     */
+    private boolean saveReplayed(List<LogModel> batch) {
+        List<String> existing;
+        try {
+            existing = logMapper.findExistingIds(batch.stream().map(LogModel::getId).collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.error("Failed to check {} spooled logs: {}", batch.size(), e.getMessage());
+            return false;
+        }
+        if (existing.isEmpty()) {
+            return save(batch);
+        }
+        Set<String> saved = new HashSet<>(existing);
+        return save(batch.stream().filter(l -> !saved.contains(l.getId())).collect(Collectors.toList()));
     }
 
     /**
@@ -0,0 +1,105 @@
+package com.picobase.console.eventhandler;
+
+import com.picobase.PbManager;
+import com.picobase.annotation.PbEventReceiver;
+import com.picobase.console.realtime.RealtimeBroker;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.event.RecordCreateEvent;
+import com.picobase.model.event.RecordDeleteEvent;
+import com.picobase.model.event.RecordUpdateEvent;
+import com.picobase.model.event.RecordsBulkDeleteEvent;
+import com.picobase.model.event.TimePosition;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将记录的新增、修改、删除推送给 realtime 订阅者
+ * <p>
+ * 消息在事务提交后才发送，事务回滚时丢弃。
+ * </p>
+ */
+@Service
+public class RealtimeEventHandler {
+
+    /**
+     * 删除前检查访问权限（删除后记录已不存在），删除后再发送：collectionId/recordId --> 待发送的消息
+     */
+    private final ThreadLocal<Map<String, List<RealtimeBroker.Delivery>>> pendingDeletes = ThreadLocal.withInitial(HashMap::new);
+
+    private final RealtimeBroker broker;
+
+    public RealtimeEventHandler(RealtimeBroker broker) {
+        this.broker = broker;
+    }
+
+    @PbEventReceiver
+    public void onRecordCreateEvent(RecordCreateEvent event) {
+        if (event.timePosition == TimePosition.AFTER && broker.hasSubscribers()) {
+            publishAfterCommit("create", event.collection, event.record);
+        }
+    }
+
+    @PbEventReceiver
+    public void onRecordUpdateEvent(RecordUpdateEvent event) {
+        if (event.timePosition == TimePosition.AFTER && broker.hasSubscribers()) {
+            publishAfterCommit("update", event.collection, event.record);
+        }
+    }
+
+    private void publishAfterCommit(String action, CollectionModel collection, RecordModel record) {
+        // copy now, the record may be changed by the caller before the commit
+        RecordModel copy = record.expandCopy();
+        PbManager.getPbDatabaseOperate().runAfterCommit(() -> broker.publish(action, collection, List.of(copy)));
+    }
+
+    @PbEventReceiver
+    public void onRecordDeleteEvent(RecordDeleteEvent event) {
+        if (event.timePosition == TimePosition.BEFORE) {
+            // a new top-level delete (the bulk events are the cascades nested in it), drop leftovers of failed deletes
+            pendingDeletes.get().clear();
+        }
+        onDelete(event.collection, List.of(event.record), event.timePosition);
+    }
+
+    @PbEventReceiver
+    public void onRecordsBulkDeleteEvent(RecordsBulkDeleteEvent event) {
+        onDelete(event.collection, event.records, event.timePosition);
+    }
+
+    private void onDelete(CollectionModel collection, List<RecordModel> records, TimePosition timePosition) {
+        Map<String, List<RealtimeBroker.Delivery>> pending = pendingDeletes.get();
+
+        if (timePosition == TimePosition.BEFORE) {
+            if (!broker.hasSubscribers()) {
+                return;
+            }
+            for (RealtimeBroker.Delivery delivery : broker.prepare("delete", collection, records)) {
+                pending.computeIfAbsent(key(collection, delivery.getRecordId()), k -> new ArrayList<>()).add(delivery);
+            }
+            return;
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<RealtimeBroker.Delivery> deliveries = new ArrayList<>();
+        for (RecordModel record : records) {
+            List<RealtimeBroker.Delivery> prepared = pending.remove(key(collection, record.getId()));
+            if (prepared != null) {
+                deliveries.addAll(prepared);
+            }
+        }
+        if (!deliveries.isEmpty()) {
+            PbManager.getPbDatabaseOperate().runAfterCommit(() -> broker.deliver(deliveries));
+        }
+    }
+
+    private static String key(CollectionModel collection, String recordId) {
+        return collection.getId() + "/" + recordId;
+    }
+}
@@ -3,6 +3,7 @@ package com.picobase.console.filesystem;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.io.IoUtil;
+import cn.hutool.core.util.IdUtil;
 import com.picobase.context.PbHolder;
 import com.picobase.context.model.PbRequest;
 import com.picobase.context.model.PbResponse;
@@ -13,10 +14,18 @@ import net.coobird.thumbnailator.Thumbnails;
 import net.coobird.thumbnailator.geometry.Positions;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.regex.Matcher;
 
 import static com.picobase.persistence.resolver.ListUtil.existInArray;
@@ -48,7 +57,10 @@ public abstract class AbstractFileSystem implements PbFileSystem {
         }
 
         PbFile file = this.getFile(originalKey);
-        BufferedImage originalImage = ImageIO.read(file.getContent());
+        BufferedImage originalImage;
+        try (InputStream contentStream = file.getContent()) {
+            originalImage = readImage(contentStream, width, height);
+        }
 
         BufferedImage thumbImg;
         if (width == 0 || height == 0) {
@@ -98,14 +110,55 @@ public abstract class AbstractFileSystem implements PbFileSystem {
                 .lastModifiedTime(System.currentTimeMillis()).build(), thumbKey);
     }
 
+    /**
+     * 解码原图，原图远大于缩略图时按比例跳过像素解码（setSourceSubsampling），避免完整解码大图
+     */
+    private static BufferedImage readImage(InputStream contentStream, int width, int height) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(contentStream)) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new BadRequestException("Unsupported image format.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsampling(reader.getWidth(0), reader.getHeight(0), width, height);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 解码时的像素跳过步长，保留至少两倍于缩略图的分辨率供后续缩放使用（0 代表该方向不限制）
+     */
+    static int subsampling(int sourceWidth, int sourceHeight, int width, int height) {
+        double scale = Double.MAX_VALUE;
+        if (width > 0) {
+            scale = Math.min(scale, sourceWidth / (2.0 * width));
+        }
+        if (height > 0) {
+            scale = Math.min(scale, sourceHeight / (2.0 * height));
+        }
+        return scale == Double.MAX_VALUE ? 1 : Math.max(1, (int) scale);
+    }
+
     // Serve serves the file at fileKey location to an HTTP response.
     //
     // If the `download` query parameter is used the file will be always served for
     // download no matter of its type (aka. with "Content-Disposition: attachment").
+    //
+    // Conditional requests (If-None-Match / If-Modified-Since) are answered with 304
+    // and byte ranges (single or multipart) with 206, without reading the file content.
     public void serve(String servedPath, String servedName) throws Exception {
         PbRequest request = PbHolder.getRequest();
         PbResponse response = PbHolder.getResponse();
-        PbFile file = this.getFile(servedPath);
+        PbFile file = this.stat(servedPath);
 
         boolean forceAttachment = false;
         String rawForceAttachment = request.getParameter(FORCE_ATTACHMENT_PARAM);
@@ -128,8 +181,9 @@ public abstract class AbstractFileSystem implements PbFileSystem {
             extContentType = manualExtensionContentType;
         }
 
+        String etag = etag(file);
+
         response.setHeader("Content-Disposition", disposition + "; filename=\"" + servedName + "\"");
-        response.setContentType(extContentType);
         response.setHeader("Content-Security-Policy", "default-src 'none'; media-src 'self'; style-src 'unsafe-inline'; sandbox");
 
         // set a default cache-control header
@@ -138,9 +192,166 @@ public abstract class AbstractFileSystem implements PbFileSystem {
         response.setHeader("Cache-Control", "max-age=2592000, stale-while-revalidate=86400");
 
         response.setDateHeader("Last-Modified", file.getLastModifiedTime());
+        response.setHeader("ETag", etag);
+        response.setHeader("Accept-Ranges", "bytes");
 
-        try (InputStream contentStream = file.getContent()) {
-            IoUtil.copy(contentStream, response.getOutputStream());
+        if (isNotModified(request, etag, file.getLastModifiedTime())) {
+            response.setStatus(304);
+            return;
+        }
+
+        long size = file.getSize();
+        List<ByteRange> ranges = null;
+        if (isRangeApplicable(request, etag, file.getLastModifiedTime())) {
+            ranges = ByteRange.parse(request.getHeader("Range"), size);
+            if (ranges != null && !ranges.isEmpty() && ByteRange.exceeds(ranges, size)) {
+                ranges = null;
+            }
+        }
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        if (ranges == null) {
+            response.setContentType(extContentType);
+            response.setHeader("Content-Length", String.valueOf(size));
+            if (!head) {
+                this.writeContent(servedPath, 0, size, response);
+            }
+            return;
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(416);
+            response.setHeader("Content-Range", "bytes */" + size);
+            return;
+        }
+
+        response.setStatus(206);
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            response.setContentType(extContentType);
+            response.setHeader("Content-Range", range.toContentRange(size));
+            response.setHeader("Content-Length", String.valueOf(range.getLength()));
+            if (!head) {
+                this.writeContent(servedPath, range.getStart(), range.getLength(), response);
+            }
+            return;
+        }
+
+        String boundary = IdUtil.fastSimpleUUID();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        if (head) {
+            return;
+        }
+        OutputStream out = response.getOutputStream();
+        for (ByteRange range : ranges) {
+            out.write(("\r\n--" + boundary + "\r\nContent-Type: " + extContentType +
+                    "\r\nContent-Range: " + range.toContentRange(size) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            this.transfer(servedPath, range.getStart(), range.getLength(), out);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 写出文件中的一个连续区间作为完整的响应体，实现类可以在此交给容器直接发送文件
+     */
+    protected void writeContent(String fileKey, long start, long length, PbResponse response) throws Exception {
+        this.transfer(fileKey, start, length, response.getOutputStream());
+    }
+
+    /**
+     * 将文件的 [start, start + length) 区间写入 out，默认实现跳过 start 之前的内容后复制
+     */
+    protected void transfer(String fileKey, long start, long length, OutputStream out) throws Exception {
+        try (InputStream contentStream = this.getFile(fileKey).getContent()) {
+            contentStream.skipNBytes(start);
+            IoUtil.copy(new LimitedInputStream(contentStream, length), out);
+        }
+    }
+
+    /**
+     * 由文件元数据生成的强 ETag（上传的文件不会被原地修改，大小 + 修改时间即可区分内容）
+     */
+    protected static String etag(PbFile file) {
+        return "\"" + Long.toHexString(file.getLastModifiedTime()) + "-" + Long.toHexString(file.getSize()) + "\"";
+    }
+
+    private static boolean isNotModified(PbRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-None-Match takes precedence over If-Modified-Since (weak comparison)
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = parseDate(request.getHeader("If-Modified-Since"));
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private static boolean isRangeApplicable(PbRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag); // strong comparison
+        }
+        long date = parseDate(ifRange);
+        return date >= 0 && lastModified / 1000 == date / 1000;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long parseDate(String value) {
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 最多读取 limit 个字节的输入流
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) {
+                remaining -= n;
+            }
+            return n;
         }
     }
 }
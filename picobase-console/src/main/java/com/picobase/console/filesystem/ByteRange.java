@@ -0,0 +1,107 @@
+package com.picobase.console.filesystem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP Range 请求头中的一个字节区间 [start, end]（包含 end）
+ */
+public class ByteRange {
+
+    /**
+     * 单个请求允许的最大区间数，超过时忽略 Range 返回完整文件
+     */
+    public static final int MaxRanges = 16;
+
+    private final long start;
+    private final long end;
+
+    public ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    public String toContentRange(long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+
+    /**
+     * 解析 Range 请求头（如 {@code bytes=0-499, 1000-, -200}）
+     *
+     * @param header Range 请求头
+     * @param size   文件大小
+     * @return null 表示忽略该请求头（不存在、格式错误或区间过多）返回完整文件；空列表表示所有区间都无法满足（416）
+     */
+    public static List<ByteRange> parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+
+        List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : header.substring("bytes=".length()).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            try {
+                if (first.isEmpty()) {
+                    // suffix range: the last N bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    if (suffix == 0) {
+                        continue;
+                    }
+                    start = Math.max(0, size - suffix);
+                    end = size - 1;
+                } else {
+                    start = Long.parseLong(first);
+                    end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+                    if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                        return null;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (start >= size) {
+                continue; // unsatisfiable
+            }
+            ranges.add(new ByteRange(start, end));
+        }
+
+        if (ranges.size() > MaxRanges) {
+            return null;
+        }
+        return ranges;
+    }
+
+    /**
+     * 多个区间的总长度超过文件本身时（例如大量重叠区间），应当直接返回完整文件
+     */
+    public static boolean exceeds(List<ByteRange> ranges, long size) {
+        long total = 0;
+        for (ByteRange range : ranges) {
+            total += range.getLength();
+        }
+        return total > size;
+    }
+}
@@ -1,15 +1,29 @@
 package com.picobase.console.filesystem;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.map.FixedLinkedHashMap;
 import com.picobase.console.config.PbConsoleConfig;
+import com.picobase.context.PbHolder;
+import com.picobase.context.model.PbRequest;
+import com.picobase.context.model.PbResponse;
 import com.picobase.file.PbFile;
 import com.picobase.file.PbFileSystem;
 import com.picobase.json.PbJsonTemplate;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * @author liuziqi
@@ -21,13 +35,32 @@ public class LocalFileSystem extends AbstractFileSystem {
 
     private static final String ATTRS_SUFFIX = ".attrs";
 
+    // tomcat sendfile request attributes (see org.apache.catalina.servlets.DefaultServlet)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final String TOMCAT_REQUEST_FACADE = "org.apache.catalina.connector.RequestFacade";
+    private static final String TOMCAT_RESPONSE_FACADE = "org.apache.catalina.connector.ResponseFacade";
+
+    /**
+     * 小文件直接写出即可，与 Tomcat DefaultServlet 默认的 sendfileSize 一致
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
     private final Object lock = new Object();
     private final PbJsonTemplate jsonTemplate;
     private PbConsoleConfig config;
 
+    /**
+     * 文件完整路径 --> 解析后的 .attrs 属性，读取时根据文件与 .attrs 的修改时间校验
+     */
+    private final Map<Path, CachedAttrs> attrsCache;
+
     public LocalFileSystem(PbConsoleConfig config, PbJsonTemplate jsonTemplate) {
         this.config = config;
         this.jsonTemplate = jsonTemplate;
+        this.attrsCache = Collections.synchronizedMap(new FixedLinkedHashMap<>(Math.max(1, config.getFileAttrsCacheSize())));
     }
 
 
@@ -51,6 +84,7 @@ public class LocalFileSystem extends AbstractFileSystem {
     public void uploadFile(PbFile file, String fileKey) throws Exception {
         Path filePath = this.getFullFilePath(fileKey);
 
+        attrsCache.remove(filePath);
         try (InputStream contentStream = file.getContent()) {
             Files.createDirectories(filePath.getParent());
             Files.copy(contentStream, filePath);
@@ -62,6 +96,7 @@ public class LocalFileSystem extends AbstractFileSystem {
     @Override
     public void delete(String fileKey) throws Exception {
         Path filePath = this.getFullFilePath(fileKey);
+        attrsCache.remove(filePath);
         Files.deleteIfExists(filePath);
 
         Path attrsFilePath = this.getFullAttrsFilePath(fileKey);
@@ -74,17 +109,77 @@ public class LocalFileSystem extends AbstractFileSystem {
             throw new RuntimeException("Prefix mustn't be empty.");
         }
 
-        FileUtil.del(this.getFullFilePath(prefix));
+        Path prefixPath = this.getFullFilePath(prefix);
+        synchronized (attrsCache) {
+            attrsCache.keySet().removeIf(path -> path.startsWith(prefixPath));
+        }
+        FileUtil.del(prefixPath);
     }
 
     @Override
     public PbFile getFile(String fileKey) throws Exception {
+        PbFile pbFile = this.stat(fileKey);
+        pbFile.setContent(Files.newInputStream(this.getFullFilePath(fileKey)));
+        return pbFile;
+    }
+
+    /**
+     * 读取文件属性，.attrs 的解析结果会被缓存，文件或 .attrs 的修改时间变化后重新解析
+     */
+    @Override
+    public PbFile stat(String fileKey) throws Exception {
         Path filePath = this.getFullFilePath(fileKey);
         Path attrsFilePath = this.getFullAttrsFilePath(fileKey);
+        BasicFileAttributes fileAttributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        FileTime attrsModified = Files.getLastModifiedTime(attrsFilePath);
+
+        CachedAttrs cached = attrsCache.get(filePath);
+        if (cached == null || !cached.isValid(fileAttributes, attrsModified)) {
+            PbFile pbFile = this.toPbFile(Files.readString(attrsFilePath));
+            // the size on disk is authoritative for the served ranges
+            pbFile.setSize(fileAttributes.size());
+            cached = new CachedAttrs(pbFile, fileAttributes.lastModifiedTime(), attrsModified);
+            attrsCache.put(filePath, cached);
+        }
+        return cached.copy();
+    }
 
-        PbFile pbFile = this.toPbFile(Files.readString(attrsFilePath));
-        pbFile.setContent(Files.newInputStream(filePath));
-        return pbFile;
+    /**
+     * 运行在 Tomcat 中且响应未被包装时，由容器通过 sendfile 直接发送文件（零拷贝），否则使用 {@link #transfer}
+     */
+    @Override
+    protected void writeContent(String fileKey, long start, long length, PbResponse response) throws Exception {
+        PbRequest request = PbHolder.getRequest();
+        if (length >= SENDFILE_MIN_SIZE
+                && request.getSource() instanceof HttpServletRequest servletRequest
+                && Boolean.TRUE.equals(servletRequest.getAttribute(SENDFILE_SUPPORTED))
+                && TOMCAT_REQUEST_FACADE.equals(servletRequest.getClass().getName())
+                && TOMCAT_RESPONSE_FACADE.equals(response.getSource().getClass().getName())) {
+            servletRequest.setAttribute(SENDFILE_FILENAME, this.getFullFilePath(fileKey).toAbsolutePath().toString());
+            servletRequest.setAttribute(SENDFILE_START, start);
+            servletRequest.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        super.writeContent(fileKey, start, length, response);
+    }
+
+    /**
+     * 使用 FileChannel.transferTo 写出文件区间，不经过额外的堆内缓冲
+     */
+    @Override
+    protected void transfer(String fileKey, long start, long length, OutputStream out) throws Exception {
+        try (FileChannel channel = FileChannel.open(this.getFullFilePath(fileKey), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    break; // the file was truncated
+                }
+                position += transferred;
+            }
+        }
     }
 
     private Path getFullFilePath(String fileKey) {
@@ -107,5 +202,35 @@ public class LocalFileSystem extends AbstractFileSystem {
         return jsonTemplate.parseJsonToObject(attrs, PbFile.class);
     }
 
+    private static class CachedAttrs {
+        private final PbFile file;
+        private final FileTime fileModified;
+        private final FileTime attrsModified;
+
+        CachedAttrs(PbFile file, FileTime fileModified, FileTime attrsModified) {
+            this.file = file;
+            this.fileModified = fileModified;
+            this.attrsModified = attrsModified;
+        }
+
+        boolean isValid(BasicFileAttributes fileAttributes, FileTime attrsModified) {
+            return file.getSize() == fileAttributes.size()
+                    && fileModified.equals(fileAttributes.lastModifiedTime())
+                    && this.attrsModified.equals(attrsModified);
+        }
+
+        /**
+         * 返回副本，调用方会设置 content
+         */
+        PbFile copy() {
+            return new PbFile.PFileBuilder()
+                    .name(file.getName())
+                    .originalName(file.getOriginalName())
+                    .size(file.getSize())
+                    .contentType(file.getContentType())
+                    .lastModifiedTime(file.getLastModifiedTime()).build();
+        }
+    }
+
 
 }
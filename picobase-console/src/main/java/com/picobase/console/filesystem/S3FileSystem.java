@@ -1,6 +1,7 @@
 package com.picobase.console.filesystem;
 
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.io.IoUtil;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder;
@@ -12,6 +13,7 @@ import com.picobase.file.PbFile;
 import com.picobase.file.PbFileSystem;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Date;
 import java.util.Map;
 
@@ -109,6 +111,28 @@ public class S3FileSystem extends AbstractFileSystem {
                 .lastModifiedTime(object.getObjectMetadata().getLastModified().getTime()).build();
     }
 
+    @Override
+    public PbFile stat(String fileKey) throws Exception {
+        ObjectMetadata metadata = s3Client.getObjectMetadata(config.getS3Config().getBucketName(), convertFileKey(fileKey));
+
+        return new PbFile.PFileBuilder()
+                .name(FileUtil.getName(fileKey))
+                .originalName(metadata.getUserMetaDataOf(ORIGINAL_FILENAME))
+                .size(metadata.getContentLength())
+                .contentType(metadata.getContentType())
+                .lastModifiedTime(metadata.getLastModified().getTime()).build();
+    }
+
+    @Override
+    protected void transfer(String fileKey, long start, long length, OutputStream out) throws Exception {
+        // fetch only the requested range from the bucket
+        GetObjectRequest request = new GetObjectRequest(config.getS3Config().getBucketName(), convertFileKey(fileKey))
+                .withRange(start, start + length - 1);
+        try (S3Object object = s3Client.getObject(request); InputStream contentStream = object.getObjectContent()) {
+            IoUtil.copy(contentStream, out);
+        }
+    }
+
     private String convertFileKey(String fileKey) {
         if (fileKey == null || fileKey.isEmpty()) {
             throw new RuntimeException("fileKey mustn't be empty.");
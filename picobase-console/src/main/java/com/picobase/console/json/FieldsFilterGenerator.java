@@ -0,0 +1,51 @@
+package com.picobase.console.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+
+import java.io.IOException;
+
+/**
+ * 按 {@link FieldsTokenFilter} 过滤输出的 JsonGenerator
+ * <p>
+ * 使用 INCLUDE_NON_NULL：被选取的对象即使所有子字段都被过滤也会输出 {}，与 pickFields 的结果一致。
+ * </p>
+ */
+public class FieldsFilterGenerator extends FilteringGeneratorDelegate {
+
+    public FieldsFilterGenerator(JsonGenerator delegate, TokenFilter filter) {
+        super(delegate, filter, TokenFilter.Inclusion.INCLUDE_NON_NULL, true);
+    }
+
+    /*
+     * jackson-core 2.13 only honors INCLUDE_NON_NULL in writeStartArray() / writeStartArray(int),
+     * the overloads used by the collection serializers would drop the array start of a filtered path
+     */
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        writeStartArray();
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        writeStartArray(size);
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (_itemFilter instanceof FieldsTokenFilter.ModifierFilter modifier && text != null) {
+            text = modifier.modify(text);
+        }
+        super.writeString(text);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        if (_itemFilter instanceof FieldsTokenFilter.ModifierFilter) {
+            writeString(new String(text, offset, len));
+            return;
+        }
+        super.writeString(text, offset, len);
+    }
+}
@@ -0,0 +1,79 @@
+package com.picobase.console.json;
+
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.picobase.logic.FieldModifier;
+import com.picobase.logic.FieldsFilterProcessor.FieldsNode;
+
+/**
+ * 按 fields 字段树过滤 JSON 输出，与 {@link FieldsFilterGenerator} 配合在序列化时一次完成，
+ * 规则与 {@link com.picobase.logic.FieldsFilterProcessor#pickFields} 一致：
+ * <ul>
+ *     <li>完全匹配的字段整体输出（字符串值应用 modifier）</li>
+ *     <li>只匹配了子字段的对象 / 对象数组继续按子字段过滤，其它类型的值原样输出</li>
+ *     <li>"*" 选取当前层级其它未指定的字段</li>
+ * </ul>
+ */
+public class FieldsTokenFilter extends TokenFilter {
+
+    private final FieldsNode node;
+
+    public FieldsTokenFilter(FieldsNode node) {
+        this.node = node;
+    }
+
+    @Override
+    public TokenFilter includeProperty(String name) {
+        if (node.isEmpty()) {
+            return INCLUDE_ALL; // nothing to pick
+        }
+        FieldsNode child = node.getChild(name);
+        if (child != null) {
+            return child.getModifier() != null ? forModifier(child.getModifier()) : new FieldsTokenFilter(child);
+        }
+        FieldModifier wildcard = node.getWildcard();
+        return wildcard != null ? forModifier(wildcard) : null;
+    }
+
+    private static TokenFilter forModifier(FieldModifier modifier) {
+        return modifier == FieldModifier.Nil_Modifier ? INCLUDE_ALL : new ModifierFilter(modifier);
+    }
+
+    /**
+     * 分页结果只过滤 items 中的数据
+     */
+    public static TokenFilter forPage(FieldsNode node) {
+        return new TokenFilter() {
+            @Override
+            public TokenFilter includeProperty(String name) {
+                return "items".equals(name) ? new FieldsTokenFilter(node) : INCLUDE_ALL;
+            }
+        };
+    }
+
+    /**
+     * 完全匹配且带有 modifier 的字段：整体输出，字符串值由 {@link FieldsFilterGenerator} 应用 modifier
+     */
+    public static class ModifierFilter extends TokenFilter {
+
+        private final FieldModifier modifier;
+
+        ModifierFilter(FieldModifier modifier) {
+            this.modifier = modifier;
+        }
+
+        public String modify(String value) {
+            Object modified = modifier.modify(value);
+            return modified == null ? null : modified.toString();
+        }
+
+        @Override
+        public TokenFilter filterStartObject() {
+            return INCLUDE_ALL;
+        }
+
+        @Override
+        public TokenFilter filterStartArray() {
+            return INCLUDE_ALL;
+        }
+    }
+}
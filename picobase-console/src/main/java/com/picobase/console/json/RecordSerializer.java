@@ -20,7 +20,7 @@ public class RecordSerializer extends JsonSerializer<RecordModel> {
         }
         // 获取要导出的数据
         Map<String, Object> exportedData = record.getPublicData();
-        //执行序列化
-        gen.writeObject(exportedData);
+        //执行序列化（使用当前的 SerializerProvider，不会为每条记录重新创建序列化上下文并 flush）
+        serializers.defaultSerializeValue(exportedData, gen);
     }
 }
@@ -0,0 +1,217 @@
+package com.picobase.console.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picobase.console.WebMvcConfig;
+import com.picobase.console.model.LogModel;
+import com.picobase.exception.PbException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 日志本地暂存文件（每行一条 json），数据库写入失败的日志追加到文件中，数据库恢复后按批重新写入
+ * <p>
+ * 同一批日志连续重放失败 {@link #MAX_REPLAY_FAILURES} 次（或无法解析的行）移入 {@link #DEAD_FILE_NAME}，不再阻塞后面的日志。
+ * </p>
+ * <p>
+ * 只由日志写入线程使用。
+ * </p>
+ */
+public class LogSpool {
+
+    public static final String FILE_NAME = "pb_log.spool";
+    public static final String DEAD_FILE_NAME = "pb_log.spool.dead";
+    public static final int MAX_REPLAY_FAILURES = 3;
+
+    private final Path file;
+    private final Path replayFile;
+    private final Path deadFile;
+    private final ObjectMapper objectMapper = WebMvcConfig.newObjectMapper();
+
+    /**
+     * 第一批待重放日志连续失败的次数
+     */
+    private int headFailures;
+    private long deadLettered;
+
+    public LogSpool(Path dir) {
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new PbException("Failed to create the log spool dir {}", dir);
+        }
+        this.file = dir.resolve(FILE_NAME);
+        this.replayFile = dir.resolve(FILE_NAME + ".replay");
+        this.deadFile = dir.resolve(DEAD_FILE_NAME);
+    }
+
+    /**
+     * @return 累计移入 dead 文件的日志条数
+     */
+    public long getDeadLettered() {
+        return deadLettered;
+    }
+
+    public boolean isEmpty() {
+        return !Files.exists(replayFile) && (!Files.exists(file) || size(file) == 0);
+    }
+
+    /**
+     * 追加日志
+     */
+    public void append(List<LogModel> logs) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            for (LogModel log : logs) {
+                writer.write(objectMapper.writeValueAsString(new SpooledLog(log)));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * 按批读取暂存的日志交给 sink 写入，sink 返回 false 时停止，未写入的日志保留在文件中
+     *
+     * @return 写入的日志条数
+     */
+    public int replay(int batchSize, Predicate<List<LogModel>> sink) throws IOException {
+        // logs appended during the replay go to a fresh spool file
+        if (!Files.exists(replayFile)) {
+            if (!Files.exists(file)) {
+                return 0;
+            }
+            Files.move(file, replayFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        int total = 0;
+        List<String> remaining = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+            List<LogModel> batch = new ArrayList<>(batchSize);
+            List<String> lines = new ArrayList<>(batchSize);
+            String line;
+            boolean failed = false;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (failed) {
+                    remaining.add(line);
+                    continue;
+                }
+                LogModel log;
+                try {
+                    log = objectMapper.readValue(line, SpooledLog.class).toLogModel();
+                } catch (IOException e) {
+                    deadLetter(List.of(line));
+                    continue;
+                }
+                batch.add(log);
+                lines.add(line);
+                if (batch.size() >= batchSize) {
+                    if (sink.test(batch)) {
+                        total += batch.size();
+                        headFailures = 0;
+                    } else {
+                        failed = !onFailure(lines);
+                        if (failed) {
+                            remaining.addAll(lines);
+                        }
+                    }
+                    batch.clear();
+                    lines.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                if (failed) {
+                    remaining.addAll(lines);
+                } else if (sink.test(batch)) {
+                    total += batch.size();
+                    headFailures = 0;
+                } else if (!onFailure(lines)) {
+                    remaining.addAll(lines);
+                }
+            }
+        }
+
+        if (remaining.isEmpty()) {
+            Files.delete(replayFile);
+        } else {
+            Files.write(replayFile, remaining, StandardCharsets.UTF_8);
+        }
+        return total;
+    }
+
+    /**
+     * 第一批日志重放失败：失败次数达到上限时移入 dead 文件
+     *
+     * @return 是否已移入 dead 文件（可以继续重放后面的日志）
+     */
+    private boolean onFailure(List<String> lines) throws IOException {
+        if (++headFailures < MAX_REPLAY_FAILURES) {
+            return false;
+        }
+        deadLetter(lines);
+        return true;
+    }
+
+    private void deadLetter(List<String> lines) throws IOException {
+        Files.write(deadFile, lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        deadLettered += lines.size();
+        headFailures = 0;
+    }
+
+    private static long size(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 暂存文件中的一行（LogModel 的 rowid 不参与 json 序列化）
+     */
+    public static class SpooledLog {
+        public String id;
+        public LocalDateTime created;
+        public LocalDateTime updated;
+        public String message;
+        public int level;
+        public long rowid;
+        public Map<String, Object> data;
+
+        public SpooledLog() {
+        }
+
+        SpooledLog(LogModel log) {
+            this.id = log.getId();
+            this.created = log.getCreated();
+            this.updated = log.getUpdated();
+            this.message = log.getMessage();
+            this.level = log.getLevel();
+            this.rowid = log.getRowid();
+            this.data = log.getData();
+        }
+
+        LogModel toLogModel() {
+            LogModel log = new LogModel();
+            log.setId(id);
+            log.setCreated(created);
+            log.setUpdated(updated);
+            log.setMessage(message).setLevel(level).setRowid(rowid).setData(data);
+            return log;
+        }
+    }
+}
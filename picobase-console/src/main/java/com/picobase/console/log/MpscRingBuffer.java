@@ -0,0 +1,113 @@
+package com.picobase.console.log;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界、无锁的多生产者单消费者环形队列
+ * <p>
+ * 每个槽位带有序号：生产者通过 CAS 抢占写入位置，写入元素后发布序号；唯一的消费者按序号读取并释放槽位。
+ * 队列满时 {@link #offer} 立即返回 false，不会阻塞请求线程。
+ * </p>
+ */
+public class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> items;
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写入位置（生产者共享）
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置（只由消费者修改）
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < Math.max(2, capacity)) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 写入元素，队列已满时返回 false（可由多个线程同时调用）
+     */
+    public boolean offer(E e) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items.lazySet(index, e);
+                    sequences.set(index, position + 1); // publish
+                    return true;
+                }
+            } else if (diff < 0) {
+                return false; // the slot still holds an element from the previous lap
+            }
+            // else another producer took the position, retry
+        }
+    }
+
+    /**
+     * 读取一个元素，队列为空时返回 null（只能由消费者线程调用）
+     */
+    public E poll() {
+        long position = head;
+        int index = (int) (position & mask);
+        if (sequences.get(index) != position + 1) {
+            return null; // empty or the producer hasn't published yet
+        }
+        E e = items.get(index);
+        items.lazySet(index, null);
+        sequences.set(index, position + mask + 1); // release the slot for the next lap
+        head = position + 1;
+        return e;
+    }
+
+    /**
+     * 读取最多 max 个元素到 target（只能由消费者线程调用）
+     *
+     * @return 读取的元素个数
+     */
+    public int drainTo(List<? super E> target, int max) {
+        int count = 0;
+        E e;
+        while (count < max && (e = poll()) != null) {
+            target.add(e);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 近似的元素个数
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
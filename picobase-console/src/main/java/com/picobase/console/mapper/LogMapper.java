@@ -3,6 +3,7 @@ package com.picobase.console.mapper;
 import cn.hutool.core.date.DateTime;
 import cn.hutool.core.date.DateUtil;
 import com.picobase.PbManager;
+import com.picobase.PbUtil;
 import com.picobase.console.model.LogModel;
 import com.picobase.console.model.LogsStatsItem;
 import com.picobase.json.PbJsonTemplate;
@@ -10,25 +11,59 @@ import com.picobase.persistence.dbx.expression.Expression;
 import com.picobase.persistence.mapper.AbstractMapper;
 import com.picobase.persistence.repository.ModifyRequest;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class LogMapper extends AbstractMapper<LogModel> {
 
+    public static final String STATS_TABLE = "pb_log_stats";
+
     private static final String SAVE_LOG_SQL = "insert into pb_log(id,level,message,data,created,updated,rowid) values(?,?,?,?,?,?,?)";
+    private static final String SAVE_STATS_SQL = "insert into " + STATS_TABLE + "(date,total) values(?,?) on duplicate key update total = total + values(total)";
 
 
-    public void batchSave(List<LogModel> logs) {
+    /**
+     * 在同一事务中批量写入日志并累加对应的小时统计（相同 sql 的连续请求会合并为 jdbc batch），
+     * 依赖 pb_log 与 pb_log_stats 均为 InnoDB 表，见 DatabaseInitializer
+     *
+     * @return 是否写入成功
+     */
+    public boolean batchSave(List<LogModel> logs) {
+        if (logs.isEmpty()) {
+            return true;
+        }
         PbJsonTemplate pbJsonTemplate = PbManager.getPbJsonTemplate();
-        List<ModifyRequest> requests = logs.stream().map(log -> {
+        List<ModifyRequest> requests = new ArrayList<>(logs.size() + 1);
+        Map<LocalDateTime, Integer> hourly = new TreeMap<>();
+        for (LogModel log : logs) {
             ModifyRequest request = new ModifyRequest(SAVE_LOG_SQL);
             request.setArgs(new Object[]{log.getId(), log.getLevel(), log.getMessage(), pbJsonTemplate.toJsonString(log.getData()), log.getCreated(), log.getUpdated(), log.getRowid()});
-            return request;
-        }).collect(Collectors.toList());
-        if (requests.isEmpty()) {
-            return;
+            requests.add(request);
+            hourly.merge(log.getCreated().truncatedTo(ChronoUnit.HOURS), 1, Integer::sum);
         }
-        PbManager.getPbDatabaseOperate().update(requests);
+        hourly.forEach((hour, total) -> requests.add(new ModifyRequest(SAVE_STATS_SQL).setArgs(new Object[]{hour, total})));
+        return Boolean.TRUE.equals(PbManager.getPbDatabaseOperate().update(requests));
+    }
+
+    /**
+     * 查询已写入的日志 id（用于重放暂存的日志时跳过已写入的行）
+     */
+    public List<String> findExistingIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return modelQuery().select("id").andWhere(Expression.in("id", ids)).column(String.class);
+    }
+
+    /**
+     * 从小时统计表读取全部日志的小时统计，与不带过滤条件的 {@link #stats} 结果相同
+     */
+    public List<LogsStatsItem> hourlyStats() {
+        return PbUtil.getPbDbxBuilder().select("total", "date").from(STATS_TABLE).orderBy("date").all(LogsStatsItem.class);
     }
 
     public List<LogsStatsItem> stats(Expression expr) {
@@ -46,6 +81,9 @@ public class LogMapper extends AbstractMapper<LogModel> {
 
     public void deleteBeforeTime(DateTime dateTime) {
         String sql = "delete from pb_log where created <= ?";
-        PbManager.getPbDatabaseOperate().update(List.of(new ModifyRequest(sql).setArgs(new Object[]{DateUtil.toLocalDateTime(dateTime)})));
+        LocalDateTime before = DateUtil.toLocalDateTime(dateTime);
+        // only whole hours are removed from the stats, the partial hour keeps its total until the next run
+        PbManager.getPbDatabaseOperate().update(List.of(new ModifyRequest(sql).setArgs(new Object[]{before}),
+                new ModifyRequest("delete from " + STATS_TABLE + " where date < ?").setArgs(new Object[]{before.truncatedTo(ChronoUnit.HOURS)})));
     }
 }
@@ -0,0 +1,49 @@
+package com.picobase.console.model;
+
+import com.picobase.PbUtil;
+import com.picobase.validator.Errors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.picobase.validator.Validation.*;
+
+/**
+ * 设置 realtime 订阅的请求 DTO
+ */
+public class RealtimeSubscribe {
+    private String clientId;
+    private List<String> subscriptions = new ArrayList<>();
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public RealtimeSubscribe setClientId(String clientId) {
+        this.clientId = clientId;
+        return this;
+    }
+
+    public List<String> getSubscriptions() {
+        return subscriptions;
+    }
+
+    public RealtimeSubscribe setSubscriptions(List<String> subscriptions) {
+        this.subscriptions = subscriptions;
+        return this;
+    }
+
+    public Errors validate() {
+        return PbUtil.validate(this,
+                field("clientId", this.clientId, required, length(1, 255)),
+                field("subscriptions", this.subscriptions, length(0, 1000), each(length(0, 2500))));
+    }
+
+    @Override
+    public String toString() {
+        return "RealtimeSubscribe{" +
+                "clientId='" + clientId + '\'' +
+                ", subscriptions=" + subscriptions +
+                '}';
+    }
+}
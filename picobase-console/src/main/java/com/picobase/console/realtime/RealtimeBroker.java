@@ -0,0 +1,454 @@
+package com.picobase.console.realtime;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picobase.PbManager;
+import com.picobase.console.WebMvcConfig;
+import com.picobase.console.config.PbConsoleConfig;
+import com.picobase.exception.PbException;
+import com.picobase.log.PbLog;
+import com.picobase.logic.mapper.RecordMapper;
+import com.picobase.model.AdminModel;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.RequestInfo;
+import com.picobase.persistence.dbx.SelectQuery;
+import com.picobase.persistence.dbx.expression.Expression;
+import com.picobase.persistence.resolver.RecordFieldResolver;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Realtime 连接管理与消息分发
+ * <p>
+ * 订阅 topic 格式：{@code collectionIdOrName/*}（或 {@code collectionIdOrName}）订阅集合中所有记录的变更，使用 listRule 检查；
+ * {@code collectionIdOrName/recordId} 订阅单条记录的变更，使用 viewRule 检查。
+ * topic 索引到订阅的连接，一次记录变更只查找相关的连接；同一批记录中认证信息与规则相同的连接只执行一次 {@code id IN (...)} 规则查询。
+ * </p>
+ * <p>
+ * 新增 / 修改的记录通过 {@link #publish} 交给分发线程，在写请求线程之外执行规则检查（事务提交后调用，保证读取到已提交的数据）。
+ * </p>
+ * <p>
+ * 每个连接的消息先放入有界缓冲区，再由共享的发送线程写出；缓冲区满的连接被视为慢消费者并断开，
+ * 单次写出超过 realtimeSendTimeout 的连接被视为已停滞并断开，不会阻塞其它连接和写请求。
+ * </p>
+ */
+@Component
+public class RealtimeBroker {
+
+    public static final String ConnectEventName = "PB_CONNECT";
+
+    private static final PbLog log = PbManager.getLog();
+
+    /**
+     * 等待分发（规则检查）的记录变更批次上限，超出时丢弃并记录日志
+     */
+    private static final int DISPATCH_QUEUE_SIZE = 4096;
+
+    private final PbConsoleConfig config;
+    private final RecordMapper recordMapper;
+    private final ExecutorService sender;
+    private final ThreadPoolExecutor dispatcher;
+    private final ScheduledExecutorService watchdog;
+    private final ObjectMapper objectMapper = WebMvcConfig.newObjectMapper();
+
+    /**
+     * clientId --> 连接
+     */
+    private final Map<String, RealtimeClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * topic --> 订阅了该 topic 的连接
+     */
+    private final Map<String, Set<RealtimeClient>> topics = new ConcurrentHashMap<>();
+
+    public RealtimeBroker(PbConsoleConfig config, RecordMapper recordMapper) {
+        this.config = config;
+        this.recordMapper = recordMapper;
+        this.sender = Executors.newFixedThreadPool(Math.max(1, config.getRealtimeSenderThreads()), threadFactory("pb-realtime-sender-"));
+        // a single thread keeps the changes of a record in commit order
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DISPATCH_QUEUE_SIZE), threadFactory("pb-realtime-dispatcher-"));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(threadFactory("pb-realtime-watchdog-"));
+        long sendTimeout = config.getRealtimeSendTimeout();
+        if (sendTimeout > 0) {
+            long period = Math.max(sendTimeout / 4, 100);
+            watchdog.scheduleWithFixedDelay(() -> evictStalled(TimeUnit.MILLISECONDS.toNanos(sendTimeout)), period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger threadId = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void destroy() {
+        watchdog.shutdownNow();
+        dispatcher.shutdownNow();
+        sender.shutdownNow();
+        clients.values().forEach(this::disconnect);
+    }
+
+    /**
+     * 新建连接并发送 PB_CONNECT 消息（包含 clientId）
+     */
+    public RealtimeClient connect() {
+        SseEmitter emitter = new SseEmitter(config.getRealtimeIdleTimeout());
+        RealtimeClient client = new RealtimeClient(IdUtil.fastSimpleUUID(), emitter, Math.max(1, config.getRealtimeBufferSize()));
+        emitter.onCompletion(() -> unregister(client));
+        emitter.onTimeout(() -> disconnect(client));
+        emitter.onError(e -> unregister(client));
+        clients.put(client.getId(), client);
+
+        send(client, new RealtimeClient.Message(ConnectEventName, toJson(Map.of("clientId", client.getId()))));
+        return client;
+    }
+
+    public RealtimeClient getClient(String clientId) {
+        return clientId == null ? null : clients.get(clientId);
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * 替换连接的订阅与认证信息
+     */
+    public void subscribe(RealtimeClient client, Collection<String> subscriptions, AdminModel admin, RecordModel authRecord) {
+        Set<String> next = new LinkedHashSet<>();
+        for (String subscription : subscriptions) {
+            if (StrUtil.isNotBlank(subscription)) {
+                next.add(subscription.trim());
+            }
+        }
+
+        synchronized (client) {
+            client.setAuth(admin, authRecord);
+            for (String topic : client.getSubscriptions()) {
+                if (!next.contains(topic)) {
+                    removeFromTopic(topic, client);
+                }
+            }
+            client.setSubscriptions(next);
+            if (client.isClosed()) {
+                return;
+            }
+            for (String topic : next) {
+                topics.computeIfAbsent(topic, k -> ConcurrentHashMap.newKeySet()).add(client);
+            }
+        }
+    }
+
+    private void removeFromTopic(String topic, RealtimeClient client) {
+        topics.computeIfPresent(topic, (k, subscribers) -> {
+            subscribers.remove(client);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private void unregister(RealtimeClient client) {
+        synchronized (client) {
+            client.close();
+            clients.remove(client.getId(), client);
+            for (String topic : client.getSubscriptions()) {
+                removeFromTopic(topic, client);
+            }
+        }
+    }
+
+    private void disconnect(RealtimeClient client) {
+        unregister(client);
+        try {
+            client.getEmitter().complete();
+        } catch (Exception ignored) {
+            // the connection is already closed
+        }
+    }
+
+    // ------------------------ 消息分发
+
+    /**
+     * 一条待发送的消息
+     */
+    public static class Delivery {
+        private final String recordId;
+        private final RealtimeClient client;
+        private final RealtimeClient.Message message;
+
+        Delivery(String recordId, RealtimeClient client, RealtimeClient.Message message) {
+            this.recordId = recordId;
+            this.client = client;
+            this.message = message;
+        }
+
+        public String getRecordId() {
+            return recordId;
+        }
+
+        public RealtimeClient getClient() {
+            return client;
+        }
+
+        public RealtimeClient.Message getMessage() {
+            return message;
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !topics.isEmpty();
+    }
+
+    /**
+     * 在分发线程中检查访问权限并发送记录的变更（需要在事务提交后调用）
+     *
+     * @param action  create / update
+     * @param records 记录的副本，调用后不能再修改
+     */
+    public void publish(String action, CollectionModel collection, List<RecordModel> records) {
+        if (!hasSubscribers() || records.isEmpty()) {
+            return;
+        }
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    deliver(prepare(action, collection, records));
+                } catch (Exception e) {
+                    log.warn("Realtime dispatch failed, collection: {}, err: {}", collection.getName(), e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Realtime dispatch queue is full, dropping {} {} change(s) of collection {}", records.size(), action, collection.getName());
+        }
+    }
+
+    /**
+     * 查找订阅了记录变更的连接并检查其访问权限，返回待发送的消息（记录删除时需要在删除前调用）
+     * <p>
+     * 认证信息与规则相同的连接共享一次检查，每组只执行一次 {@code id IN (...)} 查询。
+     * </p>
+     *
+     * @param action create / update / delete
+     */
+    public List<Delivery> prepare(String action, CollectionModel collection, List<RecordModel> records) {
+        Map<RecordModel, Map<RealtimeClient, List<String>>> subscribers = new LinkedHashMap<>();
+        // auth key + rule --> the ids to check
+        Map<String, AccessCheck> checks = new HashMap<>();
+        for (RecordModel record : records) {
+            Map<RealtimeClient, List<String>> found = findSubscribers(collection, record.getId());
+            if (found.isEmpty()) {
+                continue;
+            }
+            subscribers.put(record, found);
+            found.forEach((client, subscriptions) -> {
+                for (String subscription : subscriptions) {
+                    boolean isList = isListSubscription(subscription);
+                    checks.computeIfAbsent(accessKey(client, isList), k -> new AccessCheck(
+                            isList ? collection.getListRule() : collection.getViewRule(), client.getAdmin(), client.getAuthRecord()))
+                            .ids.add(record.getId());
+                }
+            });
+        }
+        if (subscribers.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, Set<String>> allowed = new HashMap<>(checks.size());
+        checks.forEach((key, check) -> allowed.put(key, allowedIds(collection, check)));
+
+        List<Delivery> deliveries = new ArrayList<>();
+        subscribers.forEach((record, found) -> {
+            Map<Boolean, String> payloads = new HashMap<>(2);
+            Function<Boolean, String> payload = privileged -> payloads.computeIfAbsent(privileged, k -> {
+                RecordModel copy = record.expandCopy();
+                copy.setIgnoreEmailVisibility(k);
+                return toJson(Map.of("action", action, "record", copy.publicExport()));
+            });
+            found.forEach((client, subscriptions) -> {
+                AdminModel admin = client.getAdmin();
+                RecordModel authRecord = client.getAuthRecord();
+                for (String subscription : subscriptions) {
+                    Set<String> ids = allowed.get(accessKey(client, isListSubscription(subscription)));
+                    if (ids == null || !ids.contains(record.getId())) {
+                        continue;
+                    }
+                    boolean privileged = collection.isAuth() && (admin != null || (authRecord != null
+                            && authRecord.getId().equals(record.getId()) && authRecord.getCollection().getId().equals(collection.getId())));
+                    deliveries.add(new Delivery(record.getId(), client, new RealtimeClient.Message(subscription, payload.apply(privileged))));
+                }
+            });
+        });
+        return deliveries;
+    }
+
+    public void deliver(List<Delivery> deliveries) {
+        for (Delivery delivery : deliveries) {
+            send(delivery.client, delivery.message);
+        }
+    }
+
+    private Map<RealtimeClient, List<String>> findSubscribers(CollectionModel collection, String recordId) {
+        Map<RealtimeClient, List<String>> result = new HashMap<>();
+        for (String prefix : new LinkedHashSet<>(List.of(collection.getName(), collection.getId()))) {
+            for (String topic : List.of(prefix, prefix + "/*", prefix + "/" + recordId)) {
+                Set<RealtimeClient> subscribers = topics.get(topic);
+                if (subscribers != null) {
+                    subscribers.forEach(client -> result.computeIfAbsent(client, k -> new ArrayList<>(1)).add(topic));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isListSubscription(String subscription) {
+        return !subscription.contains("/") || subscription.endsWith("/*");
+    }
+
+    private static String accessKey(RealtimeClient client, boolean isList) {
+        return client.authKey() + (isList ? "|list" : "|view");
+    }
+
+    /**
+     * 一组认证信息与规则相同的连接需要检查的记录
+     */
+    private static class AccessCheck {
+        private final String rule;
+        private final AdminModel admin;
+        private final RecordModel authRecord;
+        private final Set<String> ids = new LinkedHashSet<>();
+
+        AccessCheck(String rule, AdminModel admin, RecordModel authRecord) {
+            this.rule = rule;
+            this.admin = admin;
+            this.authRecord = authRecord;
+        }
+    }
+
+    /**
+     * @return 满足规则的记录 id
+     */
+    private Set<String> allowedIds(CollectionModel collection, AccessCheck check) {
+        if (check.admin != null) {
+            return check.ids;
+        }
+        if (check.rule == null) {
+            return Set.of(); // only admins can access if the rule is nil
+        }
+        if (check.rule.isEmpty()) {
+            return check.ids;
+        }
+
+        RequestInfo requestInfo = new RequestInfo()
+                .setContext(RequestInfo.REQUEST_INFO_CONTEXT_REALTIME)
+                .setMethod("GET")
+                .setQuery(new HashMap<>())
+                .setData(new HashMap<>())
+                .setHeaders(new HashMap<>())
+                .setAuthRecord(check.authRecord);
+        try {
+            SelectQuery query = recordMapper.recordQuery(collection)
+                    .select(collection.getName() + ".id")
+                    .distinct(true)
+                    .andWhere(Expression.in(collection.getName() + ".id", new ArrayList<>(check.ids)));
+            RecordFieldResolver resolver = new RecordFieldResolver(collection, requestInfo, true);
+            Expression expr = resolver.buildRuleExpr(check.rule);
+            resolver.updateQuery(query);
+            query.andWhere(expr);
+            return new HashSet<>(query.column(String.class));
+        } catch (Exception e) {
+            log.warn("Realtime rule check failed, collection: {}, records: {}, err: {}", collection.getName(), check.ids, e.getMessage());
+            return Set.of();
+        }
+    }
+
+    private String toJson(Object data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new PbException(e);
+        }
+    }
+
+    // ------------------------ 发送
+
+    /**
+     * 放入连接的缓冲区并调度发送，缓冲区已满时断开该连接
+     */
+    private void send(RealtimeClient client, RealtimeClient.Message message) {
+        if (!client.offer(message)) {
+            if (!client.isClosed()) {
+                log.warn("Realtime client {} is too slow, disconnecting it", client.getId());
+                disconnect(client);
+            }
+            return;
+        }
+        schedule(client);
+    }
+
+    private void schedule(RealtimeClient client) {
+        if (client.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(client));
+            } catch (RejectedExecutionException e) {
+                client.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(RealtimeClient client) {
+        try {
+            RealtimeClient.Message message;
+            while ((message = client.poll()) != null) {
+                client.beginSend();
+                try {
+                    client.getEmitter().send(SseEmitter.event()
+                            .id(client.getId())
+                            .name(message.getName())
+                            .data(message.getData(), MediaType.TEXT_PLAIN));
+                } finally {
+                    client.endSend();
+                }
+                if (client.isClosed()) {
+                    // evicted by the watchdog while sending
+                    disconnect(client);
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            disconnect(client);
+        } finally {
+            client.draining.set(false);
+        }
+        // messages offered while finishing the loop above
+        if (client.hasPending() && !client.isClosed()) {
+            schedule(client);
+        }
+    }
+
+    /**
+     * 断开单次写出超时的连接：先注销（不再接收消息），再中断阻塞在写出中的发送线程，
+     * 中断无法结束的阻塞写出由容器的写超时结束
+     */
+    private void evictStalled(long sendTimeoutNanos) {
+        for (RealtimeClient client : clients.values()) {
+            if (client.interruptIfStalled(sendTimeoutNanos)) {
+                log.warn("Realtime client {} stalled while sending, disconnecting it", client.getId());
+                unregister(client);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.picobase.console.realtime;
+
+import com.picobase.model.AdminModel;
+import com.picobase.model.RecordModel;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个 SSE 连接：订阅的 topic、订阅时的认证信息以及待发送消息的有界缓冲区
+ * <p>
+ * 连接基于 Servlet 异步请求，空闲时不占用线程；消息由 {@link RealtimeBroker} 的发送线程从缓冲区取出写入连接。
+ * </p>
+ */
+public class RealtimeClient {
+
+    /**
+     * 待发送的一条 SSE 消息，name 为匹配到的订阅 topic
+     */
+    public static class Message {
+        private final String name;
+        private final String data;
+
+        public Message(String name, String data) {
+            this.name = name;
+            this.data = data;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getData() {
+            return data;
+        }
+    }
+
+    private final String id;
+    private final SseEmitter emitter;
+    private final Queue<Message> buffer;
+
+    /**
+     * 是否已有发送线程在处理该连接的缓冲区
+     */
+    final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * 正在写出消息的发送线程及其开始时间，用于检测停滞的连接
+     */
+    private final Object sendLock = new Object();
+    private Thread sendingThread;
+    private long sendingSince;
+    private boolean stalled;
+
+    private volatile boolean closed;
+    private volatile Set<String> subscriptions = Set.of();
+    private volatile RecordModel authRecord;
+    private volatile AdminModel admin;
+
+    RealtimeClient(String id, SseEmitter emitter, int bufferSize) {
+        this.id = id;
+        this.emitter = emitter;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public Set<String> getSubscriptions() {
+        return subscriptions;
+    }
+
+    void setSubscriptions(Set<String> subscriptions) {
+        this.subscriptions = Set.copyOf(subscriptions);
+    }
+
+    public RecordModel getAuthRecord() {
+        return authRecord;
+    }
+
+    public AdminModel getAdmin() {
+        return admin;
+    }
+
+    void setAuth(AdminModel admin, RecordModel authRecord) {
+        this.admin = admin;
+        this.authRecord = authRecord;
+    }
+
+    /**
+     * 同一批消息中认证信息相同的连接共享规则检查结果
+     */
+    String authKey() {
+        AdminModel admin = this.admin;
+        if (admin != null) {
+            return "admin";
+        }
+        RecordModel authRecord = this.authRecord;
+        if (authRecord != null) {
+            return authRecord.getCollection().getId() + "/" + authRecord.getId();
+        }
+        return "guest";
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        closed = true;
+        buffer.clear();
+    }
+
+    /**
+     * 放入缓冲区，缓冲区已满时返回 false
+     */
+    boolean offer(Message message) {
+        return !closed && buffer.offer(message);
+    }
+
+    Message poll() {
+        return buffer.poll();
+    }
+
+    boolean hasPending() {
+        return !buffer.isEmpty();
+    }
+
+    void beginSend() {
+        synchronized (sendLock) {
+            sendingThread = Thread.currentThread();
+            sendingSince = System.nanoTime();
+        }
+    }
+
+    void endSend() {
+        synchronized (sendLock) {
+            sendingThread = null;
+            if (stalled) {
+                // the interrupt may arrive after the write has returned, don't leak it to the next task of the sender thread
+                Thread.interrupted();
+            }
+        }
+    }
+
+    /**
+     * 当前写出已超过 timeoutNanos 时中断发送线程
+     *
+     * @return 是否判定为停滞
+     */
+    boolean interruptIfStalled(long timeoutNanos) {
+        synchronized (sendLock) {
+            if (stalled || sendingThread == null || System.nanoTime() - sendingSince < timeoutNanos) {
+                return false;
+            }
+            stalled = true;
+            sendingThread.interrupt();
+            return true;
+        }
+    }
+}
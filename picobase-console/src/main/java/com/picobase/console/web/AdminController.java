@@ -1,5 +1,6 @@
 package com.picobase.console.web;
 
+import com.picobase.PbManager;
 import com.picobase.PbUtil;
 import com.picobase.console.PbConsoleManager;
 import com.picobase.console.model.AdminLogin;
@@ -15,7 +16,7 @@ import com.picobase.model.AdminUpsert;
 import com.picobase.model.event.*;
 import com.picobase.persistence.repository.Page;
 import com.picobase.persistence.resolver.FieldResolver;
-import com.picobase.secure.BCrypt;
+import com.picobase.secure.PbPasswordHasher;
 import com.picobase.util.CommonHelper;
 import com.picobase.validator.Errors;
 import org.springframework.web.bind.annotation.*;
@@ -24,6 +25,7 @@ import java.util.Map;
 import java.util.Optional;
 
 import static com.picobase.persistence.dbx.expression.Expression.newExpr;
+import static com.picobase.persistence.dbx.expression.Expression.newHashExpr;
 import static com.picobase.util.PbConstants.InnerAdminId;
 
 @RestController
@@ -77,6 +79,11 @@ public class AdminController {
             throw new BadRequestException(errs);
         }
 
+        // 按身份限制尝试次数，超过时在计算密码哈希之前拒绝
+        PbPasswordHasher passwordHasher = PbManager.getPbPasswordHasher();
+        String attemptIdentity = PbPasswordHasher.attemptIdentity("admin", form.getIdentity());
+        passwordHasher.acquireAttempt(attemptIdentity);
+
         AdminModel adminModel;
 
         if (CommonHelper.isNotEmpty(PbConsoleManager.getConfig().getIdentity())) {
@@ -97,6 +104,7 @@ public class AdminController {
             if (CommonHelper.isNotEmpty(PbConsoleManager.getConfig().getIdentity())) {
                 //配置文件校验
                 if (admin.getEmail().equals(form.getIdentity()) && admin.getPasswordHash().equals(form.getPassword())) {
+                    passwordHasher.resetAttempts(attemptIdentity);
                     // 执行登录
                     PbAdminUtil.login(InnerAdminId);
 
@@ -107,7 +115,17 @@ public class AdminController {
                 }
             } else {
                 //数据库校验
-                if (admin != null && BCrypt.checkpw(form.getPassword(), admin.getPasswordHash())) {
+                if (admin != null && passwordHasher.verify(form.getPassword(), admin.getPasswordHash())) {
+                    passwordHasher.resetAttempts(attemptIdentity);
+
+                    // 已存储密码的成本因子与配置不一致时重新哈希
+                    String rehashed = passwordHasher.rehashIfNeeded(form.getPassword(), admin.getPasswordHash());
+                    if (rehashed != null) {
+                        PbUtil.getPbDbxBuilder().update(admin.tableName(), Map.of("passwordHash", rehashed), newHashExpr(Map.of("id", admin.getId()))).execute();
+                        admin.setPasswordHash(rehashed);
+                        PbManager.getPbAuthPrincipalCache().invalidateAdmin(admin.getId());
+                    }
+
                     // 执行登录
                     PbAdminUtil.login(admin.getId());
 
@@ -191,7 +209,7 @@ public class AdminController {
         AdminModel admin = new AdminModel();
         admin.setEmail(form.getEmail());
         admin.setAvatar(form.getAvatar());
-        admin.setPasswordHash(BCrypt.hashpw(form.getPassword()));
+        admin.setPasswordHash(PbManager.getPbPasswordHasher().hash(form.getPassword()));
         admin.refreshId();
         admin.refreshCreated();
         admin.refreshUpdated();
@@ -238,7 +256,7 @@ public class AdminController {
 
         originalAdmin.setEmail(form.getEmail());
         originalAdmin.setAvatar(form.getAvatar());
-        originalAdmin.setPasswordHash(BCrypt.hashpw(form.getPassword()));
+        originalAdmin.setPasswordHash(PbManager.getPbPasswordHasher().hash(form.getPassword()));
         originalAdmin.refreshUpdated();
 
         return Interceptors.run(originalAdmin, (adminModel) -> {
@@ -40,6 +40,9 @@ public class LogController {
     public List<LogsStatsItem> stats(HttpServletRequest request) {
         SimpleFieldResolver resolver = new SimpleFieldResolver(List.of("rowid", "level", "message", "id", "created", "data", "updated", "^data\\.[\\w\\.\\:]*\\w+$"));
         var expr = new SearchFilter(request.getParameter(PbConstants.QueryParam.FILTER)).buildExpr(resolver);
+        if (expr == null) {
+            return logMapper.hourlyStats(); // 无过滤条件时直接读取预聚合的小时统计
+        }
 
         return logMapper.stats(expr);
     }
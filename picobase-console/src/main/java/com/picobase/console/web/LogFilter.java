@@ -5,13 +5,13 @@ import cn.hutool.core.date.StopWatch;
 import com.picobase.PbManager;
 import com.picobase.PbUtil;
 import com.picobase.console.PbConsoleConstants;
+import com.picobase.console.PbConsoleManager;
 import com.picobase.console.model.LogModel;
 import com.picobase.context.PbHolder;
 import com.picobase.log.PbLog;
 import com.picobase.model.FailureResult;
 import com.picobase.model.RequestInfo;
 import com.picobase.util.PbConstants;
-import org.apache.catalina.connector.RequestFacade;
 import org.springframework.core.annotation.Order;
 
 import javax.servlet.*;
@@ -41,7 +41,9 @@ public class LogFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
         String fullRequestUrl = getFullRequestUrl(request);
-        log.info("{} {}", ((RequestFacade) request).getMethod(), fullRequestUrl);
+        if (PbConsoleManager.getConfig().isDev()) {
+            log.info("{} {}", ((HttpServletRequest) request).getMethod(), fullRequestUrl);
+        }
 
         LogModel logModel = new LogModel();
         logModel.refreshId();
@@ -6,6 +6,7 @@ import com.picobase.context.PbHolder;
 import com.picobase.exception.BadRequestException;
 import com.picobase.exception.ForbiddenException;
 import com.picobase.exception.PbException;
+import com.picobase.exception.TooManyRequestsException;
 import com.picobase.model.FailureResult;
 import com.picobase.validator.Err;
 import com.picobase.validator.Errors;
@@ -117,6 +118,11 @@ public class PbConsoleExceptionHandler implements ResponseBodyAdvice<Object> {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(new FailureResult().setCode(HttpStatus.FORBIDDEN.value()).setMessage(e.getMessage()).setData(""));
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity tooManyRequestsException(TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new FailureResult().setCode(HttpStatus.TOO_MANY_REQUESTS.value()).setMessage(e.getMessage()).setData(""));
+    }
+
     @Override
     public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
         return true;
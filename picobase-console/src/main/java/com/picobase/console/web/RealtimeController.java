@@ -0,0 +1,73 @@
+package com.picobase.console.web;
+
+import com.picobase.PbUtil;
+import com.picobase.console.PbConsoleManager;
+import com.picobase.console.model.RealtimeSubscribe;
+import com.picobase.console.realtime.RealtimeBroker;
+import com.picobase.console.realtime.RealtimeClient;
+import com.picobase.exception.BadRequestException;
+import com.picobase.exception.ForbiddenException;
+import com.picobase.exception.NotFoundException;
+import com.picobase.model.RecordModel;
+import com.picobase.model.RequestInfo;
+import com.picobase.validator.Errors;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import static com.picobase.console.PbConsoleRegister.isSomeOneLogin;
+import static com.picobase.logic.RecordHelper.createRequestInfo;
+
+/**
+ * Realtime 接口：GET 建立 SSE 连接（首条消息 PB_CONNECT 返回 clientId），POST 设置该连接的订阅
+ */
+@RestController
+@RequestMapping("/api/realtime")
+public class RealtimeController {
+
+    private final RealtimeBroker broker;
+
+    public RealtimeController(RealtimeBroker broker) {
+        this.broker = broker;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter connect() {
+        return broker.connect().getEmitter();
+    }
+
+    @PostMapping
+    public void setSubscriptions() {
+        RealtimeSubscribe form = PbUtil.createObjFromRequest(RealtimeSubscribe.class).orElseThrow(() -> new BadRequestException("Invalid request body."));
+        Errors errs = form.validate();
+        if (errs != null) {
+            throw new BadRequestException(errs);
+        }
+
+        RealtimeClient client = broker.getClient(form.getClientId());
+        if (client == null) {
+            throw new NotFoundException("Missing or invalid client id.");
+        }
+
+        if (PbConsoleManager.getConfig().getAuth() && !isSomeOneLogin()) {
+            throw new ForbiddenException("The request requires admin or record authorization token to be set.");
+        }
+        RequestInfo requestInfo = createRequestInfo();
+
+        // the connection can't be taken over by a different auth state
+        if (client.getAdmin() != null && requestInfo.getAdmin() == null) {
+            throw new ForbiddenException("The current and the previous request authorization don't match.");
+        }
+        RecordModel previous = client.getAuthRecord();
+        RecordModel current = requestInfo.getAuthRecord();
+        if (previous != null && (current == null || !previous.getId().equals(current.getId())
+                || !previous.getCollection().getId().equals(current.getCollection().getId()))) {
+            throw new ForbiddenException("The current and the previous request authorization don't match.");
+        }
+
+        broker.subscribe(client, form.getSubscriptions(), requestInfo.getAdmin(), current);
+    }
+}
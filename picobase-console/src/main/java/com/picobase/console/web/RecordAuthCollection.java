@@ -1,6 +1,7 @@
 package com.picobase.console.web;
 
 import cn.hutool.core.util.StrUtil;
+import com.picobase.PbManager;
 import com.picobase.PbUtil;
 import com.picobase.console.model.RecordAuthResponse;
 import com.picobase.console.model.RecordPasswordLogin;
@@ -17,6 +18,7 @@ import com.picobase.model.ExternalAuthModel;
 import com.picobase.model.RecordModel;
 import com.picobase.model.event.RecordAuthWithPasswordEvent;
 import com.picobase.model.event.TimePosition;
+import com.picobase.secure.PbPasswordHasher;
 import com.picobase.util.PbConstants;
 import com.picobase.validator.Errors;
 import com.picobase.validator.Is;
@@ -75,10 +77,22 @@ public class RecordAuthCollection {
         }
 
 
+        // 按身份限制尝试次数，超过时在计算密码哈希之前拒绝
+        PbPasswordHasher passwordHasher = PbManager.getPbPasswordHasher();
+        String attemptIdentity = PbPasswordHasher.attemptIdentity(collection.getId(), form.getIdentity());
+        passwordHasher.acquireAttempt(attemptIdentity);
+
         return Interceptors.run(authRecord, (record) -> {
             if (record == null || !record.validatePassword(form.getPassword())) {
                 throw new BadRequestException("Failed to authenticate.");
             }
+            passwordHasher.resetAttempts(attemptIdentity);
+
+            // 已存储密码的成本因子与配置不一致时重新哈希
+            String rehashed = passwordHasher.rehashIfNeeded(form.getPassword(), record.passwordHash());
+            if (rehashed != null) {
+                recordMapper.updateRecordPasswordHash(record, rehashed);
+            }
             //执行登录
             PbUtil.login(record.getId(), new PbLoginModel().setExtra(JwtExtraFieldCollectionId, collection.getId())); // authRecord 登录，token结构中要包含 Collection信息
             PbTokenInfo tokenInfo = PbUtil.getTokenInfo();
@@ -22,7 +22,6 @@ import com.picobase.persistence.dbx.SelectQuery;
 import com.picobase.persistence.dbx.expression.Expression;
 import com.picobase.persistence.repository.Page;
 import com.picobase.persistence.resolver.RecordFieldResolver;
-import com.picobase.search.SearchFilter;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional;
@@ -107,7 +106,7 @@ public class RecordController {
                 }
                 RecordFieldResolver resolver = new RecordFieldResolver(collection, requestInfo, true);
 
-                Expression expr = new SearchFilter(collection.getCreateRule()).buildExpr(resolver);
+                Expression expr = resolver.buildRuleExpr(collection.getCreateRule());
                 resolver.updateQuery(selectQuery);
                 selectQuery.andWhere(expr);
             };
@@ -176,7 +175,7 @@ public class RecordController {
         Consumer<SelectQuery> ruleFunc = selectQuery -> {
             if (requestInfo.getAdmin() == null && StrUtil.isNotEmpty(collection.getUpdateRule())) {
                 RecordFieldResolver recordFieldResolver = new RecordFieldResolver(collection, requestInfo, true);
-                Expression expression = new SearchFilter(collection.getUpdateRule()).buildExpr(recordFieldResolver);
+                Expression expression = recordFieldResolver.buildRuleExpr(collection.getUpdateRule());
                 recordFieldResolver.updateQuery(selectQuery);
                 selectQuery.andWhere(expression);
             }
@@ -230,7 +229,7 @@ public class RecordController {
         Consumer<SelectQuery> ruleFunc = selectQuery -> {
             if (requestInfo.getAdmin() == null && StrUtil.isNotEmpty(collection.getDeleteRule())) {
                 RecordFieldResolver recordFieldResolver = new RecordFieldResolver(collection, requestInfo, true);
-                Expression expression = new SearchFilter(collection.getDeleteRule()).buildExpr(recordFieldResolver);
+                Expression expression = recordFieldResolver.buildRuleExpr(collection.getDeleteRule());
                 recordFieldResolver.updateQuery(selectQuery);
                 selectQuery.andWhere(expression);
             }
@@ -2,6 +2,10 @@ package com.picobase;
 
 import com.picobase.cache.PbCache;
 import com.picobase.cache.PbCacheDefaultImpl;
+import com.picobase.cache.PbCacheLocalImpl;
+import com.picobase.cache.PbCacheRedisImpl;
+import com.picobase.cache.PbCatalogBroadcaster;
+import com.picobase.config.PbCacheConfig;
 import com.picobase.config.PbConfig;
 import com.picobase.config.PbConfigFactory;
 import com.picobase.context.PbContext;
@@ -10,18 +14,23 @@ import com.picobase.event.PbEventBus;
 import com.picobase.event.PbEventRegisterProcessor;
 import com.picobase.exception.PbException;
 import com.picobase.file.PbFileSystem;
+import com.picobase.file.PbThumbGenerator;
 import com.picobase.json.PbJsonTemplate;
 import com.picobase.json.PbJsonTemplateDefaultImpl;
 import com.picobase.listener.PbEventCenter;
 import com.picobase.log.PbLog;
 import com.picobase.log.PbLogForConsole;
+import com.picobase.logic.authz.PbAuthPrincipalCache;
 import com.picobase.logic.authz.PbAuthZLogic;
 import com.picobase.logic.authz.PbPermissionInterface;
 import com.picobase.logic.authz.PermissionInterfaceDefaultImpl;
+import com.picobase.logic.mapper.CollectionMapper;
 import com.picobase.persistence.dbx.PbDbxBuilder;
 import com.picobase.persistence.mapper.PbMapperManager;
 import com.picobase.persistence.repository.PbDatabaseOperate;
 import com.picobase.persistence.repository.PbRowMapperFactory;
+import com.picobase.search.PbProviderExecutor;
+import com.picobase.secure.PbPasswordHasher;
 import com.picobase.strategy.PbStrategy;
 import com.picobase.util.CommonHelper;
 
@@ -154,13 +163,28 @@ public class PbManager {
         if (pbCache == null) {
             synchronized (PbManager.class) {
                 if (pbCache == null) {
-                    setPbCacheMethod(new PbCacheDefaultImpl());
+                    setPbCacheMethod(newPbCache(getConfig().getCache()));
                 }
             }
         }
         return pbCache;
     }
 
+    /**
+     * 按配置的缓存类型创建 PbCache：local（默认）、redis、map
+     */
+    private static PbCache newPbCache(PbCacheConfig cacheConfig) {
+        String type = cacheConfig.getType() == null ? "local" : cacheConfig.getType().toLowerCase();
+        switch (type) {
+            case "redis":
+                return new PbCacheRedisImpl(cacheConfig);
+            case "map":
+                return new PbCacheDefaultImpl();
+            default:
+                return new PbCacheLocalImpl(cacheConfig);
+        }
+    }
+
     /**
      * PbAuthZLogic 集合, 记录框架所有成功初始化的 PbAuthZLogic
      */
@@ -353,4 +377,114 @@ public class PbManager {
     public static PbFileSystem getPbFileSystem() {
         return pbFileSystem;
     }
+
+    /**
+     * PbProvider 共享查询执行器
+     */
+    private volatile static PbProviderExecutor pbProviderExecutor;
+
+    public static void setPbProviderExecutor(PbProviderExecutor providerExecutor) {
+        if (PbManager.pbProviderExecutor != null) {
+            PbManager.pbProviderExecutor.destroy();
+        }
+        PbManager.pbProviderExecutor = providerExecutor;
+        PbEventCenter.doRegisterComponent("PbProviderExecutor", providerExecutor);
+    }
+
+    public static PbProviderExecutor getPbProviderExecutor() {
+        if (pbProviderExecutor == null) {
+            synchronized (PbManager.class) {
+                if (pbProviderExecutor == null) {
+                    PbManager.pbProviderExecutor = new PbProviderExecutor(getConfig().getProvider());
+                }
+            }
+        }
+        return pbProviderExecutor;
+    }
+
+    /**
+     * 缩略图生成器
+     */
+    private volatile static PbThumbGenerator pbThumbGenerator;
+
+    public static void setPbThumbGenerator(PbThumbGenerator thumbGenerator) {
+        if (PbManager.pbThumbGenerator != null) {
+            PbManager.pbThumbGenerator.destroy();
+        }
+        PbManager.pbThumbGenerator = thumbGenerator;
+        PbEventCenter.doRegisterComponent("PbThumbGenerator", thumbGenerator);
+    }
+
+    public static PbThumbGenerator getPbThumbGenerator() {
+        if (pbThumbGenerator == null) {
+            synchronized (PbManager.class) {
+                if (pbThumbGenerator == null) {
+                    PbManager.pbThumbGenerator = new PbThumbGenerator(getConfig().getThumb());
+                }
+            }
+        }
+        return pbThumbGenerator;
+    }
+
+    /**
+     * 密码哈希器
+     */
+    private volatile static PbPasswordHasher pbPasswordHasher;
+
+    public static void setPbPasswordHasher(PbPasswordHasher passwordHasher) {
+        if (PbManager.pbPasswordHasher != null) {
+            PbManager.pbPasswordHasher.destroy();
+        }
+        PbManager.pbPasswordHasher = passwordHasher;
+        PbEventCenter.doRegisterComponent("PbPasswordHasher", passwordHasher);
+    }
+
+    public static PbPasswordHasher getPbPasswordHasher() {
+        if (pbPasswordHasher == null) {
+            synchronized (PbManager.class) {
+                if (pbPasswordHasher == null) {
+                    PbManager.pbPasswordHasher = new PbPasswordHasher(getConfig().getPassword());
+                }
+            }
+        }
+        return pbPasswordHasher;
+    }
+
+    /**
+     * 登录主体（认证记录 / 管理员）缓存
+     */
+    private volatile static PbAuthPrincipalCache pbAuthPrincipalCache;
+
+    public static void setPbAuthPrincipalCache(PbAuthPrincipalCache authPrincipalCache) {
+        PbManager.pbAuthPrincipalCache = authPrincipalCache;
+        PbEventCenter.doRegisterComponent("PbAuthPrincipalCache", authPrincipalCache);
+    }
+
+    public static PbAuthPrincipalCache getPbAuthPrincipalCache() {
+        if (pbAuthPrincipalCache == null) {
+            synchronized (PbManager.class) {
+                if (pbAuthPrincipalCache == null) {
+                    PbManager.pbAuthPrincipalCache = new PbAuthPrincipalCache(getConfig());
+                }
+            }
+        }
+        return pbAuthPrincipalCache;
+    }
+
+    /**
+     * Collection 目录版本广播通道，未设置时只依靠按间隔检查版本号
+     */
+    private volatile static PbCatalogBroadcaster pbCatalogBroadcaster;
+
+    public static void setPbCatalogBroadcaster(PbCatalogBroadcaster catalogBroadcaster) {
+        PbManager.pbCatalogBroadcaster = catalogBroadcaster;
+        if (catalogBroadcaster != null) {
+            catalogBroadcaster.subscribe(CollectionMapper.getCatalog()::onVersion);
+        }
+        PbEventCenter.doRegisterComponent("PbCatalogBroadcaster", catalogBroadcaster);
+    }
+
+    public static PbCatalogBroadcaster getPbCatalogBroadcaster() {
+        return pbCatalogBroadcaster;
+    }
 }
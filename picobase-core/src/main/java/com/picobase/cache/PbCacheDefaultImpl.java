@@ -2,7 +2,6 @@ package com.picobase.cache;
 
 
 import com.picobase.PbManager;
-import com.picobase.util.CommonHelper;
 
 import java.util.List;
 import java.util.Map;
@@ -23,6 +22,11 @@ public class PbCacheDefaultImpl implements PbCache {
      */
     public Map<String, Long> expireMap = new ConcurrentHashMap<>();
 
+    /**
+     * expireMap 中所有 key 的有序索引，用于 searchData 按前缀分页查询
+     */
+    private final PbCacheKeyIndex keyIndex = new PbCacheKeyIndex();
+
     // ------------------------ String 读写操作
 
     @Override
@@ -37,7 +41,7 @@ public class PbCacheDefaultImpl implements PbCache {
             return;
         }
         dataMap.put(key, value);
-        expireMap.put(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+        putExpire(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
     }
 
     @Override
@@ -50,8 +54,7 @@ public class PbCacheDefaultImpl implements PbCache {
 
     @Override
     public void delete(String key) {
-        dataMap.remove(key);
-        expireMap.remove(key);
+        removeKey(key);
     }
 
     @Override
@@ -61,7 +64,7 @@ public class PbCacheDefaultImpl implements PbCache {
 
     @Override
     public void updateTimeout(String key, long timeout) {
-        expireMap.put(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+        putExpire(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
     }
 
 
@@ -79,7 +82,7 @@ public class PbCacheDefaultImpl implements PbCache {
             return;
         }
         dataMap.put(key, object);
-        expireMap.put(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+        putExpire(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
     }
 
     @Override
@@ -92,8 +95,7 @@ public class PbCacheDefaultImpl implements PbCache {
 
     @Override
     public void deleteObject(String key) {
-        dataMap.remove(key);
-        expireMap.remove(key);
+        removeKey(key);
     }
 
     @Override
@@ -103,7 +105,7 @@ public class PbCacheDefaultImpl implements PbCache {
 
     @Override
     public void updateObjectTimeout(String key, long timeout) {
-        expireMap.put(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+        putExpire(key, (timeout == PbCache.NEVER_EXPIRE) ? (PbCache.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
     }
 
 
@@ -115,7 +117,26 @@ public class PbCacheDefaultImpl implements PbCache {
 
     @Override
     public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
-        return CommonHelper.searchList(expireMap.keySet(), prefix, keyword, start, size, sortType);
+        return keyIndex.search(prefix, keyword, start, size, sortType, expireMap::containsKey);
+    }
+
+    /**
+     * 写入 key 的到期时间，新 key 同时加入有序索引
+     */
+    void putExpire(String key, long expirationTime) {
+        if (expireMap.put(key, expirationTime) == null) {
+            keyIndex.added(key, expireMap::containsKey);
+        }
+    }
+
+    /**
+     * 移除 key 的数据与到期时间
+     */
+    void removeKey(String key) {
+        dataMap.remove(key);
+        if (expireMap.remove(key) != null) {
+            keyIndex.removed(key, expireMap::containsKey);
+        }
     }
 
 
@@ -135,8 +156,7 @@ public class PbCacheDefaultImpl implements PbCache {
         // 		2、不是 [ 永不过期 ]。
         // 		3、已经超过过期时间。
         if (expirationTime != null && expirationTime != PbCache.NEVER_EXPIRE && expirationTime < System.currentTimeMillis()) {
-            dataMap.remove(key);
-            expireMap.remove(key);
+            removeKey(key);
         }
     }
 
@@ -170,8 +190,7 @@ public class PbCacheDefaultImpl implements PbCache {
 
         // 小于零时，视为不存在
         if (timeout < 0) {
-            dataMap.remove(key);
-            expireMap.remove(key);
+            removeKey(key);
             return PbCache.NOT_VALUE_EXPIRE;
         }
         return timeout;
@@ -0,0 +1,83 @@
+package com.picobase.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+
+/**
+ * 本地 PbCache 的有序 key 索引（跳表），用于 searchData 按前缀分页查询
+ * <p>
+ * 查询只定位并遍历前缀对应的区间：没有 keyword 时成本为 O(log n + start + size)，不会触碰其它命名空间的 key。
+ * 索引与数据 Map 之间不加锁，写入、删除后会再次检查数据 Map 进行纠正，查询时也会过滤已不存在的 key。
+ * </p>
+ */
+class PbCacheKeyIndex {
+
+    private final ConcurrentSkipListSet<String> keys = new ConcurrentSkipListSet<>();
+
+    /**
+     * 数据 Map 新增 key 之后调用
+     *
+     * @param exists 判断 key 当前是否仍在数据 Map 中
+     */
+    void added(String key, Predicate<String> exists) {
+        keys.add(key);
+        if (!exists.test(key)) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * 数据 Map 移除 key 之后调用
+     *
+     * @param exists 判断 key 当前是否仍在数据 Map 中
+     */
+    void removed(String key, Predicate<String> exists) {
+        keys.remove(key);
+        if (exists.test(key)) {
+            keys.add(key);
+        }
+    }
+
+    /**
+     * 按前缀与关键字分页查询 key，结果按字典序排列
+     *
+     * @param prefix   前缀
+     * @param keyword  关键字
+     * @param start    开始处索引
+     * @param size     获取数量 (-1代表从 start 处一直取到末尾)
+     * @param sortType 排序类型（true=正序，false=反序）
+     * @param alive    判断 key 是否有效（未过期）
+     * @return 查询到的数据集合
+     */
+    List<String> search(String prefix, String keyword, int start, int size, boolean sortType, Predicate<String> alive) {
+        String p = prefix == null ? "" : prefix;
+        String k = keyword == null ? "" : keyword;
+        NavigableSet<String> range = p.isEmpty() ? keys : keys.subSet(p, true, p + Character.MAX_VALUE, true);
+        if (!sortType) {
+            range = range.descendingSet();
+        }
+        int skip = Math.max(start, 0);
+        List<String> list = new ArrayList<>(size > 0 ? size : 16);
+        for (String key : range) {
+            if (size != -1 && list.size() >= size) {
+                break;
+            }
+            if (!key.startsWith(p) || !key.contains(k) || !alive.test(key)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            list.add(key);
+        }
+        return list;
+    }
+
+    void clear() {
+        keys.clear();
+    }
+}
@@ -0,0 +1,372 @@
+package com.picobase.cache;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbCacheConfig;
+import com.picobase.util.StrFormatter;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存接口，本地内存实现（时间轮过期 + 容量上限）
+ * <p>
+ * 每个 key 只对应一个条目，值和到期时间保存在同一个节点中，读操作无锁并做惰性过期检查。
+ * 有过期时间的节点按到期时间挂在哈希时间轮的格子上，后台线程每个 tick 只处理到期的格子，
+ * 清理成本与到期的数据量成正比，而不是每次扫描全部 key。
+ * 条目数超过 maximumSize 时，从时间轮当前位置开始优先淘汰最早过期的数据，最后才淘汰永不过期的数据。
+ * 所有 key 同时保存在有序的跳表索引中，searchData 只遍历前缀对应的区间。
+ * </p>
+ */
+public class PbCacheLocalImpl implements PbCache {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final Map<String, Node> dataMap = new ConcurrentHashMap<>();
+    private final PbCacheKeyIndex keyIndex = new PbCacheKeyIndex();
+    private final Set<Node>[] wheel;
+    private final int wheelMask;
+    private final long tickMillis;
+    private final int maximumSize;
+
+    /**
+     * 下一个需要处理的 tick（到期时间 / tickMillis）
+     */
+    private long nextTick;
+    private ScheduledExecutorService timer;
+
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public PbCacheLocalImpl() {
+        this(PbManager.getConfig().getCache());
+    }
+
+    @SuppressWarnings("unchecked")
+    public PbCacheLocalImpl(PbCacheConfig config) {
+        this.tickMillis = Math.max(config.getTickMillis(), 1);
+        this.maximumSize = config.getMaximumSize() > 0 ? config.getMaximumSize() : Integer.MAX_VALUE;
+        int size = 1;
+        while (size < Math.max(config.getWheelSize(), 1)) {
+            size <<= 1;
+        }
+        this.wheel = new Set[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.wheelMask = size - 1;
+        this.nextTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    // ------------------------ String 读写操作
+
+    @Override
+    public String get(String key) {
+        return (String) getObject(key);
+    }
+
+    @Override
+    public void set(String key, String value, long timeout) {
+        setObject(key, value, timeout);
+    }
+
+    @Override
+    public void update(String key, String value) {
+        updateObject(key, value);
+    }
+
+    @Override
+    public void delete(String key) {
+        deleteObject(key);
+    }
+
+    @Override
+    public long getTimeout(String key) {
+        return getObjectTimeout(key);
+    }
+
+    @Override
+    public void updateTimeout(String key, long timeout) {
+        updateObjectTimeout(key, timeout);
+    }
+
+    // ------------------------ Object 读写操作
+
+    @Override
+    public Object getObject(String key) {
+        Node node = liveNode(key, System.currentTimeMillis());
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public void setObject(String key, Object object, long timeout) {
+        if (timeout == 0 || timeout <= PbCache.NOT_VALUE_EXPIRE) {
+            return;
+        }
+        long expireAt = expireAt(timeout);
+        Node node = new Node(key, object, expireAt);
+        Node old = dataMap.put(key, node);
+        if (old != null) {
+            unschedule(old);
+        } else {
+            keyIndex.added(key, dataMap::containsKey);
+        }
+        schedule(node, expireAt);
+        if (old == null && dataMap.size() > maximumSize) {
+            evict();
+        }
+    }
+
+    @Override
+    public void updateObject(String key, Object object) {
+        Node node = liveNode(key, System.currentTimeMillis());
+        if (node != null) {
+            node.value = object;
+        }
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        Node node = dataMap.remove(key);
+        if (node != null) {
+            unschedule(node);
+            keyIndex.removed(key, dataMap::containsKey);
+        }
+    }
+
+    @Override
+    public long getObjectTimeout(String key) {
+        long now = System.currentTimeMillis();
+        Node node = liveNode(key, now);
+        if (node == null) {
+            return PbCache.NOT_VALUE_EXPIRE;
+        }
+        long expireAt = node.expireAt;
+        if (expireAt == NEVER) {
+            return PbCache.NEVER_EXPIRE;
+        }
+        long timeout = (expireAt - now) / 1000;
+        return timeout < 0 ? PbCache.NOT_VALUE_EXPIRE : timeout;
+    }
+
+    @Override
+    public void updateObjectTimeout(String key, long timeout) {
+        Node node = liveNode(key, System.currentTimeMillis());
+        if (node != null) {
+            schedule(node, expireAt(timeout));
+        }
+    }
+
+    // ------------------------ Session 读写操作
+    // 使用接口默认实现
+
+
+    // --------- 会话管理
+
+    @Override
+    public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+        long now = System.currentTimeMillis();
+        return keyIndex.search(prefix, keyword, start, size, sortType, key -> {
+            Node node = dataMap.get(key);
+            return node != null && node.expireAt > now;
+        });
+    }
+
+    /**
+     * @return 当前条目数（包含已过期但尚未被清理的条目）
+     */
+    public int size() {
+        return dataMap.size();
+    }
+
+    /**
+     * @return 缓存统计信息快照
+     */
+    public Map<String, Object> stats() {
+        return Map.of("size", size(), "maximumSize", maximumSize,
+                "expiredCount", expiredCount.sum(), "evictionCount", evictionCount.sum());
+    }
+
+    // ------------------------ 过期时间相关操作
+
+    private long expireAt(long timeout) {
+        return timeout == PbCache.NEVER_EXPIRE ? NEVER : System.currentTimeMillis() + timeout * 1000;
+    }
+
+    /**
+     * @return key 对应的未过期节点，已过期时顺便将其清除
+     */
+    private Node liveNode(String key, long now) {
+        Node node = dataMap.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (node.expireAt <= now) {
+            if (removeNode(node)) {
+                expiredCount.increment();
+            }
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * 将节点挂到新的到期时间对应的格子上（永不过期的节点不进入时间轮）
+     */
+    private void schedule(Node node, long expireAt) {
+        synchronized (node) {
+            if (node.slot >= 0) {
+                wheel[node.slot].remove(node);
+                node.slot = -1;
+            }
+            node.expireAt = expireAt;
+            if (expireAt != NEVER) {
+                node.slot = (int) ((expireAt / tickMillis) & wheelMask);
+                wheel[node.slot].add(node);
+            }
+        }
+    }
+
+    private void unschedule(Node node) {
+        synchronized (node) {
+            if (node.slot >= 0) {
+                wheel[node.slot].remove(node);
+                node.slot = -1;
+            }
+        }
+    }
+
+    /**
+     * 处理所有已经完整经过的 tick：清除其格子中已到期的节点，未到期的节点（位于后续轮次）保持不动
+     */
+    void advance(long now) {
+        long currentTick = now / tickMillis;
+        long tick;
+        synchronized (this) {
+            tick = nextTick;
+            if (tick >= currentTick) {
+                return;
+            }
+            // 落后超过一整圈时，每个格子只需处理一次
+            nextTick = currentTick;
+        }
+        long from = Math.max(tick, currentTick - wheel.length);
+        for (long t = from; t < currentTick; t++) {
+            expireSlot(wheel[(int) (t & wheelMask)], now);
+        }
+    }
+
+    private void expireSlot(Set<Node> slot, long now) {
+        for (Iterator<Node> it = slot.iterator(); it.hasNext(); ) {
+            Node node = it.next();
+            if (node.expireAt <= now) {
+                it.remove();
+                if (removeNode(node)) {
+                    expiredCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 容量超限时淘汰：沿时间轮从当前位置向后查找，第一圈只淘汰本轮内到期的节点（即最早过期的节点），
+     * 仍然超限时再淘汰时间轮中的其它节点，最后淘汰永不过期的节点
+     */
+    private void evict() {
+        long tick;
+        synchronized (this) {
+            tick = nextTick;
+        }
+        long roundEnd = (tick + wheel.length) * tickMillis;
+        for (long bound : new long[]{roundEnd, NEVER}) {
+            for (int i = 0; i < wheel.length && dataMap.size() > maximumSize; i++) {
+                Set<Node> slot = wheel[(int) ((tick + i) & wheelMask)];
+                for (Iterator<Node> it = slot.iterator(); it.hasNext() && dataMap.size() > maximumSize; ) {
+                    Node node = it.next();
+                    if (node.expireAt < bound) {
+                        evictNode(node);
+                    }
+                }
+            }
+        }
+        for (Iterator<Node> it = dataMap.values().iterator(); it.hasNext() && dataMap.size() > maximumSize; ) {
+            evictNode(it.next());
+        }
+    }
+
+    private void evictNode(Node node) {
+        if (removeNode(node)) {
+            evictionCount.increment();
+        }
+    }
+
+    /**
+     * @return 节点仍是 key 的当前节点并被移除时返回 true
+     */
+    private boolean removeNode(Node node) {
+        if (!dataMap.remove(node.key, node)) {
+            return false;
+        }
+        unschedule(node);
+        keyIndex.removed(node.key, dataMap::containsKey);
+        return true;
+    }
+
+    // --------- 定时推进时间轮
+
+    /**
+     * 组件被安装时，启动时间轮线程
+     */
+    @Override
+    public synchronized void init() {
+        if (timer != null) {
+            return;
+        }
+        this.nextTick = System.currentTimeMillis() / tickMillis;
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, StrFormatter.format("pb-cache-wheel-t{}", 1));
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(() -> {
+            try {
+                advance(System.currentTimeMillis());
+            } catch (Exception e) {
+                PbManager.getLog().error("PbCache expiration failed", e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 组件被卸载时，停止时间轮线程
+     */
+    @Override
+    public synchronized void destroy() {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+    }
+
+    private static class Node {
+        private final String key;
+        private volatile Object value;
+        private volatile long expireAt;
+        /**
+         * 所在时间轮格子，-1 代表不在时间轮中
+         */
+        private int slot = -1;
+
+        private Node(String key, Object value, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
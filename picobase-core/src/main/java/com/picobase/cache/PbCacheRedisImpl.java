@@ -0,0 +1,235 @@
+package com.picobase.cache;
+
+import cn.hutool.core.util.SerializeUtil;
+import cn.hutool.core.util.StrUtil;
+import com.picobase.PbManager;
+import com.picobase.config.PbCacheConfig;
+import com.picobase.exception.PbException;
+import com.picobase.util.CommonHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存接口，Redis 协议实现（多个实例连接同一个 Redis 时共享会话与 token 状态）
+ * <p>
+ * String 值以 UTF-8 保存，Object 值（如 PbSession）以 JDK 序列化保存，因此写入会话的自定义数据需要实现 Serializable。
+ * 过期时间直接使用 Redis 的 EX / TTL / PERSIST 语义，TTL 返回的 -1、-2 与 {@link PbCache#NEVER_EXPIRE}、{@link PbCache#NOT_VALUE_EXPIRE} 一致。
+ * 只更新值不改变过期时间依赖 SET ... XX KEEPTTL，需要 Redis 6.0 及以上版本。
+ * </p>
+ */
+public class PbCacheRedisImpl implements PbCache {
+
+    private final PbCacheConfig config;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<RespConnection> idle = new ConcurrentLinkedDeque<>();
+    private volatile boolean closed;
+
+    public PbCacheRedisImpl() {
+        this(PbManager.getConfig().getCache());
+    }
+
+    public PbCacheRedisImpl(PbCacheConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(Math.max(config.getRedisPoolSize(), 1));
+    }
+
+    // ------------------------ String 读写操作
+
+    @Override
+    public String get(String key) {
+        byte[] bytes = (byte[]) execute("GET", key);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void set(String key, String value, long timeout) {
+        setBytes(key, value.getBytes(StandardCharsets.UTF_8), timeout);
+    }
+
+    @Override
+    public void update(String key, String value) {
+        execute("SET", key, value, "XX", "KEEPTTL");
+    }
+
+    @Override
+    public void delete(String key) {
+        execute("DEL", key);
+    }
+
+    @Override
+    public long getTimeout(String key) {
+        return (Long) execute("TTL", key);
+    }
+
+    @Override
+    public void updateTimeout(String key, long timeout) {
+        if (timeout == PbCache.NEVER_EXPIRE) {
+            execute("PERSIST", key);
+        } else {
+            execute("EXPIRE", key, timeout);
+        }
+    }
+
+    // ------------------------ Object 读写操作
+
+    @Override
+    public Object getObject(String key) {
+        byte[] bytes = (byte[]) execute("GET", key);
+        return bytes == null ? null : SerializeUtil.deserialize(bytes);
+    }
+
+    @Override
+    public void setObject(String key, Object object, long timeout) {
+        setBytes(key, SerializeUtil.serialize(object), timeout);
+    }
+
+    @Override
+    public void updateObject(String key, Object object) {
+        execute("SET", key, SerializeUtil.serialize(object), "XX", "KEEPTTL");
+    }
+
+    @Override
+    public void deleteObject(String key) {
+        delete(key);
+    }
+
+    @Override
+    public long getObjectTimeout(String key) {
+        return getTimeout(key);
+    }
+
+    @Override
+    public void updateObjectTimeout(String key, long timeout) {
+        updateTimeout(key, timeout);
+    }
+
+    private void setBytes(String key, byte[] value, long timeout) {
+        if (timeout == 0 || timeout <= PbCache.NOT_VALUE_EXPIRE) {
+            return;
+        }
+        if (timeout == PbCache.NEVER_EXPIRE) {
+            execute("SET", key, value);
+        } else {
+            execute("SET", key, value, "EX", timeout);
+        }
+    }
+
+    // ------------------------ Session 读写操作
+    // 使用接口默认实现
+
+
+    // --------- 会话管理
+
+    /**
+     * 通过 SCAN 遍历匹配的 key，结果按字典序排序后分页，保证多次调用的顺序稳定
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> searchData(String prefix, String keyword, int start, int size, boolean sortType) {
+        String pattern = escapeGlob(StrUtil.nullToEmpty(prefix)) + "*" +
+                (StrUtil.isEmpty(keyword) ? "" : escapeGlob(keyword) + "*");
+        List<String> keys = new ArrayList<>();
+        String cursor = "0";
+        do {
+            List<Object> reply = (List<Object>) execute("SCAN", cursor, "MATCH", pattern, "COUNT", 1000);
+            cursor = new String((byte[]) reply.get(0), StandardCharsets.UTF_8);
+            for (Object key : (List<Object>) reply.get(1)) {
+                keys.add(new String((byte[]) key, StandardCharsets.UTF_8));
+            }
+        } while (!"0".equals(cursor));
+        Collections.sort(keys);
+        return CommonHelper.searchList(keys, prefix, keyword, start, size, sortType);
+    }
+
+    private static String escapeGlob(String str) {
+        StringBuilder sb = new StringBuilder(str.length());
+        for (char c : str.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // ------------------------ 连接池
+
+    /**
+     * 借出一个连接执行命令，网络异常时丢弃该连接并抛出 PbException
+     */
+    Object execute(Object... args) {
+        if (closed) {
+            throw new PbException("PbCacheRedisImpl has been destroyed");
+        }
+        try {
+            if (!permits.tryAcquire(config.getRedisTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new PbException("Timeout waiting for a Redis connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PbException("Interrupted while waiting for a Redis connection");
+        }
+        RespConnection connection = null;
+        try {
+            connection = idle.pollFirst();
+            if (connection == null) {
+                connection = connect();
+            }
+            Object reply = connection.command(args);
+            idle.offerFirst(connection);
+            return reply;
+        } catch (IOException e) {
+            if (connection != null) {
+                connection.close();
+            }
+            throw new PbException("Redis command " + args[0] + " failed: " + e.getMessage(), e);
+        } catch (RespConnection.ErrorReplyException e) {
+            // 错误回复已被完整读取，不影响连接状态
+            idle.offerFirst(connection);
+            throw e;
+        } catch (RuntimeException e) {
+            // 回复可能只读取了一部分，丢弃该连接
+            if (connection != null) {
+                connection.close();
+            }
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    private RespConnection connect() throws IOException {
+        RespConnection connection = new RespConnection(config.getRedisHost(), config.getRedisPort(), config.getRedisTimeout());
+        try {
+            if (StrUtil.isNotEmpty(config.getRedisPassword())) {
+                connection.command("AUTH", config.getRedisPassword());
+            }
+            if (config.getRedisDatabase() != 0) {
+                connection.command("SELECT", config.getRedisDatabase());
+            }
+        } catch (IOException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * 组件被卸载时，关闭所有空闲连接
+     */
+    @Override
+    public void destroy() {
+        closed = true;
+        RespConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.picobase.cache;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Collection 目录版本广播通道
+ *
+ * <p>
+ * 多节点部署时，某个节点修改 Collection 后通过此通道通知其它节点新的目录版本，其它节点收到后立即重新加载 Collection 目录。
+ * 未设置时各节点只依靠按间隔检查 pb_catalog 表中的版本号（{@link com.picobase.config.PbConfig#getCatalogCheckInterval()}）。
+ * 可基于 Redis pub/sub、MQ 等实现此接口，并通过 {@link com.picobase.PbManager#setPbCatalogBroadcaster} 注册。
+ * </p>
+ */
+public interface PbCatalogBroadcaster {
+
+    /**
+     * 本节点修改 Collection 并递增目录版本后调用
+     *
+     * @param version 新的目录版本
+     */
+    void publish(long version);
+
+    /**
+     * 注册接收版本通知的回调（注册到 PbManager 时调用一次），收到其它节点发布的版本时调用 listener
+     *
+     * @param listener 版本通知回调
+     */
+    void subscribe(LongConsumer listener);
+}
@@ -0,0 +1,176 @@
+package com.picobase.cache;
+
+import com.picobase.exception.PbException;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于 RESP（Redis Serialization Protocol）的单个阻塞连接，只实现 PbCacheRedisImpl 需要的请求/响应模型
+ * <p>
+ * 回复类型对应关系：简单字符串 -> String，整数 -> Long，批量字符串 -> byte[]（nil 为 null），数组 -> List（nil 为 null），
+ * 错误回复（包括数组中嵌套的错误回复）在整个回复读取完毕后抛出 {@link ErrorReplyException}，此时连接仍可继续使用。
+ * </p>
+ */
+class RespConnection implements Closeable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    RespConnection(String host, int port, int timeout) throws IOException {
+        this.socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.setKeepAlive(true);
+        socket.connect(new InetSocketAddress(host, port), timeout);
+        socket.setSoTimeout(timeout);
+        this.in = new BufferedInputStream(socket.getInputStream());
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    /**
+     * 发送一条命令并读取回复
+     *
+     * @param args 命令及参数，String 按 UTF-8 编码，byte[] 原样发送
+     * @return 回复
+     */
+    Object command(Object... args) throws IOException {
+        out.write('*');
+        writeNumber(args.length);
+        for (Object arg : args) {
+            byte[] bytes = arg instanceof byte[] ? (byte[]) arg : String.valueOf(arg).getBytes(StandardCharsets.UTF_8);
+            out.write('$');
+            writeNumber(bytes.length);
+            out.write(bytes);
+            out.write(CRLF);
+        }
+        out.flush();
+        Object reply = readReply();
+        // the whole reply has been consumed, the connection stays usable after an error reply
+        String error = findError(reply);
+        if (error != null) {
+            throw new ErrorReplyException("Redis error: " + error);
+        }
+        return reply;
+    }
+
+    private static String findError(Object reply) {
+        if (reply instanceof ErrorReply) {
+            return ((ErrorReply) reply).message;
+        }
+        if (reply instanceof List) {
+            for (Object item : (List<?>) reply) {
+                String error = findError(item);
+                if (error != null) {
+                    return error;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void writeNumber(long n) throws IOException {
+        out.write(Long.toString(n).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+
+    private Object readReply() throws IOException {
+        int type = in.read();
+        switch (type) {
+            case '+':
+                return readLine();
+            case '-':
+                return new ErrorReply(readLine());
+            case ':':
+                return readNumber();
+            case '$': {
+                int length = (int) readNumber();
+                if (length < 0) {
+                    return null;
+                }
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length != length || in.read() != '\r' || in.read() != '\n') {
+                    throw new EOFException("Unexpected end of Redis bulk reply");
+                }
+                return bytes;
+            }
+            case '*': {
+                int count = (int) readNumber();
+                if (count < 0) {
+                    return null;
+                }
+                List<Object> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    items.add(readReply());
+                }
+                return items;
+            }
+            case -1:
+                throw new EOFException("Redis connection closed");
+            default:
+                throw new IOException("Unknown Redis reply type: " + (char) type);
+        }
+    }
+
+    private long readNumber() throws IOException {
+        String line = readLine();
+        try {
+            return Long.parseLong(line);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid Redis number reply: " + line);
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (; ; ) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Redis connection closed");
+            }
+            if (b == '\r') {
+                in.read();
+                return sb.toString();
+            }
+            sb.append((char) b);
+        }
+    }
+
+    boolean isOpen() {
+        return !socket.isClosed();
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 回复中的错误回复，读取完整个回复后再抛出
+     */
+    private static class ErrorReply {
+        private final String message;
+
+        private ErrorReply(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * Redis 返回了错误回复，回复已被完整读取
+     */
+    static class ErrorReplyException extends PbException {
+        ErrorReplyException(String message) {
+            super(message);
+        }
+    }
+}
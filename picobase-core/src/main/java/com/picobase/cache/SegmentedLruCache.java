@@ -0,0 +1,252 @@
+package com.picobase.cache;
+
+import cn.hutool.core.lang.Assert;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有界的分段 LRU（SLRU）缓存
+ * <p>
+ * 新写入的 key 进入试用区（probation），再次命中后晋升到保护区（protected），保护区溢出的 key 退回试用区，
+ * 容量不足时优先淘汰试用区中最久未访问的 key，因此一次性访问的 key 不会把热点 key 挤出缓存。
+ * 内部按 key 的 hash 分为多个互相独立加锁的段，并提供命中、未命中、淘汰计数。
+ * </p>
+ */
+public class SegmentedLruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final float PROTECTED_RATIO = 0.8f;
+
+    private final int maximumSize;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public SegmentedLruCache(int maximumSize) {
+        Assert.isTrue(maximumSize > 0);
+        this.maximumSize = maximumSize;
+        // 每段至少保留 32 个位置，避免小容量缓存被切得过碎
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && maximumSize / (segmentCount * 2) >= 32) {
+            segmentCount <<= 1;
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentSize);
+        }
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    /**
+     * @return key 对应的值，不存在或已过期时返回 null
+     */
+    public V get(K key) {
+        V value = segmentFor(key).get(key, System.currentTimeMillis());
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 获取 key 对应的值，不存在时通过 loader 加载并写入缓存（loader 返回 null 时不缓存）
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 获取 key 对应的值，不存在（或已过期）时通过 mappingFunction 创建并写入缓存，整个过程在段锁内完成，
+     * 并发调用只会创建一次（mappingFunction 应尽量轻量，返回 null 时不缓存）
+     *
+     * @param expireAt 新写入值的过期时间戳（毫秒）
+     */
+    public V computeIfAbsent(K key, Function<K, V> mappingFunction, long expireAt) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            V value = segment.get(key, System.currentTimeMillis());
+            if (value != null) {
+                hitCount.increment();
+                return value;
+            }
+            missCount.increment();
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                evictionCount.add(segment.put(key, value, expireAt));
+            }
+            return value;
+        }
+    }
+
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param expireAt 过期时间戳（毫秒），到期后 get 返回 null
+     */
+    public void put(K key, V value, long expireAt) {
+        Assert.notNull(value);
+        evictionCount.add(segmentFor(key).put(key, value, expireAt));
+    }
+
+    public void remove(K key) {
+        segmentFor(key).remove(key);
+    }
+
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return 缓存统计信息快照
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maximumSize", maximumSize);
+        stats.put("hitCount", getHitCount());
+        stats.put("missCount", getMissCount());
+        stats.put("evictionCount", getEvictionCount());
+        return stats;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expireAt;
+
+        private Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static class Segment<K, V> {
+        private final int capacity;
+        private final int protectedCapacity;
+        private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<K, Entry<V>> protect = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int capacity) {
+            this.capacity = Math.max(capacity, 1);
+            this.protectedCapacity = (int) (this.capacity * PROTECTED_RATIO);
+        }
+
+        private synchronized V get(K key, long now) {
+            Entry<V> entry = protect.get(key);
+            if (entry == null) {
+                entry = probation.remove(key);
+                if (entry == null) {
+                    return null;
+                }
+                if (entry.expireAt <= now) {
+                    return null;
+                }
+                // 二次命中，晋升到保护区
+                protect.put(key, entry);
+                demoteOverflow();
+                return entry.value;
+            }
+            if (entry.expireAt <= now) {
+                protect.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        /**
+         * @return 本次写入导致淘汰的数量
+         */
+        private synchronized int put(K key, V value, long expireAt) {
+            Entry<V> entry = new Entry<>(value, expireAt);
+            if (protect.containsKey(key)) {
+                protect.put(key, entry);
+                return 0;
+            }
+            probation.put(key, entry);
+            int evicted = 0;
+            while (probation.size() + protect.size() > capacity) {
+                LinkedHashMap<K, Entry<V>> victims = probation.isEmpty() ? protect : probation;
+                Iterator<K> it = victims.keySet().iterator();
+                it.next();
+                it.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        private void demoteOverflow() {
+            while (protect.size() > protectedCapacity && !protect.isEmpty()) {
+                Iterator<Map.Entry<K, Entry<V>>> it = protect.entrySet().iterator();
+                Map.Entry<K, Entry<V>> eldest = it.next();
+                it.remove();
+                probation.put(eldest.getKey(), eldest.getValue());
+            }
+        }
+
+        private synchronized void remove(K key) {
+            if (protect.remove(key) == null) {
+                probation.remove(key);
+            }
+        }
+
+        private synchronized void clear() {
+            probation.clear();
+            protect.clear();
+        }
+
+        private synchronized int size() {
+            return probation.size() + protect.size();
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.picobase.config;
+
+import java.io.Serializable;
+
+/**
+ * PbCache 缓存组件相关配置
+ */
+public class PbCacheConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 缓存实现类型：local（本地内存，时间轮过期 + 容量上限）、redis（Redis 协议，可在多个实例间共享会话与 token 状态）、
+     * map（旧版双 Map 实现，按 dataRefreshPeriod 全量扫描清理）
+     */
+    private String type = "local";
+
+    /**
+     * 本地缓存的最大条目数，超出时优先淘汰最早过期的数据
+     */
+    private int maximumSize = 100_000;
+
+    /**
+     * 本地缓存时间轮每一格的时长（单位：毫秒）
+     */
+    private long tickMillis = 1000;
+
+    /**
+     * 本地缓存时间轮的格数（会被向上取整为 2 的幂）
+     */
+    private int wheelSize = 4096;
+
+    /**
+     * Redis 地址
+     */
+    private String redisHost = "127.0.0.1";
+
+    /**
+     * Redis 端口
+     */
+    private int redisPort = 6379;
+
+    /**
+     * Redis 密码，为空时不进行认证
+     */
+    private String redisPassword;
+
+    /**
+     * Redis 数据库序号
+     */
+    private int redisDatabase = 0;
+
+    /**
+     * Redis 连接与读取超时时间（单位：毫秒）
+     */
+    private int redisTimeout = 3000;
+
+    /**
+     * Redis 连接池的最大连接数
+     */
+    private int redisPoolSize = 8;
+
+    /**
+     * @return 缓存实现类型：local、redis、map
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @param type 缓存实现类型：local（本地内存）、redis（Redis 协议）、map（旧版双 Map 实现）
+     * @return 对象自身
+     */
+    public PbCacheConfig setType(String type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * @return 本地缓存的最大条目数
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @param maximumSize 本地缓存的最大条目数，超出时优先淘汰最早过期的数据
+     * @return 对象自身
+     */
+    public PbCacheConfig setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * @return 本地缓存时间轮每一格的时长（单位：毫秒）
+     */
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * @param tickMillis 本地缓存时间轮每一格的时长（单位：毫秒）
+     * @return 对象自身
+     */
+    public PbCacheConfig setTickMillis(long tickMillis) {
+        this.tickMillis = tickMillis;
+        return this;
+    }
+
+    /**
+     * @return 本地缓存时间轮的格数
+     */
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    /**
+     * @param wheelSize 本地缓存时间轮的格数（会被向上取整为 2 的幂）
+     * @return 对象自身
+     */
+    public PbCacheConfig setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+        return this;
+    }
+
+    /**
+     * @return Redis 地址
+     */
+    public String getRedisHost() {
+        return redisHost;
+    }
+
+    /**
+     * @param redisHost Redis 地址
+     * @return 对象自身
+     */
+    public PbCacheConfig setRedisHost(String redisHost) {
+        this.redisHost = redisHost;
+        return this;
+    }
+
+    /**
+     * @return Redis 端口
+     */
+    public int getRedisPort() {
+        return redisPort;
+    }
+
+    /**
+     * @param redisPort Redis 端口
+     * @return 对象自身
+     */
+    public PbCacheConfig setRedisPort(int redisPort) {
+        this.redisPort = redisPort;
+        return this;
+    }
+
+    /**
+     * @return Redis 密码
+     */
+    public String getRedisPassword() {
+        return redisPassword;
+    }
+
+    /**
+     * @param redisPassword Redis 密码，为空时不进行认证
+     * @return 对象自身
+     */
+    public PbCacheConfig setRedisPassword(String redisPassword) {
+        this.redisPassword = redisPassword;
+        return this;
+    }
+
+    /**
+     * @return Redis 数据库序号
+     */
+    public int getRedisDatabase() {
+        return redisDatabase;
+    }
+
+    /**
+     * @param redisDatabase Redis 数据库序号
+     * @return 对象自身
+     */
+    public PbCacheConfig setRedisDatabase(int redisDatabase) {
+        this.redisDatabase = redisDatabase;
+        return this;
+    }
+
+    /**
+     * @return Redis 连接与读取超时时间（单位：毫秒）
+     */
+    public int getRedisTimeout() {
+        return redisTimeout;
+    }
+
+    /**
+     * @param redisTimeout Redis 连接与读取超时时间（单位：毫秒）
+     * @return 对象自身
+     */
+    public PbCacheConfig setRedisTimeout(int redisTimeout) {
+        this.redisTimeout = redisTimeout;
+        return this;
+    }
+
+    /**
+     * @return Redis 连接池的最大连接数
+     */
+    public int getRedisPoolSize() {
+        return redisPoolSize;
+    }
+
+    /**
+     * @param redisPoolSize Redis 连接池的最大连接数
+     * @return 对象自身
+     */
+    public PbCacheConfig setRedisPoolSize(int redisPoolSize) {
+        this.redisPoolSize = redisPoolSize;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PbCacheConfig{" +
+                "type='" + type + '\'' +
+                ", maximumSize=" + maximumSize +
+                ", tickMillis=" + tickMillis +
+                ", wheelSize=" + wheelSize +
+                ", redisHost='" + redisHost + '\'' +
+                ", redisPort=" + redisPort +
+                ", redisDatabase=" + redisDatabase +
+                ", redisTimeout=" + redisTimeout +
+                ", redisPoolSize=" + redisPoolSize +
+                '}';
+    }
+}
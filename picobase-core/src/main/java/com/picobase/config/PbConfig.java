@@ -15,6 +15,22 @@ public class PbConfig implements Serializable {
      * S3 配置
      */
     public S3Config s3 = new S3Config();
+    /**
+     * PbProvider 分页查询配置
+     */
+    public PbProviderConfig provider = new PbProviderConfig();
+    /**
+     * 缩略图生成配置
+     */
+    public PbThumbConfig thumb = new PbThumbConfig();
+    /**
+     * 密码哈希配置
+     */
+    public PbPasswordConfig password = new PbPasswordConfig();
+    /**
+     * PbCache 缓存组件配置
+     */
+    public PbCacheConfig cache = new PbCacheConfig();
     /**
      * token 名称 （同时也是： cookie 名称、提交 token 时参数的名称、存储 token 时的 key 前缀）
      */
@@ -72,6 +88,11 @@ public class PbConfig implements Serializable {
      * 是否打开自动续签 activeTimeout （如果此值为 true, 框架会在每次直接或间接调用 getLoginId() 时进行一次过期检查与续签操作）
      */
     private Boolean autoRenew = true;
+    /**
+     * 自动续签 activeTimeout 的最小间隔（单位：秒），距离上次续签不足此时间时不再写缓存，每次请求最多续签一次；0 代表每次请求都续签
+     * （实际间隔不会超过 token 最低活跃频率的一半）
+     */
+    private long autoRenewInterval = 30;
     /**
      * token 前缀, 前端提交 token 时应该填写的固定前缀，格式样例(satoken: Bearer xxxx-xxxx-xxxx-xxxx)
      */
@@ -101,7 +122,7 @@ public class PbConfig implements Serializable {
      */
     private String currDomain;
     /**
-     * 默认 PbCache 实现类中，每次清理过期数据间隔的时间（单位: 秒），默认值30秒，设置为 -1 代表不启动定时清理
+     * 双 Map 版 PbCache 实现（cache.type=map）中，每次清理过期数据间隔的时间（单位: 秒），默认值30秒，设置为 -1 代表不启动定时清理
      */
     private int dataRefreshPeriod = 30;
     /**
@@ -109,6 +130,36 @@ public class PbConfig implements Serializable {
      */
     private String basic = "";
 
+    /**
+     * 批量执行 ModifyRequest 时，相邻且 SQL 相同的语句合并为一次 JDBC batch 提交，此值为每批次的最大条数，设置为 1 代表不启用批量提交
+     */
+    private int dbBatchSize = 500;
+
+    /**
+     * 已解析 filter 表达式（AST）缓存的最大条目数，按占位符归一化后的 filter 结构缓存
+     */
+    private int filterCacheSize = 2000;
+
+    /**
+     * 集合规则编译结果（SQL 模板）缓存的最大条目数，按 (集合, 规则, 管理员/访客/用户) 缓存，0 代表不启用
+     */
+    private int ruleCacheSize = 0;
+
+    /**
+     * 检查 Collection 目录版本号（pb_catalog 表）的最小间隔（单位: 毫秒），多节点部署时其它节点对 Collection 的修改最迟在此间隔后生效，设置为 0 代表不检查
+     */
+    private long catalogCheckInterval = 3000;
+
+    /**
+     * 当前登录的认证记录 / 管理员缓存的最大条目数，按 (集合, id) 缓存，0 代表不启用（同一请求内仍只查询一次）
+     */
+    private int authCacheSize = 10000;
+
+    /**
+     * 当前登录的认证记录 / 管理员缓存的有效期（单位: 毫秒），本节点修改或删除记录时立即失效，其它节点的修改最迟在此时间后生效
+     */
+    private long authCacheTtl = 5000;
+
     /**
      * jwt秘钥（只有集成 jwt 相关模块时此参数才会生效）
      */
@@ -200,14 +251,14 @@ public class PbConfig implements Serializable {
     }
 
     /**
-     * @return 默认 PbCache 实现类中，每次清理过期数据间隔的时间（单位: 秒），默认值30秒，设置为 -1 代表不启动定时清理
+     * @return 双 Map 版 PbCache 实现（cache.type=map）中，每次清理过期数据间隔的时间（单位: 秒），默认值30秒，设置为 -1 代表不启动定时清理
      */
     public int getDataRefreshPeriod() {
         return dataRefreshPeriod;
     }
 
     /**
-     * @param dataRefreshPeriod 默认 PbCache 实现类中，每次清理过期数据间隔的时间（单位: 秒），默认值30秒，设置为 -1 代表不启动定时清理
+     * @param dataRefreshPeriod 双 Map 版 PbCache 实现（cache.type=map）中，每次清理过期数据间隔的时间（单位: 秒），默认值30秒，设置为 -1 代表不启动定时清理
      * @return 对象自身
      */
     public PbConfig setDataRefreshPeriod(int dataRefreshPeriod) {
@@ -441,6 +492,22 @@ public class PbConfig implements Serializable {
         return this;
     }
 
+    /**
+     * @return 自动续签 activeTimeout 的最小间隔（单位：秒），距离上次续签不足此时间时不再写缓存，每次请求最多续签一次；0 代表每次请求都续签
+     */
+    public long getAutoRenewInterval() {
+        return autoRenewInterval;
+    }
+
+    /**
+     * @param autoRenewInterval 自动续签 activeTimeout 的最小间隔（单位：秒），距离上次续签不足此时间时不再写缓存，每次请求最多续签一次；0 代表每次请求都续签
+     * @return 对象自身
+     */
+    public PbConfig setAutoRenewInterval(long autoRenewInterval) {
+        this.autoRenewInterval = autoRenewInterval;
+        return this;
+    }
+
     /**
      * @return token 前缀, 前端提交 token 时应该填写的固定前缀，格式样例(satoken: Bearer xxxx-xxxx-xxxx-xxxx)
      */
@@ -505,6 +572,70 @@ public class PbConfig implements Serializable {
         return this;
     }
 
+    /**
+     * @return PbProvider 分页查询配置
+     */
+    public PbProviderConfig getProvider() {
+        return provider;
+    }
+
+    /**
+     * @param provider PbProvider 分页查询配置
+     * @return 对象自身
+     */
+    public PbConfig setProvider(PbProviderConfig provider) {
+        this.provider = provider;
+        return this;
+    }
+
+    /**
+     * @return 缩略图生成配置
+     */
+    public PbThumbConfig getThumb() {
+        return thumb;
+    }
+
+    /**
+     * @param thumb 缩略图生成配置
+     * @return 对象自身
+     */
+    public PbConfig setThumb(PbThumbConfig thumb) {
+        this.thumb = thumb;
+        return this;
+    }
+
+    /**
+     * @return 密码哈希配置
+     */
+    public PbPasswordConfig getPassword() {
+        return password;
+    }
+
+    /**
+     * @param password 密码哈希配置
+     * @return 对象自身
+     */
+    public PbConfig setPassword(PbPasswordConfig password) {
+        this.password = password;
+        return this;
+    }
+
+    /**
+     * @return PbCache 缓存组件配置
+     */
+    public PbCacheConfig getCache() {
+        return cache;
+    }
+
+    /**
+     * @param cache PbCache 缓存组件配置
+     * @return 对象自身
+     */
+    public PbConfig setCache(PbCacheConfig cache) {
+        this.cache = cache;
+        return this;
+    }
+
     /**
      * @return Http Basic 认证的默认账号和密码
      */
@@ -521,6 +652,102 @@ public class PbConfig implements Serializable {
         return this;
     }
 
+    /**
+     * @return 批量执行 ModifyRequest 时每个 JDBC batch 的最大条数，设置为 1 代表不启用批量提交
+     */
+    public int getDbBatchSize() {
+        return dbBatchSize;
+    }
+
+    /**
+     * @param dbBatchSize 批量执行 ModifyRequest 时每个 JDBC batch 的最大条数，设置为 1 代表不启用批量提交
+     * @return 对象自身
+     */
+    public PbConfig setDbBatchSize(int dbBatchSize) {
+        this.dbBatchSize = dbBatchSize;
+        return this;
+    }
+
+    /**
+     * @return 已解析 filter 表达式（AST）缓存的最大条目数
+     */
+    public int getFilterCacheSize() {
+        return filterCacheSize;
+    }
+
+    /**
+     * @param filterCacheSize 已解析 filter 表达式（AST）缓存的最大条目数
+     * @return 对象自身
+     */
+    public PbConfig setFilterCacheSize(int filterCacheSize) {
+        this.filterCacheSize = filterCacheSize;
+        return this;
+    }
+
+    /**
+     * @return 集合规则编译结果（SQL 模板）缓存的最大条目数，0 代表不启用
+     */
+    public int getRuleCacheSize() {
+        return ruleCacheSize;
+    }
+
+    /**
+     * @param ruleCacheSize 集合规则编译结果（SQL 模板）缓存的最大条目数，0 代表不启用
+     * @return 对象自身
+     */
+    public PbConfig setRuleCacheSize(int ruleCacheSize) {
+        this.ruleCacheSize = ruleCacheSize;
+        return this;
+    }
+
+    /**
+     * @return 检查 Collection 目录版本号的最小间隔（单位: 毫秒），0 代表不检查
+     */
+    public long getCatalogCheckInterval() {
+        return catalogCheckInterval;
+    }
+
+    /**
+     * @param catalogCheckInterval 检查 Collection 目录版本号的最小间隔（单位: 毫秒），0 代表不检查
+     * @return 对象自身
+     */
+    public PbConfig setCatalogCheckInterval(long catalogCheckInterval) {
+        this.catalogCheckInterval = catalogCheckInterval;
+        return this;
+    }
+
+    /**
+     * @return 当前登录的认证记录 / 管理员缓存的最大条目数，0 代表不启用
+     */
+    public int getAuthCacheSize() {
+        return authCacheSize;
+    }
+
+    /**
+     * @param authCacheSize 当前登录的认证记录 / 管理员缓存的最大条目数，0 代表不启用
+     * @return 对象自身
+     */
+    public PbConfig setAuthCacheSize(int authCacheSize) {
+        this.authCacheSize = authCacheSize;
+        return this;
+    }
+
+    /**
+     * @return 当前登录的认证记录 / 管理员缓存的有效期（单位: 毫秒）
+     */
+    public long getAuthCacheTtl() {
+        return authCacheTtl;
+    }
+
+    /**
+     * @param authCacheTtl 当前登录的认证记录 / 管理员缓存的有效期（单位: 毫秒）
+     * @return 对象自身
+     */
+    public PbConfig setAuthCacheTtl(long authCacheTtl) {
+        this.authCacheTtl = authCacheTtl;
+        return this;
+    }
+
     /**
      * @return jwt秘钥（只有集成 jwt 相关模块时此参数才会生效）
      */
@@ -543,6 +770,10 @@ public class PbConfig implements Serializable {
         return "PbConfig{" +
                 "cookie=" + cookie +
                 ", s3=" + s3 +
+                ", provider=" + provider +
+                ", thumb=" + thumb +
+                ", password=" + password +
+                ", cache=" + cache +
                 ", tokenName='" + tokenName + '\'' +
                 ", timeout=" + timeout +
                 ", activeTimeout=" + activeTimeout +
@@ -557,6 +788,7 @@ public class PbConfig implements Serializable {
                 ", isWriteHeader=" + isWriteHeader +
                 ", tokenStyle='" + tokenStyle + '\'' +
                 ", autoRenew=" + autoRenew +
+                ", autoRenewInterval=" + autoRenewInterval +
                 ", tokenPrefix='" + tokenPrefix + '\'' +
                 ", tokenSessionCheckLogin=" + tokenSessionCheckLogin +
                 ", isPrint=" + isPrint +
@@ -566,6 +798,12 @@ public class PbConfig implements Serializable {
                 ", currDomain='" + currDomain + '\'' +
                 ", dataRefreshPeriod=" + dataRefreshPeriod +
                 ", basic='" + basic + '\'' +
+                ", dbBatchSize=" + dbBatchSize +
+                ", filterCacheSize=" + filterCacheSize +
+                ", ruleCacheSize=" + ruleCacheSize +
+                ", catalogCheckInterval=" + catalogCheckInterval +
+                ", authCacheSize=" + authCacheSize +
+                ", authCacheTtl=" + authCacheTtl +
                 ", jwtSecretKey='" + jwtSecretKey + '\'' +
                 '}';
     }
@@ -0,0 +1,170 @@
+package com.picobase.config;
+
+import java.io.Serializable;
+
+/**
+ * 密码哈希（BCrypt）相关配置
+ */
+public class PbPasswordConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * BCrypt 成本因子（4 ~ 30），登录时已存储密码的成本与其不一致会自动重新哈希
+     */
+    private int cost = 10;
+
+    /**
+     * 执行密码哈希 / 校验的线程数
+     */
+    private int workers = Math.max(Runtime.getRuntime().availableProcessors(), 1);
+
+    /**
+     * 等待执行的哈希任务队列大小，队列满时直接返回 429
+     */
+    private int queueSize = 64;
+
+    /**
+     * 调用方等待哈希结果的最长时间（单位：毫秒，包含在队列中的等待），超时后取消任务并返回 429
+     */
+    private long maxWait = 2_000;
+
+    /**
+     * 同一身份（账号）在 attemptWindow 内允许的最大登录尝试次数，登录成功后重新计数，小于等于 0 代表不限制
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * 登录尝试次数的统计窗口（单位：毫秒）
+     */
+    private long attemptWindow = 60_000;
+
+    /**
+     * 登录尝试计数表的最大条数
+     */
+    private int attemptTableSize = 100_000;
+
+    /**
+     * @return BCrypt 成本因子
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * @param cost BCrypt 成本因子（4 ~ 30）
+     * @return 对象自身
+     */
+    public PbPasswordConfig setCost(int cost) {
+        this.cost = cost;
+        return this;
+    }
+
+    /**
+     * @return 执行密码哈希 / 校验的线程数
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @param workers 执行密码哈希 / 校验的线程数
+     * @return 对象自身
+     */
+    public PbPasswordConfig setWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * @return 等待执行的哈希任务队列大小
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @param queueSize 等待执行的哈希任务队列大小，队列满时直接返回 429
+     * @return 对象自身
+     */
+    public PbPasswordConfig setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * @return 调用方等待哈希结果的最长时间（单位：毫秒）
+     */
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @param maxWait 调用方等待哈希结果的最长时间（单位：毫秒，包含在队列中的等待），超时后取消任务并返回 429
+     * @return 对象自身
+     */
+    public PbPasswordConfig setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    /**
+     * @return 同一身份在 attemptWindow 内允许的最大登录尝试次数
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @param maxAttempts 同一身份在 attemptWindow 内允许的最大登录尝试次数，小于等于 0 代表不限制
+     * @return 对象自身
+     */
+    public PbPasswordConfig setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+        return this;
+    }
+
+    /**
+     * @return 登录尝试次数的统计窗口（单位：毫秒）
+     */
+    public long getAttemptWindow() {
+        return attemptWindow;
+    }
+
+    /**
+     * @param attemptWindow 登录尝试次数的统计窗口（单位：毫秒）
+     * @return 对象自身
+     */
+    public PbPasswordConfig setAttemptWindow(long attemptWindow) {
+        this.attemptWindow = attemptWindow;
+        return this;
+    }
+
+    /**
+     * @return 登录尝试计数表的最大条数
+     */
+    public int getAttemptTableSize() {
+        return attemptTableSize;
+    }
+
+    /**
+     * @param attemptTableSize 登录尝试计数表的最大条数
+     * @return 对象自身
+     */
+    public PbPasswordConfig setAttemptTableSize(int attemptTableSize) {
+        this.attemptTableSize = attemptTableSize;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PbPasswordConfig{" +
+                "cost=" + cost +
+                ", workers=" + workers +
+                ", queueSize=" + queueSize +
+                ", maxWait=" + maxWait +
+                ", maxAttempts=" + maxAttempts +
+                ", attemptWindow=" + attemptWindow +
+                ", attemptTableSize=" + attemptTableSize +
+                '}';
+    }
+}
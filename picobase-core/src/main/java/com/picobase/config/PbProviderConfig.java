@@ -0,0 +1,82 @@
+package com.picobase.config;
+
+import java.io.Serializable;
+
+/**
+ * PbProvider 分页查询（count + data 并发执行）相关配置
+ */
+public class PbProviderConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 运行环境支持时（JDK 21+）是否使用虚拟线程执行 count 查询，不支持时自动退回到平台线程池
+     */
+    private Boolean virtualThreads = true;
+
+    /**
+     * 同时在途的 count 查询最大数量，建议不超过 JDBC 连接池大小的一半
+     */
+    private int maxConcurrency = Math.max(Runtime.getRuntime().availableProcessors(), 4) * 2;
+
+    /**
+     * 获取并发许可的最长等待时间（单位：毫秒），超时后 count 查询在调用线程中串行执行，-1 代表不等待
+     */
+    private long acquireTimeout = 50;
+
+    /**
+     * @return 运行环境支持时（JDK 21+）是否使用虚拟线程执行 count 查询
+     */
+    public Boolean getVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @param virtualThreads 运行环境支持时（JDK 21+）是否使用虚拟线程执行 count 查询
+     * @return 对象自身
+     */
+    public PbProviderConfig setVirtualThreads(Boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    /**
+     * @return 同时在途的 count 查询最大数量
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @param maxConcurrency 同时在途的 count 查询最大数量，建议不超过 JDBC 连接池大小的一半
+     * @return 对象自身
+     */
+    public PbProviderConfig setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * @return 获取并发许可的最长等待时间（单位：毫秒）
+     */
+    public long getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    /**
+     * @param acquireTimeout 获取并发许可的最长等待时间（单位：毫秒），超时后 count 查询在调用线程中串行执行，-1 代表不等待
+     * @return 对象自身
+     */
+    public PbProviderConfig setAcquireTimeout(long acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PbProviderConfig{" +
+                "virtualThreads=" + virtualThreads +
+                ", maxConcurrency=" + maxConcurrency +
+                ", acquireTimeout=" + acquireTimeout +
+                '}';
+    }
+}
@@ -0,0 +1,126 @@
+package com.picobase.config;
+
+import java.io.Serializable;
+
+/**
+ * 缩略图生成相关配置
+ */
+public class PbThumbConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 生成缩略图的线程数
+     */
+    private int workers = Math.max(Runtime.getRuntime().availableProcessors() / 2, 1);
+
+    /**
+     * 等待生成的缩略图任务队列大小，队列满时上传后的预生成任务被丢弃（下载时再按需生成）
+     */
+    private int queueSize = 1000;
+
+    /**
+     * 下载时按需生成缩略图的最长等待时间（单位：毫秒），超时后返回原图
+     */
+    private long maxWait = 10_000;
+
+    /**
+     * 已生成缩略图索引的最大条数，超过时清空
+     */
+    private int indexSize = 100_000;
+
+    /**
+     * 上传图片后是否立即按字段配置的 thumbs 预生成缩略图
+     */
+    private boolean pregenerate = true;
+
+    /**
+     * @return 生成缩略图的线程数
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * @param workers 生成缩略图的线程数
+     * @return 对象自身
+     */
+    public PbThumbConfig setWorkers(int workers) {
+        this.workers = workers;
+        return this;
+    }
+
+    /**
+     * @return 等待生成的缩略图任务队列大小
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @param queueSize 等待生成的缩略图任务队列大小，队列满时上传后的预生成任务被丢弃
+     * @return 对象自身
+     */
+    public PbThumbConfig setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+        return this;
+    }
+
+    /**
+     * @return 下载时按需生成缩略图的最长等待时间（单位：毫秒）
+     */
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * @param maxWait 下载时按需生成缩略图的最长等待时间（单位：毫秒），超时后返回原图
+     * @return 对象自身
+     */
+    public PbThumbConfig setMaxWait(long maxWait) {
+        this.maxWait = maxWait;
+        return this;
+    }
+
+    /**
+     * @return 已生成缩略图索引的最大条数
+     */
+    public int getIndexSize() {
+        return indexSize;
+    }
+
+    /**
+     * @param indexSize 已生成缩略图索引的最大条数，超过时清空
+     * @return 对象自身
+     */
+    public PbThumbConfig setIndexSize(int indexSize) {
+        this.indexSize = indexSize;
+        return this;
+    }
+
+    /**
+     * @return 上传图片后是否立即预生成缩略图
+     */
+    public boolean isPregenerate() {
+        return pregenerate;
+    }
+
+    /**
+     * @param pregenerate 上传图片后是否立即按字段配置的 thumbs 预生成缩略图
+     * @return 对象自身
+     */
+    public PbThumbConfig setPregenerate(boolean pregenerate) {
+        this.pregenerate = pregenerate;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PbThumbConfig{" +
+                "workers=" + workers +
+                ", queueSize=" + queueSize +
+                ", maxWait=" + maxWait +
+                ", indexSize=" + indexSize +
+                ", pregenerate=" + pregenerate +
+                '}';
+    }
+}
@@ -328,5 +328,10 @@ public interface PbErrorCode {
      */
     int CODE_403 = 403;
 
+    /**
+     * 请求过于频繁
+     */
+    int CODE_429 = 429;
+
 
 }
@@ -0,0 +1,19 @@
+package com.picobase.exception;
+
+import static com.picobase.error.PbErrorCode.CODE_429;
+
+public class TooManyRequestsException extends PbException {
+
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+
+    @Override
+    public int getCode() {
+        if (super.getCode() == 0) {
+            return CODE_429;
+        }
+        return super.getCode();
+    }
+}
@@ -48,6 +48,20 @@ public interface PbFileSystem {
 
     PbFile getFile(String fileKey) throws Exception;
 
+    // Stat returns the attributes of the file at fileKey location
+    // without its content (the returned file has no content).
+    //
+    // The default implementation reads the file and closes its content,
+    // implementations should override it with a metadata-only lookup.
+    default PbFile stat(String fileKey) throws Exception {
+        PbFile file = getFile(fileKey);
+        if (file != null && file.getContent() != null) {
+            file.getContent().close();
+            file.setContent(null);
+        }
+        return file;
+    }
+
     void createThumb(String originalKey, String thumbKey, String thumbSize) throws Exception;
 
     void serve(String servedPath, String servedName) throws Exception;
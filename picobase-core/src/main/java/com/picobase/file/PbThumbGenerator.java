@@ -0,0 +1,221 @@
+package com.picobase.file;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbThumbConfig;
+import com.picobase.log.PbLog;
+import com.picobase.util.StrFormatter;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.picobase.file.PbFileSystem.THUMB_PREFIX;
+
+/**
+ * 缩略图生成器
+ * <p>
+ * 缩略图由固定数量的工作线程生成，等待中的任务放在有界队列中：上传后的预生成任务在队列满时直接丢弃（计入 rejected），
+ * 下载时按需生成的任务在队列满时由请求线程自己生成（计入 callerRuns）。同一缩略图的并发请求只生成一次。
+ * </p>
+ * <p>
+ * 已确认存在的缩略图记录在内存索引中，下载时命中索引即可直接返回，无需每次调用 {@link PbFileSystem#exists}；
+ * 删除文件时通过 {@link #evictDir} 清理对应的索引。
+ * </p>
+ */
+public class PbThumbGenerator {
+
+    private static final PbLog log = PbManager.getLog();
+
+    /**
+     * 支持生成缩略图的图片类型
+     */
+    public static final String[] IMAGE_CONTENT_TYPES = new String[]{"image/png", "image/jpg", "image/jpeg", "image/gif"};
+
+    private final ThreadPoolExecutor executor;
+    private final long maxWait;
+    private final int indexSize;
+
+    /**
+     * thumbKey --> 生成中的任务
+     */
+    private final Map<String, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已确认存在的缩略图
+     */
+    private final Set<String> index = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder indexHits = new LongAdder();
+    private final LongAdder generateNanos = new LongAdder();
+
+    public PbThumbGenerator(PbThumbConfig config) {
+        int workers = Math.max(config.getWorkers(), 1);
+        this.maxWait = config.getMaxWait();
+        this.indexSize = Math.max(config.getIndexSize(), 1);
+        this.executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(config.getQueueSize(), 1)), new ThumbThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 缩略图的存储路径：{baseFilesPath}/thumbs_{filename}/{thumbSize}_{filename}
+     */
+    public static String thumbKey(String baseFilesPath, String filename, String thumbSize) {
+        return Paths.get(baseFilesPath, THUMB_PREFIX + filename, thumbSize + "_" + filename).toString();
+    }
+
+    /**
+     * 缩略图是否已存在，优先使用内存索引
+     */
+    public boolean exists(PbFileSystem fileSystem, String thumbKey) {
+        if (index.contains(thumbKey)) {
+            indexHits.increment();
+            return true;
+        }
+        if (fileSystem.exists(thumbKey)) {
+            markGenerated(thumbKey);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 提交缩略图生成任务（不等待），队列已满时返回异常完成的 Future
+     */
+    public CompletableFuture<Void> submit(PbFileSystem fileSystem, String originalKey, String thumbKey, String thumbSize) {
+        if (index.contains(thumbKey)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = pending.computeIfAbsent(thumbKey, key -> {
+            CompletableFuture<Void> task = new CompletableFuture<>();
+            try {
+                executor.execute(() -> run(fileSystem, originalKey, thumbKey, thumbSize, task));
+                submitted.increment();
+            } catch (RejectedExecutionException e) {
+                rejected.increment();
+                task.completeExceptionally(e);
+            }
+            return task;
+        });
+        if (future.isCompletedExceptionally()) {
+            pending.remove(thumbKey, future);
+        }
+        return future;
+    }
+
+    /**
+     * 生成缩略图并等待完成（下载时按需生成），队列已满时在调用线程中生成
+     */
+    public void generate(PbFileSystem fileSystem, String originalKey, String thumbKey, String thumbSize) throws Exception {
+        try {
+            submit(fileSystem, originalKey, thumbKey, thumbSize).get(maxWait, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof RejectedExecutionException)) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+            callerRuns.increment();
+            create(fileSystem, originalKey, thumbKey, thumbSize);
+        }
+    }
+
+    /**
+     * 删除文件后清理其缩略图目录（thumbs_{filename}）下的索引
+     */
+    public void evictDir(String dirKey) {
+        String prefix = dirKey + File.separator;
+        index.removeIf(key -> key.startsWith(prefix));
+    }
+
+    private void run(PbFileSystem fileSystem, String originalKey, String thumbKey, String thumbSize, CompletableFuture<Void> task) {
+        try {
+            if (!fileSystem.exists(thumbKey)) {
+                create(fileSystem, originalKey, thumbKey, thumbSize);
+            } else {
+                markGenerated(thumbKey);
+            }
+            task.complete(null);
+        } catch (Exception e) {
+            log.warn("Failed to create thumb {}: {}", thumbKey, e.getMessage());
+            task.completeExceptionally(e);
+        } finally {
+            pending.remove(thumbKey, task);
+        }
+    }
+
+    private void create(PbFileSystem fileSystem, String originalKey, String thumbKey, String thumbSize) throws Exception {
+        long start = System.nanoTime();
+        try {
+            fileSystem.createThumb(originalKey, thumbKey, thumbSize);
+        } catch (Exception e) {
+            failed.increment();
+            throw e;
+        }
+        generateNanos.add(System.nanoTime() - start);
+        generated.increment();
+        markGenerated(thumbKey);
+    }
+
+    private void markGenerated(String thumbKey) {
+        if (index.size() >= indexSize) {
+            index.clear();
+        }
+        index.add(thumbKey);
+    }
+
+    /**
+     * @return 生成器运行指标快照（耗时单位：毫秒）
+     */
+    public Map<String, Object> getMetrics() {
+        long count = generated.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueRemaining", executor.getQueue().remainingCapacity());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("submitted", submitted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("callerRuns", callerRuns.sum());
+        metrics.put("generated", count);
+        metrics.put("failed", failed.sum());
+        metrics.put("indexSize", index.size());
+        metrics.put("indexHits", indexHits.sum());
+        metrics.put("avgGenerate", count == 0 ? 0D : generateNanos.sum() / (double) count / 1_000_000D);
+        return metrics;
+    }
+
+    /**
+     * 优雅停机
+     */
+    public void destroy() {
+        try {
+            executor.shutdown();
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class ThumbThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, StrFormatter.format("pb-thumb-t{}", threadNumber.getAndIncrement()));
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> log.error(t.toString(), e));
+            return thread;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.picobase.logic;
 
 import cn.hutool.core.util.StrUtil;
+import com.picobase.cache.SegmentedLruCache;
 import com.picobase.util.Tokenizer;
 
 import java.util.*;
@@ -8,6 +9,11 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class FieldsFilterProcessor {
 
+    /**
+     * 原始 fields 字符串 --> 解析后的字段树
+     */
+    private static final SegmentedLruCache<String, FieldsNode> COMPILED_FIELDS = new SegmentedLruCache<>(1024);
+
 
     public static void pickFields(Object data, String rawFields) {
         var parsedFields = parseFields(rawFields);
@@ -94,6 +100,59 @@ public class FieldsFilterProcessor {
     }
 
 
+    /**
+     * 将 fields 解析为字段树（同一 fields 字符串只解析一次），用于在序列化时直接过滤输出，而不必先构建完整的 Map 再调用 {@link #pickFields}
+     *
+     * @param rawFields 原始 fields，如 {@code id,title:excerpt(100),expand.user.name}
+     * @return 字段树的根节点，没有任何字段时 {@link FieldsNode#isEmpty()} 为 true
+     */
+    public static FieldsNode compileFields(String rawFields) {
+        return COMPILED_FIELDS.get(rawFields, FieldsFilterProcessor::buildFieldsTree);
+    }
+
+    private static FieldsNode buildFieldsTree(String rawFields) {
+        FieldsNode root = new FieldsNode();
+        parseFields(rawFields).forEach((path, modifier) -> {
+            FieldsNode node = root;
+            for (String name : path.split("\\.")) {
+                node = node.children.computeIfAbsent(name, k -> new FieldsNode());
+            }
+            node.modifier = modifier;
+        });
+        return root;
+    }
+
+    /**
+     * fields 字段树中的一个节点
+     */
+    public static class FieldsNode {
+        /**
+         * 完全匹配当前字段时的 modifier，null 表示只选取其下的子字段
+         */
+        private FieldModifier modifier;
+        private final Map<String, FieldsNode> children = new HashMap<>();
+
+        public FieldModifier getModifier() {
+            return modifier;
+        }
+
+        public FieldsNode getChild(String name) {
+            return children.get(name);
+        }
+
+        /**
+         * @return "*" 对应的 modifier（选取其它未指定的字段），未指定 "*" 时返回 null
+         */
+        public FieldModifier getWildcard() {
+            FieldsNode wildcard = children.get("*");
+            return wildcard == null ? null : wildcard.modifier;
+        }
+
+        public boolean isEmpty() {
+            return children.isEmpty();
+        }
+    }
+
     private static Map<String, FieldModifier> parseFields(String rawFields) {
         var t = Tokenizer.newFromString(rawFields);
         var fields = t.scanAll();
@@ -16,6 +16,7 @@ import com.picobase.exception.NotFoundException;
 import com.picobase.exception.PbException;
 import com.picobase.file.PbFile;
 import com.picobase.file.PbFileSystem;
+import com.picobase.file.PbThumbGenerator;
 import com.picobase.log.PbLog;
 import com.picobase.logic.mapper.CollectionMapper;
 import com.picobase.logic.mapper.RecordMapper;
@@ -35,32 +36,23 @@ import com.picobase.persistence.repository.Page;
 import com.picobase.persistence.resolver.ListUtil;
 import com.picobase.persistence.resolver.RecordFieldResolver;
 import com.picobase.search.PbProvider;
-import com.picobase.search.SearchFilter;
 import com.picobase.util.PbConstants;
 
 import java.nio.file.Paths;
-import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import static com.picobase.file.PbFileSystem.THUMB_PREFIX;
 import static com.picobase.logic.RecordHelper.*;
 
 public class PbRecordLogic {
     private static final PbLog log = PbManager.getLog();
-    private static final String[] IMAGE_CONTENT_TYPES = new String[]{"image/png", "image/jpg", "image/jpeg", "image/gif"};
     private static final String[] DEFAULT_THUMB_SIZES = new String[]{"100x100"};
     private final CollectionMapper collectionMapper = PbUtil.findMapper(CollectionModel.class);
     private final RecordMapper recordMapper = PbUtil.findMapper(RecordModel.class);
-    private final ConcurrentHashMap<String, CompletableFuture<Void>> thumbGenPending = new ConcurrentHashMap<>();
-    private final Semaphore thumbGenSem = new Semaphore(Runtime.getRuntime().availableProcessors() + 2);
-    private final Duration thumbGenMaxWait = Duration.ofSeconds(60);
-    private final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() + 2);
 
     /**
      * 取出expand值内容，填充到Map中，将 Record 转换成平铺形式的Map 结构
@@ -166,11 +158,19 @@ public class PbRecordLogic {
         );
 
 
-        var searchProvider = new PbProvider(fieldsResolver).query(recordMapper.recordQuery(collection));
+        SelectQuery query = recordMapper.recordQuery(collection);
 
+        // the list rule is resolved first so that its compiled SQL could be reused (see RecordFieldResolver#buildRuleExpr)
         if (requestInfo.getAdmin() == null && StrUtil.isNotEmpty(collection.getListRule())) {
-            searchProvider.addFilter(new SearchFilter(collection.getListRule()));
+            try {
+                query.andWhere(fieldsResolver.buildRuleExpr(collection.getListRule()));
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                throw new PbException("Something went wrong while processing your request. Invalid filter.");
+            }
         }
+
+        var searchProvider = new PbProvider(fieldsResolver).query(query);
         Page<RecordModel> result;
 
         if (qp == null || qp.isEmpty()) {
@@ -284,7 +284,7 @@ public class PbRecordLogic {
         Consumer<SelectQuery> ruleFunc = selectQuery -> {
             if (requestInfo.getAdmin() == null && StrUtil.isNotEmpty(collection.getViewRule())) {
                 RecordFieldResolver recordFieldResolver = new RecordFieldResolver(collection, requestInfo, true);
-                Expression expression = new SearchFilter(collection.getViewRule()).buildExpr(recordFieldResolver);
+                Expression expression = recordFieldResolver.buildRuleExpr(collection.getViewRule());
                 recordFieldResolver.updateQuery(selectQuery);
                 selectQuery.andWhere(expression);
             }
@@ -370,19 +370,20 @@ public class PbRecordLogic {
             // extract the original file meta attributes and check it existence
             PbFile file;
             try {
-                file = fileSystem.getFile(originalPath.toString());
+                file = fileSystem.stat(originalPath.toString());
             } catch (Exception e) {
                 throw new BadRequestException("File not found.");
             }
             // check if it is an image
-            if (ListUtil.existInArray(file.getContentType(), IMAGE_CONTENT_TYPES)) {
+            if (ListUtil.existInArray(file.getContentType(), PbThumbGenerator.IMAGE_CONTENT_TYPES)) {
                 // add thumb size as file suffix
                 servedName = thumb + "_" + filename;
-                servedPath = Paths.get(baseFilesPath, THUMB_PREFIX + filename, servedName);
+                servedPath = Paths.get(PbThumbGenerator.thumbKey(baseFilesPath, filename, thumb));
 
-                if (!fileSystem.exists(servedPath.toString())) {
+                PbThumbGenerator thumbGenerator = PbManager.getPbThumbGenerator();
+                if (!thumbGenerator.exists(fileSystem, servedPath.toString())) {
                     try {
-                        this.createThumb(fileSystem, originalPath.toString(), servedPath.toString(), thumb);
+                        thumbGenerator.generate(fileSystem, originalPath.toString(), servedPath.toString(), thumb);
                     } catch (Exception e) {
                         log.error("Fallback to original - failed to create thumb {} due to error. Original: {}, Thumb: {}",
                                 servedName,
@@ -411,34 +412,4 @@ public class PbRecordLogic {
 
 
     }
-
-    private void createThumb(PbFileSystem fileSystem, String originalPath, String thumbPath, String thumbSize) throws Exception {
-        CompletableFuture<Void> future = thumbGenPending.computeIfAbsent(thumbPath, path -> CompletableFuture.supplyAsync(() -> {
-            try {
-                if (!thumbGenSem.tryAcquire(thumbGenMaxWait.toSeconds(), TimeUnit.SECONDS)) {
-                    throw new RuntimeException("Timeout acquiring semaphore.");
-                }
-            } catch (Exception e) {
-                throw new BadRequestException("acquiring semaphore failed.");
-            }
-
-            try {
-                fileSystem.createThumb(originalPath, thumbPath, thumbSize);
-            } catch (Exception e) {
-                throw new BadRequestException("create thumb file failed.");
-            } finally {
-                thumbGenSem.release();
-            }
-
-            return null;
-        }, executor));
-
-        future.whenComplete((result, ex) -> {
-            thumbGenPending.remove(thumbPath); // 完成后从pending列表中移除
-            if (ex != null) {
-                throw new RuntimeException(ex);
-            }
-        }).get(thumbGenMaxWait.toSeconds(), TimeUnit.SECONDS); // 等待生成完成，超时则抛出异常
-    }
 }
-
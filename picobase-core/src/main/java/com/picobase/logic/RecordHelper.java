@@ -17,7 +17,6 @@ import com.picobase.persistence.dbx.SelectQuery;
 import com.picobase.persistence.dbx.expression.Expression;
 import com.picobase.persistence.resolver.RecordFieldResolver;
 import com.picobase.persistence.resolver.ResultCouple;
-import com.picobase.search.SearchFilter;
 
 import java.nio.charset.StandardCharsets;
 import java.util.*;
@@ -96,7 +95,12 @@ public class RecordHelper {
         if (StrUtil.isNotEmpty(authRecordId)) { // 增加authRecordId检查， 防止getExtra 时，loginType检查异常
             String collectionId = (String) PbUtil.getExtra(JwtExtraFieldCollectionId);
             if (StrUtil.isNotEmpty(authRecordId)) {
-                RecordModel authRecord = recordMapper.findRecordById(collectionId, authRecordId).orElseThrow(() -> new BadRequestException("not found record ：" + authRecordId));
+                // 登录主体缓存：同一请求内只查询一次，不同请求在 authCacheTtl 内复用
+                RecordModel authRecord = PbManager.getPbAuthPrincipalCache().getRecord(collectionId, authRecordId,
+                        () -> recordMapper.findRecordById(collectionId, authRecordId).orElse(null));
+                if (authRecord == null) {
+                    throw new BadRequestException("not found record ：" + authRecordId);
+                }
                 requestInfo.setAuthRecord(authRecord);
             }
             return;
@@ -105,7 +109,7 @@ public class RecordHelper {
 
         String adminId = (String) PbAdminUtil.getLoginIdDefaultNull();
         if (StrUtil.isNotEmpty(adminId)) {
-            AdminModel admin = PbUtil.findById(AdminModel.class, adminId);
+            AdminModel admin = PbManager.getPbAuthPrincipalCache().getAdmin(adminId, () -> PbUtil.findById(AdminModel.class, adminId));
             if (admin == null) {
                 //来自配置文件中定义的 admin,new 一个新的admin 做占位，无实际意义。
                 admin = new AdminModel();
@@ -194,7 +198,7 @@ public class RecordHelper {
                     }
 
                     var resolver = new RecordFieldResolver(relCollection, requestInfo, true);
-                    var expr = new SearchFilter(relCollection.getViewRule()).buildExpr(resolver);
+                    var expr = resolver.buildRuleExpr(relCollection.getViewRule());
                     resolver.updateQuery(q);
                     q.andWhere(expr);
                 });
@@ -251,7 +255,7 @@ public class RecordHelper {
                 .select(quoteSimpleColumnName(collection.getName()) + ".id")
                 .andWhere(Expression.in(quoteSimpleColumnName(collection.getName()) + ".id", recordIds));
         var resolver = new RecordFieldResolver(collection, requestInfo, true);
-        var expr = new SearchFilter(authOptions.getManageRule()).buildExpr(resolver);
+        var expr = resolver.buildRuleExpr(authOptions.getManageRule());
         resolver.updateQuery(query);
         query.andWhere(expr);
 
@@ -296,7 +300,7 @@ public class RecordHelper {
 
         Consumer<SelectQuery> ruleConsumer = selectQuery -> {
             RecordFieldResolver resolver = new RecordFieldResolver(record.getCollection(), requestInfo, true);
-            Expression expression = new SearchFilter(manageRule).buildExpr(resolver);
+            Expression expression = resolver.buildRuleExpr(manageRule);
             resolver.updateQuery(selectQuery);
             selectQuery.andWhere(expression);
         };
@@ -0,0 +1,149 @@
+package com.picobase.logic.authz;
+
+import cn.hutool.core.bean.BeanUtil;
+import com.picobase.cache.SegmentedLruCache;
+import com.picobase.config.PbConfig;
+import com.picobase.context.PbContext;
+import com.picobase.context.PbHolder;
+import com.picobase.model.AdminModel;
+import com.picobase.model.RecordModel;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 当前登录主体（认证记录 / 管理员）缓存
+ * <p>
+ * 构建 RequestInfo 时需要根据 token 中的 id 查询认证记录或管理员，这里按 (集合, id) 做一个有界、短有效期的缓存，
+ * 同一请求内直接复用已查询到的对象（保存在 PbStorage 中），不同请求拿到的是缓存对象的副本。
+ * </p>
+ * <p>
+ * 本节点修改或删除认证记录 / 管理员时通过 {@link #invalidateRecord}、{@link #invalidateAdmin} 立即失效，
+ * 其它节点的修改最迟在 authCacheTtl 后生效；Collection 变更时通过 {@link #clear} 清空（缓存的记录引用了旧的 Collection）。
+ * </p>
+ */
+public class PbAuthPrincipalCache {
+
+    /**
+     * 在当前请求中保存已查询的登录主体时使用的 key 前缀
+     */
+    public static final String REQUEST_SAVE_KEY = "AUTH_PRINCIPAL_SAVE_KEY_";
+
+    /**
+     * null 代表不启用（authCacheSize <= 0）
+     */
+    private final SegmentedLruCache<String, Object> cache;
+    private final long ttl;
+
+    public PbAuthPrincipalCache(PbConfig config) {
+        this.cache = config.getAuthCacheSize() > 0 ? new SegmentedLruCache<>(config.getAuthCacheSize()) : null;
+        this.ttl = Math.max(config.getAuthCacheTtl(), 0);
+    }
+
+    /**
+     * 获取认证记录，不存在时通过 loader 查询（loader 返回 null 时不缓存）
+     *
+     * @param collectionId 认证集合 id
+     * @param recordId     记录 id
+     * @param loader       从数据库查询
+     * @return 认证记录，不存在时返回 null
+     */
+    public RecordModel getRecord(String collectionId, String recordId, Supplier<RecordModel> loader) {
+        return get(recordKey(collectionId, recordId), loader, RecordModel::expandCopy);
+    }
+
+    /**
+     * 获取管理员，不存在时通过 loader 查询（loader 返回 null 时不缓存）
+     *
+     * @param adminId 管理员 id
+     * @param loader  从数据库查询
+     * @return 管理员，不存在时返回 null
+     */
+    public AdminModel getAdmin(String adminId, Supplier<AdminModel> loader) {
+        return get(adminKey(adminId), loader, admin -> BeanUtil.copyProperties(admin, AdminModel.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, Supplier<T> loader, Function<T, T> copier) {
+        PbContext context = PbHolder.getContext();
+        boolean inRequest = context != null && context.isValid();
+        if (inRequest) {
+            Object current = context.getStorage().get(REQUEST_SAVE_KEY + key);
+            if (current != null) {
+                return (T) current;
+            }
+        }
+
+        T value = null;
+        if (cache != null) {
+            T cached = (T) cache.get(key);
+            if (cached != null) {
+                value = copier.apply(cached);
+            }
+        }
+        if (value == null) {
+            value = loader.get();
+            if (value == null) {
+                return null;
+            }
+            if (cache != null && ttl > 0) {
+                cache.put(key, copier.apply(value), System.currentTimeMillis() + ttl);
+            }
+        }
+
+        if (inRequest) {
+            context.getStorage().set(REQUEST_SAVE_KEY + key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 认证记录被修改或删除后调用
+     */
+    public void invalidateRecord(String collectionId, String recordId) {
+        invalidate(recordKey(collectionId, recordId));
+    }
+
+    /**
+     * 管理员被修改或删除后调用
+     */
+    public void invalidateAdmin(String adminId) {
+        invalidate(adminKey(adminId));
+    }
+
+    private void invalidate(String key) {
+        if (cache != null) {
+            cache.remove(key);
+        }
+        PbContext context = PbHolder.getContext();
+        if (context != null && context.isValid()) {
+            context.getStorage().delete(REQUEST_SAVE_KEY + key);
+        }
+    }
+
+    /**
+     * 清空全部缓存（不影响当前请求中已查询到的对象）
+     */
+    public void clear() {
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * @return 缓存统计信息快照
+     */
+    public Map<String, Object> stats() {
+        return cache != null ? cache.stats() : new LinkedHashMap<>();
+    }
+
+    private static String recordKey(String collectionId, String recordId) {
+        return "record:" + collectionId + ":" + recordId;
+    }
+
+    private static String adminKey(String adminId) {
+        return "admin:" + adminId;
+    }
+}
@@ -6,6 +6,7 @@ import com.picobase.annotation.*;
 import com.picobase.cache.PbCache;
 import com.picobase.config.PbConfig;
 import com.picobase.config.PbCookieConfig;
+import com.picobase.context.PbContext;
 import com.picobase.context.PbHolder;
 import com.picobase.context.model.PbCookie;
 import com.picobase.context.model.PbRequest;
@@ -312,21 +313,30 @@ public class PbAuthZLogic {
         if (storage.get(splicingKeyJustCreatedSave()) != null) {
             tokenValue = String.valueOf(storage.get(splicingKeyJustCreatedSave()));
         }
-        // 2. 再尝试从 请求体 里面读取
-        if (CommonHelper.isEmpty(tokenValue) && config.getIsReadBody()) {
-            tokenValue = request.getParameter(keyTokenName);
-        }
-        // 3. 再尝试从 header 头里读取
-        if (CommonHelper.isEmpty(tokenValue) && config.getIsReadHeader()) {
-            tokenValue = request.getHeader(keyTokenName);
-        }
-        // 4. 最后尝试从 cookie 里读取
-        if (CommonHelper.isEmpty(tokenValue) && config.getIsReadCookie()) {
-            tokenValue = request.getCookieValue(keyTokenName);
+        if (CommonHelper.isNotEmpty(tokenValue)) {
+            return tokenValue;
         }
 
-        // 5. 至此，不管有没有读取到，都不再尝试了，直接返回
-        return tokenValue;
+        // 2. 再从请求中读取，一次请求只读取一次（读取不到时记录为空字符串）
+        String readValue = storage.get(splicingKeyTokenValueRead(), () -> {
+            String value = null;
+            // 2.1 先尝试从 请求体 里面读取
+            if (config.getIsReadBody()) {
+                value = request.getParameter(keyTokenName);
+            }
+            // 2.2 再尝试从 header 头里读取
+            if (CommonHelper.isEmpty(value) && config.getIsReadHeader()) {
+                value = request.getHeader(keyTokenName);
+            }
+            // 2.3 最后尝试从 cookie 里读取
+            if (CommonHelper.isEmpty(value) && config.getIsReadCookie()) {
+                value = request.getCookieValue(keyTokenName);
+            }
+            return value == null ? "" : value;
+        });
+
+        // 3. 至此，不管有没有读取到，都不再尝试了，直接返回
+        return readValue.isEmpty() ? null : readValue;
     }
 
     /**
@@ -601,8 +611,8 @@ public class PbAuthZLogic {
         PbStorage storage = PbHolder.getStorage();
         storage.delete(splicingKeyJustCreatedSave());
 
-        // 4、清除当前上下文的 [ 活跃度校验 check 标记 ]
-        storage.delete(PbConstants.TOKEN_ACTIVE_TIMEOUT_CHECKED_KEY);
+        // 4、清除当前上下文中这个 token 的 [ 登录状态、活跃度校验 check 标记 ]
+        clearResolvedLogin(tokenValue);
 
         // 5、清除这个 token 的其它相关信息
         logoutByTokenValue(tokenValue);
@@ -920,7 +930,7 @@ public class PbAuthZLogic {
         }
 
         // 3、查找此 token 对应的 loginId，如果找不到则抛出：token 无效
-        String loginId = getLoginIdNotHandle(tokenValue);
+        String loginId = resolveLoginId(tokenValue);
         if (CommonHelper.isEmpty(loginId)) {
             throw NotLoginException.newInstance(loginType, INVALID_TOKEN, INVALID_TOKEN_MESSAGE, tokenValue).setCode(PbErrorCode.CODE_11012);
         }
@@ -948,7 +958,7 @@ public class PbAuthZLogic {
 
             // 8、如果配置了自动续签功能, 则: 更新这个 token 的最后活跃时间 （注意此处的续签是在续 active-timeout，而非 timeout）
             if (getConfigOrGlobal().getAutoRenew()) {
-                updateLastActiveToNow(tokenValue);
+                autoRenewLastActive(tokenValue);
             }
         }
 
@@ -998,13 +1008,13 @@ public class PbAuthZLogic {
         }
 
         // 3、根据 token 找到对应的 loginId，如果 loginId 为 null 或者属于异常标记里面，均视为未登录, 统一返回 null
-        Object loginId = getLoginIdNotHandle(tokenValue);
+        Object loginId = resolveLoginId(tokenValue);
         if (!isValidLoginId(loginId)) {
             return null;
         }
 
         // 4、如果 token 已被冻结，也返回 null
-        if (getTokenActiveTimeoutByToken(tokenValue) == PbCache.NOT_VALUE_EXPIRE) {
+        if (resolveActiveTimeout(tokenValue) == PbCache.NOT_VALUE_EXPIRE) {
             return null;
         }
 
@@ -1115,6 +1125,7 @@ public class PbAuthZLogic {
      */
     public void saveTokenToIdMapping(String tokenValue, Object loginId, long timeout) {
         getPbCache().set(splicingKeyTokenValue(tokenValue), String.valueOf(loginId), timeout);
+        clearResolvedLogin(tokenValue);
     }
 
     /**
@@ -1129,6 +1140,7 @@ public class PbAuthZLogic {
 
         // 更新缓存中的 token 指向
         getPbCache().update(splicingKeyTokenValue(tokenValue), loginId.toString());
+        clearResolvedLogin(tokenValue);
     }
 
     /**
@@ -1138,6 +1150,7 @@ public class PbAuthZLogic {
      */
     public void deleteTokenToIdMapping(String tokenValue) {
         getPbCache().delete(splicingKeyTokenValue(tokenValue));
+        clearResolvedLogin(tokenValue);
     }
 
 
@@ -1445,6 +1458,7 @@ public class PbAuthZLogic {
             value += "," + activeTimeout;
         }
         getPbCache().set(key, value, timeout);
+        resetResolvedActiveTimeout(tokenValue);
     }
 
     /**
@@ -1456,6 +1470,7 @@ public class PbAuthZLogic {
         String key = splicingKeyLastActiveTime(tokenValue);
         String value = new PbValue2Box(System.currentTimeMillis(), getTokenUseActiveTimeout(tokenValue)).toString();
         getPbCache().update(key, value);
+        resetResolvedActiveTimeout(tokenValue);
     }
 
     /**
@@ -1476,6 +1491,7 @@ public class PbAuthZLogic {
      */
     protected void clearLastActive(String tokenValue) {
         getPbCache().delete(splicingKeyLastActiveTime(tokenValue));
+        resetResolvedActiveTimeout(tokenValue);
     }
 
     /**
@@ -1485,26 +1501,15 @@ public class PbAuthZLogic {
      */
     public void checkActiveTimeout(String tokenValue) {
 
-        // storage.get(key, () -> {}) 可以避免一次请求多次校验，造成不必要的性能消耗
-        PbStorage storage = PbHolder.getStorage();
-        storage.get(PbConstants.TOKEN_ACTIVE_TIMEOUT_CHECKED_KEY, () -> {
+        // 1、获取这个 token 的剩余活跃有效期（一次请求只查询一次，避免多次校验造成不必要的性能消耗）
+        long activeTimeout = resolveActiveTimeout(tokenValue);
 
-            // 1、获取这个 token 的剩余活跃有效期
-            long activeTimeout = getTokenActiveTimeoutByToken(tokenValue);
-
-            // 2、值为 -1 代表此 token 已经被设置永不冻结，无须继续验证
-            if (activeTimeout == PbCache.NEVER_EXPIRE) {
-                return true;
-            }
-
-            // 3、值为 -2 代表已被冻结，此时需要抛出异常
-            if (activeTimeout == PbCache.NOT_VALUE_EXPIRE) {
-                throw NotLoginException.newInstance(loginType, TOKEN_FREEZE, TOKEN_FREEZE_MESSAGE, tokenValue).setCode(PbErrorCode.CODE_11016);
-            }
+        // 2、值为 -2 代表已被冻结，此时需要抛出异常（值为 -1 代表此 token 已经被设置永不冻结，无须继续验证）
+        if (activeTimeout == PbCache.NOT_VALUE_EXPIRE) {
+            throw NotLoginException.newInstance(loginType, TOKEN_FREEZE, TOKEN_FREEZE_MESSAGE, tokenValue).setCode(PbErrorCode.CODE_11016);
+        }
 
-            // --- 验证通过
-            return true;
-        });
+        // --- 验证通过
     }
 
     /**
@@ -1584,6 +1589,133 @@ public class PbAuthZLogic {
     }
 
 
+    // ------------------- 请求内登录状态 -------------------
+
+    /**
+     * 一次请求内某个 token 的登录状态：同一请求中多次调用 getLoginId()、isLogin() 等方法时，只查询一次缓存
+     */
+    protected static class ResolvedLogin {
+
+        /**
+         * getLoginIdNotHandle() 的结果
+         */
+        private String loginId;
+        private boolean loginIdResolved;
+
+        /**
+         * 剩余活跃有效期，null 代表尚未查询
+         */
+        private Long activeTimeout;
+
+        /**
+         * 本次请求是否已处理过自动续签
+         */
+        private boolean renewed;
+    }
+
+    /**
+     * 获取当前请求中指定 token 的登录状态，不在请求上下文中时返回 null
+     *
+     * @param tokenValue 指定 token
+     * @param create     不存在时是否创建
+     * @return /
+     */
+    protected ResolvedLogin getResolvedLogin(String tokenValue, boolean create) {
+        PbContext context = PbHolder.getContext();
+        if (tokenValue == null || context == null || !context.isValid()) {
+            return null;
+        }
+        PbStorage storage = context.getStorage();
+        String key = splicingKeyResolvedLogin(tokenValue);
+        Object state = storage.get(key);
+        if (state == null && create) {
+            state = new ResolvedLogin();
+            storage.set(key, state);
+        }
+        return (ResolvedLogin) state;
+    }
+
+    /**
+     * 清除当前请求中指定 token 的登录状态（token 映射或活跃时间发生变化后调用）
+     *
+     * @param tokenValue 指定 token
+     */
+    protected void clearResolvedLogin(String tokenValue) {
+        PbContext context = PbHolder.getContext();
+        if (tokenValue != null && context != null && context.isValid()) {
+            context.getStorage().delete(splicingKeyResolvedLogin(tokenValue));
+        }
+    }
+
+    private void resetResolvedActiveTimeout(String tokenValue) {
+        ResolvedLogin state = getResolvedLogin(tokenValue, false);
+        if (state != null) {
+            state.activeTimeout = null;
+        }
+    }
+
+    /**
+     * 获取指定 token 对应的账号id （不做任何特殊处理），一次请求内只查询一次
+     *
+     * @param tokenValue token 值
+     * @return 账号id
+     */
+    protected String resolveLoginId(String tokenValue) {
+        ResolvedLogin state = getResolvedLogin(tokenValue, true);
+        if (state == null) {
+            return getLoginIdNotHandle(tokenValue);
+        }
+        if (!state.loginIdResolved) {
+            state.loginId = getLoginIdNotHandle(tokenValue);
+            state.loginIdResolved = true;
+        }
+        return state.loginId;
+    }
+
+    /**
+     * 获取指定 token 剩余活跃有效期，一次请求内只查询一次
+     *
+     * @param tokenValue 指定 token
+     * @return /
+     */
+    protected long resolveActiveTimeout(String tokenValue) {
+        ResolvedLogin state = getResolvedLogin(tokenValue, true);
+        if (state == null) {
+            return getTokenActiveTimeoutByToken(tokenValue);
+        }
+        if (state.activeTimeout == null) {
+            state.activeTimeout = getTokenActiveTimeoutByToken(tokenValue);
+        }
+        return state.activeTimeout;
+    }
+
+    /**
+     * 自动续签指定 token：一次请求最多续签一次，距离上次续签不足 autoRenewInterval 秒时跳过，减少缓存写入
+     * <p>
+     * 只有剩余活跃有效期大于 autoRenewInterval 时才会跳过，因此不会因为合并续签而使 token 被冻结
+     *
+     * @param tokenValue 指定 token
+     */
+    protected void autoRenewLastActive(String tokenValue) {
+        ResolvedLogin state = getResolvedLogin(tokenValue, true);
+        if (state != null) {
+            if (state.renewed) {
+                return;
+            }
+            state.renewed = true;
+        }
+
+        long interval = getConfigOrGlobal().getAutoRenewInterval();
+        if (interval > 0 && resolveActiveTimeout(tokenValue) > interval) {
+            long lastActiveTime = getTokenLastActiveTime(tokenValue);
+            if (lastActiveTime != PbCache.NOT_VALUE_EXPIRE && System.currentTimeMillis() - lastActiveTime < interval * 1000) {
+                return;
+            }
+        }
+        updateLastActiveToNow(tokenValue);
+    }
+
+
     // ------------------- 过期时间相关 -------------------
 
     /**
@@ -2803,6 +2935,25 @@ public class PbAuthZLogic {
         return PbConstants.SWITCH_TO_SAVE_KEY + loginType;
     }
 
+    /**
+     * 拼接：在当前请求中保存从请求体、header、cookie 读取到的 token 时，应该使用的 key
+     *
+     * @return key
+     */
+    public String splicingKeyTokenValueRead() {
+        return PbConstants.TOKEN_VALUE_READ_KEY + loginType;
+    }
+
+    /**
+     * 拼接：在当前请求中保存指定 token 的登录状态时，应该使用的 key
+     *
+     * @param tokenValue token值
+     * @return key
+     */
+    public String splicingKeyResolvedLogin(String tokenValue) {
+        return PbConstants.RESOLVED_LOGIN_KEY + loginType + ":" + tokenValue;
+    }
+
     /**
      * 如果 token 为本次请求新创建的，则以此字符串为 key 存储在当前 request 中
      *
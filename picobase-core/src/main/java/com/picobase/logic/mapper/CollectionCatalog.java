@@ -0,0 +1,200 @@
+package com.picobase.logic.mapper;
+
+import com.picobase.model.CollectionModel;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collection 目录：全部 Collection 的不可变快照（id 索引 + 小写 name 索引）以及对应的目录版本号
+ * <p>
+ * 目录版本号持久化在 pb_catalog 表中，任意节点修改 Collection 后递增。每个节点按间隔检查版本号（{@link #tryStartCheck}），
+ * 或通过 {@link com.picobase.cache.PbCatalogBroadcaster} 收到其它节点的版本通知（{@link #onVersion}），
+ * 发现版本变化后重新加载全部 Collection，并以整体替换快照的方式生效，读取方不加锁。
+ * </p>
+ * <p>
+ * 快照中不存在的 nameOrId 会短暂记录为不存在（{@link #markMissing}），同一 nameOrId 的并发查询合并为一次加载（{@link #loadOnce}）。
+ * </p>
+ */
+public class CollectionCatalog {
+
+    /**
+     * pb_catalog 表中 Collection 目录版本号所在行的 name
+     */
+    public static final String VERSION_KEY = "collections";
+
+    /**
+     * 不存在记录的最大条数，超过时清空，避免大量随机 nameOrId 占用内存
+     */
+    public static final int MaxMissingSize = 10_000;
+
+    /**
+     * 某个目录版本下全部 Collection 的快照
+     */
+    public static class Snapshot {
+        private final long version;
+        private final List<CollectionModel> collections;
+        private final Map<String, CollectionModel> byId;
+        private final Map<String, CollectionModel> byName;
+
+        Snapshot(long version, List<CollectionModel> collections) {
+            this.version = version;
+            this.collections = List.copyOf(collections);
+            Map<String, CollectionModel> byId = new HashMap<>(collections.size() * 2);
+            Map<String, CollectionModel> byName = new HashMap<>(collections.size() * 2);
+            for (CollectionModel collection : collections) {
+                byId.put(collection.getId(), collection);
+                byName.put(collection.getName().toLowerCase(), collection);
+            }
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byName = Collections.unmodifiableMap(byName);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<CollectionModel> getCollections() {
+            return collections;
+        }
+
+        /**
+         * 按 id 或 name（忽略大小写）查找，优先匹配 id
+         */
+        public CollectionModel find(String nameOrId) {
+            CollectionModel collection = byId.get(nameOrId);
+            return collection != null ? collection : byName.get(nameOrId.toLowerCase());
+        }
+    }
+
+    /**
+     * 当前快照，null 表示尚未加载
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 已知的最新目录版本（来自版本检查或其它节点的通知），大于快照版本时快照需要重新加载
+     */
+    private final AtomicLong latestVersion = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * 上一次检查版本号的时间
+     */
+    private final AtomicLong lastCheckMillis = new AtomicLong();
+
+    /**
+     * 不存在的 nameOrId --> 过期时间
+     */
+    private final Map<String, Long> missing = new ConcurrentHashMap<>();
+
+    /**
+     * 正在从数据库加载的 nameOrId
+     */
+    private final Map<String, CompletableFuture<CollectionModel>> loading = new ConcurrentHashMap<>();
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 快照是否需要重新加载：尚未加载或已知有更新的版本
+     */
+    public boolean isStale() {
+        Snapshot current = snapshot;
+        return current == null || latestVersion.get() > current.version;
+    }
+
+    /**
+     * 距离上次检查超过 intervalMillis 时返回 true，同一时间只有一个调用方会拿到检查权
+     */
+    public boolean tryStartCheck(long intervalMillis) {
+        long now = System.currentTimeMillis();
+        long last = lastCheckMillis.get();
+        return now - last >= intervalMillis && lastCheckMillis.compareAndSet(last, now);
+    }
+
+    /**
+     * 记录已知的目录版本（版本检查结果或其它节点的通知），下次读取时重新加载
+     */
+    public void onVersion(long version) {
+        latestVersion.accumulateAndGet(version, Math::max);
+    }
+
+    /**
+     * nameOrId 是否在最近一次查询中确认不存在且尚未过期
+     */
+    public boolean isMissing(String nameOrId) {
+        Long expireAt = missing.get(nameOrId);
+        if (expireAt == null) {
+            return false;
+        }
+        if (expireAt < System.currentTimeMillis()) {
+            missing.remove(nameOrId, expireAt);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 记录 nameOrId 不存在，ttlMillis 后或快照替换后失效
+     */
+    public void markMissing(String nameOrId, long ttlMillis) {
+        if (missing.size() >= MaxMissingSize) {
+            missing.clear();
+        }
+        missing.put(nameOrId, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * 同一 nameOrId 的并发加载只执行一次 loader，其它调用方等待并共享其结果（或异常）
+     */
+    public CollectionModel loadOnce(String nameOrId, Supplier<CollectionModel> loader) {
+        CompletableFuture<CollectionModel> future = new CompletableFuture<>();
+        CompletableFuture<CollectionModel> existing = loading.putIfAbsent(nameOrId, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        try {
+            CollectionModel collection = loader.get();
+            future.complete(collection);
+            return collection;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(nameOrId, future);
+        }
+    }
+
+    /**
+     * 使用某个版本下加载的全部 Collection 替换当前快照，版本比当前快照旧时放弃
+     *
+     * @return 替换后的当前快照
+     */
+    public synchronized Snapshot swap(long version, List<CollectionModel> collections) {
+        Snapshot current = snapshot;
+        if (current == null || version >= current.version) {
+            snapshot = new Snapshot(version, collections);
+            missing.clear();
+            onVersion(version);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 丢弃当前快照，下次读取时重新加载
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+        missing.clear();
+    }
+}
@@ -7,7 +7,7 @@ import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.picobase.PbManager;
 import com.picobase.PbUtil;
-import com.picobase.cache.LazyCache;
+import com.picobase.cache.PbCatalogBroadcaster;
 import com.picobase.exception.BadRequestException;
 import com.picobase.exception.PbException;
 import com.picobase.model.*;
@@ -23,6 +23,7 @@ import com.picobase.persistence.mapper.AbstractMapper;
 import com.picobase.persistence.mapper.MappingOptions;
 import com.picobase.persistence.model.Index;
 import com.picobase.persistence.repository.StorageContextHolder;
+import com.picobase.persistence.resolver.RecordFieldResolver;
 import com.picobase.util.PbConstants;
 import com.picobase.util.Tokenizer;
 
@@ -44,14 +45,17 @@ import static com.picobase.util.PbConstants.baseModelFieldNames;
 public class CollectionMapper extends AbstractMapper<CollectionModel> {
 
     public static final String[] ToJsonStrFieldNames = new String[]{"schema", "indexes", "options"};
-    private static final long EXPIRED_ACCESS_DURATION = 60 * 60 * 1000; //  60分钟 ,数据过期时间
-    private static final long EXPIRE_CHECK_INTERVAL_MILLIS = 5 * 60 * 1000;// 5分钟 , 数据过期检测执行时间
-    private static final int MAX_CACHE_SIZE = 10_0000;
+    private static final long MISSING_COLLECTION_TTL = 10 * 1000; // 10秒，不存在的 Collection 缓存时间
 
     /**
-     * Collection 缓存  nameOrId --> CollectionModel
+     * Collection 目录快照（所有 CollectionMapper 实例共享），按 pb_catalog 中的目录版本整体替换
      */
-    private LazyCache<String, CollectionModel> cache = new LazyCache<>(MAX_CACHE_SIZE, EXPIRED_ACCESS_DURATION, EXPIRE_CHECK_INTERVAL_MILLIS, null);
+    private static final CollectionCatalog catalog = new CollectionCatalog();
+
+    /**
+     * Collection 反向关联图，所有 CollectionMapper 实例共享，随目录快照一起重建
+     */
+    private static final CollectionReferenceGraph referenceGraph = new CollectionReferenceGraph();
 
 
     @Override
@@ -82,11 +86,147 @@ public class CollectionMapper extends AbstractMapper<CollectionModel> {
             return null;
         }
 
-        return cache.get(nameOrId, () -> modelQuery()
-                .andWhere(newExpr("`id` = :id OR LOWER(`name`)=:name"
-                        , Map.of("id", nameOrId, "name", nameOrId.toLowerCase())))
-                .limit(1).one(CollectionModel.class));
+        CollectionModel collection = currentCatalog().find(nameOrId);
+        if (collection != null) {
+            return collection;
+        }
+        if (catalog.isMissing(nameOrId)) {
+            return null;
+        }
+
+        // not in the snapshot - either it doesn't exist or it was created after the snapshot was loaded
+        return catalog.loadOnce(nameOrId, () -> {
+            CollectionModel found = modelQuery()
+                    .andWhere(newExpr("`id` = :id OR LOWER(`name`)=:name"
+                            , Map.of("id", nameOrId, "name", nameOrId.toLowerCase())))
+                    .limit(1).one(CollectionModel.class);
+            if (found == null) {
+                catalog.markMissing(nameOrId, MISSING_COLLECTION_TTL);
+                return null;
+            }
+            CollectionModel reloaded = reloadCatalog(true).find(nameOrId);
+            return reloaded != null ? reloaded : found;
+        });
+    }
+
+    /**
+     * 返回当前的 Collection 目录快照：首次使用、已知有新版本或到达检查间隔且 pb_catalog 中的版本已变化时重新加载
+     */
+    public CollectionCatalog.Snapshot currentCatalog() {
+        CollectionCatalog.Snapshot snapshot = catalog.snapshot();
+        if (snapshot == null || catalog.isStale()) {
+            return reloadCatalog(false);
+        }
 
+        long interval = PbManager.getConfig().getCatalogCheckInterval();
+        if (interval > 0 && catalog.tryStartCheck(interval)) {
+            Long version = findCatalogVersion();
+            if (version != null && version != snapshot.getVersion()) {
+                catalog.onVersion(version);
+                return reloadCatalog(false);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 重新加载全部 Collection 并替换目录快照与反向关联图
+     *
+     * @param force false 时若其它线程已经加载了最新版本则直接返回
+     */
+    private CollectionCatalog.Snapshot reloadCatalog(boolean force) {
+        synchronized (catalog) {
+            if (!force && !catalog.isStale()) {
+                return catalog.snapshot();
+            }
+
+            // read the version before the collections so that the snapshot contains at least the changes up to it
+            Long version = findCatalogVersion();
+            List<CollectionModel> collections = findCollectionsByExcludeIds(null);
+
+            CollectionCatalog.Snapshot current = catalog.snapshot();
+            long next = version != null ? version : (current != null ? current.getVersion() : 0);
+            CollectionCatalog.Snapshot snapshot = catalog.swap(next, collections);
+            referenceGraph.rebuild(collections);
+            // the compiled rules may reference the changed collection schemas (eg. via relations or @collection.*)
+            RecordFieldResolver.clearRuleCache();
+            // the cached auth records reference the old collection models
+            PbManager.getPbAuthPrincipalCache().clear();
+            return snapshot;
+        }
+    }
+
+    /**
+     * 查询 pb_catalog 中的 Collection 目录版本，不存在或查询失败时返回 null
+     */
+    private Long findCatalogVersion() {
+        try {
+            List<Long> versions = PbUtil.getPbDbxBuilder().select("version").from(PbConstants.TableName.CATALOG)
+                    .andWhere(newHashExpr(Map.of("name", CollectionCatalog.VERSION_KEY)))
+                    .limit(1).all((rs, rowNum) -> rs.getLong(1));
+            return versions.isEmpty() ? null : versions.get(0);
+        } catch (Exception e) {
+            PbManager.getLog().warn("Failed to read the collection catalog version: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Collection 新增、修改或删除后调用：递增 pb_catalog 中的目录版本，重新加载本节点的目录快照，并通知其它节点
+     * <p>
+     * CollectionMapper 自身的保存、删除方法会在事务提交后自动调用
+     * </p>
+     */
+    public void publishCatalogChange() {
+        Long version = null;
+        try {
+            PbUtil.getPbDbxBuilder().newQuery("INSERT INTO `" + PbConstants.TableName.CATALOG + "` (`name`, `version`) VALUES (:name, 1) ON DUPLICATE KEY UPDATE `version` = `version` + 1")
+                    .bind(Map.of("name", CollectionCatalog.VERSION_KEY)).execute(false);
+            version = findCatalogVersion();
+        } catch (Exception e) {
+            PbManager.getLog().warn("Failed to increase the collection catalog version: {}", e.getMessage());
+        }
+
+        reloadCatalog(true);
+
+        PbCatalogBroadcaster broadcaster = PbManager.getPbCatalogBroadcaster();
+        if (broadcaster != null && version != null) {
+            broadcaster.publish(version);
+        }
+    }
+
+    private void publishCatalogChangeAfterCommit() {
+        PbManager.getPbDatabaseOperate().runAfterCommit(this::publishCatalogChange);
+    }
+
+    /**
+     * 保存非 View 类型的 Collection：同步记录表结构后新增或修改 Collection，并发布目录变更
+     *
+     * @param newCollection 待保存的 Collection
+     * @param oldCollection 修改前的 Collection，为 null 时新增
+     */
+    public void saveCollection(CollectionModel newCollection, CollectionModel oldCollection) {
+        syncRecordTableSchema(newCollection, oldCollection);
+        if (oldCollection == null) {
+            super.insertQuery(newCollection).execute();
+        } else {
+            super.updateQuery(newCollection, newExpr("id = :id", Map.of("id", newCollection.getId()))).execute();
+        }
+        publishCatalogChangeAfterCommit();
+    }
+
+    /**
+     * 启动时调用，一次查询加载全部 Collection，避免启动后的首批请求逐个查询 Collection
+     */
+    public void warmUpCatalog() {
+        reloadCatalog(true);
+    }
+
+    /**
+     * 返回所有 CollectionMapper 实例共享的 Collection 目录
+     */
+    public static CollectionCatalog getCatalog() {
+        return catalog;
     }
 
 
@@ -481,7 +621,7 @@ public class CollectionMapper extends AbstractMapper<CollectionModel> {
         } else {
             super.updateQuery(newCollection, newExpr("id = :id", Map.of("id", newCollection.getId()))).execute();
         }
-
+        publishCatalogChangeAfterCommit();
     }
 
     // normalizeViewQueryId wraps (if necessary) the provided view query
@@ -633,6 +773,9 @@ public class CollectionMapper extends AbstractMapper<CollectionModel> {
 
         normalizeSingleVsMultipleFieldChanges(newCollection, oldCollection);
 
+        // backfill or drop the pb_relations rows of the fields with changed index option
+        RelationIndex.syncFields(newCollection, oldCollection);
+
         createCollectionIndexes(newCollection);
     }
 
@@ -844,7 +987,9 @@ public class CollectionMapper extends AbstractMapper<CollectionModel> {
         }
 
 
+        RelationIndex.deleteCollection(collection);
         PbUtil.deleteById(collection.getId(), CollectionModel.class);
+        publishCatalogChangeAfterCommit();
     }
 
     /**
@@ -887,26 +1032,34 @@ public class CollectionMapper extends AbstractMapper<CollectionModel> {
      * // as the excludeId argument.
      */
     public Map<CollectionModel, List<SchemaField>> findCollectionReferences(CollectionModel collection, String... excludeIds) {
-        List<CollectionModel> collections = findCollectionsByExcludeIds(Arrays.asList(excludeIds));
-        Map<CollectionModel, List<SchemaField>> result = MapUtil.newHashMap();
-        for (CollectionModel c : collections) {
-            for (SchemaField f : c.getSchema().getFields()) {
-                if (!StrUtil.equals(f.getType(), Relation)) {
-                    continue;
-                }
-                f.initOptions();
-                RelationOptions options = (RelationOptions) f.getOptions();
-                if (options != null && Objects.equals(options.getCollectionId(), collection.getId())) {
-                    List<SchemaField> fields = result.getOrDefault(c, new ArrayList<>());
-                    fields.add(f);
-                    result.put(c, fields);
-                }
+        Map<CollectionModel, List<SchemaField>> result = new LinkedHashMap<>();
+        for (CollectionReferenceGraph.Reference reference : findReferences(collection.getId())) {
+            if (excludeIds.length > 0 && existInArray(reference.getCollection().getId(), excludeIds)) {
+                continue;
             }
+            result.computeIfAbsent(reference.getCollection(), k -> new ArrayList<>()).add(reference.getField());
         }
 
         return result;
     }
 
+    /**
+     * 返回引用了目标 collection 的所有 relation 字段（包含自引用），首次调用时由目录快照构建反向关联图
+     */
+    public List<CollectionReferenceGraph.Reference> findReferences(String collectionId) {
+        if (!referenceGraph.isBuilt()) {
+            referenceGraph.rebuild(currentCatalog().getCollections());
+        }
+        return referenceGraph.findReferences(collectionId);
+    }
+
+    /**
+     * 返回 Collection 反向关联图
+     */
+    public CollectionReferenceGraph getReferenceGraph() {
+        return referenceGraph;
+    }
+
     /**
      * 重写 insert 方法， 将schema序列化成json
      *
@@ -957,7 +1110,4 @@ public class CollectionMapper extends AbstractMapper<CollectionModel> {
         return modelQuery().andWhere(Expression.newHashExpr(Map.of("type", collectionType))).orderBy("created ASC").all(CollectionModel.class);
     }
 
-    public void removeCache(String nameOrId) {
-        cache.remove(nameOrId);
-    }
 }
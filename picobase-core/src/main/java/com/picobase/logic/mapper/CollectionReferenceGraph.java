@@ -0,0 +1,107 @@
+package com.picobase.logic.mapper;
+
+import cn.hutool.core.util.StrUtil;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.RelationOptions;
+
+import java.util.*;
+
+import static com.picobase.util.PbConstants.FieldType.Relation;
+
+/**
+ * Collection 反向关联图：被引用的 collectionId --> 引用它的 (collection, relation 字段, 是否多选, 是否级联删除)
+ * <p>
+ * 图在第一次使用时由全部 Collection 构建，之后随 Collection 目录快照的每次重新加载整体重建。
+ * 读取不加锁，每次重建都会生成新的快照替换旧快照，查询某个 collection 的引用为 O(1)。
+ * </p>
+ */
+public class CollectionReferenceGraph {
+
+    /**
+     * 一条引用：collection 的 field 字段关联到目标 collection
+     */
+    public static class Reference {
+        private final CollectionModel collection;
+        private final SchemaField field;
+        private final boolean multiple;
+        private final boolean cascadeDelete;
+
+        Reference(CollectionModel collection, SchemaField field, RelationOptions options) {
+            this.collection = collection;
+            this.field = field;
+            this.multiple = options.isMultiple();
+            this.cascadeDelete = options.isCascadeDelete();
+        }
+
+        public CollectionModel getCollection() {
+            return collection;
+        }
+
+        public SchemaField getField() {
+            return field;
+        }
+
+        public boolean isMultiple() {
+            return multiple;
+        }
+
+        public boolean isCascadeDelete() {
+            return cascadeDelete;
+        }
+    }
+
+    /**
+     * 当前快照，null 表示尚未构建
+     */
+    private volatile Map<String, List<Reference>> snapshot;
+
+    public boolean isBuilt() {
+        return snapshot != null;
+    }
+
+    /**
+     * 由全部 Collection 构建反向关联图
+     *
+     * @param collections 全部 Collection
+     */
+    public void rebuild(List<CollectionModel> collections) {
+        Map<String, List<Reference>> graph = new HashMap<>();
+        for (CollectionModel collection : collections) {
+            addReferences(graph, collection);
+        }
+        snapshot = freeze(graph);
+    }
+
+    /**
+     * 返回引用了目标 collection 的所有 relation 字段（包含自引用），图未构建时返回 null
+     */
+    public List<Reference> findReferences(String targetCollectionId) {
+        Map<String, List<Reference>> graph = snapshot;
+        if (graph == null) {
+            return null;
+        }
+        return graph.getOrDefault(targetCollectionId, Collections.emptyList());
+    }
+
+    private static void addReferences(Map<String, List<Reference>> graph, CollectionModel collection) {
+        if (collection.getSchema() == null) {
+            return;
+        }
+        for (SchemaField field : collection.getSchema().getFields()) {
+            if (!StrUtil.equals(field.getType(), Relation)) {
+                continue;
+            }
+            field.initOptions();
+            if (field.getOptions() instanceof RelationOptions options && options.getCollectionId() != null) {
+                graph.computeIfAbsent(options.getCollectionId(), k -> new ArrayList<>()).add(new Reference(collection, field, options));
+            }
+        }
+    }
+
+    private static Map<String, List<Reference>> freeze(Map<String, List<Reference>> graph) {
+        Map<String, List<Reference>> frozen = new HashMap<>(graph.size() * 2);
+        graph.forEach((target, references) -> frozen.put(target, List.copyOf(references)));
+        return Collections.unmodifiableMap(frozen);
+    }
+}
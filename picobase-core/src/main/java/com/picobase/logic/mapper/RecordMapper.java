@@ -9,6 +9,8 @@ import com.picobase.PbUtil;
 import com.picobase.exception.BadRequestException;
 import com.picobase.exception.PbException;
 import com.picobase.model.*;
+import com.picobase.model.event.RecordsBulkDeleteEvent;
+import com.picobase.model.event.TimePosition;
 import com.picobase.model.schema.MultiValuer;
 import com.picobase.model.schema.SchemaField;
 import com.picobase.model.schema.fieldoptions.RelationOptions;
@@ -18,16 +20,17 @@ import com.picobase.persistence.mapper.AbstractMapper;
 import com.picobase.persistence.resolver.ListUtil;
 import com.picobase.persistence.resolver.ResultCouple;
 import com.picobase.util.PbConstants;
+import com.picobase.util.PbConstants.FieldName;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static com.picobase.model.RecordModel.newRecordsFromNullStringMaps;
 import static com.picobase.persistence.dbx.DbxUtil.*;
 import static com.picobase.persistence.dbx.expression.Expression.*;
 import static com.picobase.persistence.resolver.DbUtil.hasSingleColumnUniqueIndex;
@@ -41,6 +44,21 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
      * MaxExpandDepth specifies the max allowed nested expand depth path.
      */
     public static final int MaxExpandDepth = 6;
+    /**
+     * MaxBackRelationsPerRecord specifies the max number of back-relation records
+     * expanded for a single parent record (the limit is arbitrary chosen and may change in the future).
+     */
+    public static final int MaxBackRelationsPerRecord = 1000;
+    /**
+     * BackRelationChunkSize specifies the max number of parent ids resolved with a single back-relation query.
+     */
+    public static final int BackRelationChunkSize = 500;
+
+    /**
+     * CascadeBatchSize specifies the max number of referencing records deleted (and reported to the
+     * RecordsBulkDeleteEvent hooks) with a single statement during a cascade delete.
+     */
+    public static final int CascadeBatchSize = 4000;
     CollectionMapper collectionMapper = new CollectionMapper();
 
     public Optional<RecordModel> findRecordById(String collectionNameOrId, String recordId, Consumer<SelectQuery>... optFilters) {
@@ -60,55 +78,23 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
      * If optFetchFunc is not set, then a default function will be used
      * that returns all relation records.
      * <p>
+     * The normalized expand paths are merged into a single tree and expanded level by level:
+     * the relation ids of all paths at the same level are coalesced per related collection,
+     * the related collections are fetched concurrently (bounded by the shared PbProviderExecutor)
+     * and every fetched record is kept in a per-call identity map, so that a record is
+     * fetched only once no matter how many paths or levels reference it.
+     * <p>
      * Returns a map with the failed expand parameters and their errors.
      */
     public Map<String, Error> expandRecords(List<RecordModel> records, List<String> expands, ExpandFetchFunc optFetchFunc) {
         List<String> normalized = normalizeExpands(expands);
 
         Map<String, Error> failed = new HashMap<>();
+        if (records.isEmpty() || normalized.isEmpty()) {
+            return failed;
+        }
 
-        normalized.forEach(expand -> {
-            var err = this.expand(records, expand, optFetchFunc, 1);
-            if (err != null) {
-                failed.put(expand, err);
-            }
-        });
-        return failed;
-    }
-
-    /**
-     * // notes:
-     * // - if fetchFunc is nil, dao.FindRecordsByIds will be used
-     * // - all records are expected to be from the same collection
-     * // - if MaxExpandDepth is reached, the function returns nil ignoring the remaining expand path
-     * <p>
-     * 1. 初始化 fetchFunc
-     * 2. 判断递归请求是否继续
-     * 3. 根据records 中的第一个element 获取 Collection
-     * 4. 切割 expandPath ， 并获取第一个part 进行正则匹配，看是否有 _via_关键字（back relation逻辑）
-     * 5.如果是back relation逻辑
-     * <p>
-     * <p>
-     * 6.如果是 direct relation
-     * 6.1 根据 path 获取collection中的field（relationField），校验，初始化为RelationOptions
-     * 6.2 根据 初始化为RelationOptions 获取对应的关联的Collection ，校验是否为空。
-     * <p>
-     * 7. 迭代原始records 并获对应relation字段中的值，该值可能是个集合也可能是单个值。将这些信息收集到变量 relIds 中。
-     * 8. 根据上面获取到的关联collection以及这些relIds 执行fetchFunc 获取所有关联的 record
-     * 9. 如果expand paths 长度大于1，说明还有更expand内容需要继续递归
-     * 10. 如果 paths <1,则是最后一个expand内容 ，这时将所有的 关联的records 即relrecods 进行 id->record 进行索引map构建。
-     * 11. 循环原始 recods，开始单个处理
-     * <p>
-     * 11.1 取出 关系字段中的值（单值或list）
-     * 11.2 循环到 步骤10 中的 索引map 中查找，最终形成 有效的 validRels集合。
-     * 11.3 如果 validRels是空的则继续循环下一个原始 record
-     * 11.4 不为空 从原始record中获取 expand，并判断是否为null， 为null则初始化。
-     * 11.5 尝试从这个获取到的expand中 根据 关联字段 relField 的名字获取 expand中的数据。
-     * 11.6 分三种情况 将老的expand数据 放到 临时变量 oldExpandedRels中。
-     * 11.7 开始merge 数据，  merge过程是 开启嵌套循环 ，先取出老的oldExpandedRel ，在有效的 validRels中根据id匹配，匹配到则调用 mergeExpand方法。
-     * 11.8 更新原始 records expand数据。
-     */
-    private Error expand(List<RecordModel> records, String expandPath, ExpandFetchFunc fetchFunc, int recursionLevel) {
+        ExpandFetchFunc fetchFunc = optFetchFunc;
         if (fetchFunc == null) {
             // load a default fetchFunc
             fetchFunc = (relCollection, relIds) -> {
@@ -121,19 +107,95 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
             };
         }
 
-        if (StrUtil.isEmpty(expandPath) || recursionLevel > MaxExpandDepth || records.isEmpty()) {
-            return null;
+        ExpandNode root = new ExpandNode(null, null);
+        normalized.forEach(root::add);
+        ExpandIdentityMap identityMap = new ExpandIdentityMap(fetchFunc);
+
+        // expand the tree level by level
+        List<List<ExpandTask>> levels = new ArrayList<>();
+        List<ExpandTask> level = root.children.values().stream().map(node -> new ExpandTask(records, node)).collect(Collectors.toList());
+        // if MaxExpandDepth is reached the remaining expand path is ignored
+        for (int recursionLevel = 1; recursionLevel <= MaxExpandDepth && !level.isEmpty(); recursionLevel++) {
+            levels.add(level);
+            level = this.expandLevel(level, identityMap);
         }
 
+        // assign the expanded rels starting from the deepest level
+        // (a failed nested path discards the expand of its parent parts, unless another path through them succeeded)
+        for (int i = levels.size() - 1; i >= 0; i--) {
+            levels.get(i).stream().filter(task -> task.rels != null && task.node.succeeded()).forEach(this::assignExpand);
+        }
+
+        normalized.forEach(path -> {
+            var err = root.findError(path);
+            if (err != null) {
+                failed.put(path, err);
+            }
+        });
+        return failed;
+    }
+
+    /**
+     * expandLevel resolves and fetches the relations of all tasks from the same tree level.
+     * <p>
+     * Returns the tasks of the next level.
+     */
+    private List<ExpandTask> expandLevel(List<ExpandTask> tasks, ExpandIdentityMap identityMap) {
+        // resolve the relation fields and collect the ids to fetch
+        for (ExpandTask task : tasks) {
+            var err = this.resolveExpandRelation(task);
+            if (err != null) {
+                task.node.error = err;
+                continue;
+            }
+            // extract the id of the relations to expand
+            List<String> relIds = new ArrayList<>(task.records.size());
+            task.records.forEach(r -> relIds.addAll(r.getStringList(task.relField.getName())));
+            task.relIds = toUniqueStringList(relIds);
+            identityMap.request(task.relCollection, task.relIds);
+        }
+
+        // fetch the related records (one query per related collection)
+        identityMap.fetchPending();
+
+        List<ExpandTask> next = new ArrayList<>();
+        for (ExpandTask task : tasks) {
+            if (task.relCollection == null) {
+                continue;
+            }
+            var err = identityMap.error(task.relCollection);
+            if (err != null) {
+                task.node.error = err;
+                continue;
+            }
+            task.rels = identityMap.copies(task.relCollection, task.relIds);
+            if (!task.rels.isEmpty()) {
+                // expand the nested fields
+                task.node.children.values().forEach(child -> next.add(new ExpandTask(task.rels, child)));
+            }
+        }
+        return next;
+    }
+
+    /**
+     * resolveExpandRelation resolves the relation field and the related collection
+     * of the task expand path part.
+     * <p>
+     * Notes:
+     * - all task records are expected to be from the same collection
+     * - for back relations (_via_) the related ids are loaded into the task records
+     * as a dynamic relation field value
+     */
+    private Error resolveExpandRelation(ExpandTask task) {
+        var records = task.records;
+        var part = task.node.name;
         var mainCollection = records.get(0).getCollection();
 
         SchemaField relField;
         RelationOptions relFieldOptions;
         CollectionModel relCollection;
 
-        var parts = expandPath.split("\\.", 2);
-
-        Matcher matcher = IndirectExpandRegexPattern.matcher(parts[0]);
+        Matcher matcher = IndirectExpandRegexPattern.matcher(part);
         if (matcher.matches() && matcher.groupCount() == 2) {
             // back relation
             Optional<CollectionModel> indirectRelOpt = this.findCollectionByNameOrId(matcher.group(1));
@@ -148,56 +210,29 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
                 return new Error(String.format("couldn't find back-relation field %s in collection %s", matcher.group(2), indirectRel.getName()));
             }
 
-            indirectRelField.initOptions();
-            var indirectRelFieldOptions = (RelationOptions) indirectRelField.getOptions();
-            if (indirectRelFieldOptions == null || !indirectRelFieldOptions.getCollectionId().equals(mainCollection.getId())) {
+            // the reverse relation graph knows every relation field pointing to the main collection
+            var indirectRelRef = collectionMapper.findReferences(mainCollection.getId()).stream()
+                    .filter(ref -> ref.getCollection().getId().equals(indirectRel.getId()) && ref.getField().getName().equals(indirectRelField.getName()))
+                    .findFirst();
+            if (indirectRelRef.isEmpty()) {
                 return new Error(String.format("invalid back-relation field path %s", matcher.group(0)));
             }
 
             // add the related id(s) as a dynamic relation field value to
             // allow further expand checks at later stage in a more unified manner
-            Supplier<Error> prepErr = () -> {
-                try {
-                    var q = PbUtil.getPbDbxBuilder().select(String.format("`%s`.`id`", indirectRel.getName()))
-                            .from(indirectRel.getName())
-                            .limit(1000);// the limit is arbitrary chosen and may change in the future
-
-                    if (indirectRelFieldOptions.isMultiple()) {
-                        q.innerJoin(
-                                String.format("( SELECT `id` FROM %s,%s `je` WHERE `je`.`value` = :id ) je2", indirectRel.getName(), jsonEach(indirectRelField.getName()))
-                                , newExpr(String.format("`je2`.`id` = `%s`.`id`", indirectRel.getName())));
-
-                        /*q.andWhere(exists(newExpr(
-                                String.format("SELECT 1 FROM %s je WHERE je.`value` = :id",
-                                        jsonEach(indirectRelField.getName()))
-                        )));*/
-                    } else {
-                        q.andWhere(newExpr(quoteColumnName(indirectRelField.getName()) + " = :id"));
+            try {
+                List<String> parentIds = records.stream().map(RecordModel::getId).toList();
+                Map<String, List<String>> relIdsByParent = this.findBackRelationIds(indirectRel, indirectRelField, indirectRelRef.get().isMultiple(), parentIds);
+                records.forEach(r -> {
+                    List<String> relIds = relIdsByParent.get(r.getId());
+                    if (relIds != null && !relIds.isEmpty()) {
+                        r.set(part, relIds);
                     }
-
-
-                    records.forEach(r -> {
-                        List<String> relIds;
-                        try {
-                            relIds = q.build().bind(Map.of("id", r.getId())).column(String.class);
-                        } catch (Exception e) {
-                            throw new RuntimeException(e);
-                        }
-                        if (!relIds.isEmpty()) {
-                            r.set(parts[0], relIds);
-                        }
-                    });
-
-                    return null;
-                } catch (Exception e) {
-                    return new Error(e);
-                }
-            };
-
-            Error error = prepErr.get();
-            if (error != null) {
-                return error;
+                });
+            } catch (Exception e) {
+                return new Error(e);
             }
+
             relFieldOptions = new RelationOptions(null, indirectRel.getId());
             if (hasSingleColumnUniqueIndex(indirectRelField.getName(), indirectRel.getIndexes())) {
                 relFieldOptions.setMaxSelect(1);
@@ -205,22 +240,22 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
             // indirect/back relation
 
             relField = new SchemaField()
-                    .setId("_" + parts[0] + RandomUtil.randomString(3))
+                    .setId("_" + part + RandomUtil.randomString(3))
                     .setType(Relation)
-                    .setName(parts[0])
+                    .setName(part)
                     .setOptions(relFieldOptions);
             relCollection = indirectRel;
 
         } else {
             // direct relation
-            relField = mainCollection.getSchema().getFieldByName(parts[0]);
+            relField = mainCollection.getSchema().getFieldByName(part);
             if (relField == null || !relField.getType().equals(Relation)) {
-                return new Error(String.format("Couldn't find relation field %s in collection %s.", parts[0], mainCollection.getName()));
+                return new Error(String.format("Couldn't find relation field %s in collection %s.", part, mainCollection.getName()));
             }
             relField.initOptions();
             relFieldOptions = (RelationOptions) relField.getOptions();
             if (relFieldOptions == null) {
-                return new Error(String.format("Couldn't initialize the options of relation field %s.", parts[0]));
+                return new Error(String.format("Couldn't initialize the options of relation field %s.", part));
             }
 
             Optional<CollectionModel> coOpt = this.findCollectionByNameOrId(relFieldOptions.getCollectionId());
@@ -229,36 +264,28 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
             }
             relCollection = coOpt.get();
         }
-        //--------------------------------------------------------
-
-        // extract the id of the relations to expand
-        List<String> relIds = new ArrayList<>(records.size());
-        records.forEach(r -> relIds.addAll(r.getStringList(relField.getName())));
-
-        // fetch the related records
-        ResultCouple<List<RecordModel>> apply = fetchFunc.apply(relCollection, relIds);
-        if (apply.getError() != null) {
-            return apply.getError();
-        }
-        var rels = apply.getResult();
 
-        // expand the nested fields
-        if (parts.length > 1) {
-            var err = this.expand(rels, parts[1], fetchFunc, recursionLevel + 1);
-            if (err != null) {
-                return err;
-            }
-        }
+        task.relField = relField;
+        task.relFieldOptions = relFieldOptions;
+        task.relCollection = relCollection;
+        return null;
+    }
 
-        // 使用 Stream API 将 rels 重新索引为 map
-        Map<String, RecordModel> indexedRels = rels.stream()
-                .collect(Collectors.toMap(RecordModel::getId, rel -> rel));
+    /**
+     * assignExpand sets the expanded rels of the task into the expand data of its records
+     * (merging them with the previously expanded rel records, if any).
+     */
+    private void assignExpand(ExpandTask task) {
+        var relField = task.relField;
+        var relFieldOptions = task.relFieldOptions;
 
+        Map<String, RecordModel> indexedRels = new HashMap<>(task.rels.size() * 2);
+        task.rels.forEach(rel -> indexedRels.put(rel.getId(), rel));
 
-        records.forEach(model -> {
-            var relIds2 = model.getStringList(relField.getName());
+        task.records.forEach(model -> {
+            var relIds = model.getStringList(relField.getName());
 
-            List<RecordModel> validRels = relIds2.stream()
+            List<RecordModel> validRels = relIds.stream()
                     .map(indexedRels::get)
                     .filter(Objects::nonNull)
                     .collect(Collectors.toList());
@@ -286,7 +313,7 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
             for (RecordModel oldExpandedRel : oldExpandedRels) {
                 // find a matching rel record
                 for (RecordModel rel : validRels) {
-                    if (!rel.getId().equals(oldExpandedRel.getId())) {
+                    if (!rel.getId().equals(oldExpandedRel.getId()) || rel == oldExpandedRel) {
                         continue;
                     }
                     rel.mergeExpand(oldExpandedRel.expand());
@@ -303,9 +330,218 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
             model.setExpand(expandData);
 
         });
+    }
 
+    /**
+     * ExpandNode is a single part of the merged expand paths tree.
+     */
+    private static class ExpandNode {
+        private final String name;
+        private final ExpandNode parent;
+        private final Map<String, ExpandNode> children = new LinkedHashMap<>();
+        private Error error;
+
+        private ExpandNode(String name, ExpandNode parent) {
+            this.name = name;
+            this.parent = parent;
+        }
 
-        return null;
+        private void add(String path) {
+            ExpandNode node = this;
+            for (String part : path.split("\\.")) {
+                ExpandNode current = node;
+                node = current.children.computeIfAbsent(part, k -> new ExpandNode(k, current));
+            }
+        }
+
+        /**
+         * @return whether the node and at least one of its child paths (if any) were expanded without error
+         */
+        private boolean succeeded() {
+            if (error != null) {
+                return false;
+            }
+            return children.isEmpty() || children.values().stream().anyMatch(ExpandNode::succeeded);
+        }
+
+        /**
+         * @return the first error along the provided path (if any)
+         */
+        private Error findError(String path) {
+            ExpandNode node = this;
+            for (String part : path.split("\\.")) {
+                node = node.children.get(part);
+                if (node == null) {
+                    return null;
+                }
+                if (node.error != null) {
+                    return node.error;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * ExpandTask is the expansion of a single tree node for a list of records from the same collection.
+     */
+    private static class ExpandTask {
+        private final List<RecordModel> records;
+        private final ExpandNode node;
+        private SchemaField relField;
+        private RelationOptions relFieldOptions;
+        private CollectionModel relCollection;
+        private List<String> relIds;
+        private List<RecordModel> rels;
+
+        private ExpandTask(List<RecordModel> records, ExpandNode node) {
+            this.records = records;
+            this.node = node;
+        }
+    }
+
+    /**
+     * ExpandIdentityMap holds the related records fetched during a single expandRecords call,
+     * keyed by (collection id, record id).
+     */
+    private static class ExpandIdentityMap {
+        private final ExpandFetchFunc fetchFunc;
+        private final Map<String, Map<String, RecordModel>> records = new HashMap<>();
+        /**
+         * the already queried ids per collection (including the ones that weren't returned by the fetchFunc)
+         */
+        private final Map<String, Set<String>> fetched = new HashMap<>();
+        private final Map<String, CollectionModel> pendingCollections = new LinkedHashMap<>();
+        private final Map<String, Set<String>> pendingIds = new HashMap<>();
+        private final Map<String, Error> errors = new HashMap<>();
+
+        private ExpandIdentityMap(ExpandFetchFunc fetchFunc) {
+            this.fetchFunc = fetchFunc;
+        }
+
+        /**
+         * Registers the ids that have to be fetched with the next fetchPending call.
+         */
+        private void request(CollectionModel collection, List<String> ids) {
+            Set<String> done = fetched.getOrDefault(collection.getId(), Collections.emptySet());
+            for (String id : ids) {
+                if (!done.contains(id)) {
+                    pendingCollections.putIfAbsent(collection.getId(), collection);
+                    pendingIds.computeIfAbsent(collection.getId(), k -> new LinkedHashSet<>()).add(id);
+                }
+            }
+        }
+
+        /**
+         * Fetches all pending ids with one fetchFunc call per collection.
+         * The calls for different collections are executed concurrently,
+         * unless the calling thread is inside a transaction.
+         */
+        private void fetchPending() {
+            errors.clear();
+            if (pendingCollections.isEmpty()) {
+                return;
+            }
+
+            // queries inside a transaction must see its uncommitted changes and hold its locks,
+            // so they are all executed in the calling thread
+            var operate = PbManager.getPbDatabaseOperate();
+            boolean concurrent = operate == null || !operate.isTransactionActive();
+
+            Map<String, Future<ResultCouple<List<RecordModel>>>> futures = new LinkedHashMap<>();
+            var last = new ArrayList<>(pendingCollections.keySet()).get(pendingCollections.size() - 1);
+            pendingCollections.forEach((collectionId, collection) -> {
+                List<String> ids = new ArrayList<>(pendingIds.get(collectionId));
+                Callable<ResultCouple<List<RecordModel>>> call = () -> fetchFunc.apply(collection, ids);
+                // the last collection is fetched in the calling thread
+                FutureTask<ResultCouple<List<RecordModel>>> inline = !concurrent || collectionId.equals(last) ? new FutureTask<>(call) : null;
+                futures.put(collectionId, inline != null ? inline : PbManager.getPbProviderExecutor().submitQuery(call));
+                if (inline != null) {
+                    inline.run();
+                }
+            });
+
+            futures.forEach((collectionId, future) -> {
+                ResultCouple<List<RecordModel>> result;
+                try {
+                    result = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    result = new ResultCouple<>(null, new Error(e));
+                } catch (ExecutionException e) {
+                    result = new ResultCouple<>(null, new Error(e.getCause()));
+                }
+                if (result.getError() != null) {
+                    errors.put(collectionId, result.getError());
+                    return;
+                }
+                var indexed = records.computeIfAbsent(collectionId, k -> new HashMap<>());
+                result.getResult().forEach(r -> indexed.put(r.getId(), r));
+                fetched.computeIfAbsent(collectionId, k -> new HashSet<>()).addAll(pendingIds.get(collectionId));
+            });
+
+            pendingCollections.clear();
+            pendingIds.clear();
+        }
+
+        private Error error(CollectionModel collection) {
+            return errors.get(collection.getId());
+        }
+
+        /**
+         * @return new copies of the fetched records with the provided ids (missing ids are skipped)
+         */
+        private List<RecordModel> copies(CollectionModel collection, List<String> ids) {
+            var indexed = records.getOrDefault(collection.getId(), Collections.emptyMap());
+            List<RecordModel> result = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                var record = indexed.get(id);
+                if (record != null) {
+                    result.add(record.expandCopy());
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * findBackRelationIds resolves the ids of the indirectRel records that reference
+     * each of the provided parent ids through the relField.
+     * <p>
+     * The parent ids are resolved with a single grouped query per chunk of
+     * BackRelationChunkSize ids and each parent is limited to its first MaxBackRelationsPerRecord
+     * rels ordered by (created, id).
+     */
+    private Map<String, List<String>> findBackRelationIds(CollectionModel indirectRel, SchemaField relField, boolean multiple, List<String> parentIds) {
+        String table = quoteTableName(indirectRel.getName());
+        String parentColumn = multiple ? "`je`.`value`" : table + "." + quoteSimpleColumnName(relField.getName());
+        String from = multiple ? String.format("%s, %s `je`", table, jsonEach(relField.getName())) : table;
+        boolean indexed = RelationIndex.isIndexed(relField);
+
+        Map<String, Set<String>> grouped = new HashMap<>();
+        List<String> uniqueIds = toUniqueStringList(parentIds);
+        for (int start = 0; start < uniqueIds.size(); start += BackRelationChunkSize) {
+            List<String> chunk = uniqueIds.subList(start, Math.min(start + BackRelationChunkSize, uniqueIds.size()));
+            if (indexed) {
+                // resolved only from the pb_relations index
+                RelationIndex.findBackRelations(indirectRel, relField, chunk, MaxBackRelationsPerRecord)
+                        .forEach(row -> grouped.computeIfAbsent(row[1], k -> new LinkedHashSet<>()).add(row[0]));
+                continue;
+            }
+
+            Map<String, Object> params = new HashMap<>();
+            // the rels of each parent are picked and returned in a stable (created, id) order
+            String sql = String.format("SELECT `id`, `parent` FROM ( SELECT %s.`id` AS `id`, %s AS `parent`, ROW_NUMBER() OVER (PARTITION BY %s ORDER BY %s.`created`, %s.`id`) AS `__rn` FROM %s WHERE %s ) `__via` WHERE `__rn` <= %d ORDER BY `parent`, `__rn`",
+                    table, parentColumn, parentColumn, table, table, from, in(parentColumn, chunk).build(params), MaxBackRelationsPerRecord);
+
+            PbUtil.getPbDbxBuilder().newQuery(sql).bind(params)
+                    .all((rs, rowNum) -> new String[]{rs.getString(1), rs.getString(2)})
+                    .forEach(row -> grouped.computeIfAbsent(row[1], k -> new LinkedHashSet<>()).add(row[0]));
+        }
+
+        Map<String, List<String>> result = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((parent, ids) -> result.put(parent, new ArrayList<>(ids)));
+        return result;
     }
 
     /**
@@ -461,6 +697,7 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
         }
         super.insertQuery(dataMap).execute();
 
+        RelationIndex.index(model);
 
     }
 
@@ -480,6 +717,21 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
          */
         PbUtil.getPbDbxBuilder().update(model.tableName(), BeanUtil.beanToMap(model.columnValueMap()), newHashExpr(Map.of("id", model.getId()))).execute();
 
+        RelationIndex.sync(model);
+
+        if (model.getCollection().isAuth()) {
+            PbManager.getPbAuthPrincipalCache().invalidateRecord(model.getCollection().getId(), model.getId());
+        }
+
+    }
+
+    /**
+     * 只更新认证记录的 passwordHash（登录时按新的成本因子重新哈希），不刷新 updated 和 tokenKey，已签发的 token 继续有效
+     */
+    public void updateRecordPasswordHash(RecordModel model, String passwordHash) {
+        PbUtil.getPbDbxBuilder().update(model.tableName(), Map.of(PbConstants.FieldName.PasswordHash, passwordHash), newHashExpr(Map.of("id", model.getId()))).execute();
+        model.set(PbConstants.FieldName.PasswordHash, passwordHash);
+        PbManager.getPbAuthPrincipalCache().invalidateRecord(model.getCollection().getId(), model.getId());
     }
 
     /**
@@ -515,6 +767,10 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
             // delete the record before the relation references to ensure that there
             // will be no "A<->B" relations to prevent deadlock when calling DeleteRecord recursively
             PbUtil.deleteById(record.getId(), RecordModel.class);
+            RelationIndex.deleteRecords(record.getCollection(), List.of(record.getId()));
+            if (record.getCollection().isAuth()) {
+                PbManager.getPbAuthPrincipalCache().invalidateRecord(record.getCollection().getId(), record.getId());
+            }
             cascadeRecordDelete(record, refs);
             return null;
         }, false);
@@ -522,10 +778,23 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
     }
 
     public void cascadeRecordDelete(RecordModel mainRecord, Map<CollectionModel, List<SchemaField>> refs) {
+        cascadeRecordsDelete(mainRecord.getCollection(), List.of(mainRecord.getId()), refs);
+    }
+
+    /**
+     * cascadeRecordsDelete cascades the delete of the provided records with set-based statements
+     * (one probe / DELETE / UPDATE per reference field and batch instead of one save per referencing record):
+     * <p>
+     * - referencing records that would be left without any relation are deleted if the field is cascadeDelete
+     * (firing RecordsBulkDeleteEvent hooks and cascading further), otherwise a required field fails the whole delete;
+     * <p>
+     * - the deleted ids are unset from the remaining referencing records.
+     */
+    private void cascadeRecordsDelete(CollectionModel mainCollection, List<String> deletedIds, Map<CollectionModel, List<SchemaField>> refs) {
         // Sort the refs keys to ensure that the cascade events firing order is always the same.
         // This is not necessary for the operation to function correctly but it helps having deterministic output during testing.
         List<CollectionModel> sortedRefKeys = new ArrayList<>(refs.keySet());
-        Collections.sort(sortedRefKeys, Comparator.comparing(CollectionModel::getName));
+        sortedRefKeys.sort(Comparator.comparing(CollectionModel::getName));
         for (CollectionModel refCollection : sortedRefKeys) {
             List<SchemaField> fields = refs.get(refCollection);
 
@@ -534,86 +803,106 @@ public class RecordMapper extends AbstractMapper<RecordModel> {
             }
 
             for (SchemaField field : fields) {
-                String recordTableName = columnify(refCollection.getName());
-                String prefixedFieldName = recordTableName + "." + columnify(field.getName());
-
-                var query = recordQuery(refCollection);
-
-                if (field.getOptions() instanceof MultiValuer) {
-                    MultiValuer opt = (MultiValuer) field.getOptions();
-                    if (!opt.isMultiple()) {
-                        query.andWhere(Expression.newHashExpr(Map.of(prefixedFieldName, mainRecord.getId())));
-                    } else {
-                        query.andWhere(Expression.exists(Expression.newExpr(String.format(
-                                "SELECT 1 FROM %s, JSON_TABLE(CASE WHEN JSON_VALID(%s) THEN %s ELSE JSON_ARRAY(%s) END, '$[*]' COLUMNS(VALUE VARCHAR(255) PATH '$')) AS __je__ WHERE __je__.value = :jevalue",
-                                recordTableName, prefixedFieldName, prefixedFieldName, prefixedFieldName), Map.of("jevalue", mainRecord.getId()))));
-                    }
+                if (!(field.getOptions() instanceof RelationOptions options)) {
+                    throw new BadRequestException("relation field options are not initialized");
                 }
 
-                if (Objects.equals(refCollection.getId(), mainRecord.getCollection().getId())) {
-                    query.andWhere(Expression.not(Expression.newHashExpr(Map.of(recordTableName + ".id", mainRecord.getId()))));
+                String table = quoteTableName(refCollection.getName());
+                String column = table + "." + quoteSimpleColumnName(field.getName());
+
+                // rows pointing to the deleted ids and rows that would be left without any relation
+                Expression referencing;
+                Expression orphaned;
+                if (!options.isMultiple()) {
+                    referencing = in(column, deletedIds);
+                    orphaned = referencing;
+                } else if (options.isIndexed()) {
+                    String idColumn = table + ".`id`";
+                    referencing = RelationIndex.referencing(idColumn, refCollection, field, deletedIds);
+                    orphaned = and(referencing, not(RelationIndex.referencingOthers(idColumn, refCollection, field, deletedIds)));
+                } else {
+                    String jsonValues = String.format("SELECT 1 FROM %s `__je__` WHERE ", jsonEach(field.getName()));
+                    referencing = exists(params -> jsonValues + in("`__je__`.`value`", deletedIds).build(params));
+                    orphaned = and(referencing, notExists(params -> jsonValues + notIn("`__je__`.`value`", deletedIds.toArray()).build(params)));
                 }
 
-                int batchSize = 4000;
-                List<RecordModel> rows;
-                while (true) {
-                    query.limit(batchSize);
-                    rows = query.all(new RecordRowMapper(refCollection));
-
-                    int total = rows.size();
-                    if (total == 0) {
-                        break;
-                    }
-
-                    List<Map<String, Object>> originalDatas = rows.stream()
-                            .map(RecordModel::getOriginalData).toList();
-                    List<RecordModel> refRecords = newRecordsFromNullStringMaps(refCollection, originalDatas);
+                if (Objects.equals(refCollection.getId(), mainCollection.getId())) {
+                    referencing = and(referencing, notIn(table + ".`id`", deletedIds.toArray()));
+                    orphaned = and(orphaned, notIn(table + ".`id`", deletedIds.toArray()));
+                }
 
-                    deleteRefRecords(mainRecord, refRecords, field);
+                if (options.isCascadeDelete()) {
+                    deleteRecordsWhere(refCollection, orphaned);
+                } else if (field.isRequired() && recordQuery(refCollection).select("id").andWhere(orphaned).limit(1).row() != null) {
+                    throw new BadRequestException(String.format("the record cannot be deleted because it is part of a required reference in collection %s (%s field)", refCollection.getName(), field.getName()));
+                }
 
-                    if (total < batchSize) {
-                        break; // no more items
+                if (options.isMultiple() || !options.isCascadeDelete()) {
+                    unsetRelationIds(refCollection, field, options.isMultiple(), deletedIds, referencing);
+                    if (refCollection.isAuth()) {
+                        // the updated auth records are not loaded here
+                        PbManager.getPbAuthPrincipalCache().clear();
                     }
-
-                    rows.clear(); // keep allocated memory
                 }
             }
         }
     }
 
-    public void deleteRefRecords(RecordModel mainRecord, List<RecordModel> refRecords, SchemaField field) {
-        RelationOptions options = (RelationOptions) field.getOptions();
-        if (options == null) {
-            throw new BadRequestException("relation field options are not initialized");
-        }
-
-        for (RecordModel refRecord : refRecords) {
-            List<String> ids = refRecord.getStringList(field.getName());
+    /**
+     * deleteRecordsWhere deletes in batches all records of the collection matching the where expression,
+     * firing the RecordsBulkDeleteEvent hooks once per batch and cascading the delete to their own references.
+     */
+    private void deleteRecordsWhere(CollectionModel collection, Expression where) {
+        Map<CollectionModel, List<SchemaField>> refs = null;
+        while (true) {
+            List<RecordModel> batch = recordQuery(collection).andWhere(where).limit(CascadeBatchSize).all(new RecordRowMapper(collection));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<String> ids = batch.stream().map(RecordModel::getId).toList();
 
-            // unset the record id
-            for (int i = ids.size() - 1; i >= 0; i--) {
-                if (ids.get(i).equals(mainRecord.getId())) {
-                    ids.remove(i);
-                    break;
-                }
+            PbUtil.post(new RecordsBulkDeleteEvent(collection, batch, TimePosition.BEFORE));
+            if (collection.isAuth()) {
+                PbUtil.getPbDbxBuilder().delete(PbConstants.TableName.EXTERNAL_AUTHS,
+                        and(newHashExpr(Map.of("collectionId", collection.getId())), in("recordId", ids))).execute(false);
+            }
+            PbUtil.getPbDbxBuilder().delete(collection.getName(), in("id", ids)).execute();
+            RelationIndex.deleteRecords(collection, ids);
+            if (collection.isAuth()) {
+                ids.forEach(id -> PbManager.getPbAuthPrincipalCache().invalidateRecord(collection.getId(), id));
             }
+            PbUtil.post(new RecordsBulkDeleteEvent(collection, batch, TimePosition.AFTER));
 
-            // cascade delete the reference
-            // (only if there are no other active references in case of multiple select)
-            if (options.isCascadeDelete() && ids.size() == 0) {
-                // deleteRecord(refRecord);
-                // no further actions are needed (the reference is deleted)
-                continue;
+            if (refs == null) {
+                refs = collectionMapper.findCollectionReferences(collection);
             }
+            cascadeRecordsDelete(collection, ids, refs);
 
-            if (field.isRequired() && ids.size() == 0) {
-                throw new BadRequestException(String.format("the record cannot be deleted because it is part of a required reference in record %s (%s collection)", refRecord.getId(), refRecord.getCollection().getName()));
+            if (batch.size() < CascadeBatchSize) {
+                break; // no more items
             }
+        }
+    }
 
-            // save the reference changes
-            refRecord.set(field.getName(), field.prepareValue(ids));
-            new RecordUpsert(refRecord).saveRecord();
+    /**
+     * unsetRelationIds removes the deleted ids from the relation field of all matching records with a single statement
+     * (single relations are set to an empty string, multiple relations keep the remaining ids of the json array in their order).
+     */
+    private void unsetRelationIds(CollectionModel collection, SchemaField field, boolean multiple, List<String> deletedIds, Expression where) {
+        if (!multiple) {
+            PbUtil.getPbDbxBuilder().update(collection.getName(), Map.of(field.getName(), "", FieldName.Updated, LocalDateTime.now()), where).execute(false);
+            return;
+        }
 
+        String column = quoteSimpleColumnName(field.getName());
+        String normalized = String.format("IF(JSON_VALID(%s), %s, JSON_ARRAY(%s))", column, column, column);
+        // JSON_ARRAYAGG as ordered window function keeps the original order of the remaining ids
+        Expression remaining = params -> String.format("COALESCE((SELECT JSON_ARRAYAGG(`__je__`.`value`) OVER (ORDER BY `__je__`.`__pos__` ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) " +
+                        "FROM JSON_TABLE(%s, '$[*]' COLUMNS ( `__pos__` FOR ORDINALITY, `value` VARCHAR(255) PATH '$' )) `__je__` WHERE %s LIMIT 1), JSON_ARRAY())",
+                normalized, notIn("`__je__`.`value`", deletedIds.toArray()).build(params));
+        PbUtil.getPbDbxBuilder().update(collection.getName(), Map.of(field.getName(), remaining, FieldName.Updated, LocalDateTime.now()), where).execute(false);
+        if (RelationIndex.isIndexed(field)) {
+            RelationIndex.deleteRelIds(collection, field, deletedIds);
         }
     }
 
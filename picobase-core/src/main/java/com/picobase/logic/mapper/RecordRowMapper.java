@@ -5,18 +5,33 @@ import com.picobase.model.CollectionModel;
 import com.picobase.model.RecordModel;
 import com.picobase.model.schema.SchemaField;
 import com.picobase.persistence.repository.PbRowMapper;
+import com.picobase.util.TypeSafe;
 
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
+import static com.picobase.util.PbConstants.FieldName.*;
 import static com.picobase.util.PbConstants.authFieldNames;
 import static com.picobase.util.PbConstants.baseModelFieldNames;
 
+/**
+ * 将 ResultSet 行映射为 RecordModel
+ * <p>
+ * 每个 ResultSet 只解析一次行计划（RowPlan）：列名到列序号的映射以及每个字段预先绑定的值转换器，
+ * 逐行映射时按列序号读取、直接写入转换后的值，原始行数据以共享 key 的数组形式保存。
+ * </p>
+ */
 public class RecordRowMapper implements PbRowMapper<RecordModel> {
     private final CollectionModel collection;
 
+    /**
+     * 当前 ResultSet 的行计划，ResultSet 变化时重新解析
+     */
+    private ResultSet planResultSet;
+    private RowPlan plan;
+
 
     public RecordRowMapper(CollectionModel collection) {
         this.collection = collection;
@@ -24,59 +39,176 @@ public class RecordRowMapper implements PbRowMapper<RecordModel> {
 
     @Override
     public RecordModel mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return newRecordFromResultSet(collection, rs);
+        return newRecordFromResultSet(rowPlan(rs), rs);
+    }
+
+    private RowPlan rowPlan(ResultSet rs) throws SQLException {
+        if (this.plan == null || this.planResultSet != rs) {
+            this.plan = new RowPlan(collection, rs.getMetaData());
+            this.planResultSet = rs;
+        }
+        return this.plan;
     }
 
 
     /**
      * 从 ResultSet 初始化 RecordModel
      */
-    private RecordModel newRecordFromResultSet(CollectionModel collection, ResultSet rs) {
-        Map<String, Object> resultMap;
-        try {
-            resultMap = new HashMap<>(rs.getMetaData().getColumnCount());
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-
-        // load schema fields
-        for (SchemaField field : collection.getSchema().getFields()) {
-            try {
-                resultMap.put(field.getName(), rs.getObject(field.getName()));
-            } catch (SQLException e) {
-                //ignore exception
-                //resultMap.put(field.getName(), null);
-                throw new PbException(e);
-            }
-        }
-        // load base model fields
-        for (String name : baseModelFieldNames) {
-            try {
-                resultMap.put(name, rs.getObject(name));
-            } catch (SQLException e) {
-                //throw new RuntimeException(e);
-                resultMap.put(name, null);
+    private RecordModel newRecordFromResultSet(RowPlan plan, ResultSet rs) throws SQLException {
+        Object[] values = new Object[plan.keys.length];
+        for (int i = 0; i < values.length; i++) {
+            int column = plan.columns[i];
+            if (column > 0) {
+                values[i] = rs.getObject(column);
             }
         }
 
-        // load auth fields
-        if (collection.isAuth()) {
-            for (String name : authFieldNames) {
-                try {
-                    resultMap.put(name, rs.getObject(name));
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        var record = new RecordModel(collection, plan.keys.length);
+        record.loadOriginal(new RowMap(plan, values));
+        for (int i = 0; i < values.length; i++) {
+            plan.converters[i].apply(record, values[i]);
         }
-
-        var record = new RecordModel(collection);
-        record.load(resultMap);
         // 数据库中加载的record new 属性均为 false；
         record.setNew(false);
         //record.publicExport(); //公共字段和结果导出 ,最终还会被Controller后置AOP拦截器修改 根据 request 中 fields param 修改publicData
         return record;
     }
 
+    /**
+     * 将单个列值转换并写入 record
+     */
+    @FunctionalInterface
+    private interface ColumnConverter {
+        void apply(RecordModel record, Object value);
+    }
+
+    /**
+     * 行计划：需要加载的 key、对应的列序号（不存在时为 0）以及预先绑定的转换器
+     */
+    private static class RowPlan {
+        private final String[] keys;
+        private final int[] columns;
+        private final ColumnConverter[] converters;
+        private final Map<String, Integer> keyIndex;
+
+        private RowPlan(CollectionModel collection, ResultSetMetaData metaData) throws SQLException {
+            // 与 ResultSet#findColumn 一致：列名大小写不敏感，重名列取第一个
+            Map<String, Integer> columnIndex = new HashMap<>(metaData.getColumnCount() * 2);
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columnIndex.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(), i);
+            }
+
+            Map<String, ColumnConverter> converters = new LinkedHashMap<>();
+            Map<String, Integer> columns = new HashMap<>();
+
+            // load schema fields
+            for (SchemaField field : collection.getSchema().getFields()) {
+                String name = field.getName();
+                Integer column = columnIndex.get(name.toLowerCase());
+                if (column == null) {
+                    throw new PbException("Column '" + name + "' not found in the result set of collection " + collection.getName());
+                }
+                columns.putIfAbsent(name, column);
+                converters.putIfAbsent(name, (record, value) -> record.setNormalized(name, field.prepareValue(value)));
+            }
+
+            // load base model fields (missing columns are loaded as null)
+            for (String name : baseModelFieldNames) {
+                columns.putIfAbsent(name, columnIndex.getOrDefault(name.toLowerCase(), 0));
+                converters.putIfAbsent(name, switch (name) {
+                    case Id -> (record, value) -> record.setId(TypeSafe.anyToString(value));
+                    case Created -> (record, value) -> record.setCreated(TypeSafe.anyToLocalDateTime(value));
+                    case Updated -> (record, value) -> record.setUpdated(TypeSafe.anyToLocalDateTime(value));
+                    default -> (record, value) -> record.set(name, value);
+                });
+            }
+
+            // load auth fields
+            if (collection.isAuth()) {
+                for (String name : authFieldNames) {
+                    Integer column = columnIndex.get(name.toLowerCase());
+                    if (column == null) {
+                        throw new PbException("Column '" + name + "' not found in the result set of collection " + collection.getName());
+                    }
+                    columns.putIfAbsent(name, column);
+                    converters.putIfAbsent(name, (record, value) -> record.set(name, value));
+                }
+            }
+
+            int size = converters.size();
+            this.keys = new String[size];
+            this.columns = new int[size];
+            this.converters = new ColumnConverter[size];
+            this.keyIndex = new HashMap<>(size * 2);
+            int i = 0;
+            for (Map.Entry<String, ColumnConverter> entry : converters.entrySet()) {
+                this.keys[i] = entry.getKey();
+                this.columns[i] = columns.get(entry.getKey());
+                this.converters[i] = entry.getValue();
+                this.keyIndex.put(entry.getKey(), i);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 只读的原始行数据，所有行共享行计划中的 key 数组
+     */
+    private static class RowMap extends AbstractMap<String, Object> {
+        private final RowPlan plan;
+        private final Object[] values;
+
+        private RowMap(RowPlan plan, Object[] values) {
+            this.plan = plan;
+            this.values = values;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer i = plan.keyIndex.get(key);
+            return i == null ? null : values[i];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return plan.keyIndex.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int i;
 
+                        @Override
+                        public boolean hasNext() {
+                            return i < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (i >= values.length) {
+                                throw new NoSuchElementException();
+                            }
+                            var entry = new SimpleImmutableEntry<>(plan.keys[i], values[i]);
+                            i++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,249 @@
+package com.picobase.logic.mapper;
+
+import cn.hutool.core.util.StrUtil;
+import com.picobase.PbManager;
+import com.picobase.PbUtil;
+import com.picobase.exception.PbException;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.RelationOptions;
+import com.picobase.persistence.dbx.expression.Expression;
+import com.picobase.persistence.repository.ModifyRequest;
+import com.picobase.util.PbConstants;
+
+import java.util.*;
+
+import static com.picobase.persistence.dbx.DbxUtil.quoteSimpleColumnName;
+import static com.picobase.persistence.dbx.DbxUtil.quoteTableName;
+import static com.picobase.persistence.dbx.expression.Expression.*;
+import static com.picobase.persistence.resolver.DbUtil.jsonEach;
+import static com.picobase.persistence.resolver.ListUtil.toUniqueStringList;
+import static com.picobase.util.PbConstants.FieldType.Relation;
+
+/**
+ * 多值 relation 字段的关联索引表（pb_relations）
+ * <p>
+ * 字段开启 {@link RelationOptions#isIndexed()} 后，除了记录表中的 json 数组外，每个关联 id 还会在索引表中保存一行
+ * (collectionId, fieldId, recordId, relId)，由 RecordMapper 的 create / update / delete 在同一事务中维护。
+ * 过滤条件、back-relation 展开与级联删除据此使用索引连接，不再需要对引用表逐行展开 json 数组。
+ * 使用 fieldId 而不是字段名，字段重命名时无需修改索引表。
+ * </p>
+ */
+public class RelationIndex {
+
+    public static final String TABLE = PbConstants.TableName.RELATIONS;
+
+    /**
+     * BackfillBatchSize specifies the number of records indexed per backfill statement.
+     */
+    public static final int BackfillBatchSize = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO " + quoteTableName(TABLE) + " (`collectionId`, `fieldId`, `recordId`, `relId`) VALUES (?, ?, ?, ?)";
+
+    private RelationIndex() {
+    }
+
+    /**
+     * 字段是否为开启了索引表的多值 relation 字段
+     */
+    public static boolean isIndexed(SchemaField field) {
+        if (field == null || !StrUtil.equals(field.getType(), Relation)) {
+            return false;
+        }
+        field.initOptions();
+        return field.getOptions() instanceof RelationOptions options && options.isMultiple() && options.isIndexed();
+    }
+
+    public static List<SchemaField> indexedFields(CollectionModel collection) {
+        if (collection == null || collection.getSchema() == null) {
+            return List.of();
+        }
+        List<SchemaField> result = new ArrayList<>();
+        for (SchemaField field : collection.getSchema().getFields()) {
+            if (isIndexed(field)) {
+                result.add(field);
+            }
+        }
+        return result;
+    }
+
+    // ------------------------ 查询表达式
+
+    /**
+     * 索引表连接条件：alias.collectionId = collectionId AND alias.fieldId = fieldId AND alias.{column} = target
+     *
+     * @param alias       索引表别名
+     * @param placeholder 参数名前缀（需要在整个查询中唯一）
+     * @param column      recordId 或 relId
+     * @param target      被连接的列（已转义）
+     */
+    public static Expression joinOn(String alias, String placeholder, CollectionModel collection, SchemaField field, String column, String target) {
+        return newExpr(String.format("`%s`.`collectionId` = :%sc AND `%s`.`fieldId` = :%sf AND `%s`.`%s` = %s",
+                        alias, placeholder, alias, placeholder, alias, column, target),
+                Map.of(placeholder + "c", collection.getId(), placeholder + "f", field.getId()));
+    }
+
+    /**
+     * idColumn IN (关联到 relIds 中任意 id 的记录)
+     */
+    public static Expression referencing(String idColumn, CollectionModel collection, SchemaField field, List<String> relIds) {
+        return params -> String.format("%s IN (SELECT `recordId` FROM %s WHERE %s)", idColumn, quoteTableName(TABLE),
+                and(fieldExpr(collection, field), in("relId", relIds)).build(params));
+    }
+
+    /**
+     * 除 relIds 以外，idColumn 对应的记录是否还关联了其它 id
+     */
+    public static Expression referencingOthers(String idColumn, CollectionModel collection, SchemaField field, List<String> relIds) {
+        return params -> String.format("EXISTS (SELECT 1 FROM %s `__ri__` WHERE %s AND `__ri__`.`recordId` = %s)", quoteTableName(TABLE),
+                and(newHashExpr(Map.of("__ri__.collectionId", collection.getId(), "__ri__.fieldId", field.getId())),
+                        notIn("__ri__.relId", relIds.toArray())).build(params), idColumn);
+    }
+
+    /**
+     * 查询关联到 relIds 的 (recordId, relId)，每个 relId 最多返回按 (created, id) 排序的前 limit 行
+     */
+    public static List<String[]> findBackRelations(CollectionModel collection, SchemaField field, List<String> relIds, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        String table = quoteTableName(collection.getName());
+        String sql = String.format("SELECT `recordId`, `relId` FROM ( SELECT `__ri__`.`recordId` AS `recordId`, `__ri__`.`relId` AS `relId`, " +
+                        "ROW_NUMBER() OVER (PARTITION BY `__ri__`.`relId` ORDER BY %s.`created`, %s.`id`) AS `__rn` " +
+                        "FROM %s `__ri__` INNER JOIN %s ON %s.`id` = `__ri__`.`recordId` WHERE %s ) `__via` WHERE `__rn` <= %d ORDER BY `relId`, `__rn`",
+                table, table, quoteTableName(TABLE), table, table,
+                and(newHashExpr(Map.of("__ri__.collectionId", collection.getId(), "__ri__.fieldId", field.getId())), in("__ri__.relId", relIds)).build(params), limit);
+        return PbUtil.getPbDbxBuilder().newQuery(sql).bind(params)
+                .all((rs, rowNum) -> new String[]{rs.getString(1), rs.getString(2)});
+    }
+
+    private static Expression fieldExpr(CollectionModel collection, SchemaField field) {
+        return newHashExpr(Map.of("collectionId", collection.getId(), "fieldId", field.getId()));
+    }
+
+    // ------------------------ 维护
+
+    /**
+     * 记录新增后调用，写入记录全部的索引行
+     */
+    public static void index(RecordModel record) {
+        insertRows(record, indexedFields(record.getCollection()));
+    }
+
+    /**
+     * 记录修改后调用，只替换值与记录原始值（首次加载的值）不同的字段的索引行
+     */
+    public static void sync(RecordModel record) {
+        Map<String, Object> original = record.getOriginalData();
+        List<SchemaField> changed = new ArrayList<>();
+        for (SchemaField field : indexedFields(record.getCollection())) {
+            if (original == null || !new HashSet<>(toUniqueStringList(original.get(field.getName()))).equals(new HashSet<>(record.getStringList(field.getName())))) {
+                changed.add(field);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        PbUtil.getPbDbxBuilder().delete(TABLE, and(
+                newHashExpr(Map.of("collectionId", record.getCollection().getId(), "recordId", record.getId())),
+                in("fieldId", changed.stream().map(SchemaField::getId).toList()))).execute(false);
+        insertRows(record, changed);
+    }
+
+    private static void insertRows(RecordModel record, List<SchemaField> fields) {
+        String collectionId = record.getCollection().getId();
+        List<ModifyRequest> inserts = new ArrayList<>();
+        for (SchemaField field : fields) {
+            for (String relId : record.getStringList(field.getName())) {
+                if (StrUtil.isNotEmpty(relId)) {
+                    inserts.add(new ModifyRequest(INSERT_SQL).setArgs(new Object[]{collectionId, field.getId(), record.getId(), relId}));
+                }
+            }
+        }
+        if (!inserts.isEmpty()) {
+            PbManager.getPbDatabaseOperate().update(inserts, (rows, e) -> {
+                if (e != null) {
+                    throw new PbException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 记录删除后调用，移除这些记录自身的关联行
+     */
+    public static void deleteRecords(CollectionModel collection, List<String> recordIds) {
+        if (recordIds.isEmpty() || indexedFields(collection).isEmpty()) {
+            return;
+        }
+        PbUtil.getPbDbxBuilder().delete(TABLE, and(newHashExpr(Map.of("collectionId", collection.getId())), in("recordId", recordIds))).execute(false);
+    }
+
+    /**
+     * 从字段的关联行中移除 relIds（级联删除时置空关联）
+     */
+    public static void deleteRelIds(CollectionModel collection, SchemaField field, List<String> relIds) {
+        PbUtil.getPbDbxBuilder().delete(TABLE, and(fieldExpr(collection, field), in("relId", relIds))).execute(false);
+    }
+
+    public static void deleteCollection(CollectionModel collection) {
+        if (indexedFields(collection).isEmpty()) {
+            return;
+        }
+        PbUtil.getPbDbxBuilder().delete(TABLE, newHashExpr(Map.of("collectionId", collection.getId()))).execute(false);
+    }
+
+    /**
+     * Collection 结构变更后调用：新开启索引的字段回填已有数据，关闭索引或被删除的字段清理索引行
+     */
+    public static void syncFields(CollectionModel newCollection, CollectionModel oldCollection) {
+        for (SchemaField oldField : oldCollection.getSchema().getFields()) {
+            if (isIndexed(oldField) && !isIndexed(newCollection.getSchema().getFieldById(oldField.getId()))) {
+                PbUtil.getPbDbxBuilder().delete(TABLE, fieldExpr(oldCollection, oldField)).execute(false);
+            }
+        }
+        for (SchemaField field : newCollection.getSchema().getFields()) {
+            SchemaField oldField = oldCollection.getSchema().getFieldById(field.getId());
+            if (isIndexed(field) && oldField != null && !isIndexed(oldField)) {
+                backfill(newCollection, field);
+            }
+        }
+    }
+
+    /**
+     * 回填任务：按 id 顺序分批读取记录表，根据 json 数组重建字段的全部索引行
+     *
+     * @return 写入的索引行数
+     */
+    public static int backfill(CollectionModel collection, SchemaField field) {
+        if (!isIndexed(field)) {
+            throw new PbException("relation field {} is not indexed", field.getName());
+        }
+        PbUtil.getPbDbxBuilder().delete(TABLE, fieldExpr(collection, field)).execute(false);
+
+        String table = quoteTableName(collection.getName());
+        String column = quoteSimpleColumnName(field.getName());
+        int total = 0;
+        String lastId = "";
+        while (true) {
+            List<String> ids = PbUtil.getPbDbxBuilder().newQuery(String.format("SELECT `id` FROM %s WHERE `id` > :lastId ORDER BY `id` LIMIT %d", table, BackfillBatchSize))
+                    .bind(Map.of("lastId", lastId))
+                    .all((rs, rowNum) -> rs.getString(1));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("collectionId", collection.getId());
+            params.put("fieldId", field.getId());
+            String sql = String.format("INSERT INTO %s (`collectionId`, `fieldId`, `recordId`, `relId`) SELECT DISTINCT :collectionId, :fieldId, %s.`id`, `__je__`.`value` FROM %s, %s `__je__` WHERE `__je__`.`value` <> '' AND %s IS NOT NULL AND %s",
+                    quoteTableName(TABLE), table, table, jsonEach(field.getName()), column, in(table + ".`id`", ids).build(params));
+            total += PbUtil.getPbDbxBuilder().newQuery(sql).bind(params).execute(false);
+
+            if (ids.size() < BackfillBatchSize) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+        }
+        return total;
+    }
+}
@@ -590,13 +590,7 @@ public class CollectionUpsert {
                 case View -> mapper.saveViewCollection(col, null);
                 default -> {
 
-                    if (isCreate) {
-                        mapper.syncRecordTableSchema(col, null);
-                        PbUtil.save(col);
-                    } else {
-                        mapper.syncRecordTableSchema(col, mapper.findCollectionByNameOrId(col.getId()));
-                        PbUtil.updateById(col.getId(), col);
-                    }
+                    mapper.saveCollection(col, isCreate ? null : mapper.findCollectionByNameOrId(col.getId()));
 
                 }
             }
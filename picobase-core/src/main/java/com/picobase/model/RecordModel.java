@@ -9,7 +9,6 @@ import com.picobase.exception.PbException;
 import com.picobase.model.schema.Schema;
 import com.picobase.model.schema.SchemaField;
 import com.picobase.persistence.resolver.ListUtil;
-import com.picobase.secure.BCrypt;
 import com.picobase.util.TypeSafe;
 
 import java.time.LocalDateTime;
@@ -58,6 +57,14 @@ public class RecordModel extends BaseModel implements ColumnValueMapper {
         this.data = new Store<>();
     }
 
+    /**
+     * @param expectedSize the expected number of data keys (eg. the number of the loaded columns)
+     */
+    public RecordModel(CollectionModel collection, int expectedSize) {
+        this.collection = collection;
+        this.data = new Store<>(expectedSize);
+    }
+
 
     @Override
     public String tableName() {
@@ -77,6 +84,28 @@ public class RecordModel extends BaseModel implements ColumnValueMapper {
         resultMap.keySet().forEach(key -> this.set(key, resultMap.get(key)));
     }
 
+    /**
+     * LoadOriginal marks the record as loaded with the provided original data
+     * without setting any of its values.
+     * <p>
+     * It is used together with {@link #setNormalized(String, Object)} by loaders that
+     * resolve the field normalizers once per result set (see RecordRowMapper).
+     */
+    public void loadOriginal(Map<String, Object> originalData) {
+        if (!loaded) {
+            loaded = true;
+            this.originalData = originalData;
+        }
+    }
+
+    /**
+     * SetNormalized sets an already normalized data value,
+     * skipping the field lookup and normalization done by {@link #set(String, Object)}.
+     */
+    public void setNormalized(String key, Object value) {
+        this.data.set(key, value);
+    }
+
     /**
      * Set sets the provided key-value data pair for the current Record model.
      * <p>
@@ -416,7 +445,7 @@ public class RecordModel extends BaseModel implements ColumnValueMapper {
         }
 
         // hash the password
-        String hashedPassword = BCrypt.hashpw(password);
+        String hashedPassword = PbManager.getPbPasswordHasher().hash(password);
         set(PasswordHash, hashedPassword);
         set(LastResetSentAt, null);
 
@@ -532,6 +561,25 @@ public class RecordModel extends BaseModel implements ColumnValueMapper {
         return newRecord;
     }
 
+    /**
+     * ExpandCopy returns a copy of the current record model with the same
+     * data state, flags and original data but without any expand data.
+     * <p>
+     * It allows the same loaded record to be expanded independently by multiple expand paths.
+     */
+    public RecordModel expandCopy() {
+        var newRecord = new RecordModel(this.collection, this.data.length());
+        newRecord.loadOriginal(this.originalData);
+        this.data.getAll().forEach(newRecord::setNormalized);
+        newRecord.setId(this.getId());
+        newRecord.setCreated(this.getCreated());
+        newRecord.setUpdated(this.getUpdated());
+        newRecord.setNew(this.isNew);
+        newRecord.exportUnknown = this.exportUnknown;
+        newRecord.ignoreEmailVisibility = this.ignoreEmailVisibility;
+        return newRecord;
+    }
+
     /**
      * returns a shallow copy of the current Record model expand data.
      */
@@ -633,7 +681,7 @@ public class RecordModel extends BaseModel implements ColumnValueMapper {
         if (!this.collection.isAuth()) {
             return false;
         }
-        return BCrypt.checkpw(password, this.passwordHash());
+        return PbManager.getPbPasswordHasher().verify(password, this.passwordHash());
     }
     
 
@@ -11,6 +11,7 @@ import com.picobase.context.model.PbRequest;
 import com.picobase.exception.BadRequestException;
 import com.picobase.file.PbFile;
 import com.picobase.file.PbFileSystem;
+import com.picobase.file.PbThumbGenerator;
 import com.picobase.interceptor.InterceptorFunc;
 import com.picobase.interceptor.Interceptors;
 import com.picobase.json.PbJsonTemplate;
@@ -26,6 +27,7 @@ import com.picobase.util.PbConstants;
 import com.picobase.util.TypeSafe;
 import com.picobase.validator.*;
 
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.regex.Pattern;
@@ -663,6 +665,9 @@ public class RecordUpsert implements Validatable {
 
             saveRecord();
 
+            // pregenerate the thumbs of the new files (if any) once the record is committed
+            pregenerateThumbs();
+
             // delete old files (if any)
             processFilesToDelete();
 
@@ -738,6 +743,38 @@ public class RecordUpsert implements Validatable {
         }
     }
 
+    /**
+     * 上传图片后按字段配置的 thumbs 异步预生成缩略图（队列已满时跳过，下载时再按需生成），
+     * 任务在事务提交后才入队，回滚的记录不会生成缩略图
+     */
+    private void pregenerateThumbs() {
+        if (!PbManager.getConfig().getThumb().isPregenerate() || CollUtil.isEmpty(this.getFilesToUpload())) {
+            return;
+        }
+        PbThumbGenerator thumbGenerator = PbManager.getPbThumbGenerator();
+        String baseFilesPath = this.getRecord().baseFilesPath();
+        List<Runnable> tasks = new ArrayList<>();
+        this.getFilesToUpload().forEach((fieldName, files) -> {
+            SchemaField field = this.getRecord().getCollection().getSchema().getFieldByName(fieldName);
+            if (field == null || !(field.getOptions() instanceof FileOptions options) || CollUtil.isEmpty(options.getThumbs())) {
+                return;
+            }
+            for (PbFile file : files) {
+                if (!ListUtil.existInArray(file.getContentType(), PbThumbGenerator.IMAGE_CONTENT_TYPES)) {
+                    continue;
+                }
+                String originalKey = baseFilesPath + "/" + file.getName();
+                for (String thumbSize : options.getThumbs()) {
+                    String thumbKey = PbThumbGenerator.thumbKey(baseFilesPath, file.getName(), thumbSize);
+                    tasks.add(() -> thumbGenerator.submit(pbFileSystem, originalKey, thumbKey, thumbSize));
+                }
+            }
+        });
+        if (!tasks.isEmpty()) {
+            PbManager.getPbDatabaseOperate().runAfterCommit(() -> tasks.forEach(Runnable::run));
+        }
+    }
+
 
     private void deleteFilesByNamesList(List<String> filenames) {
         if (CollUtil.isEmpty(filenames)) {
@@ -754,6 +791,7 @@ public class RecordUpsert implements Validatable {
                 pbFileSystem.delete(this.getRecord().baseFilesPath() + "/" + filename);
                 // try to delete the related file thumbs (if any)
                 pbFileSystem.deletePrefix(this.getRecord().baseFilesPath() + "/" + THUMB_PREFIX + filename + "/");
+                PbManager.getPbThumbGenerator().evictDir(Paths.get(this.getRecord().baseFilesPath(), THUMB_PREFIX + filename).toString());
             } catch (Exception e) {
                 log.error("failed to delete file", e);
                 deleteErrors.add(filename);
@@ -10,6 +10,13 @@ public class Store<T> {
     public Store() {
     }
 
+    /**
+     * @param expectedSize 预期的 key 数量，用于避免按默认容量分配过大的 map
+     */
+    public Store(int expectedSize) {
+        this.data = new ConcurrentHashMap<>(Math.max(expectedSize, 1));
+    }
+
     public Store(Map<String, T> data) {
         this.reset(data);
     }
@@ -0,0 +1,23 @@
+package com.picobase.model.event;
+
+import com.picobase.event.PbEvent;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+
+import java.util.List;
+
+/**
+ * 级联删除时每批被删除的记录触发一次（单条记录的删除触发 {@link RecordDeleteEvent}）
+ */
+public class RecordsBulkDeleteEvent implements PbEvent {
+    public CollectionModel collection;
+    public List<RecordModel> records;
+
+    public TimePosition timePosition;
+
+    public RecordsBulkDeleteEvent(CollectionModel collection, List<RecordModel> records, TimePosition timePosition) {
+        this.collection = collection;
+        this.records = records;
+        this.timePosition = timePosition;
+    }
+}
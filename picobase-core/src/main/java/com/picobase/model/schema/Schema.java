@@ -8,9 +8,7 @@ import com.picobase.validator.Err;
 import com.picobase.validator.Validatable;
 import com.picobase.validator.Validation;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 import static com.picobase.util.PbConstants.FIELD_VALUE_MODIFIER_ADD;
@@ -21,7 +19,17 @@ import static com.picobase.validator.Validation.by;
 
 
 public class Schema implements Validatable {
-    private List<SchemaField> fields = new ArrayList<>();
+    private FieldList fields = new FieldList();
+
+    /**
+     * name/id -> field 索引，字段列表发生变化后在下一次查找时重建
+     */
+    private volatile FieldIndex index;
+
+    /**
+     * 本 Schema 中字段 id/name 的原地修改计数
+     */
+    private volatile int keyVersion;
 
     private Schema() {
 
@@ -44,8 +52,11 @@ public class Schema implements Validatable {
     }
 
     public Schema clone() {
+        // the fields are copied, so that they can be modified without affecting the current schema
         var schema = new Schema();
-        schema.fields.addAll(this.fields);
+        for (SchemaField field : this.fields) {
+            schema.fields.add(field.copy());
+        }
         return schema;
     }
 
@@ -70,15 +81,38 @@ public class Schema implements Validatable {
 
     // GetFieldById returns a single field by its id.
     public SchemaField getFieldById(String id) {
-        return fields.stream().filter(field -> field.getId().equals(id)).findFirst().orElse(null);
+        if (id == null) {
+            return null;
+        }
+        return index().byId.get(id);
     }
 
     public SchemaField getFieldByName(String fieldName) {
-        return fields.stream().filter(field -> field.getName().equals(fieldName)).findFirst().orElse(null);
+        if (fieldName == null) {
+            return null;
+        }
+        return index().byName.get(fieldName);
     }
 
     public Map<String, SchemaField> asMap() {
-        return fields.stream().collect(Collectors.toMap(SchemaField::getName, field -> field));
+        return new HashMap<>(index().byName);
+    }
+
+    private FieldIndex index() {
+        FieldIndex current = this.index;
+        // 字段列表变化或本 Schema 的字段 id/name 被原地修改后重建索引
+        if (current == null || current.version != fields.version() || current.keyVersion != keyVersion) {
+            current = new FieldIndex(this);
+            this.index = current;
+        }
+        return current;
+    }
+
+    /**
+     * 字段 id/name 被原地修改时由 {@link SchemaField} 调用
+     */
+    void invalidateIndex() {
+        keyVersion++;
     }
 
     public String toJson() {
@@ -90,7 +124,8 @@ public class Schema implements Validatable {
     }
 
     public Schema setFields(List<SchemaField> fields) {
-        this.fields = fields;
+        this.fields = new FieldList(fields);
+        this.index = null;
         return this;
     }
 
@@ -167,4 +202,57 @@ public class Schema implements Validatable {
     }
 
 
+    /**
+     * 记录变更版本号的字段列表（包括 set 替换），用于判断字段索引是否需要重建
+     */
+    private static class FieldList extends ArrayList<SchemaField> {
+        private int replaceCount;
+
+        private FieldList() {
+        }
+
+        private FieldList(Collection<SchemaField> fields) {
+            super(fields == null ? List.of() : fields);
+        }
+
+        @Override
+        public SchemaField set(int index, SchemaField element) {
+            replaceCount++;
+            return super.set(index, element);
+        }
+
+        private int version() {
+            return modCount + replaceCount;
+        }
+    }
+
+    /**
+     * 不可变的字段索引快照
+     */
+    private static class FieldIndex {
+        private final int version;
+        private final int keyVersion;
+        private final Map<String, SchemaField> byName;
+        private final Map<String, SchemaField> byId;
+
+        private FieldIndex(Schema schema) {
+            FieldList fields = schema.fields;
+            this.version = fields.version();
+            this.keyVersion = schema.keyVersion;
+            Map<String, SchemaField> byName = new HashMap<>(fields.size() * 2);
+            Map<String, SchemaField> byId = new HashMap<>(fields.size() * 2);
+            for (SchemaField field : fields) {
+                // every field added to the list is bound here before its next lookup
+                field.setOwner(schema);
+                if (field.getName() != null) {
+                    byName.putIfAbsent(field.getName(), field);
+                }
+                if (field.getId() != null) {
+                    byId.putIfAbsent(field.getId(), field);
+                }
+            }
+            this.byName = Collections.unmodifiableMap(byName);
+            this.byId = Collections.unmodifiableMap(byId);
+        }
+    }
 }
@@ -33,6 +33,11 @@ public class SchemaField {
 
     private Object options;
 
+    /**
+     * 最近一次索引该字段的 Schema，字段 id/name 被原地修改时通知其重建字段索引
+     */
+    private transient Schema owner;
+
 
     public SchemaField() {
 
@@ -53,8 +58,10 @@ public class SchemaField {
      * prepareValue returns normalized and properly formatted field value.
      */
     public Object prepareValue(Object value) {
-        // init field options (if not already)
-        this.initOptions();
+        // init field options (if not already, the fields of a Schema are initialized when it is indexed)
+        if (!(this.options instanceof FieldOptions)) {
+            this.initOptions();
+        }
 
         return switch (this.type) {
             case Text, Email, Url, Editor -> TypeSafe.anyToString(value, "");
@@ -244,7 +251,11 @@ public class SchemaField {
     }
 
     public SchemaField setId(String id) {
+        boolean changed = !Objects.equals(this.id, id);
         this.id = id;
+        if (changed && owner != null) {
+            owner.invalidateIndex();
+        }
         return this;
     }
 
@@ -253,10 +264,29 @@ public class SchemaField {
     }
 
     public SchemaField setName(String name) {
+        boolean changed = !Objects.equals(this.name, name);
         this.name = name;
+        if (changed && owner != null) {
+            owner.invalidateIndex();
+        }
         return this;
     }
 
+    /**
+     * @return 不属于任何 Schema 的字段副本（options 共用）
+     */
+    SchemaField copy() {
+        return new SchemaField(name, type, options)
+                .setId(id)
+                .setSystem(system)
+                .setRequired(required)
+                .setPresentable(presentable);
+    }
+
+    void setOwner(Schema owner) {
+        this.owner = owner;
+    }
+
     public String getType() {
         return type;
     }
@@ -36,6 +36,13 @@ public class RelationOptions implements FieldOptions, MultiValuer {
      */
     private Integer maxSelect;
 
+    /**
+     * Indexed indicates whether the relation ids of a multiple relation field
+     * are also kept in the pb_relations side-table, allowing filters, back-relation
+     * expands and cascade deletes to use indexed joins instead of expanding the json array.
+     */
+    private boolean indexed;
+
 
     //@JsonIgnore
     @Override
@@ -107,4 +114,13 @@ public class RelationOptions implements FieldOptions, MultiValuer {
         this.maxSelect = maxSelect;
         return this;
     }
+
+    public boolean isIndexed() {
+        return indexed;
+    }
+
+    public RelationOptions setIndexed(boolean indexed) {
+        this.indexed = indexed;
+        return this;
+    }
 }
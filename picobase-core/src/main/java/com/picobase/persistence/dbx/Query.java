@@ -75,11 +75,21 @@ public class Query {
     }
 
     public Integer execute() {
+        return execute(true);
+    }
+
+    /**
+     * 执行修改语句
+     *
+     * @param rollBackOnUpdateFail 影响行数为 0 时是否视为失败（集合级的 UPDATE / DELETE 可能不匹配任何行）
+     * @return 影响行数
+     */
+    public Integer execute(boolean rollBackOnUpdateFail) {
         ModifyRequest mr = new ModifyRequest();
         mr.setExecuteNo(1);
         mr.setSql(this.sql);
         mr.setNamedArgs(this.params);
-        mr.setRollBackOnUpdateFail(true);
+        mr.setRollBackOnUpdateFail(rollBackOnUpdateFail);
         AtomicReference<Integer> i = new AtomicReference<>(0);
         this.dbOperate.update(List.of(mr), (rowNum, e) -> {
             if (e != null) {
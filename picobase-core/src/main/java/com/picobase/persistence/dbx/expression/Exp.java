@@ -2,6 +2,8 @@ package com.picobase.persistence.dbx.expression;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class Exp implements Expression {
 
@@ -20,14 +22,31 @@ public class Exp implements Expression {
 
     /**
      * Build converts an expression into a SQL fragment.
+     * <p>
+     * A param whose name is already taken in the query (eg. expressions of different
+     * resolvers combined with AND) is renamed to the next free "name_N", so the names
+     * stay unique within the query and the same query shape still produces the same SQL.
      */
     @Override
     public String build(Map<String, Object> rootParams) {
         if (params.isEmpty()) {
             return e; // No parameters to process, return the expression directly
         }
-        rootParams.putAll(params); // Add the parameters to the map
-        return e;
+        String sql = e;
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            String name = param.getKey();
+            if (rootParams.containsKey(name)) {
+                String renamed;
+                int n = 1;
+                do {
+                    renamed = name + "_" + n++;
+                } while (rootParams.containsKey(renamed) || params.containsKey(renamed));
+                sql = sql.replaceAll(":" + Pattern.quote(name) + "(?![\\w])", Matcher.quoteReplacement(":" + renamed));
+                name = renamed;
+            }
+            rootParams.put(name, param.getValue());
+        }
+        return sql;
     }
 
     public String getE() {
@@ -106,6 +106,20 @@ public interface PbDatabaseOperate {
      */
     Object runInTransaction(Function<Object, Object> action, boolean rollBack);
 
+    /**
+     * 当前线程是否处于事务中（事务中的查询不能交给其它线程执行）
+     *
+     * @return 是否处于事务中
+     */
+    boolean isTransactionActive();
+
+    /**
+     * 当前线程处于事务中时，在事务提交后执行 action（事务回滚时丢弃），否则立即执行
+     *
+     * @param action 待执行的动作
+     */
+    void runAfterCommit(Runnable action);
+
     /**
      * data modify transaction.
      *
@@ -0,0 +1,97 @@
+package com.picobase.persistence.resolver;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * CompiledRule is the cached SQL template of a collection rule.
+ * <p>
+ * It holds the rule where SQL (with positional placeholders), the constant params,
+ * the registered joins and the list of the static `@request.*` fields
+ * whose values are resolved again for every request.
+ */
+final class CompiledRule {
+    private final String sql;
+    private final Map<String, Object> constParams;
+    private final List<RequestBinding> bindings;
+    private final List<Join> joins;
+    private final int placeholderCount;
+
+    CompiledRule(String sql, Map<String, Object> constParams, List<RequestBinding> bindings, List<Join> joins, int placeholderCount) {
+        this.sql = sql;
+        this.constParams = constParams;
+        this.bindings = bindings;
+        this.joins = joins;
+        this.placeholderCount = placeholderCount;
+    }
+
+    /**
+     * Resolves the request bound params of the template for the provided resolver.
+     *
+     * @return the query params or null if the request values produce a different SQL shape
+     * (eg. a missing `@request.auth.id` that is resolved as NULL instead of a placeholder)
+     */
+    Map<String, Object> bind(RecordFieldResolver resolver) {
+        Map<String, Object> params = new HashMap<>(constParams);
+        for (RequestBinding binding : bindings) {
+            var value = resolver.extractStaticRequestValue(binding.path, binding.modifier);
+            if (!Objects.equals(binding.literal, value.literal())) {
+                return null;
+            }
+            if (binding.placeholder != null) {
+                params.put(binding.placeholder, value.value());
+            }
+        }
+        return params;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    List<Join> getJoins() {
+        return joins;
+    }
+
+    int getPlaceholderCount() {
+        return placeholderCount;
+    }
+
+    /**
+     * A single static `@request.*` field resolved while compiling the rule.
+     */
+    static final class RequestBinding {
+        private final List<String> path;
+        private final String modifier;
+        /**
+         * the literal identifier (NULL, TRUE, FALSE) of the field, null when the value was bound as param
+         */
+        private final String literal;
+        /**
+         * the param name of the bound value, null when the field was resolved as literal
+         */
+        private final String placeholder;
+        /**
+         * the value bound while compiling (used only to verify that it wasn't transformed by the filter)
+         */
+        private final Object value;
+
+        RequestBinding(List<String> path, String modifier, String literal, String placeholder, Object value) {
+            this.path = path;
+            this.modifier = modifier;
+            this.literal = literal;
+            this.placeholder = placeholder;
+            this.value = value;
+        }
+
+        String getPlaceholder() {
+            return placeholder;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.picobase.persistence.resolver;
 
 
+import cn.hutool.core.util.RandomUtil;
 import com.picobase.persistence.dbx.SelectQuery;
 
 import java.util.List;
@@ -13,6 +14,21 @@ public interface FieldResolver {
 
     ResolverResult resolve(String field);
 
+    /**
+     * Returns a new param placeholder (or table alias) name with the specified prefix
+     * that is unique within the query the resolver is used for.
+     * <p>
+     * Implementations should generate the names positionally (eg. t0, t1, ...)
+     * so that the same filter/rule shape always produces byte-identical SQL
+     * and the JDBC driver statement cache and the db plan cache could be hit.
+     * Names that collide with another resolver's expression in the same query are
+     * renamed positionally when the query is built (see {@link com.picobase.persistence.dbx.expression.Exp#build}).
+     * The default implementation fallbacks to random names.
+     */
+    default String nextPlaceholder(String prefix) {
+        return prefix + RandomUtil.randomString(5);
+    }
+
 
     static FieldResolver newSimpleFieldResolver(String... field) {
         return new SimpleFieldResolver(List.of(field));
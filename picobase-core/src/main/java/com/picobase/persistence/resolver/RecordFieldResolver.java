@@ -2,14 +2,17 @@ package com.picobase.persistence.resolver;
 
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.NumberUtil;
-import cn.hutool.core.util.RandomUtil;
+import com.picobase.PbManager;
 import com.picobase.PbUtil;
+import com.picobase.cache.SegmentedLruCache;
 import com.picobase.fun.PbCollFetchFun;
 import com.picobase.logic.mapper.CollectionMapper;
 import com.picobase.model.CollectionModel;
 import com.picobase.model.RequestInfo;
 import com.picobase.persistence.dbx.expression.Expression;
 import com.picobase.persistence.dbx.SelectQuery;
+import com.picobase.search.IdentifierMacros;
+import com.picobase.search.SearchFilter;
 import com.picobase.util.PbConstants;
 
 import java.util.*;
@@ -19,6 +22,11 @@ import static com.picobase.util.PbConstants.IssetModifier;
 
 
 public class RecordFieldResolver implements FieldResolver {
+
+    // compiled rules keyed by collection, rule, auth state and hidden fields access
+    // (lazily created and only when the picobase.ruleCacheSize is > 0)
+    private static volatile SegmentedLruCache<String, CompiledRule> compiledRules;
+
     private CollectionModel baseCollection;
     private RequestInfo requestInfo;
     private Map<String, Object> staticRequestInfo;
@@ -27,6 +35,13 @@ public class RecordFieldResolver implements FieldResolver {
     private List<Join> joins;
     private boolean allowHiddenFields;
 
+    // positional placeholder names counter
+    private int placeholderSeq;
+    // the static request fields resolved while compiling a rule (null when not compiling)
+    private List<CompiledRule.RequestBinding> requestBindings;
+    // whether the currently compiled rule SQL could be reused by other requests
+    private boolean ruleCacheable;
+
     private final CollectionMapper collectionMapper = PbUtil.findMapper(CollectionModel.class);
 
     public RecordFieldResolver(
@@ -153,22 +168,44 @@ public class RecordFieldResolver implements FieldResolver {
 
         path.set(path.size() - 1, lastProp);
 
+        var value = extractStaticRequestValue(path, modifier);
+        if (value.literal() != null) {
+            if (this.requestBindings != null) {
+                this.requestBindings.add(new CompiledRule.RequestBinding(new ArrayList<>(path), modifier, value.literal(), null, null));
+            }
+            return ResolverResult.builder().identifier(value.literal()).build();
+        }
+
+        var placeholder = nextPlaceholder("t");
+        if (this.requestBindings != null) {
+            this.requestBindings.add(new CompiledRule.RequestBinding(new ArrayList<>(path), modifier, null, placeholder, value.value()));
+        }
+        return ResolverResult.builder().identifier(":" + placeholder)
+                .params(Map.of(placeholder, value.value())).build();
+    }
+
+    /**
+     * Extracts the value of a single static request field.
+     *
+     * @return the literal identifier (NULL, TRUE, FALSE) of the field or the value that should be bound as param
+     */
+    StaticRequestValue extractStaticRequestValue(List<String> path, String modifier) {
         // extract value
         ResultCouple<Object> couple = extractNestedMapVal(this.staticRequestInfo, path);
         var resultVal = couple.getResult();
 
         if (IssetModifier.equals(modifier)) {
             if (couple.getError() != null) {
-                return ResolverResult.builder().identifier("FALSE").build();
+                return new StaticRequestValue("FALSE", null);
             }
-            return ResolverResult.builder().identifier("TRUE").build();
+            return new StaticRequestValue("TRUE", null);
         }
 
         // note: we are ignoring the error because requestInfo is dynamic
         // and some of the lookup keys may not be defined for the request
 
         if (resultVal == null) {
-            return ResolverResult.builder().identifier("NULL").build();
+            return new StaticRequestValue("NULL", null);
         } else if (resultVal instanceof String) {
             // check if it is a number field and explicitly try to cast to
             // float in case of a numeric string value was used
@@ -186,9 +223,108 @@ public class RecordFieldResolver implements FieldResolver {
             resultVal = resultVal.toString();
             //throw new RuntimeException("not implemented");
         }
-        var placeholder = "t" + RandomUtil.randomString(5);
-        return ResolverResult.builder().identifier(":" + placeholder)
-                .params(Map.of(placeholder, resultVal)).build();
+        return new StaticRequestValue(null, resultVal);
+    }
+
+    record StaticRequestValue(String literal, Object value) {
+    }
+
+    @Override
+    public String nextPlaceholder(String prefix) {
+        return prefix + this.placeholderSeq++;
+    }
+
+    /**
+     * Marks the currently compiled rule as depending on the request structure
+     * (eg. auth record joins or `@request.data.*:each`) so that it is not cached.
+     */
+    void disableRuleCache() {
+        this.ruleCacheable = false;
+    }
+
+    /**
+     * Builds the where expression of the provided collection rule (eg. listRule, viewRule).
+     * <p>
+     * When picobase.ruleCacheSize is > 0 the compiled SQL of the rules that doesn't depend
+     * on the request structure is cached by (collection, rule, admin/guest/auth record)
+     * and for the next requests only the `@request.*` values are resolved again.
+     * <p>
+     * The rule must be built before any other filter or sort field is resolved with this resolver.
+     */
+    public Expression buildRuleExpr(String rule) {
+        var cache = compiledRules();
+        if (cache == null || this.requestInfo == null || this.placeholderSeq > 0 || !this.joins.isEmpty()
+                || IdentifierMacros.containsMacro(rule)) {
+            return new SearchFilter(rule).buildExpr(this);
+        }
+
+        var key = String.join("\u0000", this.baseCollection.getId(), rule,
+                this.requestInfo.getAdmin() != null ? "admin" : (this.requestInfo.getAuthRecord() != null ? "auth" : "guest"),
+                String.valueOf(this.allowHiddenFields));
+
+        var compiled = cache.get(key);
+        if (compiled != null) {
+            var params = compiled.bind(this);
+            if (params != null) {
+                compiled.getJoins().forEach(join -> this.registerJoin(join.getTableName(), join.getTableAlias(), join.getOn()));
+                this.placeholderSeq = compiled.getPlaceholderCount();
+                return Expression.newExpr(compiled.getSql(), params);
+            }
+        }
+
+        this.requestBindings = new ArrayList<>();
+        this.ruleCacheable = true;
+        try {
+            var expr = new SearchFilter(rule).buildExpr(this);
+            if (this.ruleCacheable && expr != null) {
+                Map<String, Object> params = new HashMap<>();
+                var sql = expr.build(params);
+                if (this.isReplayable(params)) {
+                    this.requestBindings.forEach(binding -> params.remove(binding.getPlaceholder()));
+                    cache.put(key, new CompiledRule(sql, params, List.copyOf(this.requestBindings), List.copyOf(this.joins), this.placeholderSeq));
+                }
+            }
+            return expr;
+        } finally {
+            this.requestBindings = null;
+        }
+    }
+
+    /**
+     * Checks whether all request values were bound as they are (eg. the LIKE operator wraps them with "%").
+     */
+    private boolean isReplayable(Map<String, Object> params) {
+        for (var binding : this.requestBindings) {
+            if (binding.getPlaceholder() != null && params.containsKey(binding.getPlaceholder())
+                    && !Objects.equals(params.get(binding.getPlaceholder()), binding.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SegmentedLruCache<String, CompiledRule> compiledRules() {
+        int size = PbManager.getConfig().getRuleCacheSize();
+        if (size <= 0) {
+            return null;
+        }
+        if (compiledRules == null) {
+            synchronized (RecordFieldResolver.class) {
+                if (compiledRules == null) {
+                    compiledRules = new SegmentedLruCache<>(size);
+                }
+            }
+        }
+        return compiledRules;
+    }
+
+    /**
+     * Clears the compiled rules cache (should be called when a collection is changed).
+     */
+    public static void clearRuleCache() {
+        if (compiledRules != null) {
+            compiledRules.clear();
+        }
     }
 
     private ResultCouple<Object> extractNestedMapVal(Map<String, Object> m, List<String> keys) {
@@ -1,9 +1,9 @@
 package com.picobase.persistence.resolver;
 
 import cn.hutool.core.util.NumberUtil;
-import cn.hutool.core.util.RandomUtil;
 import com.picobase.PbManager;
 import com.picobase.log.PbLog;
+import com.picobase.logic.mapper.RelationIndex;
 import com.picobase.model.CollectionModel;
 import com.picobase.model.schema.MultiValuer;
 import com.picobase.model.schema.SchemaField;
@@ -106,6 +106,7 @@ public class ResolverRunner {
 
             if (this.activeProps.get(0).equals("@request")) {
                 if (this.resolver.getRequestInfo() == null) {
+                    this.resolver.disableRuleCache();
                     return ResolverResult.builder().identifier("NULL").build();
                 }
 
@@ -127,16 +128,19 @@ public class ResolverRunner {
 
                     //check for data relation field
                     if (dataField.getType().equals(PbConstants.FieldType.Relation) && this.activeProps.size() > 3) {
+                        this.resolver.disableRuleCache();
                         return this.processRequestInfoRelationField(dataField);
                     }
 
                     // check for data arrayble fields ":each" modifier
                     if (EachModifier.equals(modifier) && existInArray(dataField.getType(), ArraybleFieldTypes()) && this.activeProps.size() == 3) {
+                        this.resolver.disableRuleCache();
                         return this.processRequestInfoEachModifier(dataField);
                     }
 
                     //check for data arrayble fields ":length" modifier
                     if (LengthModifier.equals(modifier) && existInArray(dataField.getType(), ArraybleFieldTypes()) && this.activeProps.size() == 3) {
+                        this.resolver.disableRuleCache();
                         return this.processRequestInfoLengthModifier(dataField);
                     }
                 }
@@ -173,7 +177,7 @@ public class ResolverRunner {
 
         var rawJson = PbManager.getPbJsonTemplate().toJsonString(dataItems);
 
-        var placeholder = "dataEach" + RandomUtil.randomString(4);
+        var placeholder = this.resolver.nextPlaceholder("dataEach");
         var cleanFieldName = columnify(dataField.getName());
         var jeTable = String.format("JSON_TABLE( :%s, '$[*]' COLUMNS ( `value` VARCHAR(255) PATH '$' ) )", placeholder);
         var jeAlias = "__dataEach_" + cleanFieldName + "_je";
@@ -255,7 +259,9 @@ public class ResolverRunner {
         }
 
         // resolve the auth collection field
+        // (the joins depend on the current auth record and can't be reused by the rule cache)
         // ---
+        this.resolver.disableRuleCache();
         if (this.resolver.getRequestInfo() == null || this.resolver.getRequestInfo().getAuthRecord() == null || this.resolver.getRequestInfo().getAuthRecord().getCollection() == null) {
             return ResolverResult.builder().identifier("NULL").build();
         }
@@ -517,9 +523,17 @@ public class ResolverRunner {
                     isBackRelMultiple = !hasSingleColumnUniqueIndex(backField.getName(), backCollection.getIndexes());
                 }
 
+                var backRelIndexed = RelationIndex.isIndexed(backField);
                 if (!isBackRelMultiple) {
                     this.resolver.registerJoin(newCollectionName, newTableAlias,
                             newExpr(String.format("%s.%s=%s.id", newTableAlias, cleanBackFieldName, this.activeTableAlias)));
+                } else if (backRelIndexed) {
+                    // join through the pb_relations index instead of expanding the json array of every back collection record
+                    var riAlias = this.activeTableAlias + "_" + cleanProp + "_ri";
+                    this.resolver.registerJoin(RelationIndex.TABLE, riAlias, RelationIndex.joinOn(riAlias, this.resolver.nextPlaceholder("ri"),
+                            backCollection, backField, "relId", String.format("`%s`.`id`", this.activeTableAlias)));
+                    this.resolver.registerJoin(newCollectionName, newTableAlias,
+                            newExpr(String.format("`%s`.`id` = `%s`.`recordId`", newTableAlias, riAlias)));
                 } else {
                     var jeAlias = this.activeTableAlias + "_" + cleanProp + "_je";
 
@@ -551,6 +565,12 @@ public class ResolverRunner {
                 if (!isBackRelMultiple) {
                     this.multiMatch.getJoins().add(new Join(newCollectionName, newTableAlias2,
                             newExpr(String.format("%s.%s = %s.id", newTableAlias2, cleanBackFieldName, this.multiMatchActiveTableAlias))));
+                } else if (backRelIndexed) {
+                    var riAlias2 = this.multiMatchActiveTableAlias + "_" + cleanProp + "_ri";
+                    this.multiMatch.getJoins().add(new Join(RelationIndex.TABLE, riAlias2, RelationIndex.joinOn(riAlias2, this.resolver.nextPlaceholder("ri"),
+                            backCollection, backField, "relId", String.format("`%s`.`id`", this.multiMatchActiveTableAlias))));
+                    this.multiMatch.getJoins().add(new Join(newCollectionName, newTableAlias2,
+                            newExpr(String.format("`%s`.`id` = `%s`.`recordId`", newTableAlias2, riAlias2))));
                 } else {
                     var jeAlias2 = this.multiMatchActiveTableAlias + "_" + cleanProp + "_je";
 
@@ -595,12 +615,20 @@ public class ResolverRunner {
             var newTableAlias = this.activeTableAlias + "_" + cleanFieldName;
             var newCollectionName = relCollection.getName();
 
+            var indexed = RelationIndex.isIndexed(field);
             if (!options.isMultiple()) {
                 this.resolver.registerJoin(
                         columnify(newCollectionName),
                         newTableAlias,
                         newExpr(String.format("%s.id = %s", newTableAlias, prefixedFieldName))
                 );
+            } else if (indexed) {
+                // join through the pb_relations index instead of expanding the json array
+                var riAlias = this.activeTableAlias + "_" + cleanFieldName + "_ri";
+                this.resolver.registerJoin(RelationIndex.TABLE, riAlias, RelationIndex.joinOn(riAlias, this.resolver.nextPlaceholder("ri"),
+                        collection, field, "recordId", String.format("`%s`.`id`", this.activeTableAlias)));
+                this.resolver.registerJoin(columnify(newCollectionName), newTableAlias,
+                        newExpr(String.format("`%s`.`id` = `%s`.`relId`", newTableAlias, riAlias)));
             } else {
                 var jeAlias = this.activeTableAlias + "_" + cleanFieldName + "_je";
                 this.resolver.registerJoin(DbUtil.jsonEach(prefixedFieldName), jeAlias, newExpr("1=1"));
@@ -624,6 +652,12 @@ public class ResolverRunner {
             if (!options.isMultiple()) {
                 this.multiMatch.getJoins().add(new Join(columnify(newCollectionName), newTableAlias2,
                         newExpr(String.format("%s.id = %s", newTableAlias2, prefixedFieldName2))));
+            } else if (indexed) {
+                var riAlias2 = this.multiMatchActiveTableAlias + "_" + cleanFieldName + "_ri";
+                this.multiMatch.getJoins().add(new Join(RelationIndex.TABLE, riAlias2, RelationIndex.joinOn(riAlias2, this.resolver.nextPlaceholder("ri"),
+                        collection, field, "recordId", String.format("`%s`.`id`", this.multiMatchActiveTableAlias))));
+                this.multiMatch.getJoins().add(new Join(columnify(newCollectionName), newTableAlias2,
+                        newExpr(String.format("`%s`.`id` = `%s`.`relId`", newTableAlias2, riAlias2))));
             } else {
                 var jeAlias2 = this.multiMatchActiveTableAlias + "_" + cleanFieldName + "_je";
                 this.multiMatch.getJoins().add(new Join(DbUtil.jsonEach(prefixedFieldName2), jeAlias2,
@@ -4,12 +4,33 @@ import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static com.picobase.persistence.dbx.DbxUtil.columnify;
 
 
-public record SimpleFieldResolver(List<String> allowedFields) implements FieldResolver {
+public final class SimpleFieldResolver implements FieldResolver {
+
+    private final List<String> allowedFields;
+
+    /**
+     * positional placeholder names counter
+     */
+    private final AtomicInteger placeholderSeq = new AtomicInteger();
+
+    public SimpleFieldResolver(List<String> allowedFields) {
+        this.allowedFields = allowedFields;
+    }
+
+    public List<String> allowedFields() {
+        return allowedFields;
+    }
+
+    @Override
+    public String nextPlaceholder(String prefix) {
+        return prefix + placeholderSeq.getAndIncrement();
+    }
 
     @Override
     public ResolverResult resolve(String field) {
@@ -56,6 +56,16 @@ public class IdentifierMacros {
         return macros.get(macroName);
     }
 
+    /**
+     * @return whether the provided filter text may use any of the (time dependent) macros
+     */
+    public static boolean containsMacro(String filter) {
+        if (filter == null || filter.indexOf('@') < 0) {
+            return false;
+        }
+        return macros.keySet().stream().anyMatch(filter::contains);
+    }
+
     public interface Macro {
         Object getValue();
     }
@@ -28,8 +28,6 @@ import static com.picobase.util.PbConstants.QueryParam.*;
 
 public class PbProvider {
 
-    // Execute the 2 queries concurrently
-
     private static final PbLog log = PbManager.getLog();
 
 
@@ -177,19 +175,18 @@ public class PbProvider {
                 totalCount = (long) row.get("count");
                 items = Collections.EMPTY_LIST;
             } else if (!skipTotal) {
-                ExecutorService executor = Executors.newFixedThreadPool(2);
-                Future<Map<String, Object>> countFuture = executor.submit(countExec);
-                Future<List<T>> modelsFuture = executor.submit(modelsExec);
+                PbProviderExecutor executor = PbManager.getPbProviderExecutor();
+                Future<Map<String, Object>> countFuture = executor.submitCount(countExec);
                 try {
+                    items = executor.runData(modelsExec);
+
                     Map<String, Object> row = countFuture.get();
                     totalCount = (long) row.get("count");
                     totalPages = (int) Math.ceil((double) totalCount / (double) this.perPage);
-
-                    items = modelsFuture.get();
                 } catch (ExecutionException e) {
                     throw new RuntimeException(e);
                 } finally {
-                    executor.shutdown();
+                    countFuture.cancel(true);
                 }
             } else {
                 items = modelsExec.call();
@@ -0,0 +1,233 @@
+package com.picobase.search;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbProviderConfig;
+import com.picobase.log.PbLog;
+import com.picobase.util.StrFormatter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PbProvider 全局共享的查询执行器
+ * <p>
+ * 分页查询时 count 查询会被提交到此执行器，data 查询在调用线程中执行，两者并发进行。
+ * 在途的 count 查询数量受 {@link PbProviderConfig#getMaxConcurrency()} 限制，
+ * 当 JDBC 连接池繁忙导致许可在 acquireTimeout 内无法获取时，count 查询退化为在调用线程中串行执行（背压），
+ * 从而不会无限制地堆积任务或额外占用连接。
+ * </p>
+ */
+public class PbProviderExecutor {
+
+    private static final PbLog log = PbManager.getLog();
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final long acquireTimeout;
+    private final boolean virtual;
+
+    /**
+     * 已提交但尚未开始执行的任务数
+     */
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    /**
+     * 因获取不到许可而在调用线程中执行的次数
+     */
+    private final LongAdder callerRuns = new LongAdder();
+
+    private final Stat waitStat = new Stat();
+    private final Stat countStat = new Stat();
+    private final Stat dataStat = new Stat();
+    private final Stat queryStat = new Stat();
+
+    public PbProviderExecutor(PbProviderConfig config) {
+        int maxConcurrency = Math.max(config.getMaxConcurrency(), 1);
+        this.permits = new Semaphore(maxConcurrency);
+        this.acquireTimeout = config.getAcquireTimeout();
+
+        ExecutorService virtualExecutor = Boolean.TRUE.equals(config.getVirtualThreads()) ? newVirtualThreadExecutor() : null;
+        this.virtual = virtualExecutor != null;
+        this.executor = virtual ? virtualExecutor : new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ProviderThreadFactory());
+        if (!virtual) {
+            ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+        }
+    }
+
+    /**
+     * 在 JDK 21+ 上通过反射创建虚拟线程执行器（core 模块以较低版本编译）
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 提交 count 查询，获取不到许可时直接在调用线程中执行并返回已完成的 Future
+     */
+    public <T> Future<T> submitCount(Callable<T> task) {
+        return submit(countStat, task);
+    }
+
+    /**
+     * 提交可与调用线程并发执行的只读查询（例如 expand 时不同关联集合的记录查询），
+     * 与 count 查询共享并发许可，获取不到许可时直接在调用线程中执行并返回已完成的 Future
+     */
+    public <T> Future<T> submitQuery(Callable<T> task) {
+        return submit(queryStat, task);
+    }
+
+    private <T> Future<T> submit(Stat stat, Callable<T> task) {
+        if (!tryAcquire()) {
+            callerRuns.increment();
+            FutureTask<T> future = new FutureTask<>(() -> timed(stat, task));
+            future.run();
+            return future;
+        }
+
+        long submitAt = System.nanoTime();
+        queueDepth.incrementAndGet();
+        // whoever flips it first (the worker or the cancellation) owns the dequeue and the permit release
+        AtomicBoolean started = new AtomicBoolean();
+        FutureTask<T> future = new FutureTask<>(() -> {
+            if (!started.compareAndSet(false, true)) {
+                return null; // cancelled while queued
+            }
+            queueDepth.decrementAndGet();
+            waitStat.record(System.nanoTime() - submitAt);
+            try {
+                return timed(stat, task);
+            } finally {
+                permits.release();
+            }
+        }) {
+            @Override
+            protected void done() {
+                // a task cancelled before a worker picked it up never runs the callable above
+                if (started.compareAndSet(false, true)) {
+                    queueDepth.decrementAndGet();
+                    permits.release();
+                }
+            }
+        };
+        try {
+            executor.execute(future);
+            return future;
+        } catch (RejectedExecutionException e) {
+            queueDepth.decrementAndGet();
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 在调用线程中执行 data 查询并记录耗时
+     */
+    public <T> T runData(Callable<T> task) throws Exception {
+        return timed(dataStat, task);
+    }
+
+    private boolean tryAcquire() {
+        if (acquireTimeout < 0) {
+            return permits.tryAcquire();
+        }
+        try {
+            return permits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static <T> T timed(Stat stat, Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            stat.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @return 当前等待执行的 count 查询数量
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return 执行器运行指标快照（耗时单位：毫秒）
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("virtualThreads", virtual);
+        metrics.put("queueDepth", queueDepth.get());
+        metrics.put("availablePermits", permits.availablePermits());
+        metrics.put("callerRuns", callerRuns.sum());
+        metrics.put("wait", waitStat.snapshot());
+        metrics.put("countQuery", countStat.snapshot());
+        metrics.put("dataQuery", dataStat.snapshot());
+        metrics.put("otherQuery", queryStat.snapshot());
+        return metrics;
+    }
+
+    /**
+     * 优雅停机
+     */
+    public void destroy() {
+        try {
+            executor.shutdown();
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("Pb Provider executor shutdown gracefully.");
+    }
+
+    /**
+     * 简单的耗时统计（次数、总耗时、最大耗时）
+     */
+    public static class Stat {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        Map<String, Object> snapshot() {
+            long c = count.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", c);
+            map.put("avg", c == 0 ? 0D : totalNanos.sum() / (double) c / 1_000_000D);
+            map.put("max", maxNanos.get() / 1_000_000D);
+            return map;
+        }
+    }
+
+    private static class ProviderThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, StrFormatter.format("pb-provider-t{}", threadNumber.getAndIncrement()));
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> log.error(t.toString(), e));
+            return thread;
+        }
+    }
+}
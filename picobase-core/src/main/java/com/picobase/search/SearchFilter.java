@@ -1,9 +1,8 @@
 package com.picobase.search;
 
-import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.picobase.PbManager;
-import com.picobase.model.Store;
+import com.picobase.cache.SegmentedLruCache;
 import com.picobase.persistence.dbx.ConcatExpr;
 import com.picobase.persistence.dbx.expression.Expression;
 import com.picobase.persistence.fexpr.*;
@@ -14,6 +13,8 @@ import com.picobase.util.StringEscapeUtils;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.picobase.persistence.dbx.expression.Expression.and;
 import static com.picobase.persistence.fexpr.SignOp.SignEq;
@@ -27,15 +28,30 @@ public class SearchFilter {
     }
 
 
-    // parsedFilterData holds a cache with previously parsed filter data expressions
-    // (initialized with some preallocated empty data map)
-    private static final Store<List<ExprGroup>> parsedFilterData = new Store<>();
+    // parsedFilterData holds a bounded cache with previously parsed filter data expressions,
+    // keyed by the placeholder-normalized filter (so `{:name}` style filters share one AST)
+    private static final SegmentedLruCache<String, List<ExprGroup>> parsedFilterData =
+            new SegmentedLruCache<>(Math.max(PbManager.getConfig().getFilterCacheSize(), 1));
+
+    // marks a normalized filter whose placeholders can't be bound as standalone operands
+    // (eg. placeholders inside quoted text or identifiers), such filters are cached by their substituted raw string
+    private static final List<ExprGroup> UNBINDABLE_SHAPE = Collections.unmodifiableList(new ArrayList<>());
+
+    // placeholders are swapped with a quoted sentinel text while parsing the normalized filter
+    private static final char PLACEHOLDER_SENTINEL = '\u0001';
 
     // DefaultLikeEscape specifies the default special character escaping for LIKE expressions
     // The strings at 2i positions are the special characters to be escaped while those at 2i+1 positions
     // are the corresponding escaped versions.
     public static final String[] DEFAULT_LIKE_ESCAPE = {"\\", "\\\\", "%", "\\%", "_", "\\_"};
 
+    /**
+     * @return 已解析 filter 表达式缓存的统计信息（命中、未命中、淘汰次数等）
+     */
+    public static Map<String, Object> cacheStats() {
+        return parsedFilterData.stats();
+    }
+
     /**
      * // BuildExpr parses the current filter data and returns a new db WHERE expression.
      * //
@@ -49,6 +65,10 @@ public class SearchFilter {
             return null;
         }
 
+        // normalized filter with the placeholders swapped by sentinels + the inplace replacement of each placeholder
+        String normalized = raw;
+        Map<String, String> replacements = new HashMap<>();
+
         // replace the placeholder params in the raw string filter
         for (var p : placeholderReplacements) {
             for (Map.Entry<String, Object> entry : p.entrySet()) {
@@ -77,26 +97,145 @@ public class SearchFilter {
 
                 // 使用正则表达式匹配整个键名
                 String regex = ":" + entry.getKey() + "\\b";
-                raw = raw.replaceAll(regex, StringEscapeUtils.escapeJson(replacement));
+                String escapedReplacement = StringEscapeUtils.escapeJson(replacement);
+                raw = raw.replaceAll(regex, escapedReplacement);
+
+                if (!replacements.containsKey(entry.getKey()) && Pattern.compile(regex).matcher(normalized).find()) {
+                    normalized = normalized.replaceAll(regex, Matcher.quoteReplacement("'" + sentinel(entry.getKey()) + "'"));
+                    // the exact text the raw substitution inserts for this placeholder
+                    replacements.put(entry.getKey(), (":" + entry.getKey()).replaceAll(regex, escapedReplacement));
+                }
             }
 
         }
 
+        if (!replacements.isEmpty()) {
+            List<ExprGroup> shape = parsedFilterData.get(normalized, SearchFilter::parseShape);
+            if (shape != UNBINDABLE_SHAPE) {
+                List<ExprGroup> bound = bindPlaceholders(shape, replacements, new HashMap<>(), 0);
+                if (bound != null) {
+                    return buildParsedFilterExpr(bound, fieldResolver);
+                }
+            }
+        }
+
+        List<ExprGroup> data = parsedFilterData.get(raw, key -> {
+            try {
+                return FexprParser.parse(key);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return buildParsedFilterExpr(data, fieldResolver);
+    }
 
-        if (parsedFilterData.has(raw)) {
-            return buildParsedFilterExpr(parsedFilterData.get(raw), fieldResolver);
+    private static String sentinel(String placeholder) {
+        return PLACEHOLDER_SENTINEL + placeholder + PLACEHOLDER_SENTINEL;
+    }
+
+    private static boolean isSentinel(Token token) {
+        String literal = token.getLiteral();
+        return token.getType() == TokenType.Text && literal.length() > 1
+                && literal.charAt(0) == PLACEHOLDER_SENTINEL && literal.charAt(literal.length() - 1) == PLACEHOLDER_SENTINEL;
+    }
+
+    /**
+     * 解析占位符归一化后的 filter，只有当每个占位符都作为独立操作数出现时才可复用，否则返回 UNBINDABLE_SHAPE
+     */
+    private static List<ExprGroup> parseShape(String normalized) {
+        List<ExprGroup> shape;
+        try {
+            shape = FexprParser.parse(normalized);
+        } catch (Exception e) {
+            return UNBINDABLE_SHAPE;
         }
+        int expected = 0;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (normalized.charAt(i) == PLACEHOLDER_SENTINEL) {
+                expected++;
+            }
+        }
+        return countSentinels(shape) * 2 == expected ? shape : UNBINDABLE_SHAPE;
+    }
 
-        List<ExprGroup> data;
+    private static int countSentinels(List<ExprGroup> groups) {
+        int count = 0;
+        for (ExprGroup group : groups) {
+            Object item = group.getItem();
+            if (item instanceof Expr) {
+                Expr expr = (Expr) item;
+                count += (isSentinel(expr.getLeft()) ? 1 : 0) + (isSentinel(expr.getRight()) ? 1 : 0);
+            } else if (item instanceof List) {
+                count += countSentinels((List<ExprGroup>) item);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 将缓存的 AST 复制一份并把占位符替换为实际的 token（缓存中的 AST 不会被修改）
+     *
+     * @return 绑定后的 AST，无法绑定时返回 null
+     */
+    private static List<ExprGroup> bindPlaceholders(List<ExprGroup> groups, Map<String, String> replacements, Map<String, Token> tokens, int depth) {
+        List<ExprGroup> result = new ArrayList<>(groups.size());
+        for (ExprGroup group : groups) {
+            Object item = group.getItem();
+            if (item instanceof Expr) {
+                Expr expr = (Expr) item;
+                Token left = bindToken(expr.getLeft(), replacements, tokens, depth);
+                Token right = bindToken(expr.getRight(), replacements, tokens, depth);
+                if (left == null || right == null) {
+                    return null;
+                }
+                item = new Expr(left, expr.getOp(), right);
+            } else if (item instanceof List) {
+                item = bindPlaceholders((List<ExprGroup>) item, replacements, tokens, depth + 1);
+                if (item == null) {
+                    return null;
+                }
+            }
+            result.add(new ExprGroup(group.getJoin(), item));
+        }
+        return result;
+    }
+
+    private static Token bindToken(Token token, Map<String, String> replacements, Map<String, Token> tokens, int depth) {
+        if (!isSentinel(token)) {
+            return token;
+        }
+        String literal = token.getLiteral();
+        String placeholder = literal.substring(1, literal.length() - 1);
+        return tokens.computeIfAbsent(placeholder + "@" + depth, k -> scanReplacement(replacements.get(placeholder), depth));
+    }
+
+    /**
+     * 按照原始 filter 字符串替换后的扫描方式得到占位符对应的 token（分组内的文本会被重新加引号后再次扫描）
+     */
+    private static Token scanReplacement(String replacement, int depth) {
+        if (replacement == null) {
+            return null;
+        }
         try {
-            data = FexprParser.parse(raw);
+            Token token = scanSingleToken(replacement);
+            for (int i = 0; token != null && i < depth; i++) {
+                if (token.getType() == TokenType.Text) {
+                    token = scanSingleToken("\"" + token.getLiteral() + "\"");
+                }
+            }
+            if (token == null || (token.getType() != TokenType.Identifier && token.getType() != TokenType.Text && token.getType() != TokenType.Number)) {
+                return null;
+            }
+            return token;
         } catch (Exception e) {
-            throw new RuntimeException(e);
+            return null;
         }
-        // store in cache
-        // (the limit size is arbitrary and it is there to prevent the cache growing too big)
-        parsedFilterData.setIfLessThanLimit(raw, data, 500);
-        return buildParsedFilterExpr(data, fieldResolver);
+    }
+
+    private static Token scanSingleToken(String text) throws Exception {
+        FexprScanner scanner = new FexprScanner(text);
+        Token token = scanner.scan();
+        return scanner.scan().getType() == TokenType.EOF ? token : null;
     }
 
 
@@ -150,7 +289,7 @@ public class SearchFilter {
             throw new RuntimeException(String.format("invalid right operand %s", expr.getRight().getLiteral()));
         }
 
-        return buildResolversExpr(lResult, expr.getOp(), rResult);
+        return buildResolversExpr(lResult, expr.getOp(), rResult, fieldResolver);
     }
 
     private ResolverResult resolveToken(Token token, FieldResolver fieldResolver) {
@@ -159,7 +298,7 @@ public class SearchFilter {
                 // check for macros
                 IdentifierMacros.Macro macro = IdentifierMacros.getMacro(token.getLiteral());
                 if (macro != null) {
-                    var placeholder = "t" + RandomUtil.randomString(5);
+                    var placeholder = fieldResolver.nextPlaceholder("t");
                     Object value = macro.getValue();
                     return ResolverResult.builder().identifier(":" + placeholder).params(Map.of(placeholder, value)).build();
                 }
@@ -189,14 +328,14 @@ public class SearchFilter {
 
             }
             case Text -> {
-                var placeholder = "t" + RandomUtil.randomString(5);
+                var placeholder = fieldResolver.nextPlaceholder("t");
                 return ResolverResult.builder()
                         .identifier(":" + placeholder)
                         .params(Map.of(placeholder, token.getLiteral()))
                         .build();
             }
             case Number -> {
-                var placeholder = "t" + RandomUtil.randomString(5);
+                var placeholder = fieldResolver.nextPlaceholder("t");
                 return ResolverResult.builder()
                         .identifier(":" + placeholder)
                         .params(Map.of(placeholder, Double.valueOf(token.getLiteral())))
@@ -206,7 +345,7 @@ public class SearchFilter {
         throw new RuntimeException("unresolvable token type");
     }
 
-    private Expression buildResolversExpr(ResolverResult left, SignOp op, ResolverResult right) {
+    private Expression buildResolversExpr(ResolverResult left, SignOp op, ResolverResult right, FieldResolver fieldResolver) {
         Expression expr = switch (op) {
             case SignEq, SignAnyEq -> resolveEqualExpr(true, left, right);
             case SignNeq, SignAnyNeq -> resolveEqualExpr(false, left, right);
@@ -249,14 +388,14 @@ public class SearchFilter {
         // multi-match expressions
         if (!isAnyMatchOp(op)) {
             if (left.getMultiMatchSubQuery() != null && right.getMultiMatchSubQuery() != null) {
-                var mm = new ManyVsManyExpr(left, right, op);
+                var mm = new ManyVsManyExpr(left, right, op, fieldResolver);
                 expr = Expression.enclose(and(expr, mm));
             } else if (left.getMultiMatchSubQuery() != null) {
 
-                var mm = new ManyVsOneExpr(left.isNoCoalesce(), left.getMultiMatchSubQuery(), op, right);
+                var mm = new ManyVsOneExpr(left.isNoCoalesce(), left.getMultiMatchSubQuery(), op, right, fieldResolver);
                 expr = Expression.enclose(and(expr, mm));
             } else if (right.getMultiMatchSubQuery() != null) {
-                var mm = new ManyVsOneExpr(right.isNoCoalesce(), right.getMultiMatchSubQuery(), op, left, true);
+                var mm = new ManyVsOneExpr(right.isNoCoalesce(), right.getMultiMatchSubQuery(), op, left, fieldResolver, true);
                 expr = Expression.enclose(and(expr, mm));
             }
 
@@ -520,11 +659,18 @@ public class SearchFilter {
         private final ResolverResult left;
         private final ResolverResult right;
         private final SignOp op;
+        private final FieldResolver fieldResolver;
+        private final String lAlias;
+        private final String rAlias;
 
-        public ManyVsManyExpr(ResolverResult left, ResolverResult right, SignOp op) {
+        public ManyVsManyExpr(ResolverResult left, ResolverResult right, SignOp op, FieldResolver fieldResolver) {
             this.left = left;
             this.right = right;
             this.op = op;
+            this.fieldResolver = fieldResolver;
+            // the aliases are assigned while resolving so that every build of the expression produces the same SQL
+            this.lAlias = fieldResolver.nextPlaceholder("__ml");
+            this.rAlias = fieldResolver.nextPlaceholder("__mr");
         }
 
         /**
@@ -536,9 +682,6 @@ public class SearchFilter {
                 return "0=1";
             }
 
-            var lAlias = "__ml" + RandomUtil.randomString(5);
-            var rAlias = "__mr" + RandomUtil.randomString(5);
-
             Expression whereExpr;
             try {
                 whereExpr = buildResolversExpr(
@@ -549,6 +692,7 @@ public class SearchFilter {
                                 // doesn't matter whether it is applied on the left or right subquery operand
                                 .afterBuild(multiMatchAfterBuildFunc(this.op, lAlias, rAlias))
                                 .build()
+                        , this.fieldResolver
                 );
             } catch (Exception ignore) {
                 return "0=1";
@@ -599,20 +743,21 @@ public class SearchFilter {
         private final Expression subQuery;
         private final SignOp op;
         private final ResolverResult otherOperand;
+        private final FieldResolver fieldResolver;
+        private final String alias;
         private boolean inverse;
 
-        public ManyVsOneExpr(boolean noCoalesce, Expression subQuery, SignOp op, ResolverResult otherOperand) {
+        public ManyVsOneExpr(boolean noCoalesce, Expression subQuery, SignOp op, ResolverResult otherOperand, FieldResolver fieldResolver) {
             this.noCoalesce = noCoalesce;
             this.subQuery = subQuery;
             this.op = op;
             this.otherOperand = otherOperand;
+            this.fieldResolver = fieldResolver;
+            this.alias = fieldResolver.nextPlaceholder("__sm");
         }
 
-        public ManyVsOneExpr(boolean noCoalesce, Expression subQuery, SignOp op, ResolverResult otherOperand, boolean inverse) {
-            this.noCoalesce = noCoalesce;
-            this.subQuery = subQuery;
-            this.op = op;
-            this.otherOperand = otherOperand;
+        public ManyVsOneExpr(boolean noCoalesce, Expression subQuery, SignOp op, ResolverResult otherOperand, FieldResolver fieldResolver, boolean inverse) {
+            this(noCoalesce, subQuery, op, otherOperand, fieldResolver);
             this.inverse = inverse;
         }
 
@@ -621,8 +766,6 @@ public class SearchFilter {
             if (this.subQuery == null) {
                 return "0=1";
             }
-            var alias = "__sm" + RandomUtil.randomString(5);
-
             var r1 = ResolverResult.builder().noCoalesce(this.noCoalesce).identifier(alias + ".multiMatchValue").afterBuild(multiMatchAfterBuildFunc(this.op, alias)).build();
 
             var r2 = ResolverResult.builder().identifier(this.otherOperand.getIdentifier()).params(this.otherOperand.getParams()).build();
@@ -631,9 +774,9 @@ public class SearchFilter {
             Exception err = null;
             try {
                 if (this.inverse) {
-                    whereExpr = buildResolversExpr(r2, this.op, r1);
+                    whereExpr = buildResolversExpr(r2, this.op, r1, this.fieldResolver);
                 } else {
-                    whereExpr = buildResolversExpr(r1, this.op, r2);
+                    whereExpr = buildResolversExpr(r1, this.op, r2, this.fieldResolver);
                 }
             } catch (Exception e) {
                 err = e;
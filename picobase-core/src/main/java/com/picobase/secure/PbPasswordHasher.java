@@ -0,0 +1,282 @@
+package com.picobase.secure;
+
+import com.picobase.PbManager;
+import com.picobase.cache.SegmentedLruCache;
+import com.picobase.config.PbPasswordConfig;
+import com.picobase.exception.PbException;
+import com.picobase.exception.TooManyRequestsException;
+import com.picobase.log.PbLog;
+import com.picobase.util.StrFormatter;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 密码哈希器
+ * <p>
+ * BCrypt 哈希 / 校验在固定数量的工作线程中执行，等待中的任务放在有界队列中：队列已满或调用方等待结果超过 maxWait 时
+ * 取消任务并抛出 {@link TooManyRequestsException}（429），避免大量登录请求占满请求线程。
+ * </p>
+ * <p>
+ * 登录时先通过 {@link #acquireAttempt} 按身份（账号）统计尝试次数，超过 maxAttempts 时在计算哈希之前拒绝；
+ * 登录成功后通过 {@link #needsRehash} 判断已存储密码的成本因子是否与配置一致，不一致时由调用方重新哈希保存。
+ * </p>
+ */
+public class PbPasswordHasher {
+
+    private static final PbLog log = PbManager.getLog();
+
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 30;
+
+    private final ThreadPoolExecutor executor;
+    private final int cost;
+    private final long maxWaitNanos;
+    private final int maxAttempts;
+    private final long attemptWindow;
+
+    /**
+     * identity --> 当前统计窗口内的尝试次数，null 代表不限制尝试次数
+     */
+    private final SegmentedLruCache<String, AtomicInteger> attempts;
+
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    public PbPasswordHasher(PbPasswordConfig config) {
+        int workers = Math.max(config.getWorkers(), 1);
+        this.cost = Math.min(Math.max(config.getCost(), MIN_COST), MAX_COST);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(config.getMaxWait(), 1));
+        this.maxAttempts = config.getMaxAttempts();
+        this.attemptWindow = Math.max(config.getAttemptWindow(), 1);
+        this.attempts = maxAttempts > 0 ? new SegmentedLruCache<>(Math.max(config.getAttemptTableSize(), 1)) : null;
+        this.executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(config.getQueueSize(), 1)), new HasherThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 使用配置的成本因子生成密文
+     *
+     * @param password 明文密码
+     * @return 密文
+     */
+    public String hash(String password) {
+        return execute(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    /**
+     * 检查明文密码是否匹配密文
+     *
+     * @param password 明文密码
+     * @param hash     密文
+     * @return 是否匹配
+     */
+    public boolean verify(String password, String hash) {
+        if (password == null || hash == null || hash.isEmpty()) {
+            return false;
+        }
+        verified.increment();
+        return execute(() -> BCrypt.checkpw(password, hash));
+    }
+
+    /**
+     * 记录一次登录尝试，当前窗口内的尝试次数已超过 maxAttempts 时抛出 {@link TooManyRequestsException}
+     *
+     * @param identity 身份标识，见 {@link #attemptIdentity}
+     */
+    public void acquireAttempt(String identity) {
+        if (attempts == null || identity == null) {
+            return;
+        }
+        // created under the segment lock, concurrent first attempts share the same counter
+        AtomicInteger counter = attempts.computeIfAbsent(identity, k -> new AtomicInteger(), System.currentTimeMillis() + attemptWindow);
+        if (counter.incrementAndGet() > maxAttempts) {
+            throttled.increment();
+            throw new TooManyRequestsException("Too many login attempts, please try again later.");
+        }
+    }
+
+    /**
+     * 生成尝试次数统计使用的身份标识，账号去除首尾空白并转为小写，避免通过大小写或空白变体绕过限制
+     *
+     * @param scope    统计范围（如 集合 id）
+     * @param identity 账号（邮箱或用户名）
+     * @return 身份标识，账号为 null 时返回 null
+     */
+    public static String attemptIdentity(String scope, String identity) {
+        if (identity == null) {
+            return null;
+        }
+        return scope + ":" + identity.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 登录成功后清除该身份的尝试次数
+     *
+     * @param identity 身份标识
+     */
+    public void resetAttempts(String identity) {
+        if (attempts != null && identity != null) {
+            attempts.remove(identity);
+        }
+    }
+
+    /**
+     * 密文的成本因子是否与配置的不一致（需要重新哈希）
+     *
+     * @param hash 密文（格式：$2a$10$...）
+     * @return 是否需要重新哈希
+     */
+    public boolean needsRehash(String hash) {
+        int hashCost = parseCost(hash);
+        return hashCost > 0 && hashCost != cost;
+    }
+
+    /**
+     * 登录成功后调用：已存储密码的成本因子与配置不一致时使用配置的成本因子重新生成密文
+     *
+     * @param password 已校验通过的明文密码
+     * @param hash     已存储的密文
+     * @return 新的密文，无需重新哈希（或哈希器繁忙）时返回 null
+     */
+    public String rehashIfNeeded(String password, String hash) {
+        if (!needsRehash(hash)) {
+            return null;
+        }
+        try {
+            return hash(password);
+        } catch (TooManyRequestsException e) {
+            // the login itself succeeded, try again on the next login
+            return null;
+        }
+    }
+
+    /**
+     * @return 配置的成本因子
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    static int parseCost(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(1) != '2') {
+            return -1;
+        }
+        int off = hash.charAt(2) == '$' ? 3 : 4;
+        if (hash.length() < off + 3 || hash.charAt(off + 2) != '$') {
+            return -1;
+        }
+        char tens = hash.charAt(off);
+        char ones = hash.charAt(off + 1);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    private <T> T execute(Callable<T> callable) {
+        long enqueued = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                if (System.nanoTime() - enqueued > maxWaitNanos) {
+                    throw new QueueTimeoutException();
+                }
+                long start = System.nanoTime();
+                try {
+                    return callable.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - start);
+                    hashed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("The server is busy, please try again later.");
+        }
+
+        try {
+            // bound the caller's wait as well: a task that is still queued (or running) after maxWait is cancelled
+            return future.get(Math.max(maxWaitNanos - (System.nanoTime() - enqueued), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            executor.remove((Runnable) future);
+            timedOut.increment();
+            throw new TooManyRequestsException("The server is busy, please try again later.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PbException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QueueTimeoutException) {
+                timedOut.increment();
+                throw new TooManyRequestsException("The server is busy, please try again later.");
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : new PbException(e.getCause());
+        }
+    }
+
+    /**
+     * @return 哈希器运行指标快照（耗时单位：毫秒）
+     */
+    public Map<String, Object> getMetrics() {
+        long count = hashed.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("cost", cost);
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueRemaining", executor.getQueue().remainingCapacity());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("hashed", count);
+        metrics.put("verified", verified.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timedOut", timedOut.sum());
+        metrics.put("throttled", throttled.sum());
+        metrics.put("avgHash", count == 0 ? 0D : hashNanos.sum() / (double) count / 1_000_000D);
+        return metrics;
+    }
+
+    /**
+     * 优雅停机
+     */
+    public void destroy() {
+        try {
+            executor.shutdown();
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 任务在队列中等待超时
+     */
+    private static class QueueTimeoutException extends Exception {
+        QueueTimeoutException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static class HasherThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            var thread = new Thread(runnable, StrFormatter.format("pb-password-t{}", threadNumber.getAndIncrement()));
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> log.error(t.toString(), e));
+            return thread;
+        }
+    }
+}
@@ -45,9 +45,14 @@ public final class PbConstants {
     public static final String JUST_CREATED_NOT_PREFIX = "JUST_CREATED_NOT_PREFIX_";
 
     /**
-     * 常量 key 标记: 如果本次请求已经验证过 activeTimeout, 则以此 key 在 storage 中做一个标记
+     * 常量 key 标记: 本次请求中从请求体、header、cookie 读取到的 token（拼接 loginType）
      */
-    public static final String TOKEN_ACTIVE_TIMEOUT_CHECKED_KEY = "TOKEN_ACTIVE_TIMEOUT_CHECKED_KEY_";
+    public static final String TOKEN_VALUE_READ_KEY = "TOKEN_VALUE_READ_KEY_";
+
+    /**
+     * 常量 key 标记: 本次请求中已解析的登录状态（拼接 loginType 与 token）
+     */
+    public static final String RESOLVED_LOGIN_KEY = "RESOLVED_LOGIN_KEY_";
 
     /**
      * 常量 key 标记: 在登录时，默认使用的设备类型
@@ -249,6 +254,8 @@ public final class PbConstants {
         public static final String ADMIN = "pb_admin";
         public static final String COLLECTION = "pb_collection";
         public static final String EXTERNAL_AUTHS = "pb_external_auths";
+        public static final String RELATIONS = "pb_relations";
+        public static final String CATALOG = "pb_catalog";
 
 
     }
@@ -1,8 +1,10 @@
 package com.picobase.jwt;
 
 
+import cn.hutool.json.JSONObject;
 import com.picobase.PbUtil;
 import com.picobase.cache.PbCache;
+import com.picobase.context.PbContext;
 import com.picobase.context.PbHolder;
 import com.picobase.exception.ApiDisabledException;
 import com.picobase.exception.NotLoginException;
@@ -21,6 +23,11 @@ import java.util.Map;
  */
 public class PbAuthZLogicJwtForStateless extends PbAuthZLogic {
 
+    /**
+     * 在当前请求中保存已解析的 jwt 载荷时使用的 key 前缀
+     */
+    public static final String PAYLOADS_SAVE_KEY = "JWT_PAYLOADS_SAVE_KEY_";
+
     /**
      * 整合 jwt -- Stateless 无状态
      */
@@ -117,7 +124,7 @@ public class PbAuthZLogicJwtForStateless extends PbAuthZLogic {
     @Override
     public String getLoginIdNotHandle(String tokenValue) {
         try {
-            Object loginId = PbJwtUtil.getLoginId(tokenValue, loginType, jwtSecretKey());
+            Object loginId = getPayloads(tokenValue).get(PbJwtUtil.LOGIN_ID);
             return String.valueOf(loginId);
         } catch (PbJwtException e) {
             // CODE == 30204 时，代表token已过期，此时返回-3，以便外层更精确的显示异常信息
@@ -141,6 +148,7 @@ public class PbAuthZLogicJwtForStateless extends PbAuthZLogic {
 
         // 从当前 [storage存储器] 里删除
         PbHolder.getStorage().delete(splicingKeyJustCreatedSave());
+        clearResolvedLogin(tokenValue);
 
         // 如果打开了Cookie模式，则把cookie清除掉
         if (getConfigOrGlobal().getIsReadCookie()) {
@@ -161,7 +169,22 @@ public class PbAuthZLogicJwtForStateless extends PbAuthZLogic {
      */
     @Override
     public Object getExtra(String tokenValue, String key) {
-        return PbJwtUtil.getPayloads(tokenValue, loginType, jwtSecretKey()).get(key);
+        return getPayloads(tokenValue).get(key);
+    }
+
+    /**
+     * 获取指定 Token 的载荷（校验 sign、loginType、timeout），一次请求内同一 Token 只解析一次
+     *
+     * @param tokenValue Token 值
+     * @return 载荷
+     */
+    protected JSONObject getPayloads(String tokenValue) {
+        PbContext context = PbHolder.getContext();
+        if (context == null || !context.isValid()) {
+            return PbJwtUtil.getPayloads(tokenValue, loginType, jwtSecretKey());
+        }
+        return context.getStorage().get(PAYLOADS_SAVE_KEY + loginType + ":" + tokenValue,
+                () -> PbJwtUtil.getPayloads(tokenValue, loginType, jwtSecretKey()));
     }
 
 
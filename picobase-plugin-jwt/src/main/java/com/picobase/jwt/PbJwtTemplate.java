@@ -6,15 +6,21 @@ import cn.hutool.jwt.JWTException;
 import cn.hutool.jwt.signers.JWTSigner;
 import cn.hutool.jwt.signers.JWTSignerUtil;
 import com.picobase.cache.PbCache;
+import com.picobase.cache.SegmentedLruCache;
 import com.picobase.jwt.error.PbJwtErrorCode;
 import com.picobase.jwt.exception.PbJwtException;
 import com.picobase.util.CommonHelper;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
 /**
  * jwt 操作模板方法封装
+ * <p>
+ * 签名器按秘钥缓存（每个线程一份，HMAC 签名器不是线程安全的）；签名校验通过的 token 及其载荷缓存在有界的 LRU 缓存中，
+ * 缓存有效期不超过 verifiedCacheTtl 与 token 自身的 eff，因此命中缓存的 token 一定未过期，无需再次解析和验签。
+ * </p>
  */
 public class PbJwtTemplate {
 
@@ -53,6 +59,80 @@ public class PbJwtTemplate {
      */
     public static final long NOT_VALUE_EXPIRE = PbCache.NOT_VALUE_EXPIRE;
 
+    /**
+     * 每个线程缓存的签名器数量上限，超过时清空（通常只有一两个秘钥）
+     */
+    private static final int MAX_SIGNERS_PER_THREAD = 16;
+
+    /**
+     * 已验证 token 缓存的最大条目数，0 代表不启用
+     */
+    private int verifiedCacheSize = 10000;
+
+    /**
+     * 已验证 token 缓存的最长有效期（单位: 毫秒），实际有效期不超过 token 的 eff
+     */
+    private long verifiedCacheTtl = 5 * 60 * 1000;
+
+    /**
+     * token --> 已验证的载荷（懒加载）
+     */
+    private volatile SegmentedLruCache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * 秘钥 --> 签名器
+     */
+    private final ThreadLocal<Map<String, JWTSigner>> signers = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * 签名校验通过的 token
+     */
+    private static class VerifiedToken {
+        private final String loginType;
+        private final String keyt;
+        private final JSONObject payloads;
+
+        private VerifiedToken(String loginType, String keyt, JSONObject payloads) {
+            this.loginType = loginType;
+            this.keyt = keyt;
+            this.payloads = payloads;
+        }
+    }
+
+    /**
+     * @return 已验证 token 缓存的最大条目数，0 代表不启用
+     */
+    public int getVerifiedCacheSize() {
+        return verifiedCacheSize;
+    }
+
+    /**
+     * @param verifiedCacheSize 已验证 token 缓存的最大条目数，0 代表不启用
+     * @return 对象自身
+     */
+    public PbJwtTemplate setVerifiedCacheSize(int verifiedCacheSize) {
+        this.verifiedCacheSize = verifiedCacheSize;
+        clearVerifiedCache();
+        this.verifiedTokens = null;
+        return this;
+    }
+
+    /**
+     * @return 已验证 token 缓存的最长有效期（单位: 毫秒）
+     */
+    public long getVerifiedCacheTtl() {
+        return verifiedCacheTtl;
+    }
+
+    /**
+     * @param verifiedCacheTtl 已验证 token 缓存的最长有效期（单位: 毫秒），实际有效期不超过 token 的 eff
+     * @return 对象自身
+     */
+    public PbJwtTemplate setVerifiedCacheTtl(long verifiedCacheTtl) {
+        this.verifiedCacheTtl = verifiedCacheTtl;
+        return this;
+    }
+
     // ------ 创建
 
     /**
@@ -122,7 +202,7 @@ public class PbJwtTemplate {
      * @return 根据 JWT 对象和 keyt 秘钥，生成的 token 字符串
      */
     public String generateToken(JWT jwt, String keyt) {
-        return jwt.setSigner(createSigner(keyt)).sign();
+        return jwt.setSigner(getSigner(keyt)).sign();
     }
 
     /**
@@ -135,6 +215,25 @@ public class PbJwtTemplate {
         return JWTSignerUtil.hs256(keyt.getBytes());
     }
 
+    /**
+     * 返回当前线程中此秘钥对应的签名器，不存在时通过 {@link #createSigner} 创建
+     *
+     * @param keyt 秘钥
+     * @return /
+     */
+    public JWTSigner getSigner(String keyt) {
+        Map<String, JWTSigner> map = signers.get();
+        JWTSigner signer = map.get(keyt);
+        if (signer == null) {
+            if (map.size() >= MAX_SIGNERS_PER_THREAD) {
+                map.clear();
+            }
+            signer = createSigner(keyt);
+            map.put(keyt, signer);
+        }
+        return signer;
+    }
+
     // ------ 解析
 
     /**
@@ -168,7 +267,7 @@ public class PbJwtTemplate {
         JSONObject payloads = jwt.getPayloads();
 
         // 校验 Token 签名
-        boolean verify = jwt.setSigner(createSigner(keyt)).verify();
+        boolean verify = jwt.setSigner(getSigner(keyt)).verify();
         if (!verify) {
             throw new PbJwtException("jwt 签名无效：" + token).setCode(PbJwtErrorCode.CODE_30202);
         }
@@ -201,7 +300,7 @@ public class PbJwtTemplate {
      * @return 载荷
      */
     public JSONObject getPayloads(String token, String loginType, String keyt) {
-        return parseToken(token, loginType, keyt, true).getPayloads();
+        return getVerifiedPayloads(token, loginType, keyt, true);
     }
 
     /**
@@ -213,7 +312,78 @@ public class PbJwtTemplate {
      * @return 载荷
      */
     public JSONObject getPayloadsNotCheck(String token, String loginType, String keyt) {
-        return parseToken(token, loginType, keyt, false).getPayloads();
+        return getVerifiedPayloads(token, loginType, keyt, false);
+    }
+
+    /**
+     * 获取 jwt 数据载荷，优先从已验证 token 缓存中读取，未命中时解析并写入缓存
+     *
+     * @param token          token值
+     * @param loginType      登录类型
+     * @param keyt           秘钥
+     * @param isCheckTimeout 是否校验 timeout 字段
+     * @return 载荷（副本，可以修改）
+     */
+    public JSONObject getVerifiedPayloads(String token, String loginType, String keyt, boolean isCheckTimeout) {
+        SegmentedLruCache<String, VerifiedToken> cache = verifiedTokens();
+        if (cache != null && token != null) {
+            VerifiedToken verified = cache.get(token);
+            // 缓存有效期不超过 eff，命中时 token 一定未过期
+            if (verified != null && Objects.equals(verified.loginType, loginType) && Objects.equals(verified.keyt, keyt)) {
+                return copyPayloads(verified.payloads);
+            }
+        }
+
+        JSONObject payloads = parseToken(token, loginType, keyt, isCheckTimeout).getPayloads();
+        if (cache != null) {
+            long now = System.currentTimeMillis();
+            long expireAt = now + verifiedCacheTtl;
+            Long effTime = payloads.getLong(EFF, 0L);
+            if (effTime != null && effTime != NEVER_EXPIRE) {
+                expireAt = Math.min(expireAt, effTime);
+            }
+            if (expireAt > now) {
+                cache.put(token, new VerifiedToken(loginType, keyt, payloads), expireAt);
+            }
+        }
+        return copyPayloads(payloads);
+    }
+
+    private static JSONObject copyPayloads(JSONObject payloads) {
+        JSONObject copy = new JSONObject(payloads.size(), payloads.getConfig());
+        copy.putAll(payloads);
+        return copy;
+    }
+
+    private SegmentedLruCache<String, VerifiedToken> verifiedTokens() {
+        if (verifiedCacheSize <= 0 || verifiedCacheTtl <= 0) {
+            return null;
+        }
+        if (verifiedTokens == null) {
+            synchronized (this) {
+                if (verifiedTokens == null) {
+                    verifiedTokens = new SegmentedLruCache<>(verifiedCacheSize);
+                }
+            }
+        }
+        return verifiedTokens;
+    }
+
+    /**
+     * 清空已验证 token 缓存（例如更换秘钥后）
+     */
+    public void clearVerifiedCache() {
+        if (verifiedTokens != null) {
+            verifiedTokens.clear();
+        }
+    }
+
+    /**
+     * @return 已验证 token 缓存的统计信息，未启用时返回空 Map
+     */
+    public Map<String, Object> getVerifiedCacheStats() {
+        SegmentedLruCache<String, VerifiedToken> cache = verifiedTokens;
+        return cache != null ? cache.stats() : new HashMap<>();
     }
 
     /**
@@ -259,30 +429,17 @@ public class PbJwtTemplate {
             return NOT_VALUE_EXPIRE;
         }
 
-        // 取出数据
-        JWT jwt;
+        // 取出数据（解析失败、签名无效、loginType 无效）
+        JSONObject payloads;
         try {
-            jwt = JWT.of(token);
-        } catch (JWTException e) {
-            // 解析失败
-            return NOT_VALUE_EXPIRE;
-        }
-        JSONObject payloads = jwt.getPayloads();
-
-        // 如果签名无效
-        boolean verify = jwt.setSigner(createSigner(keyt)).verify();
-        if (!verify) {
-            return NOT_VALUE_EXPIRE;
-        }
-
-        // 如果 loginType  无效
-        if (!Objects.equals(loginType, payloads.getStr(LOGIN_TYPE))) {
+            payloads = getPayloadsNotCheck(token, loginType, keyt);
+        } catch (PbJwtException e) {
             return NOT_VALUE_EXPIRE;
         }
 
         // 如果被设置为：永不过期
         Long effTime = payloads.get(EFF, Long.class);
-        if (effTime == NEVER_EXPIRE) {
+        if (effTime != null && effTime == NEVER_EXPIRE) {
             return NEVER_EXPIRE;
         }
         // 如果已经超时
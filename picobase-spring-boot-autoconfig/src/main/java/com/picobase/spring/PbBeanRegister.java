@@ -172,6 +172,10 @@ public class PbBeanRegister {
             PbManager.getPbEventBus().destroy();
 
             PbSchedulerBus.shutdown();
+            PbManager.setPbProviderExecutor(null);
+            PbManager.setPbPasswordHasher(null);
+            PbManager.setPbThumbGenerator(null);
+            PbManager.getPbCache().destroy();
             //spring 应用一般会自动关掉ForkJoinPool线程池
             shutdownForkJoinPool();
         }
@@ -15,10 +15,15 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -273,6 +278,10 @@ public interface BaseDatabaseOperate extends PbDatabaseOperate {
 
     /**
      * execute update operation, to fix #3617.
+     * <p>
+     * 相邻且 SQL 文本相同的 ModifyRequest 会按 {@link com.picobase.config.PbConfig#getDbBatchSize()} 分组，
+     * 通过 JDBC batch 一次性提交，每条语句的影响行数仍逐条累加并校验 rollBackOnUpdateFail。
+     * </p>
      *
      * @param transactionTemplate {@link TransactionTemplate}
      * @param jdbcTemplate        {@link JdbcTemplate}
@@ -282,6 +291,7 @@ public interface BaseDatabaseOperate extends PbDatabaseOperate {
     default Boolean update(TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
                            List<ModifyRequest> contexts, BiConsumer<Integer, Throwable> consumer) {
         boolean updateResult = Boolean.FALSE;
+        int batchSize = Math.max(PbManager.getConfig().getDbBatchSize(), 1);
         try {
             updateResult = transactionTemplate.execute(status -> {
 
@@ -291,24 +301,42 @@ public interface BaseDatabaseOperate extends PbDatabaseOperate {
                     // 影响的行数
                     AtomicInteger row = new AtomicInteger();
 
-                    contexts.forEach(pair -> {
+                    int from = 0;
+                    while (from < contexts.size()) {
+                        ModifyRequest pair = contexts.get(from);
+                        int to = from + 1;
+                        while (to < contexts.size() && to - from < batchSize && canBatch(pair, contexts.get(to))) {
+                            to++;
+                        }
                         errSql[0] = pair.getSql();
                         args[0] = pair.getArgs();
-                        boolean rollBackOnUpdateFail = pair.isRollBackOnUpdateFail();
                         //LOGGER.debug("current sql : {}", errSql[0]);
                         //LOGGER.debug("current args : {}", args[0]);
 
-                        if (pair.getNamedArgs() != null) {
-                            row.addAndGet(namedParameterJdbcTemplate.update(pair.getSql(), pair.getNamedArgs()));
-                        } else {
-                            row.addAndGet(jdbcTemplate.update(pair.getSql(), pair.getArgs()));
-                        }
-                        //LOGGER.debug("SQL update affected {} rows ", row);
-                        if (rollBackOnUpdateFail && row.get() < 1) {
+                        if (to - from == 1) {
+                            if (pair.getNamedArgs() != null) {
+                                row.addAndGet(namedParameterJdbcTemplate.update(pair.getSql(), pair.getNamedArgs()));
+                            } else {
+                                row.addAndGet(jdbcTemplate.update(pair.getSql(), pair.getArgs()));
+                            }
                             //LOGGER.debug("SQL update affected {} rows ", row);
-                            throw new IllegalTransactionStateException("Illegal transaction");
+                            if (pair.isRollBackOnUpdateFail() && row.get() < 1) {
+                                //LOGGER.debug("SQL update affected {} rows ", row);
+                                throw new IllegalTransactionStateException("Illegal transaction");
+                            }
+                        } else {
+                            List<ModifyRequest> batch = contexts.subList(from, to);
+                            int[] counts = batchUpdate(jdbcTemplate, namedParameterJdbcTemplate, pair.getSql(), batch);
+                            for (int i = 0; i < counts.length; i++) {
+                                // 驱动开启 rewriteBatchedStatements 时可能无法返回单条语句的影响行数，此时视为执行成功
+                                row.addAndGet(counts[i] == Statement.SUCCESS_NO_INFO ? 1 : counts[i]);
+                                if (batch.get(i).isRollBackOnUpdateFail() && row.get() < 1) {
+                                    throw new IllegalTransactionStateException("Illegal transaction");
+                                }
+                            }
                         }
-                    });
+                        from = to;
+                    }
                     if (consumer != null) {
                         consumer.accept(row.get(), null);
                     }
@@ -339,6 +367,58 @@ public interface BaseDatabaseOperate extends PbDatabaseOperate {
         return updateResult;
     }
 
+    /**
+     * 两条 ModifyRequest 是否可以合并到同一个 JDBC batch 中：SQL 文本相同且参数形式一致
+     *
+     * @param first 当前批次的第一条语句
+     * @param next  待合并的语句
+     * @return 是否可合并
+     */
+    private static boolean canBatch(ModifyRequest first, ModifyRequest next) {
+        if (!Objects.equals(first.getSql(), next.getSql())) {
+            return false;
+        }
+        if (first.getNamedArgs() != null) {
+            return next.getNamedArgs() != null;
+        }
+        return next.getNamedArgs() == null && first.getArgs() != null && next.getArgs() != null;
+    }
+
+    /**
+     * 以 JDBC batch 方式执行一组 SQL 相同的 ModifyRequest
+     *
+     * @return 每条语句的影响行数
+     */
+    @SuppressWarnings("unchecked")
+    private static int[] batchUpdate(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate, String sql, List<ModifyRequest> batch) {
+        if (batch.get(0).getNamedArgs() != null) {
+            Map<String, ?>[] batchArgs = batch.stream().map(ModifyRequest::getNamedArgs).toArray(Map[]::new);
+            return namedParameterJdbcTemplate.batchUpdate(sql, batchArgs);
+        }
+        List<Object[]> batchArgs = new ArrayList<>(batch.size());
+        batch.forEach(request -> batchArgs.add(request.getArgs()));
+        return jdbcTemplate.batchUpdate(sql, batchArgs);
+    }
+
+
+    @Override
+    default boolean isTransactionActive() {
+        return TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    @Override
+    default void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
     default Object runInTransaction(TransactionTemplate transactionTemplate, Function<Object, Object> action, boolean rollBack) throws IllegalTransactionStateException {
         return transactionTemplate.execute(status -> {
@@ -0,0 +1,45 @@
+package com.picobase.console;
+
+import com.picobase.console.filesystem.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ByteRange 测试：Range 请求头解析
+ */
+public class ByteRangeTest {
+
+    private static String parse(String header, long size) {
+        List<ByteRange> ranges = ByteRange.parse(header, size);
+        return ranges == null ? null : ranges.stream().map(r -> r.getStart() + "-" + r.getEnd()).collect(Collectors.joining(","));
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals("0-499", parse("bytes=0-499", 1000));
+        assertEquals("500-999", parse("bytes=500-", 1000));
+        assertEquals("800-999", parse("bytes=-200", 1000));
+        assertEquals("0-999", parse("bytes=-2000", 1000));
+        assertEquals("900-999", parse("bytes=900-5000", 1000));
+        assertEquals("0-0,10-19,990-999", parse("bytes=0-0, 10-19 ,-10", 1000));
+        assertEquals("10-19", parse("bytes=10-19,2000-3000", 1000));
+
+        // unsatisfiable
+        assertEquals("", parse("bytes=1000-", 1000));
+
+        // ignored
+        assertNull(parse(null, 1000));
+        assertNull(parse("items=0-1", 1000));
+        assertNull(parse("bytes=abc", 1000));
+        assertNull(parse("bytes=20-10", 1000));
+        assertNull(parse("bytes=" + "0-1,".repeat(ByteRange.MaxRanges + 1), 1000));
+
+        assertEquals("bytes 0-499/1000", ByteRange.parse("bytes=0-499", 1000).get(0).toContentRange(1000));
+        assertTrue(ByteRange.exceeds(ByteRange.parse("bytes=0-,0-", 1000), 1000));
+        assertFalse(ByteRange.exceeds(ByteRange.parse("bytes=0-9,-10", 1000), 1000));
+    }
+}
@@ -0,0 +1,89 @@
+package com.picobase.console;
+
+import cn.hutool.core.io.FileUtil;
+import com.picobase.console.config.PbConsoleConfig;
+import com.picobase.console.filesystem.LocalFileSystem;
+import com.picobase.console.json.mixin.PbFileMixIn;
+import com.picobase.file.PbFile;
+import com.picobase.spring.json.PbJsonTemplateForJackson;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalFileSystem 测试：stat 与 .attrs 属性缓存
+ */
+public class LocalFileSystemTest {
+
+    private Path dataDir;
+    private LocalFileSystem fileSystem;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("pb_local_fs");
+        PbJsonTemplateForJackson jsonTemplate = new PbJsonTemplateForJackson();
+        jsonTemplate.getObjectMapper().addMixIn(PbFile.class, PbFileMixIn.class);
+        fileSystem = new LocalFileSystem(new PbConsoleConfig().setDataDirPath(dataDir.toString()), jsonTemplate);
+        fileSystem.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        FileUtil.del(dataDir);
+    }
+
+    private void upload(String fileKey, String content, String contentType) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        fileSystem.uploadFile(new PbFile.PFileBuilder()
+                .name(FileUtil.getName(fileKey))
+                .originalName(FileUtil.getName(fileKey))
+                .size(bytes.length)
+                .contentType(contentType)
+                .content(new ByteArrayInputStream(bytes))
+                .lastModifiedTime(1000).build(), fileKey);
+    }
+
+    @Test
+    public void testStatCache() throws Exception {
+        upload("c1/r1/a.txt", "hello", "text/plain");
+
+        PbFile file = fileSystem.stat("c1/r1/a.txt");
+        assertEquals("text/plain", file.getContentType());
+        assertEquals(5, file.getSize());
+        assertNull(file.getContent());
+
+        Path attrs = dataDir.resolve("c1/r1/a.txt.attrs");
+        FileTime attrsModified = Files.getLastModifiedTime(attrs);
+        String json = Files.readString(attrs);
+
+        // the cached attributes are used while the .attrs mtime is unchanged
+        Files.writeString(attrs, json.replace("text/plain", "text/csv"));
+        Files.setLastModifiedTime(attrs, attrsModified);
+        assertEquals("text/plain", fileSystem.stat("c1/r1/a.txt").getContentType());
+
+        // and reloaded once it changes
+        Files.setLastModifiedTime(attrs, FileTime.fromMillis(attrsModified.toMillis() + 2000));
+        assertEquals("text/csv", fileSystem.stat("c1/r1/a.txt").getContentType());
+
+        try (InputStream content = fileSystem.getFile("c1/r1/a.txt").getContent()) {
+            assertEquals("hello", new String(content.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        fileSystem.deletePrefix("c1/r1");
+        assertThrows(Exception.class, () -> fileSystem.stat("c1/r1/a.txt"));
+
+        // re-uploading under the same key is not served from the cache
+        upload("c1/r1/a.txt", "hello world", "text/markdown");
+        assertEquals("text/markdown", fileSystem.stat("c1/r1/a.txt").getContentType());
+        assertEquals(11, fileSystem.stat("c1/r1/a.txt").getSize());
+    }
+}
@@ -0,0 +1,68 @@
+package com.picobase.console;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.console.log.LogSpool;
+import com.picobase.console.model.LogModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LogSpool 测试：按批重放，连续失败的批次移入 dead 文件后继续重放后面的日志
+ */
+public class LogSpoolTest {
+
+    @TempDir
+    Path dir;
+
+    private static LogModel log(String id) {
+        LogModel log = new LogModel();
+        log.setId(id);
+        log.setCreated(LocalDateTime.now());
+        log.setUpdated(LocalDateTime.now());
+        log.setMessage("GET /api/" + id).setLevel(0).setData(Map.of());
+        return log;
+    }
+
+    @Test
+    public void testDeadLetter() throws Exception {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        LogSpool spool = new LogSpool(dir);
+        spool.append(List.of(log("bad"), log("a1"), log("a2"), log("a3")));
+
+        List<String> saved = new ArrayList<>();
+        for (int i = 1; i < LogSpool.MAX_REPLAY_FAILURES; i++) {
+            assertEquals(0, spool.replay(2, batch -> false));
+            assertEquals(0, spool.getDeadLettered());
+            assertFalse(spool.isEmpty());
+        }
+
+        // the failing head batch is moved aside, the rest is replayed
+        int replayed = spool.replay(2, batch -> {
+            if (batch.stream().anyMatch(l -> l.getId().equals("bad"))) {
+                return false;
+            }
+            saved.addAll(batch.stream().map(LogModel::getId).collect(Collectors.toList()));
+            return true;
+        });
+        assertEquals(2, replayed);
+        assertEquals(List.of("a2", "a3"), saved);
+        assertEquals(2, spool.getDeadLettered());
+        assertTrue(spool.isEmpty());
+
+        List<String> dead = Files.readAllLines(dir.resolve(LogSpool.DEAD_FILE_NAME), StandardCharsets.UTF_8);
+        assertEquals(2, dead.size());
+        assertTrue(dead.get(0).contains("\"bad\""));
+    }
+}
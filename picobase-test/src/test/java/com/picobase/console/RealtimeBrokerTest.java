@@ -0,0 +1,102 @@
+package com.picobase.console;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.console.config.PbConsoleConfig;
+import com.picobase.console.realtime.RealtimeBroker;
+import com.picobase.console.realtime.RealtimeClient;
+import com.picobase.logic.mapper.RecordMapper;
+import com.picobase.model.AdminModel;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.schema.Schema;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.util.PbConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RealtimeBroker 测试：topic 匹配、订阅替换与不依赖数据库的规则判断（nil / 空规则 / admin）
+ */
+public class RealtimeBrokerTest {
+
+    private RealtimeBroker broker;
+    private CollectionModel posts;
+    private RecordModel record;
+
+    @BeforeEach
+    public void setUp() {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        broker = new RealtimeBroker(new PbConsoleConfig(), new RecordMapper());
+
+        posts = new CollectionModel();
+        posts.setId("c_posts");
+        posts.setName("posts");
+        posts.setType(PbConstants.CollectionType.Base);
+        posts.setSchema(Schema.newSchema(List.of(new SchemaField("title", PbConstants.FieldType.Text))));
+        posts.setListRule("");
+        posts.setViewRule(null);
+
+        record = new RecordModel(posts);
+        record.setId("r1");
+        record.set("title", "hello");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        broker.destroy();
+    }
+
+    private static List<String> topics(List<RealtimeBroker.Delivery> deliveries, RealtimeClient client) {
+        return deliveries.stream().filter(d -> d.getClient() == client)
+                .map(d -> d.getMessage().getName()).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testFanOut() {
+        RealtimeClient guest = broker.connect();
+        RealtimeClient admin = broker.connect();
+        RealtimeClient other = broker.connect();
+        assertEquals(3, broker.getClientCount());
+        assertFalse(broker.hasSubscribers());
+
+        broker.subscribe(guest, List.of("posts/*", "posts/r1"), null, null);
+        broker.subscribe(admin, List.of("c_posts/r1"), new AdminModel(), null);
+        broker.subscribe(other, List.of("comments/*"), null, null);
+
+        List<RealtimeBroker.Delivery> deliveries = broker.prepare("update", posts, List.of(record));
+        // the guest passes the empty listRule but not the nil viewRule
+        assertEquals(List.of("posts/*"), topics(deliveries, guest));
+        assertEquals(List.of("c_posts/r1"), topics(deliveries, admin));
+        assertEquals(List.of(), topics(deliveries, other));
+        assertTrue(deliveries.get(0).getMessage().getData().contains("\"action\":\"update\""));
+        assertTrue(deliveries.get(0).getMessage().getData().contains("\"title\":\"hello\""));
+
+        // replacing the subscriptions drops the old topics
+        broker.subscribe(guest, List.of("comments/*"), null, null);
+        assertEquals(List.of("c_posts/r1"), broker.prepare("update", posts, List.of(record)).stream()
+                .map(d -> d.getMessage().getName()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testBatch() {
+        RealtimeClient guest = broker.connect();
+        RealtimeClient admin = broker.connect();
+        broker.subscribe(guest, List.of("posts/*"), null, null);
+        broker.subscribe(admin, List.of("posts/r2"), new AdminModel(), null);
+
+        RecordModel record2 = new RecordModel(posts);
+        record2.setId("r2");
+        List<RealtimeBroker.Delivery> deliveries = broker.prepare("delete", posts, List.of(record, record2));
+        assertEquals(List.of("r1", "r2"), deliveries.stream().filter(d -> d.getClient() == guest)
+                .map(RealtimeBroker.Delivery::getRecordId).collect(Collectors.toList()));
+        assertEquals(List.of("r2"), deliveries.stream().filter(d -> d.getClient() == admin)
+                .map(RealtimeBroker.Delivery::getRecordId).collect(Collectors.toList()));
+    }
+}
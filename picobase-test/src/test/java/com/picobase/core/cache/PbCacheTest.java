@@ -0,0 +1,333 @@
+package com.picobase.core.cache;
+
+import com.picobase.cache.PbCache;
+import com.picobase.cache.PbCacheDefaultImpl;
+import com.picobase.cache.PbCacheLocalImpl;
+import com.picobase.cache.PbCacheRedisImpl;
+import com.picobase.config.PbCacheConfig;
+import com.picobase.session.TokenSign;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PbCacheTest {
+
+    /**
+     * 两个实现共享的 PbCache 语义
+     */
+    private void assertCacheContract(PbCache cache) {
+        cache.set("pb:a", "1", 100);
+        assertEquals("1", cache.get("pb:a"));
+        long timeout = cache.getTimeout("pb:a");
+        assertTrue(timeout > 95 && timeout <= 100);
+
+        cache.update("pb:a", "2");
+        assertEquals("2", cache.get("pb:a"));
+        assertTrue(cache.getTimeout("pb:a") > 95);
+        cache.update("pb:missing", "x");
+        assertNull(cache.get("pb:missing"));
+        assertEquals(PbCache.NOT_VALUE_EXPIRE, cache.getTimeout("pb:missing"));
+
+        cache.updateTimeout("pb:a", PbCache.NEVER_EXPIRE);
+        assertEquals(PbCache.NEVER_EXPIRE, cache.getTimeout("pb:a"));
+        cache.updateTimeout("pb:a", 10);
+        assertTrue(cache.getTimeout("pb:a") <= 10);
+
+        cache.setObject("pb:sign", new TokenSign("token-1", "PC", null), PbCache.NEVER_EXPIRE);
+        TokenSign sign = (TokenSign) cache.getObject("pb:sign");
+        assertEquals("token-1", sign.getValue());
+        assertEquals(PbCache.NEVER_EXPIRE, cache.getObjectTimeout("pb:sign"));
+
+        cache.set("pb:zero", "x", 0);
+        assertNull(cache.get("pb:zero"));
+
+        assertEquals(List.of("pb:a", "pb:sign"), cache.searchData("pb:", "", 0, -1, true));
+        assertEquals(List.of("pb:sign"), cache.searchData("pb:", "sig", 0, -1, true));
+
+        cache.delete("pb:a");
+        cache.deleteObject("pb:sign");
+        assertNull(cache.get("pb:a"));
+        assertNull(cache.getObject("pb:sign"));
+    }
+
+    @Test
+    public void testLocalCache() {
+        PbCacheLocalImpl cache = new PbCacheLocalImpl(new PbCacheConfig());
+        assertCacheContract(cache);
+    }
+
+    @Test
+    public void testLocalCacheTimerWheelAndSizeCap() throws Exception {
+        PbCacheLocalImpl cache = new PbCacheLocalImpl(new PbCacheConfig().setTickMillis(20).setWheelSize(64).setMaximumSize(3));
+        cache.init();
+        try {
+            cache.set("short", "1", 1);
+            cache.set("long", "2", 100);
+            cache.set("forever", "3", PbCache.NEVER_EXPIRE);
+            // 超出容量时优先淘汰最早过期的 key
+            cache.set("new", "4", 50);
+            assertEquals(3, cache.size());
+            assertNull(cache.get("short"));
+            assertEquals("2", cache.get("long"));
+            assertEquals("3", cache.get("forever"));
+
+            // 时间轮在不访问 key 的情况下清理到期数据
+            cache.delete("new");
+            cache.setObject("tmp", "5", 1);
+            assertEquals(3, cache.size());
+            Thread.sleep(1200);
+            assertEquals(Map.of("size", 2, "maximumSize", 3, "expiredCount", 1L, "evictionCount", 1L), cache.stats());
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testSearchDataByPrefix() {
+        for (PbCache cache : List.of(new PbCacheLocalImpl(new PbCacheConfig()), new PbCacheDefaultImpl())) {
+            for (int i = 0; i < 10; i++) {
+                cache.set("pb:token:" + i, "u" + i, 100);
+                cache.set("pb:session:" + i, "s" + i, 100);
+            }
+            cache.set("pb:tokenx", "x", 100);
+            assertEquals(List.of("pb:token:2", "pb:token:3", "pb:token:4"), cache.searchData("pb:token:", "", 2, 3, true));
+            assertEquals(List.of("pb:token:9", "pb:token:8"), cache.searchData("pb:token:", "", 0, 2, false));
+            assertEquals(List.of("pb:session:5"), cache.searchData("pb:session:", "5", 0, -1, true));
+            assertEquals(11, cache.searchData("pb:token", "", 0, -1, true).size());
+
+            cache.delete("pb:token:0");
+            cache.set("pb:token:1", "again", 100);
+            assertEquals(List.of("pb:token:1", "pb:token:2"), cache.searchData("pb:token:", "", 0, 2, true));
+        }
+    }
+
+    @Test
+    public void testRedisCache() throws Exception {
+        try (MiniRedisServer server = new MiniRedisServer("secret")) {
+            PbCacheConfig config = new PbCacheConfig().setType("redis").setRedisPort(server.getPort())
+                    .setRedisPassword("secret").setRedisDatabase(1).setRedisPoolSize(2);
+            PbCacheRedisImpl cache = new PbCacheRedisImpl(config);
+            assertCacheContract(cache);
+
+            // 另一个实例（另一个副本）可以读取同一份状态
+            PbCacheRedisImpl replica = new PbCacheRedisImpl(config);
+            cache.set("pb:shared", "v", 60);
+            assertEquals("v", replica.get("pb:shared"));
+            cache.destroy();
+            replica.destroy();
+        }
+    }
+
+    /**
+     * 只实现 PbCacheRedisImpl 所需命令的内存版 Redis 替身
+     */
+    static class MiniRedisServer implements Closeable {
+        private final ServerSocket serverSocket = new ServerSocket(0);
+        private final Map<String, byte[]> data = new ConcurrentHashMap<>();
+        private final Map<String, Long> expireAt = new ConcurrentHashMap<>();
+        private final String password;
+
+        MiniRedisServer(String password) throws IOException {
+            this.password = password;
+            Thread acceptor = new Thread(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        Socket socket = serverSocket.accept();
+                        Thread handler = new Thread(() -> handle(socket));
+                        handler.setDaemon(true);
+                        handler.start();
+                    } catch (IOException ignored) {
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void handle(Socket socket) {
+            try (socket) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                boolean authed = password == null;
+                for (; ; ) {
+                    List<byte[]> args = readCommand(in);
+                    if (args == null) {
+                        return;
+                    }
+                    String name = str(args.get(0)).toUpperCase();
+                    if (!authed && !name.equals("AUTH")) {
+                        out.write("-NOAUTH Authentication required.\r\n".getBytes(StandardCharsets.UTF_8));
+                    } else if (name.equals("AUTH")) {
+                        authed = password.equals(str(args.get(1)));
+                        out.write((authed ? "+OK\r\n" : "-WRONGPASS\r\n").getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        out.write(execute(name, args));
+                    }
+                    out.flush();
+                }
+            } catch (IOException ignored) {
+            }
+        }
+
+        private synchronized byte[] execute(String name, List<byte[]> args) {
+            String key = args.size() > 1 ? str(args.get(1)) : null;
+            if (key != null) {
+                Long expire = expireAt.get(key);
+                if (expire != null && expire <= System.currentTimeMillis()) {
+                    data.remove(key);
+                    expireAt.remove(key);
+                }
+            }
+            switch (name) {
+                case "SELECT":
+                    return simple("OK");
+                case "GET":
+                    return bulk(data.get(key));
+                case "SET": {
+                    Set<String> options = new HashSet<>();
+                    Long ex = null;
+                    for (int i = 3; i < args.size(); i++) {
+                        String option = str(args.get(i)).toUpperCase();
+                        if (option.equals("EX")) {
+                            ex = Long.parseLong(str(args.get(++i)));
+                        } else {
+                            options.add(option);
+                        }
+                    }
+                    if (options.contains("XX") && !data.containsKey(key)) {
+                        return bulk(null);
+                    }
+                    data.put(key, args.get(2));
+                    if (ex != null) {
+                        expireAt.put(key, System.currentTimeMillis() + ex * 1000);
+                    } else if (!options.contains("KEEPTTL")) {
+                        expireAt.remove(key);
+                    }
+                    return simple("OK");
+                }
+                case "DEL":
+                    expireAt.remove(key);
+                    return integer(data.remove(key) == null ? 0 : 1);
+                case "TTL": {
+                    if (!data.containsKey(key)) {
+                        return integer(-2);
+                    }
+                    Long expire = expireAt.get(key);
+                    return integer(expire == null ? -1 : (expire - System.currentTimeMillis()) / 1000);
+                }
+                case "EXPIRE":
+                    if (!data.containsKey(key)) {
+                        return integer(0);
+                    }
+                    expireAt.put(key, System.currentTimeMillis() + Long.parseLong(str(args.get(2))) * 1000);
+                    return integer(1);
+                case "PERSIST":
+                    return integer(expireAt.remove(key) == null ? 0 : 1);
+                case "SCAN": {
+                    Pattern pattern = Pattern.compile(globToRegex(str(args.get(3))));
+                    ByteArrayOutputStream reply = new ByteArrayOutputStream();
+                    List<String> keys = new ArrayList<>();
+                    for (String k : data.keySet()) {
+                        Long expire = expireAt.get(k);
+                        if ((expire == null || expire > System.currentTimeMillis()) && pattern.matcher(k).matches()) {
+                            keys.add(k);
+                        }
+                    }
+                    reply.writeBytes("*2\r\n".getBytes(StandardCharsets.UTF_8));
+                    reply.writeBytes(bulk("0".getBytes(StandardCharsets.UTF_8)));
+                    reply.writeBytes(("*" + keys.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+                    for (String k : keys) {
+                        reply.writeBytes(bulk(k.getBytes(StandardCharsets.UTF_8)));
+                    }
+                    return reply.toByteArray();
+                }
+                default:
+                    return ("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        private static String globToRegex(String glob) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < glob.length(); i++) {
+                char c = glob.charAt(i);
+                if (c == '\\') {
+                    sb.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                } else if (c == '*') {
+                    sb.append(".*");
+                } else if (c == '?') {
+                    sb.append('.');
+                } else {
+                    sb.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return sb.toString();
+        }
+
+        private static List<byte[]> readCommand(DataInputStream in) throws IOException {
+            int type = in.read();
+            if (type == -1) {
+                return null;
+            }
+            int count = Integer.parseInt(readLine(in));
+            List<byte[]> args = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                in.read(); // '$'
+                byte[] bytes = new byte[Integer.parseInt(readLine(in))];
+                in.readFully(bytes);
+                in.skipBytes(2);
+                args.add(bytes);
+            }
+            return args;
+        }
+
+        private static String readLine(DataInputStream in) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int b;
+            while ((b = in.read()) != '\r') {
+                sb.append((char) b);
+            }
+            in.read();
+            return sb.toString();
+        }
+
+        private static String str(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static byte[] simple(String value) {
+            return ("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static byte[] integer(long value) {
+            return (":" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static byte[] bulk(byte[] value) {
+            if (value == null) {
+                return "$-1\r\n".getBytes(StandardCharsets.UTF_8);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.writeBytes(("$" + value.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+            out.writeBytes(value);
+            out.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+            return out.toByteArray();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.picobase.core.file;
+
+import com.picobase.config.PbThumbConfig;
+import com.picobase.file.PbFile;
+import com.picobase.file.PbFileSystem;
+import com.picobase.file.PbThumbGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PbThumbGenerator 测试：合并重复任务、存在索引与队列满时的处理
+ */
+public class PbThumbGeneratorTest {
+
+    private final PbThumbGenerator generator = new PbThumbGenerator(new PbThumbConfig().setWorkers(1).setQueueSize(1));
+    private final FakeFileSystem fileSystem = new FakeFileSystem();
+
+    @AfterEach
+    public void tearDown() {
+        fileSystem.release.countDown();
+        generator.destroy();
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        String thumbKey = PbThumbGenerator.thumbKey("c1/r1", "a.png", "100x100");
+        assertEquals("c1/r1/thumbs_a.png/100x100_a.png", thumbKey);
+
+        fileSystem.release.countDown();
+        CompletableFuture<Void> first = generator.submit(fileSystem, "c1/r1/a.png", thumbKey, "100x100");
+        generator.generate(fileSystem, "c1/r1/a.png", thumbKey, "100x100");
+        first.get(5, TimeUnit.SECONDS);
+        assertEquals(1, fileSystem.created.get());
+
+        // served from the index without asking the file system again
+        int existsCalls = fileSystem.existsCalls.get();
+        assertTrue(generator.exists(fileSystem, thumbKey));
+        assertEquals(existsCalls, fileSystem.existsCalls.get());
+
+        generator.evictDir("c1/r1/thumbs_a.png");
+        fileSystem.thumbs.remove(thumbKey);
+        assertFalse(generator.exists(fileSystem, thumbKey));
+    }
+
+    @Test
+    public void testQueueFull() throws Exception {
+        // one task running and one queued, the third one is rejected
+        generator.submit(fileSystem, "o1", "t1", "100x100");
+        assertTrue(fileSystem.started.await(5, TimeUnit.SECONDS));
+        generator.submit(fileSystem, "o2", "t2", "100x100");
+        assertTrue(generator.submit(fileSystem, "o3", "t3", "100x100").isCompletedExceptionally());
+        assertEquals(1L, generator.getMetrics().get("rejected"));
+
+        // on demand generation runs in the caller when the queue is full
+        generator.generate(fileSystem, "o4", "t4", "100x100");
+        assertTrue(fileSystem.thumbs.contains("t4"));
+        assertEquals(1L, generator.getMetrics().get("callerRuns"));
+    }
+
+    private static class FakeFileSystem implements PbFileSystem {
+        final Set<String> thumbs = ConcurrentHashMap.newKeySet();
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger existsCalls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void createThumb(String originalKey, String thumbKey, String thumbSize) throws Exception {
+            if (!Thread.currentThread().getName().startsWith("pb-thumb")) {
+                thumbs.add(thumbKey); // caller runs
+                return;
+            }
+            started.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            created.incrementAndGet();
+            thumbs.add(thumbKey);
+        }
+
+        @Override
+        public boolean exists(String fileKey) {
+            existsCalls.incrementAndGet();
+            return thumbs.contains(fileKey);
+        }
+
+        @Override
+        public PbFileSystem init() {
+            return this;
+        }
+
+        @Override
+        public void uploadFile(PbFile file, String fileKey) {
+        }
+
+        @Override
+        public void delete(String fileKey) {
+        }
+
+        @Override
+        public void deletePrefix(String prefix) {
+        }
+
+        @Override
+        public PbFile getFile(String fileKey) {
+            return null;
+        }
+
+        @Override
+        public void serve(String servedPath, String servedName) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.picobase.core.logic;
+
+import com.picobase.logic.mapper.CollectionCatalog;
+import com.picobase.model.CollectionModel;
+import com.picobase.util.PbConstants;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CollectionCatalog 测试：快照索引、按版本替换与过期判断，不存在记录与并发加载合并
+ */
+public class CollectionCatalogTest {
+
+    private static CollectionModel collection(String id, String name) {
+        CollectionModel collection = new CollectionModel();
+        collection.setId(id);
+        collection.setName(name);
+        collection.setType(PbConstants.CollectionType.Base);
+        return collection;
+    }
+
+    @Test
+    public void testSnapshotSwap() {
+        CollectionCatalog catalog = new CollectionCatalog();
+        assertNull(catalog.snapshot());
+        assertTrue(catalog.isStale());
+
+        CollectionModel posts = collection("c_posts", "Posts");
+        CollectionCatalog.Snapshot snapshot = catalog.swap(3, List.of(posts, collection("c_users", "users")));
+        assertFalse(catalog.isStale());
+        assertSame(posts, snapshot.find("c_posts"));
+        assertSame(posts, snapshot.find("POSTS"));
+        assertNull(snapshot.find("comments"));
+
+        // a newer version announced by another node
+        catalog.onVersion(4);
+        assertTrue(catalog.isStale());
+        // a snapshot loaded for an older version never replaces a newer one
+        assertSame(snapshot, catalog.swap(2, List.of()));
+        assertTrue(catalog.isStale());
+
+        CollectionCatalog.Snapshot next = catalog.swap(4, List.of(collection("c_posts", "articles")));
+        assertEquals(4, next.getVersion());
+        assertFalse(catalog.isStale());
+        assertNull(next.find("posts"));
+        assertEquals("c_posts", next.find("articles").getId());
+
+        assertTrue(catalog.tryStartCheck(60_000));
+        assertFalse(catalog.tryStartCheck(60_000));
+    }
+
+    @Test
+    public void testMissingAndSingleFlight() throws Exception {
+        CollectionCatalog catalog = new CollectionCatalog();
+        catalog.markMissing("unknown", 60_000);
+        catalog.markMissing("expired", -1);
+        assertTrue(catalog.isMissing("unknown"));
+        assertFalse(catalog.isMissing("expired"));
+
+        // a new snapshot may contain previously missing collections
+        catalog.swap(1, List.of());
+        assertFalse(catalog.isMissing("unknown"));
+
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CollectionModel posts = collection("c_posts", "posts");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CollectionModel> first = executor.submit(() -> catalog.loadOnce("posts", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return posts;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // the competing callers start while the first load is in flight
+            List<CollectionModel> results = new CopyOnWriteArrayList<>();
+            List<Thread> others = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                Thread thread = new Thread(() -> results.add(catalog.loadOnce("posts", () -> {
+                    loads.incrementAndGet();
+                    return collection("other", "posts");
+                })));
+                others.add(thread);
+                thread.start();
+            }
+            // without single-flight they would run their own loader and finish, with it they wait for the first load
+            for (Thread thread : others) {
+                while (thread.getState() != Thread.State.WAITING && thread.getState() != Thread.State.TERMINATED) {
+                    Thread.onSpinWait();
+                }
+            }
+            release.countDown();
+
+            assertSame(posts, first.get(5, TimeUnit.SECONDS));
+            for (Thread thread : others) {
+                thread.join(5000);
+            }
+            assertEquals(List.of(posts, posts), results);
+            assertEquals(1, loads.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.picobase.core.logic;
+
+import com.picobase.logic.mapper.CollectionReferenceGraph;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.schema.Schema;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.RelationOptions;
+import com.picobase.util.PbConstants;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CollectionReferenceGraph 测试：由全部 Collection 构建与整体重建
+ */
+public class CollectionReferenceGraphTest {
+
+    private static CollectionModel collection(String id, SchemaField... fields) {
+        CollectionModel collection = new CollectionModel();
+        collection.setId(id);
+        collection.setName(id);
+        collection.setType(PbConstants.CollectionType.Base);
+        collection.setSchema(Schema.newSchema(List.of(fields)));
+        return collection;
+    }
+
+    private static SchemaField relation(String name, String collectionId, int maxSelect, boolean cascade) {
+        return new SchemaField(name, PbConstants.FieldType.Relation)
+                .setOptions(new RelationOptions(maxSelect, collectionId).setCascadeDelete(cascade));
+    }
+
+    private static List<String> refs(CollectionReferenceGraph graph, String target) {
+        return graph.findReferences(target).stream()
+                .map(r -> r.getCollection().getId() + "." + r.getField().getName())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRebuild() {
+        CollectionReferenceGraph graph = new CollectionReferenceGraph();
+        assertNull(graph.findReferences("users"));
+
+        graph.rebuild(List.of(
+                collection("users"),
+                collection("posts", relation("author", "users", 1, true), relation("likes", "users", 10, false)),
+                collection("comments", relation("post", "posts", 1, true))
+        ));
+
+        assertEquals(List.of("posts.author", "posts.likes"), refs(graph, "users"));
+        CollectionReferenceGraph.Reference likes = graph.findReferences("users").stream()
+                .filter(r -> r.getField().getName().equals("likes")).findFirst().orElseThrow();
+        assertTrue(likes.isMultiple());
+        assertFalse(likes.isCascadeDelete());
+        assertEquals(List.of(), graph.findReferences("comments"));
+
+        // posts drops "likes" and starts referencing itself, comments is deleted
+        graph.rebuild(List.of(
+                collection("users"),
+                collection("posts", relation("author", "users", 1, true), relation("parent", "posts", 1, false))
+        ));
+        assertEquals(List.of("posts.author"), refs(graph, "users"));
+        assertEquals(List.of("posts.parent"), refs(graph, "posts"));
+    }
+}
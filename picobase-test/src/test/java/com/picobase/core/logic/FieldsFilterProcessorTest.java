@@ -1,12 +1,18 @@
 package com.picobase.core.logic;
 
 import cn.hutool.json.JSONUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picobase.console.json.FieldsFilterGenerator;
+import com.picobase.console.json.FieldsTokenFilter;
 import com.picobase.logic.FieldsFilterProcessor;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -187,4 +193,30 @@ public class FieldsFilterProcessorTest {
 
 
     }
+
+    @ParameterizedTest(name = "{index}: {0}")
+    @MethodSource("testPickFieldsData")
+    public void testStreamingFilter(String name, Object data, String fields, boolean expectError, String result) throws Exception {
+        StringWriter writer = new StringWriter();
+        try {
+            ObjectMapper mapper = new ObjectMapper();
+            try (JsonGenerator generator = mapper.getFactory().createGenerator(writer)) {
+                mapper.writeValue(new FieldsFilterGenerator(generator, new FieldsTokenFilter(FieldsFilterProcessor.compileFields(fields))), data);
+            }
+        } catch (Exception e) {
+            if (!expectError) {
+                throw e;
+            }
+            return;
+        }
+        if (expectError) {
+            throw new RuntimeException("expected error");
+        }
+
+        if (data instanceof String) {
+            Assertions.assertEquals("\"" + result + "\"", writer.toString());
+        } else {
+            JSONAssert.assertEquals(result, writer.toString(), true);
+        }
+    }
 }
@@ -0,0 +1,58 @@
+package com.picobase.core.logic;
+
+import com.picobase.config.PbConfig;
+import com.picobase.logic.authz.PbAuthPrincipalCache;
+import com.picobase.model.AdminModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PbAuthPrincipalCache 测试：命中、副本、失效与禁用
+ */
+public class PbAuthPrincipalCacheTest {
+
+    @Test
+    public void testCacheAndInvalidate() {
+        PbAuthPrincipalCache cache = new PbAuthPrincipalCache(new PbConfig().setAuthCacheSize(100).setAuthCacheTtl(60_000));
+        AtomicInteger loads = new AtomicInteger();
+
+        AdminModel first = cache.getAdmin("a1", () -> newAdmin(loads));
+        AdminModel second = cache.getAdmin("a1", () -> newAdmin(loads));
+        assertEquals(1, loads.get());
+        assertEquals("a1@example.com", second.getEmail());
+        assertNotSame(first, second);
+
+        // a copy is returned, changing it does not change the cached admin
+        second.setEmail("changed@example.com");
+        assertEquals("a1@example.com", cache.getAdmin("a1", () -> newAdmin(loads)).getEmail());
+
+        cache.invalidateAdmin("a1");
+        cache.getAdmin("a1", () -> newAdmin(loads));
+        assertEquals(2, loads.get());
+
+        // not found results are not cached
+        assertNull(cache.getAdmin("missing", () -> null));
+        assertNotNull(cache.getAdmin("missing", () -> newAdmin(loads)));
+    }
+
+    @Test
+    public void testDisabled() {
+        PbAuthPrincipalCache cache = new PbAuthPrincipalCache(new PbConfig().setAuthCacheSize(0));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getAdmin("a1", () -> newAdmin(loads));
+        cache.getAdmin("a1", () -> newAdmin(loads));
+        assertEquals(2, loads.get());
+        assertTrue(cache.stats().isEmpty());
+    }
+
+    private static AdminModel newAdmin(AtomicInteger loads) {
+        loads.incrementAndGet();
+        AdminModel admin = new AdminModel().setEmail("a1@example.com");
+        admin.setId("a1");
+        return admin;
+    }
+}
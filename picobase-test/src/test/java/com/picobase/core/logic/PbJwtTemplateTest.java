@@ -0,0 +1,55 @@
+package com.picobase.core.logic;
+
+import cn.hutool.json.JSONObject;
+import com.picobase.jwt.PbJwtTemplate;
+import com.picobase.jwt.error.PbJwtErrorCode;
+import com.picobase.jwt.exception.PbJwtException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PbJwtTemplate 测试：已验证 token 缓存的命中、校验与有效期
+ */
+public class PbJwtTemplateTest {
+
+    private static final String KEYT = "test-secret-key";
+
+    private final PbJwtTemplate template = new PbJwtTemplate();
+
+    @Test
+    public void testVerifiedCache() {
+        String token = template.createToken("login", "u1", "pc", 3600, Map.of("collectionId", "c1"), KEYT);
+
+        JSONObject first = template.getPayloads(token, "login", KEYT);
+        JSONObject second = template.getPayloads(token, "login", KEYT);
+        assertEquals("u1", second.getStr(PbJwtTemplate.LOGIN_ID));
+        assertEquals("c1", second.getStr("collectionId"));
+        assertEquals(1L, template.getVerifiedCacheStats().get("hitCount"));
+
+        // the returned payloads are copies
+        first.set("collectionId", "changed");
+        assertEquals("c1", template.getPayloads(token, "login", KEYT).getStr("collectionId"));
+
+        // a cached token is still checked against the loginType and the secret
+        PbJwtException e = assertThrows(PbJwtException.class, () -> template.getPayloads(token, "admin", KEYT));
+        assertEquals(PbJwtErrorCode.CODE_30203, e.getCode());
+        e = assertThrows(PbJwtException.class, () -> template.getPayloads(token, "login", "other-secret"));
+        assertEquals(PbJwtErrorCode.CODE_30202, e.getCode());
+
+        assertTrue(template.getTimeout(token, "login", KEYT) > 3500);
+    }
+
+    @Test
+    public void testExpiredTokenIsNotCached() {
+        String token = template.createToken("login", "u1", "pc", -2, null, KEYT);
+
+        PbJwtException e = assertThrows(PbJwtException.class, () -> template.getPayloads(token, "login", KEYT));
+        assertEquals(PbJwtErrorCode.CODE_30204, e.getCode());
+        assertEquals("u1", template.getPayloadsNotCheck(token, "login", KEYT).getStr(PbJwtTemplate.LOGIN_ID));
+        assertEquals(0, template.getVerifiedCacheStats().get("size"));
+        assertEquals(PbJwtTemplate.NOT_VALUE_EXPIRE, template.getTimeout(token, "login", KEYT));
+    }
+}
@@ -0,0 +1,134 @@
+package com.picobase.core.logic;
+
+import cn.hutool.core.util.ReflectUtil;
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.logic.mapper.CollectionMapper;
+import com.picobase.logic.mapper.CollectionReferenceGraph;
+import com.picobase.logic.mapper.RecordMapper;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.schema.Schema;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.RelationOptions;
+import com.picobase.persistence.dbx.MysqlPbDbxBuilder;
+import com.picobase.persistence.resolver.ResultCouple;
+import com.picobase.spring.repository.MysqlDatabaseOperateImpl;
+import com.picobase.util.PbConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * _via_ back-relation 展开测试（H2 MySQL 模式）：每个父记录最多 MaxBackRelationsPerRecord 条，按 (created, id) 排序
+ */
+public class RecordBackRelationExpandTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private final CollectionReferenceGraph graph = new CollectionMapper().getReferenceGraph();
+    private final Map<String, CollectionModel> collections = new HashMap<>();
+    private CollectionModel posts;
+
+    private final RecordMapper mapper = new RecordMapper() {
+        @Override
+        public Optional<CollectionModel> findCollectionByNameOrId(String nameOrId) {
+            return Optional.ofNullable(collections.get(nameOrId));
+        }
+    };
+
+    private CollectionModel collection(String name, SchemaField... fields) {
+        CollectionModel collection = new CollectionModel();
+        collection.setId(name);
+        collection.setName(name);
+        collection.setType(PbConstants.CollectionType.Base);
+        collection.setSchema(Schema.newSchema(List.of(fields)));
+        collection.setIndexes(new ArrayList<>());
+        collections.put(name, collection);
+        return collection;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:pb_back_relation;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        MysqlDatabaseOperateImpl operate = new MysqlDatabaseOperateImpl(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        PbManager.setPbDataBaseOperate(operate);
+        PbManager.setPbDbxBuilder(new MysqlPbDbxBuilder(operate));
+        jdbcTemplate.execute("create table comments(id varchar(32) primary key, created varchar(32) default '', post varchar(32) default '')");
+
+        posts = collection("posts");
+        CollectionModel comments = collection("comments", new SchemaField("post", PbConstants.FieldType.Relation).setOptions(new RelationOptions(1, "posts")));
+        graph.rebuild(List.of(posts, comments));
+
+        // p1 has more comments than the per parent limit, created in the reverse order of their ids
+        int count = RecordMapper.MaxBackRelationsPerRecord + 5;
+        List<Object[]> rows = new ArrayList<>(count + 2);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{String.format("c%05d", i), String.format("2024-01-01 %05d", count - i), "p1"});
+        }
+        rows.add(new Object[]{"x2", "2024-01-01 00002", "p2"});
+        rows.add(new Object[]{"x1", "2024-01-01 00002", "p2"});
+        jdbcTemplate.batchUpdate("insert into comments(id, created, post) values (?, ?, ?)", rows);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // the graph is shared, let it be built again from the catalog
+        ReflectUtil.setFieldValue(graph, "snapshot", null);
+        jdbcTemplate.execute("drop table comments");
+    }
+
+    private RecordModel post(String id) {
+        RecordModel record = new RecordModel(posts);
+        record.setId(id);
+        record.setNew(false);
+        return record;
+    }
+
+    private ResultCouple<List<RecordModel>> fetch(CollectionModel collection, List<String> ids) {
+        List<RecordModel> result = ids.stream().map(id -> {
+            RecordModel record = new RecordModel(collection);
+            record.setId(id);
+            return record;
+        }).collect(Collectors.toList());
+        return new ResultCouple<>(result);
+    }
+
+    private static List<String> expandedIds(RecordModel record) {
+        List<RecordModel> rels = (List<RecordModel>) record.expand().get("comments_via_post");
+        return rels.stream().map(RecordModel::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testLimitAndOrderPerParent() {
+        RecordModel p1 = post("p1");
+        RecordModel p2 = post("p2");
+
+        Map<String, Error> failed = mapper.expandRecords(List.of(p1, p2), List.of("comments_via_post"), this::fetch);
+        assertTrue(failed.isEmpty());
+
+        // the oldest MaxBackRelationsPerRecord comments, oldest first
+        List<String> p1Ids = expandedIds(p1);
+        assertEquals(RecordMapper.MaxBackRelationsPerRecord, p1Ids.size());
+        assertEquals("c01004", p1Ids.get(0));
+        assertEquals("c00005", p1Ids.get(p1Ids.size() - 1));
+        List<String> sorted = new ArrayList<>(p1Ids);
+        sorted.sort(Comparator.reverseOrder());
+        assertEquals(sorted, p1Ids);
+
+        // the same created date is ordered by id
+        assertEquals(List.of("x1", "x2"), expandedIds(p2));
+    }
+}
@@ -0,0 +1,246 @@
+package com.picobase.core.logic;
+
+import cn.hutool.core.util.ReflectUtil;
+import com.picobase.PbManager;
+import com.picobase.PbUtil;
+import com.picobase.config.PbConfig;
+import com.picobase.event.IEventReceiver;
+import com.picobase.event.PbEvent;
+import com.picobase.event.PbEventBus;
+import com.picobase.exception.BadRequestException;
+import com.picobase.logic.mapper.CollectionMapper;
+import com.picobase.logic.mapper.CollectionReferenceGraph;
+import com.picobase.logic.mapper.RecordMapper;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.event.RecordsBulkDeleteEvent;
+import com.picobase.model.schema.Schema;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.RelationOptions;
+import com.picobase.persistence.dbx.MysqlPbDbxBuilder;
+import com.picobase.spring.repository.MysqlDatabaseOperateImpl;
+import com.picobase.util.PbConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RecordMapper.cascadeRecordDelete 测试（H2 MySQL 模式）：集合级删除 / 置空，required 引用探测与批量删除事件，
+ * 多值关联通过 pb_relations 索引查找引用记录
+ * <p>
+ * H2 不支持 JSON_TABLE，多值关联移除 id 的 UPDATE 语句只记录不执行。
+ * </p>
+ */
+public class RecordCascadeDeleteTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<String> jsonUpdates = Collections.synchronizedList(new ArrayList<>());
+    private final List<Map<String, ?>> jsonUpdateParams = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final RecordMapper mapper = new RecordMapper();
+    private final CollectionReferenceGraph graph = new CollectionMapper().getReferenceGraph();
+    private CollectionModel users;
+    private CollectionModel posts;
+    private CollectionModel comments;
+
+    private static CollectionModel collection(String name, SchemaField... fields) {
+        CollectionModel collection = new CollectionModel();
+        collection.setId(name);
+        collection.setName(name);
+        collection.setType(PbConstants.CollectionType.Base);
+        collection.setSchema(Schema.newSchema(List.of(fields)));
+        return collection;
+    }
+
+    private static SchemaField relation(String name, String collectionId, boolean cascade, boolean required) {
+        return new SchemaField(name, PbConstants.FieldType.Relation)
+                .setRequired(required)
+                .setOptions(new RelationOptions(1, collectionId).setCascadeDelete(cascade));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:pb_cascade;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource) {
+            @Override
+            public int update(String sql, Map<String, ?> paramMap) {
+                if (sql.contains("JSON_TABLE")) {
+                    jsonUpdates.add(sql);
+                    jsonUpdateParams.add(paramMap);
+                    return 1;
+                }
+                return super.update(sql, paramMap);
+            }
+        };
+        MysqlDatabaseOperateImpl operate = new MysqlDatabaseOperateImpl(jdbcTemplate, namedJdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        PbManager.setPbDataBaseOperate(operate);
+        PbManager.setPbDbxBuilder(new MysqlPbDbxBuilder(operate));
+        PbManager.setPbEventBus(new PbEventBus());
+        PbUtil.registerEventReceiver(RecordsBulkDeleteEvent.class, new IEventReceiver() {
+            @Override
+            public boolean isAsync() {
+                return false;
+            }
+
+            @Override
+            public void invoke(PbEvent event) {
+                RecordsBulkDeleteEvent e = (RecordsBulkDeleteEvent) event;
+                events.add(e.timePosition + ":" + e.collection.getName() + e.records.stream().map(RecordModel::getId).sorted().collect(Collectors.toList()));
+            }
+
+            @Override
+            public Object getBean() {
+                return this;
+            }
+        });
+
+        for (String table : List.of("users", "posts", "comments")) {
+            jdbcTemplate.execute("create table " + table + "(id varchar(32) primary key, created varchar(32) default '', updated varchar(32) default '', " +
+                    "author varchar(32) default '', reviewer varchar(32) default '', post varchar(32) default '', tags varchar(255) default '[]')");
+        }
+        jdbcTemplate.execute("create table pb_relations(collectionId varchar(255), fieldId varchar(255), recordId varchar(255), relId varchar(255), " +
+                "primary key (collectionId, fieldId, recordId, relId))");
+        users = collection("users");
+        posts = collection("posts", relation("author", "users", true, false), relation("reviewer", "users", false, false));
+        comments = collection("comments", relation("post", "posts", true, false));
+        graph.rebuild(List.of(users, posts, comments));
+
+        jdbcTemplate.execute("insert into users(id) values ('u1'), ('u2')");
+        jdbcTemplate.execute("insert into posts(id, author, reviewer) values ('p1', 'u1', 'u2'), ('p2', 'u1', ''), ('p3', 'u2', 'u1')");
+        jdbcTemplate.execute("insert into comments(id, post) values ('c1', 'p1'), ('c2', 'p2'), ('c3', 'p3')");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        // the graph is shared, let it be built again from the catalog
+        ReflectUtil.setFieldValue(graph, "snapshot", null);
+        PbManager.setPbEventBus(null);
+        for (String table : List.of("users", "posts", "comments", "pb_relations")) {
+            jdbcTemplate.execute("drop table " + table);
+        }
+    }
+
+    /**
+     * 为 posts 添加索引的多值关联字段 tags（关联 users），并写入记录的 tags 与索引行
+     */
+    private SchemaField indexedTags(boolean cascade, boolean required, Map<String, List<String>> values) {
+        SchemaField tags = new SchemaField("tags", PbConstants.FieldType.Relation)
+                .setRequired(required)
+                .setOptions(new RelationOptions(10, "users").setCascadeDelete(cascade).setIndexed(true));
+        tags.setId("f_tags");
+        posts.getSchema().addField(tags);
+        graph.rebuild(List.of(users, posts, comments));
+        values.forEach((postId, userIds) -> {
+            jdbcTemplate.update("update posts set tags = ? where id = ?", "[\"" + String.join("\",\"", userIds) + "\"]", postId);
+            userIds.forEach(userId -> jdbcTemplate.update("insert into pb_relations(collectionId, fieldId, recordId, relId) values ('posts', 'f_tags', ?, ?)", postId, userId));
+        });
+        return tags;
+    }
+
+    private List<String> relationRows() {
+        return jdbcTemplate.queryForList("select concat(recordId, '>', relId) from pb_relations order by 1", String.class);
+    }
+
+    private List<String> ids(String table) {
+        return jdbcTemplate.queryForList("select id from " + table + " order by id", String.class);
+    }
+
+    private RecordModel user(String id) {
+        RecordModel record = new RecordModel(users);
+        record.setId(id);
+        return record;
+    }
+
+    @Test
+    public void testCascadeDeleteAndUnset() {
+        jdbcTemplate.execute("delete from users where id = 'u1'");
+        mapper.cascadeRecordDelete(user("u1"), new CollectionMapper().findCollectionReferences(users));
+
+        // author is cascade deleted (including the comments of the deleted posts), reviewer is unset
+        assertEquals(List.of("p3"), ids("posts"));
+        assertEquals(List.of("c3"), ids("comments"));
+        assertEquals("", jdbcTemplate.queryForObject("select reviewer from posts where id = 'p3'", String.class));
+        assertNotEquals("", jdbcTemplate.queryForObject("select updated from posts where id = 'p3'", String.class));
+        assertEquals(List.of(
+                "BEFORE:posts[p1, p2]", "AFTER:posts[p1, p2]",
+                "BEFORE:comments[c1, c2]", "AFTER:comments[c1, c2]"), events);
+    }
+
+    @Test
+    public void testRequiredReference() {
+        posts.getSchema().getFieldByName("reviewer").setRequired(true);
+        graph.rebuild(List.of(users, posts, comments));
+
+        // p1 would be left without its required reviewer (deleteRecord rolls back the whole transaction)
+        BadRequestException e = assertThrows(BadRequestException.class, () -> mapper.cascadeRecordDelete(user("u2"), new CollectionMapper().findCollectionReferences(users)));
+        assertTrue(e.getMessage().contains("reviewer"));
+        assertEquals("u2", jdbcTemplate.queryForObject("select reviewer from posts where id = 'p1'", String.class));
+    }
+
+    @Test
+    public void testIndexedMultipleCascade() {
+        // u2 is the reviewer of p1 and the author of p3, make it a tag-only reference
+        jdbcTemplate.execute("update posts set author = '', reviewer = ''");
+        indexedTags(true, false, Map.of("p1", List.of("u1", "u2"), "p2", List.of("u2"), "p3", List.of("u1")));
+
+        jdbcTemplate.execute("delete from users where id = 'u2'");
+        mapper.cascadeRecordDelete(user("u2"), new CollectionMapper().findCollectionReferences(users));
+
+        // p2 is found through pb_relations and is left without any tag, p1 keeps u1
+        assertEquals(List.of("p1", "p3"), ids("posts"));
+        assertEquals(List.of("c1", "c3"), ids("comments"));
+        assertEquals(List.of("BEFORE:posts[p2]", "AFTER:posts[p2]", "BEFORE:comments[c2]", "AFTER:comments[c2]"), events);
+        assertEquals(List.of("p1>u1", "p3>u1"), relationRows());
+        // the remaining referencing records are updated with a single statement
+        assertEquals(1, jsonUpdates.size());
+    }
+
+    @Test
+    public void testMultipleUnsetSingleStatement() {
+        jdbcTemplate.execute("update posts set author = '', reviewer = ''");
+        indexedTags(false, false, Map.of("p1", List.of("u1", "u2"), "p2", List.of("u1"), "p3", List.of("u2")));
+
+        mapper.cascadeRecordDelete(user("u1"), new CollectionMapper().findCollectionReferences(users));
+
+        // nothing is deleted, u1 is removed from the json array of p1 and p2 with one UPDATE
+        assertEquals(List.of("p1", "p2", "p3"), ids("posts"));
+        assertTrue(events.isEmpty());
+        assertEquals(1, jsonUpdates.size());
+        String sql = jsonUpdates.get(0);
+        assertTrue(sql.startsWith("UPDATE `posts` SET"), sql);
+        // the remaining ids keep their original order
+        assertTrue(sql.contains("JSON_ARRAYAGG(`__je__`.`value`) OVER (ORDER BY `__je__`.`__pos__`"), sql);
+        assertTrue(sql.contains("`pb_relations`"), sql);
+        assertTrue(jsonUpdateParams.get(0).containsValue("u1"));
+        assertEquals(List.of("p1>u2", "p3>u2"), relationRows());
+    }
+
+    @Test
+    public void testIndexedMultipleRequiredReference() {
+        jdbcTemplate.execute("update posts set author = '', reviewer = ''");
+        indexedTags(false, true, Map.of("p1", List.of("u1", "u2"), "p2", List.of("u1")));
+
+        // p2 would be left without any tag
+        BadRequestException e = assertThrows(BadRequestException.class, () -> mapper.cascadeRecordDelete(user("u1"), new CollectionMapper().findCollectionReferences(users)));
+        assertTrue(e.getMessage().contains("tags"));
+        assertTrue(jsonUpdates.isEmpty());
+
+        // p1 still has u1, the probe doesn't fail
+        mapper.cascadeRecordDelete(user("u2"), new CollectionMapper().findCollectionReferences(users));
+        assertEquals(1, jsonUpdates.size());
+        assertEquals(List.of("p1>u1", "p2>u1"), relationRows());
+    }
+}
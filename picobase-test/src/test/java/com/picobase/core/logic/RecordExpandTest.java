@@ -0,0 +1,132 @@
+package com.picobase.core.logic;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.logic.mapper.RecordMapper;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.schema.Schema;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.RelationOptions;
+import com.picobase.persistence.resolver.ResultCouple;
+import com.picobase.util.PbConstants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RecordMapper.expandRecords 测试：多路径按层合并查询，关联记录按 (collection, id) 只查询一次
+ */
+public class RecordExpandTest {
+
+    private final Map<String, CollectionModel> collections = new HashMap<>();
+    private final Map<String, RecordModel> rows = new HashMap<>();
+    private final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+    private final RecordMapper mapper = new RecordMapper() {
+        @Override
+        public Optional<CollectionModel> findCollectionByNameOrId(String nameOrId) {
+            return Optional.ofNullable(collections.get(nameOrId));
+        }
+    };
+
+    private CollectionModel collection(String name, SchemaField... fields) {
+        CollectionModel collection = new CollectionModel();
+        collection.setId(name);
+        collection.setName(name);
+        collection.setType(PbConstants.CollectionType.Base);
+        collection.setSchema(Schema.newSchema(List.of(fields)));
+        collections.put(name, collection);
+        return collection;
+    }
+
+    private static SchemaField relation(String name, String collectionId, int maxSelect) {
+        return new SchemaField(name, PbConstants.FieldType.Relation).setOptions(new RelationOptions(maxSelect, collectionId));
+    }
+
+    private RecordModel record(CollectionModel collection, String id, Map<String, Object> data) {
+        RecordModel record = new RecordModel(collection);
+        record.load(data);
+        record.setId(id);
+        record.setNew(false);
+        rows.put(collection.getId() + "/" + id, record);
+        return record;
+    }
+
+    @BeforeEach
+    public void setUp() {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        CollectionModel users = collection("users", new SchemaField("name", PbConstants.FieldType.Text));
+        CollectionModel tags = collection("tags", relation("owner", "users", 1));
+        collection("posts", relation("author", "users", 1), relation("editor", "users", 1), relation("tags", "tags", 10));
+        record(users, "u1", Map.of("name", "a"));
+        record(users, "u2", Map.of("name", "b"));
+        record(users, "u3", Map.of("name", "c"));
+        record(tags, "t1", Map.of("owner", "u1"));
+        record(tags, "t2", Map.of("owner", "u3"));
+    }
+
+    private ResultCouple<List<RecordModel>> fetch(CollectionModel collection, List<String> ids) {
+        calls.add(collection.getName() + ids.stream().sorted().collect(Collectors.toList()));
+        List<RecordModel> result = ids.stream()
+                .map(id -> rows.get(collection.getId() + "/" + id))
+                .filter(Objects::nonNull)
+                .map(RecordModel::expandCopy)
+                .collect(Collectors.toList());
+        return new ResultCouple<>(result);
+    }
+
+    @Test
+    public void testExpandCoalescesIdsPerCollectionAndLevel() {
+        CollectionModel posts = collections.get("posts");
+        RecordModel p1 = new RecordModel(posts);
+        p1.load(Map.of("author", "u1", "editor", "u2", "tags", List.of("t1", "t2")));
+        p1.setId("p1");
+        RecordModel p2 = new RecordModel(posts);
+        p2.load(Map.of("author", "u2", "editor", "u1", "tags", List.of("t2")));
+        p2.setId("p2");
+
+        Map<String, Error> failed = mapper.expandRecords(List.of(p1, p2), List.of("author", "editor", "tags.owner", "missing"), this::fetch);
+
+        assertEquals(Set.of("missing"), failed.keySet());
+        // level 1: users (author + editor) and tags; level 2: only the not yet fetched owner
+        assertEquals(Set.of("users[u1, u2]", "tags[t1, t2]", "users[u3]"), new HashSet<>(calls));
+        assertEquals(3, calls.size());
+
+        RecordModel author = (RecordModel) p1.expand().get("author");
+        RecordModel editor = (RecordModel) p2.expand().get("editor");
+        assertEquals("u1", author.getId());
+        assertEquals("u1", editor.getId());
+        assertNotSame(author, editor);
+        assertEquals("u2", ((RecordModel) p1.expand().get("editor")).getId());
+
+        List<RecordModel> p1Tags = (List<RecordModel>) p1.expand().get("tags");
+        assertEquals(List.of("t1", "t2"), p1Tags.stream().map(RecordModel::getId).collect(Collectors.toList()));
+        assertEquals("u1", ((RecordModel) p1Tags.get(0).expand().get("owner")).getId());
+        assertEquals("u3", ((RecordModel) p1Tags.get(1).expand().get("owner")).getId());
+        List<RecordModel> p2Tags = (List<RecordModel>) p2.expand().get("tags");
+        assertEquals("u3", ((RecordModel) p2Tags.get(0).expand().get("owner")).getId());
+        assertTrue(author.expand().isEmpty());
+    }
+
+    @Test
+    public void testFailedNestedPathDiscardsParentExpand() {
+        CollectionModel posts = collections.get("posts");
+        RecordModel p1 = new RecordModel(posts);
+        p1.load(Map.of("author", "u1", "editor", "u2", "tags", List.of("t1")));
+        p1.setId("p1");
+
+        Map<String, Error> failed = mapper.expandRecords(List.of(p1), List.of("author.missing", "editor", "tags.missing", "tags.owner"), this::fetch);
+
+        assertEquals(Set.of("author.missing", "tags.missing"), failed.keySet());
+        assertFalse(p1.expand().containsKey("author"));
+        assertEquals("u2", ((RecordModel) p1.expand().get("editor")).getId());
+        // tags.owner succeeded
+        List<RecordModel> tags = (List<RecordModel>) p1.expand().get("tags");
+        assertEquals("u1", ((RecordModel) tags.get(0).expand().get("owner")).getId());
+    }
+}
@@ -0,0 +1,125 @@
+package com.picobase.core.logic;
+
+import com.picobase.PbManager;
+import com.picobase.PbUtil;
+import com.picobase.config.PbConfig;
+import com.picobase.logic.mapper.RelationIndex;
+import com.picobase.model.CollectionModel;
+import com.picobase.model.RecordModel;
+import com.picobase.model.schema.Schema;
+import com.picobase.model.schema.SchemaField;
+import com.picobase.model.schema.fieldoptions.RelationOptions;
+import com.picobase.persistence.dbx.MysqlPbDbxBuilder;
+import com.picobase.spring.repository.MysqlDatabaseOperateImpl;
+import com.picobase.util.PbConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.picobase.persistence.dbx.expression.Expression.and;
+import static com.picobase.persistence.dbx.expression.Expression.not;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RelationIndex 测试（H2 MySQL 模式）：索引行维护、back-relation 查询与级联删除使用的条件
+ */
+public class RelationIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CollectionModel posts;
+    private SchemaField tags;
+
+    @BeforeEach
+    public void setUp() {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:pb_relation_index;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        MysqlDatabaseOperateImpl operate = new MysqlDatabaseOperateImpl(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        PbManager.setPbDataBaseOperate(operate);
+        PbManager.setPbDbxBuilder(new MysqlPbDbxBuilder(operate));
+        jdbcTemplate.execute("create table pb_relations(collectionId varchar(255), fieldId varchar(255), recordId varchar(255), relId varchar(255), " +
+                "primary key (collectionId, fieldId, recordId, relId))");
+        jdbcTemplate.execute("create table posts(id varchar(32) primary key, created varchar(32) default '', tags varchar(255))");
+
+        tags = new SchemaField("tags", PbConstants.FieldType.Relation).setOptions(new RelationOptions(10, "tags").setIndexed(true));
+        tags.setId("f_tags");
+        posts = new CollectionModel();
+        posts.setId("c_posts");
+        posts.setName("posts");
+        posts.setType(PbConstants.CollectionType.Base);
+        posts.setSchema(Schema.newSchema(List.of(tags, new SchemaField("author", PbConstants.FieldType.Relation).setOptions(new RelationOptions(1, "users").setIndexed(true)))));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("drop table pb_relations");
+        jdbcTemplate.execute("drop table posts");
+    }
+
+    private RecordModel post(String id, String created, List<String> tagIds) {
+        RecordModel record = new RecordModel(posts);
+        record.load(Map.of("tags", tagIds, "author", "u1"));
+        record.setId(id);
+        jdbcTemplate.update("insert into posts(id, created, tags) values (?, ?, ?)", id, created, String.join(",", tagIds));
+        RelationIndex.index(record);
+        return record;
+    }
+
+    /**
+     * 模拟 RecordUpsert：记录以数据库中的值作为原始值加载，再修改字段
+     */
+    private void update(String id, List<String> oldTagIds, Map<String, Object> changes) {
+        RecordModel record = new RecordModel(posts);
+        record.load(Map.of("tags", oldTagIds, "author", "u1"));
+        record.setId(id);
+        record.load(changes);
+        RelationIndex.sync(record);
+    }
+
+    private List<String> rows() {
+        return jdbcTemplate.queryForList("select concat(recordId, '>', relId) from pb_relations where fieldId = 'f_tags' order by 1", String.class);
+    }
+
+    @Test
+    public void testSyncAndQueries() {
+        // single relations are never indexed
+        assertEquals(List.of(tags), RelationIndex.indexedFields(posts));
+
+        post("p1", "2024-01-02", List.of("t1", "t2"));
+        post("p2", "2024-01-01", List.of("t2"));
+        update("p1", List.of("t1", "t2"), Map.of("tags", List.of("t2", "t3")));
+        assertEquals(List.of("p1>t2", "p1>t3", "p2>t2"), rows());
+
+        // unchanged relation fields are not synced again
+        jdbcTemplate.update("delete from pb_relations where recordId = 'p2'");
+        update("p2", List.of("t2"), Map.of("tags", List.of("t2"), "author", "u2"));
+        assertEquals(List.of("p1>t2", "p1>t3"), rows());
+        jdbcTemplate.update("insert into pb_relations(collectionId, fieldId, recordId, relId) values ('c_posts', 'f_tags', 'p2', 't2')");
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from pb_relations where fieldId <> 'f_tags'", Integer.class));
+
+        // ordered by (created, id) per relId
+        assertEquals(List.of("p2>t2", "p1>t2"), RelationIndex.findBackRelations(posts, tags, List.of("t2"), 10).stream()
+                .map(r -> r[0] + ">" + r[1]).collect(Collectors.toList()));
+        assertEquals(List.of("p2>t2"), RelationIndex.findBackRelations(posts, tags, List.of("t2"), 1).stream()
+                .map(r -> r[0] + ">" + r[1]).collect(Collectors.toList()));
+
+        // records left without any relation when t2 is deleted
+        var orphaned = and(RelationIndex.referencing("`posts`.`id`", posts, tags, List.of("t2")),
+                not(RelationIndex.referencingOthers("`posts`.`id`", posts, tags, List.of("t2"))));
+        assertEquals(List.of("p2"), PbUtil.getPbDbxBuilder().select("id").from("posts").andWhere(orphaned).all((rs, rowNum) -> rs.getString(1)));
+
+        RelationIndex.deleteRelIds(posts, tags, List.of("t2"));
+        RelationIndex.deleteRecords(posts, List.of("p2"));
+        assertEquals(List.of("p1>t3"), rows());
+    }
+}
@@ -0,0 +1,142 @@
+package com.picobase.core.persistence;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.persistence.repository.ModifyRequest;
+import com.picobase.spring.repository.MysqlDatabaseOperateImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PbDatabaseOperate.update 批量执行测试（H2 MySQL 模式），通过统计 JdbcTemplate 的调用次数确认相邻的同构语句被合并为 JDBC batch
+ */
+public class BatchUpdateTest {
+
+    private static final String INSERT_SQL = "insert into pb_batch(id,name) values(?,?)";
+
+    private CountingJdbcTemplate jdbcTemplate;
+    private MysqlDatabaseOperateImpl operate;
+
+    @BeforeEach
+    public void setUp() {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:pb_batch;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new CountingJdbcTemplate(dataSource);
+        operate = new MysqlDatabaseOperateImpl(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        jdbcTemplate.execute("create table pb_batch(id varchar(32) primary key, name varchar(64))");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("drop table pb_batch");
+    }
+
+    private List<ModifyRequest> inserts(String prefix, int size) {
+        List<ModifyRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            requests.add(new ModifyRequest(INSERT_SQL).setArgs(new Object[]{prefix + i, "name" + i}));
+        }
+        return requests;
+    }
+
+    /**
+     * 统计逐条执行与 batch 执行的调用次数
+     */
+    private static class CountingJdbcTemplate extends JdbcTemplate {
+        private final AtomicInteger singleUpdates = new AtomicInteger();
+        private final AtomicInteger batchUpdates = new AtomicInteger();
+
+        CountingJdbcTemplate(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            singleUpdates.incrementAndGet();
+            return super.update(sql, args);
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            batchUpdates.incrementAndGet();
+            return super.batchUpdate(sql, batchArgs);
+        }
+
+        void reset() {
+            singleUpdates.set(0);
+            batchUpdates.set(0);
+        }
+    }
+
+    private void insert1k(String prefix, int batchSize) {
+        PbManager.getConfig().setDbBatchSize(batchSize);
+        jdbcTemplate.reset();
+        AtomicReference<Integer> rows = new AtomicReference<>();
+        assertTrue(operate.update(inserts(prefix, 1000), (row, e) -> rows.set(row)));
+        assertEquals(1000, rows.get());
+    }
+
+    @Test
+    public void testBatchInsert1k() {
+        insert1k("s", 1);
+        assertEquals(1000, jdbcTemplate.singleUpdates.get());
+        assertEquals(0, jdbcTemplate.batchUpdates.get());
+
+        insert1k("b", 500);
+        assertEquals(0, jdbcTemplate.singleUpdates.get());
+        assertEquals(2, jdbcTemplate.batchUpdates.get());
+
+        insert1k("c", 300);
+        assertEquals(0, jdbcTemplate.singleUpdates.get());
+        assertEquals(4, jdbcTemplate.batchUpdates.get());
+
+        assertEquals(3000, jdbcTemplate.queryForObject("select count(*) from pb_batch", Integer.class));
+    }
+
+    @Test
+    public void testMixedStatementsKeepOrder() {
+        List<ModifyRequest> requests = new ArrayList<>(inserts("a", 3));
+        requests.add(new ModifyRequest("update pb_batch set name = :name where id = :id").setNamedArgs(Map.of("id", "a1", "name", "changed")));
+        requests.add(new ModifyRequest("update pb_batch set name = :name where id = :id").setNamedArgs(Map.of("id", "a2", "name", "changed")));
+        requests.add(new ModifyRequest("delete from pb_batch where id = ?").setArgs(new Object[]{"a0"}));
+
+        AtomicReference<Integer> rows = new AtomicReference<>();
+        assertTrue(operate.update(requests, (row, e) -> rows.set(row)));
+        assertEquals(6, rows.get());
+        assertEquals(List.of("changed", "changed"), jdbcTemplate.queryForList("select name from pb_batch order by id", String.class));
+    }
+
+    @Test
+    public void testRollBackOnUpdateFail() {
+        List<ModifyRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(new ModifyRequest("update pb_batch set name = 'x' where id = ?").setArgs(new Object[]{"missing" + i}).setRollBackOnUpdateFail(true));
+        }
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        assertFalse(operate.update(requests, (row, e) -> error.set(e)));
+        assertTrue(error.get() instanceof IllegalTransactionStateException);
+
+        error.set(null);
+        requests = inserts("r", 3);
+        requests.add(new ModifyRequest("insert into pb_batch(id,name) values(?,?)").setArgs(new Object[]{"r0", "duplicate"}));
+        assertFalse(operate.update(requests, (row, e) -> error.set(e)));
+        assertNotNull(error.get());
+    }
+}
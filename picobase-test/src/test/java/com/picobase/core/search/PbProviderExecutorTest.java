@@ -0,0 +1,44 @@
+package com.picobase.core.search;
+
+import com.picobase.PbManager;
+import com.picobase.config.PbConfig;
+import com.picobase.config.PbProviderConfig;
+import com.picobase.search.PbProviderExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PbProviderExecutor 测试：被取消的任务（包括仍在排队的任务）归还许可
+ */
+public class PbProviderExecutorTest {
+
+    @Test
+    public void testCancelReleasesPermits() throws Exception {
+        PbManager.setConfig(new PbConfig().setIsPrint(false));
+        PbProviderExecutor executor = new PbProviderExecutor(new PbProviderConfig()
+                .setVirtualThreads(false).setMaxConcurrency(2).setAcquireTimeout(-1));
+        try {
+            int cancelled = 0;
+            for (int i = 0; i < 2000; i++) {
+                Future<Integer> future = executor.submitCount(() -> 1);
+                // most of them are still queued when cancelled, like a count whose data query failed
+                if (future.cancel(true)) {
+                    cancelled++;
+                }
+            }
+            assertTrue(cancelled > 0);
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((int) executor.getMetrics().get("availablePermits") < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, executor.getMetrics().get("availablePermits"));
+            assertEquals(0, executor.getQueueDepth());
+        } finally {
+            executor.destroy();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.picobase.core.search;
+
+import com.picobase.cache.SegmentedLruCache;
+import com.picobase.persistence.dbx.expression.Expression;
+import com.picobase.persistence.resolver.FieldResolver;
+import com.picobase.search.SearchFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchFilterTest {
+
+    private final FieldResolver resolver = FieldResolver.newSimpleFieldResolver("title", "total", "tags", "meta.*");
+
+    /**
+     * 生成 SQL 并用参数值替换占位符名称，便于比较占位符命名不同的两个表达式
+     */
+    private String render(Expression expr) {
+        Map<String, Object> params = new HashMap<>();
+        String sql = expr.build(params);
+        List<String> names = new ArrayList<>(params.keySet());
+        names.sort(Comparator.comparingInt(String::length).reversed());
+        for (String name : names) {
+            sql = sql.replace(":" + name, "[" + params.get(name) + "]");
+        }
+        return sql;
+    }
+
+    private void assertSameAsLiteral(String filter, Map<String, Object> placeholders, String literalFilter) {
+        String actual = render(new SearchFilter(filter).buildExpr(resolver, placeholders));
+        String expected = render(new SearchFilter(literalFilter).buildExpr(resolver));
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testPlaceholderShapeMatchesLiteralFilter() {
+        assertSameAsLiteral("title = :name", Map.of("name", "abc"), "title = 'abc'");
+        assertSameAsLiteral("title = :name", Map.of("name", ""), "title = ''");
+        assertSameAsLiteral("title ~ :name", Map.of("name", "it's"), "title ~ 'it\\\\'s'");
+        assertSameAsLiteral("total > :min && total < :max", Map.of("min", 1, "max", 2.5), "total > 1 && total < 2.5");
+        assertSameAsLiteral("(title = :name || total >= :min) && title != :name", Map.of("name", "x\"y", "min", 3),
+                "(title = 'x\\\"y' || total >= 3) && title != 'x\\\"y'");
+        Map<String, Object> nullValue = new HashMap<>();
+        nullValue.put("name", null);
+        assertSameAsLiteral("title = :name", nullValue, "title = null");
+        assertSameAsLiteral("title = :flag", Map.of("flag", true), "title = true");
+    }
+
+    @Test
+    public void testPlaceholderShapeIsCachedOnce() {
+        String filter = "title = :name && total > :min && total < 12345";
+        long missBefore = (long) SearchFilter.cacheStats().get("missCount");
+        for (int i = 0; i < 20; i++) {
+            assertNotNull(new SearchFilter(filter).buildExpr(resolver, Map.of("name", "v" + i, "min", i)));
+        }
+        long misses = (long) SearchFilter.cacheStats().get("missCount") - missBefore;
+        assertEquals(1, misses);
+    }
+
+    @Test
+    public void testPositionalPlaceholderNames() {
+        String filter = "title = 'abc' && (total > 1 || title ~ :name)";
+        Map<String, Object> first = new HashMap<>();
+        Map<String, Object> second = new HashMap<>();
+        String sql1 = new SearchFilter(filter).buildExpr(FieldResolver.newSimpleFieldResolver("title", "total"), Map.of("name", "x")).build(first);
+        String sql2 = new SearchFilter(filter).buildExpr(FieldResolver.newSimpleFieldResolver("title", "total"), Map.of("name", "y")).build(second);
+        assertEquals(sql1, sql2);
+        assertEquals(Set.of("t0", "t1", "t2"), first.keySet());
+        assertEquals("%y%", second.get("t2"));
+
+        // names stay unique for all filters resolved with the same resolver
+        FieldResolver shared = FieldResolver.newSimpleFieldResolver("title");
+        Map<String, Object> params = new HashMap<>();
+        new SearchFilter("title = 'a'").buildExpr(shared).build(params);
+        new SearchFilter("title = 'b'").buildExpr(shared).build(params);
+        assertEquals(Map.of("t0", "a", "t1", "b"), params);
+    }
+
+    @Test
+    public void testCombinedResolversDoNotShareNames() {
+        // eg. a caller built filter passed to PbUtil.queryPage that creates its own resolver internally
+        List<String> sqls = new ArrayList<>();
+        for (String value : List.of("x", "y")) {
+            Expression callerExpr = new SearchFilter("title = '" + value + "'").buildExpr(FieldResolver.newSimpleFieldResolver("title"));
+            Expression providerExpr = new SearchFilter("title = 'provider' && total > 5").buildExpr(FieldResolver.newSimpleFieldResolver("title", "total"));
+
+            Map<String, Object> params = new HashMap<>();
+            String sql = Expression.and(callerExpr, providerExpr).build(params);
+            assertEquals(Map.of("t0", value, "t0_1", "provider", "t1", 5.0), params);
+            sqls.add(sql);
+        }
+        // the renamed names repeat across requests
+        assertEquals(sqls.get(0), sqls.get(1));
+    }
+
+    @Test
+    public void testPlaceholderInsideTextFallsBackToRawFilter() {
+        // the placeholder is part of a bigger quoted text and can't be bound as a standalone operand
+        assertSameAsLiteral("title ~ 'x:n'", Map.of("n", 5), "title ~ 'x5'");
+    }
+
+    @Test
+    public void testSegmentedLruCache() {
+        SegmentedLruCache<String, Integer> cache = new SegmentedLruCache<>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put("k" + i, i);
+        }
+        // promote k0 to the protected segment
+        assertEquals(0, cache.get("k0"));
+        for (int i = 10; i < 20; i++) {
+            cache.put("k" + i, i);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(0, cache.get("k0"));
+        assertNull(cache.get("k1"));
+        assertEquals(10, cache.getEvictionCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.put("expired", 1, System.currentTimeMillis() - 1);
+        assertNull(cache.get("expired"));
+        assertEquals(5, cache.get("loaded", k -> 5));
+        assertEquals(5, cache.get("loaded"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.picobase.core.secure;
+
+import com.picobase.config.PbPasswordConfig;
+import com.picobase.exception.TooManyRequestsException;
+import com.picobase.secure.BCrypt;
+import com.picobase.secure.PbPasswordHasher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PbPasswordHasher 测试：哈希校验、成本因子重新哈希、尝试次数限制（含并发首次尝试与账号归一化）、繁忙拒绝与等待超时
+ */
+public class PbPasswordHasherTest {
+
+    @Test
+    public void testHashAndRehash() {
+        PbPasswordHasher hasher = new PbPasswordHasher(new PbPasswordConfig().setCost(5));
+        try {
+            String hash = hasher.hash("123456");
+            assertTrue(hash.startsWith("$2a$05$"));
+            assertTrue(hasher.verify("123456", hash));
+            assertFalse(hasher.verify("1234567", hash));
+            assertFalse(hasher.verify("123456", ""));
+            assertFalse(hasher.needsRehash(hash));
+            assertNull(hasher.rehashIfNeeded("123456", hash));
+
+            // hashes created with another cost are upgraded on login
+            String legacy = BCrypt.hashpw("123456", BCrypt.gensalt(4));
+            assertTrue(hasher.needsRehash(legacy));
+            String rehashed = hasher.rehashIfNeeded("123456", legacy);
+            assertTrue(rehashed.startsWith("$2a$05$"));
+            assertTrue(hasher.verify("123456", rehashed));
+
+            assertFalse(hasher.needsRehash("not a bcrypt hash"));
+        } finally {
+            hasher.destroy();
+        }
+    }
+
+    @Test
+    public void testAttemptThrottle() {
+        PbPasswordHasher hasher = new PbPasswordHasher(new PbPasswordConfig().setMaxAttempts(3).setAttemptWindow(60_000));
+        try {
+            for (int i = 0; i < 3; i++) {
+                hasher.acquireAttempt("users:a@example.com");
+            }
+            assertThrows(TooManyRequestsException.class, () -> hasher.acquireAttempt("users:a@example.com"));
+            // other identities are not affected
+            hasher.acquireAttempt("users:b@example.com");
+
+            hasher.resetAttempts("users:a@example.com");
+            hasher.acquireAttempt("users:a@example.com");
+
+            // case and whitespace variants of the same account share one counter
+            assertEquals("users:d@example.com", PbPasswordHasher.attemptIdentity("users", " D@Example.com "));
+            for (int i = 0; i < 3; i++) {
+                hasher.acquireAttempt(PbPasswordHasher.attemptIdentity("users", i == 0 ? "d@example.com" : " D@EXAMPLE.com"));
+            }
+            assertThrows(TooManyRequestsException.class, () -> hasher.acquireAttempt(PbPasswordHasher.attemptIdentity("users", "D@example.COM ")));
+            assertNull(PbPasswordHasher.attemptIdentity("users", null));
+        } finally {
+            hasher.destroy();
+        }
+    }
+
+    @Test
+    public void testCallerWaitIsBounded() {
+        PbPasswordHasher hasher = new PbPasswordHasher(new PbPasswordConfig().setCost(16).setWorkers(1).setMaxWait(50));
+        try {
+            long start = System.nanoTime();
+            // a cost 16 hash takes seconds, the caller gives up after maxWait
+            assertThrows(TooManyRequestsException.class, () -> hasher.hash("123456"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            assertEquals(1L, hasher.getMetrics().get("timedOut"));
+        } finally {
+            hasher.destroy();
+        }
+    }
+
+    @Test
+    public void testConcurrentFirstAttempts() throws Exception {
+        PbPasswordHasher hasher = new PbPasswordHasher(new PbPasswordConfig().setMaxAttempts(5).setAttemptWindow(60_000));
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger throttled = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    try {
+                        hasher.acquireAttempt("users:c@example.com");
+                    } catch (TooManyRequestsException e) {
+                        throttled.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            // all callers count on the same counter, exactly maxAttempts get through
+            assertEquals(32 - 5, throttled.get());
+        } finally {
+            callers.shutdownNow();
+            hasher.destroy();
+        }
+    }
+
+    @Test
+    public void testBusyRejection() throws Exception {
+        PbPasswordHasher hasher = new PbPasswordHasher(new PbPasswordConfig().setCost(12).setWorkers(1).setQueueSize(1).setMaxWait(1));
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger busy = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    try {
+                        hasher.hash("123456");
+                    } catch (TooManyRequestsException e) {
+                        busy.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            // a single worker with a single queue slot cannot accept 8 concurrent slow hashes
+            assertTrue(busy.get() > 0);
+            assertEquals((long) busy.get(), (long) hasher.getMetrics().get("rejected") + (long) hasher.getMetrics().get("timedOut"));
+        } finally {
+            callers.shutdownNow();
+            hasher.destroy();
+        }
+    }
+}
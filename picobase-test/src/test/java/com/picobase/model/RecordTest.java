@@ -1,5 +1,6 @@
 package com.picobase.model;
 
+import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.json.JSONUtil;
 import com.picobase.model.schema.Schema;
 import com.picobase.model.schema.SchemaField;
@@ -11,6 +12,8 @@ import org.json.JSONException;
 import org.junit.jupiter.api.Test;
 import org.skyscreamer.jsonassert.JSONAssert;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -84,4 +87,39 @@ public class RecordTest {
         System.out.println(raw);
 
     }
+
+    @Test
+    public void testSchemaFieldIndex() {
+        Schema schema = Schema.newSchema();
+        schema.addField(new SchemaField("title", PbConstants.FieldType.Text).setId("f1"));
+        schema.getFields().add(new SchemaField("tags", PbConstants.FieldType.Select).setId("f2"));
+
+        assertEquals("f1", schema.getFieldByName("title").getId());
+        assertEquals("tags", schema.getFieldById("f2").getName());
+        assertNull(schema.getFieldByName("missing"));
+        // changes of fields outside of the schema don't rebuild its index
+        Object index = ReflectUtil.getFieldValue(schema, "index");
+        new SchemaField().setId("_tmp").setName("tmp");
+        schema.getFieldByName("title");
+        assertSame(index, ReflectUtil.getFieldValue(schema, "index"));
+
+        // replace by id
+        schema.addField(new SchemaField("name", PbConstants.FieldType.Text).setId("f1"));
+        assertNull(schema.getFieldByName("title"));
+        assertEquals("f1", schema.getFieldByName("name").getId());
+
+        // in place changes
+        schema.getFieldById("f2").setName("labels");
+        assertEquals("f2", schema.getFieldByName("labels").getId());
+        assertNull(schema.getFieldByName("tags"));
+        schema.getFields().remove(1);
+        assertNull(schema.getFieldById("f2"));
+        assertEquals(1, schema.asMap().size());
+
+        // the clone doesn't share fields with the original schema
+        Schema clone = schema.clone();
+        clone.getFieldById("f1").setName("renamed");
+        assertEquals("f1", schema.getFieldByName("name").getId());
+        assertEquals("f1", clone.getFieldByName("renamed").getId());
+    }
 }